@@ -0,0 +1,105 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core.collections;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded collection which overwrites its oldest element once the capacity is reached.
+ *
+ * The slots are preallocated and adding an element only claims the next sequence number,
+ * so writers never block each other or wait for readers.
+ *
+ * Iteration is weakly consistent: it starts at the oldest element at the time the iterator
+ * was created, skips slots which were claimed but not yet written and may return elements
+ * that were added while iterating in place of overwritten ones.
+ */
+public class RingBuffer<E> extends AbstractCollection<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int capacity;
+
+    public RingBuffer(int capacity) {
+        assert capacity > 0 : "capacity must be greater than 0";
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long seq = sequence.getAndIncrement();
+        slots.set((int) (seq % capacity), e);
+        return true;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(sequence.get(), capacity);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final long end = sequence.get();
+        final long start = Math.max(0, end - capacity);
+        return new Iterator<E>() {
+
+            private long position = start;
+            private E next = null;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && position < end) {
+                    next = slots.get((int) (position++ % capacity));
+                }
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                E e = next;
+                next = null;
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("elements can't be removed from a RingBuffer");
+            }
+        };
+    }
+}
@@ -19,8 +19,10 @@
  * software solely pursuant to the terms of the relevant commercial agreement.
  */
 
+
 package io.crate.core.collections;
 
+import com.google.common.collect.ImmutableList;
 import io.crate.test.integration.CrateUnitTest;
 import org.junit.Test;
 
@@ -28,13 +30,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 
-public class BlockingEvictingQueueTest extends CrateUnitTest {
+public class RingBufferTest extends CrateUnitTest {
 
     @Test
-    public void testOffer() throws Exception {
-        final BlockingEvictingQueue<String> strings = new BlockingEvictingQueue<>(15_000);
+    public void testConcurrentAdd() throws Exception {
+        final RingBuffer<String> strings = new RingBuffer<>(15_000);
 
         int THREADS = 20;
         final CountDownLatch latch = new CountDownLatch(THREADS);
@@ -56,8 +59,25 @@ public class BlockingEvictingQueueTest extends CrateUnitTest {
 
         latch.await();
         assertThat(strings.size(), is(15_000));
+        int count = 0;
+        for (String string : strings) {
+            count++;
+        }
+        assertThat(count, is(15_000));
         for (Thread thread : threads) {
             thread.join();
         }
     }
+
+    @Test
+    public void testOldestElementsAreOverwritten() throws Exception {
+        RingBuffer<Integer> ints = new RingBuffer<>(3);
+        ints.addAll(ImmutableList.of(1, 2));
+        assertThat(ints.size(), is(2));
+        assertThat(ints, contains(1, 2));
+
+        ints.addAll(ImmutableList.of(3, 4, 5));
+        assertThat(ints.size(), is(3));
+        assertThat(ints, contains(3, 4, 5));
+    }
 }
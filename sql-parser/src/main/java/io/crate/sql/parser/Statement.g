@@ -206,6 +206,7 @@ statement
     | updateStmt
     | COPY copyStatement -> copyStatement
     | refreshStmt
+    | analyzeStmt
     | setStmt
     | resetStmt
     | killStmt
@@ -645,8 +646,9 @@ frameBound
       )
     ;
 
+// ANALYZE is only the option if a statement follows, otherwise it is the explained ANALYZE statement
 explainStmt
-    : EXPLAIN explainOptions? statement -> ^(EXPLAIN explainOptions? statement)
+    : EXPLAIN ((ANALYZE explainOptions? statement) => ANALYZE)? explainOptions? statement -> ^(EXPLAIN ANALYZE? explainOptions? statement)
     ;
 
 explainOptions
@@ -1029,6 +1031,10 @@ refreshStmt
     : REFRESH TABLE tableWithPartitionList -> ^(REFRESH tableWithPartitionList)
     ;
 
+analyzeStmt
+    : ANALYZE ( table ( ',' table )* )? -> ^(ANALYZE table*)
+    ;
+
 setStmt
     : SET GLOBAL settingsType? assignmentList -> ^(SET settingsType? assignmentList)
     ;
@@ -1048,7 +1054,7 @@ killStmt
     ;
 
 nonReserved
-    : ALIAS | ANALYZER | BERNOULLI | BLOB | CATALOGS | CHAR_FILTERS | CLUSTERED
+    : ALIAS | ANALYZE | ANALYZER | BERNOULLI | BLOB | CATALOGS | CHAR_FILTERS | CLUSTERED
     | COLUMNS | COPY | CURRENT | DATE | DAY | DISTRIBUTED | DUPLICATE | DYNAMIC | EXPLAIN
     | EXTENDS | FOLLOWING | FORMAT | FULLTEXT | FUNCTIONS | GEO_POINT | GLOBAL
     | GRAPHVIZ | HOUR | IGNORED | INTERVAL | KEY | KILL | LOGICAL | MATERIALIZED | MINUTE
@@ -1214,6 +1220,7 @@ IGNORED: 'IGNORED';
 
 ARRAY: 'ARRAY';
 
+ANALYZE: 'ANALYZE';
 ANALYZER: 'ANALYZER';
 EXTENDS: 'EXTENDS';
 TOKENIZER: 'TOKENIZER';
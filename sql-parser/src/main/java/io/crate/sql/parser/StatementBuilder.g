@@ -94,6 +94,7 @@ statement returns [Statement value]
     | copyTo                    { $value = $copyTo.value; }
     | createAnalyzer            { $value = $createAnalyzer.value; }
     | refresh                   { $value = $refresh.value; }
+    | analyze                   { $value = $analyze.value; }
     | set                       { $value = $set.value; }
     | resetStatement            { $value = $resetStatement.value; }
     | killStatement             { $value = $killStatement.value; }
@@ -576,7 +577,7 @@ whenList returns [List<WhenClause> value = new ArrayList<>()]
     ;
 
 explain returns [Statement value]
-    : ^(EXPLAIN explainOptions? statement) { $value = new Explain($statement.value, $explainOptions.value); }
+    : ^(EXPLAIN analyze=ANALYZE? explainOptions? statement) { $value = new Explain($statement.value, $explainOptions.value, $analyze != null); }
     ;
 
 explainOptions returns [List<ExplainOption> value = new ArrayList<>()]
@@ -980,6 +981,11 @@ tableWithPartitionList returns [List<Table> value = new ArrayList<>()]
     : ^(TABLE_PARTITION_LIST ( namedTable { $value.add($namedTable.value); })+ )
     ;
 
+analyze returns [AnalyzeStatement value]
+    @init { List<Table> tables = new ArrayList<>(); }
+    : ^(ANALYZE ( namedTable { tables.add($namedTable.value); } )* ) { $value = new AnalyzeStatement(tables); }
+    ;
+
 set returns [SetStatement value]
     : ^(SET assignments=assignmentList) { $value = new SetStatement($assignments.value); }
     | ^(SET TRANSIENT assignments=assignmentList) { $value = new SetStatement(SetStatement.SettingType.TRANSIENT, $assignments.value); }
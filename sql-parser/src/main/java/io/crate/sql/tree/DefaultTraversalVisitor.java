@@ -490,6 +490,14 @@ public abstract class DefaultTraversalVisitor<R, C>
         return null;
     }
 
+    @Override
+    public R visitAnalyzeStatement(AnalyzeStatement node, C context) {
+        for (Table nodeTable : node.tables()) {
+            process(nodeTable, context);
+        }
+        return null;
+    }
+
     @Override
     public R visitMatchPredicate(MatchPredicate node, C context)
     {
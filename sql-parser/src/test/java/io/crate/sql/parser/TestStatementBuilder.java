@@ -50,6 +50,8 @@ public class TestStatementBuilder
     {
         printStatement("select * from foo");
         printStatement("explain select * from foo");
+        printStatement("explain analyze select * from foo");
+        printStatement("explain analyze (format text) select * from foo");
 
         printStatement("select * from foo a (x, y, z)");
 
@@ -210,6 +212,10 @@ public class TestStatementBuilder
         printStatement("refresh table tableh partition (pcol=?)");
         printStatement("refresh table tableh partition (pcol['nested'] = ?)");
 
+        printStatement("analyze");
+        printStatement("analyze t");
+        printStatement("analyze t, schemah.tableh");
+
         printStatement("alter table t set (number_of_replicas=4)");
         printStatement("alter table schema.t set (number_of_replicas=4)");
         printStatement("alter table t reset (number_of_replicas)");
@@ -315,6 +321,26 @@ public class TestStatementBuilder
         printStatement("insert into foo (select sum(money), name from bar group by name)");
     }
 
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        Explain explain = (Explain) SqlParser.createStatement("explain analyze select * from foo");
+        assertTrue(explain.isAnalyze());
+        assertThat(explain.getStatement(), instanceOf(Query.class));
+
+        explain = (Explain) SqlParser.createStatement("explain analyze (format text) analyze foo");
+        assertTrue(explain.isAnalyze());
+        assertThat(explain.getStatement(), instanceOf(AnalyzeStatement.class));
+
+        // without a following statement ANALYZE is the explained statement
+        explain = (Explain) SqlParser.createStatement("explain analyze foo");
+        assertFalse(explain.isAnalyze());
+        assertThat(explain.getStatement(), instanceOf(AnalyzeStatement.class));
+
+        explain = (Explain) SqlParser.createStatement("explain analyze");
+        assertFalse(explain.isAnalyze());
+        assertThat(explain.getStatement(), instanceOf(AnalyzeStatement.class));
+    }
+
     @Test
     public void testSetGlobal() throws Exception {
         printStatement("set global sys.cluster['some_settings'] = '1'");
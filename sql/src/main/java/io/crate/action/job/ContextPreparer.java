@@ -34,6 +34,7 @@ import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
+import io.crate.executor.transport.distributed.DistributingDownstream;
 import io.crate.executor.transport.distributed.SingleBucketBuilder;
 import io.crate.jobs.*;
 import io.crate.metadata.Routing;
@@ -46,6 +47,9 @@ import io.crate.operation.collect.MapSideDataCollectOperation;
 import io.crate.operation.count.CountOperation;
 import io.crate.operation.fetch.FetchContext;
 import io.crate.operation.join.NestedLoopOperation;
+import io.crate.operation.profile.JobProfile;
+import io.crate.operation.profile.PhaseProfile;
+import io.crate.operation.profile.ProfilingRowReceiver;
 import io.crate.operation.projectors.FlatProjectorChain;
 import io.crate.operation.projectors.RowDownstreamFactory;
 import io.crate.operation.projectors.RowReceiver;
@@ -110,8 +114,20 @@ public class ContextPreparer {
                                                           Iterable<? extends NodeOperation> nodeOperations,
                                                           JobExecutionContext.Builder contextBuilder,
                                                           SharedShardContexts sharedShardContexts) {
+        return prepareOnRemote(jobId, nodeOperations, contextBuilder, sharedShardContexts, null);
+    }
+
+    /**
+     * @param jobProfile if not null the prepared phases are instrumented and their runtime profiles
+     *                   are recorded into the given jobProfile
+     */
+    public List<ListenableFuture<Bucket>> prepareOnRemote(UUID jobId,
+                                                          Iterable<? extends NodeOperation> nodeOperations,
+                                                          JobExecutionContext.Builder contextBuilder,
+                                                          SharedShardContexts sharedShardContexts,
+                                                          @Nullable JobProfile jobProfile) {
         PreparerContext preparerContext = new PreparerContext(jobId, rowDownstreamFactory, nodeOperations,
-                sharedShardContexts);
+                sharedShardContexts, jobProfile);
         List<ListenableFuture<Bucket>> directResponseFutures = new ArrayList<>();
         processDownstreamExecutionPhaseIds(nodeOperations, preparerContext);
 
@@ -134,9 +150,28 @@ public class ContextPreparer {
                                                       Iterable<? extends NodeOperation> nodeOperations,
                                                       JobExecutionContext.Builder contextBuilder,
                                                       List<Tuple<ExecutionPhase, RowReceiver>> handlerPhases,
-                                                      @Nullable SharedShardContexts sharedShardContexts) {
+                                                      @Nullable SharedShardContexts sharedShardContexts,
+                                                      @Nullable JobProfile jobProfile) {
+        return prepareOnHandler(jobId, nodeOperations, contextBuilder, handlerPhases, sharedShardContexts,
+                jobProfile, new ArrayList<ListenableFuture<Bucket>>(0));
+    }
+
+    /**
+     * Prepares the handler phases together with the node operations which run on the handler node.
+     *
+     * Node operations with a DIRECT_RESPONSE downstream are wired in-process instead of going through the
+     * job transport: their rows are collected into materialized buckets whose futures are added
+     * to <code>directResponseFutures</code> and which have to be passed to the handler phases by the caller.
+     */
+    public List<ExecutionSubContext> prepareOnHandler(UUID jobId,
+                                                      Iterable<? extends NodeOperation> nodeOperations,
+                                                      JobExecutionContext.Builder contextBuilder,
+                                                      List<Tuple<ExecutionPhase, RowReceiver>> handlerPhases,
+                                                      @Nullable SharedShardContexts sharedShardContexts,
+                                                      @Nullable JobProfile jobProfile,
+                                                      List<ListenableFuture<Bucket>> directResponseFutures) {
         ContextPreparer.PreparerContext preparerContext = new PreparerContext(jobId, rowDownstreamFactory,
-                nodeOperations, sharedShardContexts);
+                nodeOperations, sharedShardContexts, jobProfile);
         processDownstreamExecutionPhaseIds(nodeOperations, preparerContext);
 
 
@@ -151,10 +186,16 @@ public class ContextPreparer {
             if (finalLocalMergeContext != null) {
                 contextBuilder.addSubContext(finalLocalMergeContext);
                 handlerContexts.add(finalLocalMergeContext);
+                preparerContext.trackProfile(handlerExecutionPhase, finalLocalMergeContext);
             }
         }
         List<NodeOperation> reversedNodeOperations = Lists.reverse(Lists.newArrayList(nodeOperations));
         for (NodeOperation nodeOperation : reversedNodeOperations) {
+            if (ExecutionPhases.hasDirectResponseDownstream(nodeOperation.downstreamNodes())) {
+                SingleBucketBuilder bucketBuilder = SingleBucketBuilder.forLocalConsumer();
+                directResponseFutures.add(bucketBuilder.result());
+                preparerContext.registerRowReceiverForUpstreamPhase(nodeOperation.executionPhase(), bucketBuilder);
+            }
             processExecutionPhase(nodeOperation.executionPhase(), preparerContext, contextBuilder);
         }
         postPrepare(contextBuilder, preparerContext);
@@ -193,6 +234,7 @@ public class ContextPreparer {
         ExecutionSubContext subContext = innerPreparer.process(executionPhase, preparerContext);
         if (subContext != null) {
             contextBuilder.addSubContext(subContext);
+            preparerContext.trackProfile(executionPhase, subContext);
         }
     }
 
@@ -229,14 +271,39 @@ public class ContextPreparer {
         @Nullable
         private final SharedShardContexts sharedShardContexts;
 
+        @Nullable
+        private final JobProfile jobProfile;
+
         public PreparerContext(UUID jobId,
                                RowDownstreamFactory rowDownstreamFactory,
                                Iterable<? extends NodeOperation> nodeOperations,
-                               @Nullable SharedShardContexts sharedShardContexts) {
+                               @Nullable SharedShardContexts sharedShardContexts,
+                               @Nullable JobProfile jobProfile) {
             this.jobId = jobId;
             this.rowDownstreamFactory = rowDownstreamFactory;
             this.nodeOperations = nodeOperations;
             this.sharedShardContexts = sharedShardContexts;
+            this.jobProfile = jobProfile;
+        }
+
+        /**
+         * @return the profile of the phase or null if the job isn't profiled
+         */
+        @Nullable
+        public PhaseProfile phaseProfile(ExecutionPhase executionPhase) {
+            if (jobProfile == null) {
+                return null;
+            }
+            NodeOperation nodeOperation = phaseIdToNodeOperations.get(executionPhase.executionPhaseId());
+            int downstreamPhaseId = nodeOperation == null
+                    ? PhaseProfile.NO_DOWNSTREAM : nodeOperation.downstreamExecutionPhaseId();
+            return jobProfile.phase(executionPhase, downstreamPhaseId);
+        }
+
+        public void trackProfile(ExecutionPhase executionPhase, ExecutionSubContext subContext) {
+            if (jobProfile != null) {
+                jobProfile.track(phaseProfile(executionPhase), subContext);
+            }
         }
 
         public boolean getPhaseHasSameNodeUpstream(int executionPhaseId, byte inputId) {
@@ -290,6 +357,19 @@ public class ContextPreparer {
 
         @Nullable
         public RowReceiver getRowReceiver(UpstreamPhase upstreamPhase, int pageSize) {
+            RowReceiver rowReceiver = getUnprofiledRowReceiver(upstreamPhase, pageSize);
+            PhaseProfile profile = phaseProfile(upstreamPhase);
+            if (rowReceiver == null || profile == null) {
+                return rowReceiver;
+            }
+            if (rowReceiver instanceof DistributingDownstream) {
+                ((DistributingDownstream) rowReceiver).profile(profile);
+            }
+            return ProfilingRowReceiver.forPhase(rowReceiver, profile);
+        }
+
+        @Nullable
+        private RowReceiver getUnprofiledRowReceiver(UpstreamPhase upstreamPhase, int pageSize) {
             if (upstreamPhase.distributionInfo().distributionType() == DistributionType.SAME_NODE) {
                 LOGGER.trace("Phase uses SAME_NODE downstream: {}", upstreamPhase);
                 return phaseIdToRowReceivers.get(upstreamPhase.executionPhaseId());
@@ -345,6 +425,7 @@ public class ContextPreparer {
         @Override
         public ExecutionSubContext visitMergePhase(final MergePhase phase, final PreparerContext context) {
             RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
+            ramAccountingContext.profile(context.phaseProfile(phase));
 
             boolean upstreamOnSameNode = context.getPhaseHasSameNodeUpstream(phase.executionPhaseId(), (byte) 0);
 
@@ -396,6 +477,7 @@ public class ContextPreparer {
         @Override
         public ExecutionSubContext visitCollectPhase(final CollectPhase phase, final PreparerContext context) {
             RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
+            ramAccountingContext.profile(context.phaseProfile(phase));
 
             RowReceiver rowReceiver = context.getRowReceiver(phase,
                     MoreObjects.firstNonNull(phase.nodePageSizeHint(), Paging.PAGE_SIZE));
@@ -448,6 +530,7 @@ public class ContextPreparer {
         @Override
         public ExecutionSubContext visitNestedLoopPhase(NestedLoopPhase phase, PreparerContext context) {
             RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionPhase(circuitBreaker, phase);
+            ramAccountingContext.profile(context.phaseProfile(phase));
             RowReceiver downstreamRowReceiver = context.getRowReceiver(phase, Paging.PAGE_SIZE);
             if (downstreamRowReceiver == null) {
                 context.executionPhasesToProcess.add(phase);
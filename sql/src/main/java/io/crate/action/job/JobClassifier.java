@@ -0,0 +1,154 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.job;
+
+import io.crate.jobs.JobClass;
+import io.crate.operation.NodeOperation;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.ExecutionPhase;
+import io.crate.planner.node.ExecutionPhaseVisitor;
+import io.crate.planner.node.ExecutionPhases;
+import io.crate.planner.node.dql.CollectPhase;
+import io.crate.planner.node.dql.CountPhase;
+import io.crate.planner.projection.Projection;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Determines the {@link JobClass} of the operations a job executes on a node.
+ *
+ * Only the leaf phases (collect and count) are throttled. If the job executes several of them
+ * on the node the most expensive class wins (DML before SCAN before SMALL before SYSTEM).
+ * Jobs which contain any phase consuming the results of other phases (merge, fetch and nested loop phases)
+ * have no class and aren't subject to admission control, otherwise a queued consumer
+ * could block producers which have already been admitted on other nodes.
+ *
+ * The same holds for leaf phases which distribute their rows to downstream phases: they pause once a page
+ * is sent and only continue once the downstream received the pages of all upstreams, which might be queued
+ * behind the paused phase on another node. Only leaf phases which return their result directly
+ * to the handler are admitted.
+ */
+public class JobClassifier extends ExecutionPhaseVisitor<Void, JobClass> {
+
+    /**
+     * collects which stop after at most this many rows per node are considered small
+     */
+    static final int SMALL_PAGE_SIZE = 10_000;
+
+    private static final JobClassifier INSTANCE = new JobClassifier();
+
+    private JobClassifier() {
+    }
+
+    @Nullable
+    public static JobClass classify(Iterable<? extends NodeOperation> nodeOperations) {
+        JobClass jobClass = null;
+        for (NodeOperation nodeOperation : nodeOperations) {
+            Collection<String> downstreamNodes = nodeOperation.downstreamNodes();
+            if (!downstreamNodes.isEmpty() && !ExecutionPhases.hasDirectResponseDownstream(downstreamNodes)) {
+                // a paged producer must start right away, see the class documentation
+                return null;
+            }
+            JobClass phaseClass = classify(nodeOperation.executionPhase());
+            if (phaseClass == null) {
+                // a downstream phase must start right away, so the whole job is started right away
+                return null;
+            }
+            jobClass = max(jobClass, phaseClass);
+        }
+        return jobClass;
+    }
+
+    @Nullable
+    public static JobClass classify(ExecutionPhase executionPhase) {
+        return INSTANCE.process(executionPhase, null);
+    }
+
+    @Override
+    public JobClass visitCollectPhase(CollectPhase phase, Void context) {
+        if (hasDMLProjection(phase.projections())) {
+            return JobClass.DML;
+        }
+        if (phase.maxRowGranularity() != RowGranularity.DOC || phase.routing().numShards() == 0) {
+            return JobClass.SYSTEM;
+        }
+        Integer pageSize = phase.nodePageSizeHint();
+        if (pageSize != null && pageSize <= SMALL_PAGE_SIZE && !hasAggregation(phase.projections())) {
+            return JobClass.SMALL;
+        }
+        return JobClass.SCAN;
+    }
+
+    @Override
+    public JobClass visitCountPhase(CountPhase phase, Void context) {
+        return JobClass.SMALL;
+    }
+
+    private static boolean hasDMLProjection(List<Projection> projections) {
+        for (Projection projection : projections) {
+            switch (projection.projectionType()) {
+                case UPDATE:
+                case DELETE:
+                case INDEX_WRITER:
+                case COLUMN_INDEX_WRITER:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAggregation(List<Projection> projections) {
+        for (Projection projection : projections) {
+            switch (projection.projectionType()) {
+                case GROUP:
+                case AGGREGATION:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static JobClass max(@Nullable JobClass current, JobClass other) {
+        if (current == null) {
+            return other;
+        }
+        return rank(other) > rank(current) ? other : current;
+    }
+
+    private static int rank(JobClass jobClass) {
+        switch (jobClass) {
+            case DML:
+                return 4;
+            case SCAN:
+                return 3;
+            case SMALL:
+                return 2;
+            case SYSTEM:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -35,13 +35,19 @@ public class JobRequest extends TransportRequest {
 
     private UUID jobId;
     private Collection<? extends NodeOperation> nodeOperations;
+    private boolean profile = false;
 
     protected JobRequest() {
     }
 
     public JobRequest(UUID jobId, Collection<? extends NodeOperation> nodeOperations) {
+        this(jobId, nodeOperations, false);
+    }
+
+    public JobRequest(UUID jobId, Collection<? extends NodeOperation> nodeOperations, boolean profile) {
         this.jobId = jobId;
         this.nodeOperations = nodeOperations;
+        this.profile = profile;
     }
 
     public UUID jobId() {
@@ -52,6 +58,13 @@ public class JobRequest extends TransportRequest {
         return nodeOperations;
     }
 
+    /**
+     * true if the runtime profiles of the node operations should be recorded (EXPLAIN ANALYZE)
+     */
+    public boolean profile() {
+        return profile;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -64,6 +77,7 @@ public class JobRequest extends TransportRequest {
             nodeOperations.add(new NodeOperation(in));
         }
         this.nodeOperations = nodeOperations;
+        profile = in.readBoolean();
     }
 
     @Override
@@ -77,5 +91,6 @@ public class JobRequest extends TransportRequest {
         for (NodeOperation nodeOperation : nodeOperations) {
             nodeOperation.writeTo(out);
         }
+        out.writeBoolean(profile);
     }
 }
@@ -22,38 +22,81 @@
 
 package io.crate.action.job;
 
+import com.google.common.collect.ImmutableList;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Keeps the contexts of the given jobs alive on the receiving node.
+ *
+ * A request for a single job is sent with {@link TransportKeepAliveAction#ACTION_NAME}, which every node understands.
+ * A request for multiple jobs is sent with {@link TransportKeepAliveAction#MULTIPLE_JOBS_ACTION_NAME}
+ * and contains the keep alives of all jobs with contexts on the same node.
+ */
 public class KeepAliveRequest extends TransportRequest {
 
-    private UUID jobId;
+    private boolean multipleJobs;
+    private List<UUID> jobIds;
 
     public KeepAliveRequest(UUID jobId) {
-        this.jobId = jobId;
+        this.multipleJobs = false;
+        this.jobIds = ImmutableList.of(jobId);
+    }
+
+    public KeepAliveRequest(Collection<UUID> jobIds) {
+        this.multipleJobs = true;
+        this.jobIds = ImmutableList.copyOf(jobIds);
+    }
+
+    KeepAliveRequest(boolean multipleJobs) {
+        this.multipleJobs = multipleJobs;
     }
 
-    protected KeepAliveRequest() {
+    public List<UUID> jobIds() {
+        return jobIds;
     }
 
-    public UUID jobId() {
-        return jobId;
+    /**
+     * @return true if this request is streamed in the format of {@link TransportKeepAliveAction#MULTIPLE_JOBS_ACTION_NAME}
+     */
+    public boolean multipleJobs() {
+        return multipleJobs;
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        jobId = new UUID(in.readLong(), in.readLong());
+        if (!multipleJobs) {
+            jobIds = ImmutableList.of(new UUID(in.readLong(), in.readLong()));
+            return;
+        }
+        int size = in.readVInt();
+        jobIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            jobIds.add(new UUID(in.readLong(), in.readLong()));
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-        out.writeLong(jobId.getMostSignificantBits());
-        out.writeLong(jobId.getLeastSignificantBits());
+        if (!multipleJobs) {
+            UUID jobId = jobIds.get(0);
+            out.writeLong(jobId.getMostSignificantBits());
+            out.writeLong(jobId.getLeastSignificantBits());
+            return;
+        }
+        out.writeVInt(jobIds.size());
+        for (UUID jobId : jobIds) {
+            out.writeLong(jobId.getMostSignificantBits());
+            out.writeLong(jobId.getLeastSignificantBits());
+        }
     }
 }
@@ -31,7 +31,10 @@ import io.crate.executor.transport.NodeActionRequestHandler;
 import io.crate.executor.transport.Transports;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
+import io.crate.jobs.JobScheduler;
 import io.crate.jobs.KeepAliveTimers;
+import io.crate.operation.profile.JobProfile;
+import io.crate.operation.profile.JobProfiles;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -62,6 +65,8 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
     private final ContextPreparer contextPreparer;
     private final KeepAliveTimers keepAliveTimers;
     private final ClusterService clusterService;
+    private final JobProfiles jobProfiles;
+    private final JobScheduler jobScheduler;
 
     @Inject
     public TransportJobAction(TransportService transportService,
@@ -70,14 +75,17 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
                               Transports transports,
                               JobContextService jobContextService,
                               ContextPreparer contextPreparer,
-                              KeepAliveTimers keepAliveTimers) {
+                              KeepAliveTimers keepAliveTimers,
+                              JobProfiles jobProfiles,
+                              JobScheduler jobScheduler) {
         this.indicesService = indicesService;
         this.clusterService = clusterService;
         this.transports = transports;
         this.jobContextService = jobContextService;
         this.contextPreparer = contextPreparer;
         this.keepAliveTimers = keepAliveTimers;
-
+        this.jobProfiles = jobProfiles;
+        this.jobScheduler = jobScheduler;
 
         transportService.registerHandler(ACTION_NAME, new NodeActionRequestHandler<JobRequest, JobResponse>(this) {
             @Override
@@ -102,11 +110,37 @@ public class TransportJobAction implements NodeAction<JobRequest, JobResponse> {
         JobExecutionContext.Builder contextBuilder = jobContextService.newBuilder(request.jobId());
 
         SharedShardContexts sharedShardContexts = new SharedShardContexts(indicesService);
-        List<ListenableFuture<Bucket>> directResponseFutures = contextPreparer.prepareOnRemote(
-                request.jobId(), request.nodeOperations(), contextBuilder, sharedShardContexts);
+        JobProfile jobProfile = request.profile() ? jobProfiles.getOrCreate(request.jobId()) : null;
+        final List<ListenableFuture<Bucket>> directResponseFutures = contextPreparer.prepareOnRemote(
+                request.jobId(), request.nodeOperations(), contextBuilder, sharedShardContexts, jobProfile);
+
+        final JobExecutionContext context;
+        try {
+            context = jobContextService.createContext(contextBuilder);
+        } catch (Throwable t){
+            actionListener.onFailure(t);
+            return;
+        }
+
+        Runnable startJob = new Runnable() {
+            @Override
+            public void run() {
+                start(request, context, directResponseFutures, actionListener);
+            }
+        };
+        try {
+            jobScheduler.admit(JobClassifier.classify(request.nodeOperations()), context.completionFuture(), startJob);
+        } catch (Throwable t) {
+            context.kill();
+            actionListener.onFailure(t);
+        }
+    }
 
+    private void start(JobRequest request,
+                       JobExecutionContext context,
+                       List<ListenableFuture<Bucket>> directResponseFutures,
+                       final ActionListener<JobResponse> actionListener) {
         try {
-            JobExecutionContext context = jobContextService.createContext(contextBuilder);
             context.start();
         } catch (Throwable t){
             actionListener.onFailure(t);
@@ -28,41 +28,121 @@ import io.crate.executor.transport.NodeActionRequestHandler;
 import io.crate.executor.transport.Transports;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.ActionNotFoundTransportException;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps job contexts alive.
+ *
+ * Requests for multiple jobs are sent with {@link #MULTIPLE_JOBS_ACTION_NAME}.
+ * Nodes which don't know this action yet are remembered and receive one request per job instead.
+ */
 @Singleton
-public class TransportKeepAliveAction implements NodeAction<KeepAliveRequest, TransportResponse.Empty> {
+public class TransportKeepAliveAction implements NodeAction<KeepAliveRequest, TransportResponse.Empty>, ClusterStateListener {
 
     private static final ESLogger LOGGER = Loggers.getLogger(TransportKeepAliveAction.class);
     public static final String ACTION_NAME = "crate/sql/job/keep_alive";
+    public static final String MULTIPLE_JOBS_ACTION_NAME = "crate/sql/job/keep_alive_multiple";
     private static final String EXECUTOR = ThreadPool.Names.SAME;
 
     private final JobContextService jobContextService;
     private final Transports transports;
+    private final NodeAction<KeepAliveRequest, TransportResponse.Empty> multipleJobsAction;
+    private final Set<String> singleJobNodes = ConcurrentCollections.newConcurrentSet();
 
     @Inject
     public TransportKeepAliveAction(TransportService transportService,
                                     Transports transports,
+                                    ClusterService clusterService,
                                     JobContextService jobContextService) {
         this.jobContextService = jobContextService;
         this.transports = transports;
+        this.multipleJobsAction = new NodeAction<KeepAliveRequest, TransportResponse.Empty>() {
+            @Override
+            public String actionName() {
+                return MULTIPLE_JOBS_ACTION_NAME;
+            }
+
+            @Override
+            public String executorName() {
+                return EXECUTOR;
+            }
+
+            @Override
+            public void nodeOperation(KeepAliveRequest request, ActionListener<TransportResponse.Empty> listener) {
+                TransportKeepAliveAction.this.nodeOperation(request, listener);
+            }
+        };
         transportService.registerHandler(ACTION_NAME, new NodeActionRequestHandler<KeepAliveRequest, TransportResponse.Empty>(this) {
             @Override
             public KeepAliveRequest newInstance() {
-                return new KeepAliveRequest();
+                return new KeepAliveRequest(false);
             }
         });
+        transportService.registerHandler(MULTIPLE_JOBS_ACTION_NAME, new NodeActionRequestHandler<KeepAliveRequest, TransportResponse.Empty>(multipleJobsAction) {
+            @Override
+            public KeepAliveRequest newInstance() {
+                return new KeepAliveRequest(true);
+            }
+        });
+        clusterService.add(this);
     }
 
-    public void keepAlive(String node, final KeepAliveRequest request, final ActionListener<TransportResponse.Empty> listener) {
-        transports.executeLocalOrWithTransport(this, node, request, listener, new DefaultTransportResponseHandler<TransportResponse.Empty>(listener) {
+    public void keepAlive(final String node, final KeepAliveRequest request, final ActionListener<TransportResponse.Empty> listener) {
+        if (!request.multipleJobs()) {
+            send(this, node, request, listener);
+        } else if (singleJobNodes.contains(node)) {
+            sendSingleJobs(node, request, listener);
+        } else {
+            send(multipleJobsAction, node, request, new ActionListener<TransportResponse.Empty>() {
+                @Override
+                public void onResponse(TransportResponse.Empty empty) {
+                    listener.onResponse(empty);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    if (ExceptionsHelper.unwrapCause(e) instanceof ActionNotFoundTransportException) {
+                        LOGGER.debug("node [{}] doesn't support keep alives for multiple jobs, sending one request per job", node);
+                        singleJobNodes.add(node);
+                        sendSingleJobs(node, request, listener);
+                    } else {
+                        listener.onFailure(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void sendSingleJobs(String node, KeepAliveRequest request, ActionListener<TransportResponse.Empty> listener) {
+        ActionListener<TransportResponse.Empty> multiListener = new MultiActionListener(request.jobIds().size(), listener);
+        for (UUID jobId : request.jobIds()) {
+            send(this, node, new KeepAliveRequest(jobId), multiListener);
+        }
+    }
+
+    private void send(NodeAction<KeepAliveRequest, TransportResponse.Empty> nodeAction,
+                      String node,
+                      KeepAliveRequest request,
+                      ActionListener<TransportResponse.Empty> listener) {
+        transports.executeLocalOrWithTransport(nodeAction, node, request, listener, new DefaultTransportResponseHandler<TransportResponse.Empty>(listener) {
             @Override
             public TransportResponse.Empty newInstance() {
                 return TransportResponse.Empty.INSTANCE;
@@ -70,6 +150,15 @@ public class TransportKeepAliveAction implements NodeAction<KeepAliveRequest, Tr
         });
     }
 
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (!singleJobNodes.isEmpty() && event.nodesRemoved()) {
+            for (DiscoveryNode node : event.nodesDelta().removedNodes()) {
+                singleJobNodes.remove(node.id());
+            }
+        }
+    }
+
     @Override
     public String actionName() {
         return ACTION_NAME;
@@ -82,14 +171,55 @@ public class TransportKeepAliveAction implements NodeAction<KeepAliveRequest, Tr
 
     @Override
     public void nodeOperation(KeepAliveRequest request, ActionListener<TransportResponse.Empty> listener) {
-        JobExecutionContext context = jobContextService.getContextOrNull(request.jobId());
-        if (context != null) {
-            LOGGER.trace("keeping JobExecutionContext {} alive ", context);
-            context.keepAlive();
-        } else {
-            LOGGER.trace("no JobExecutionContext found for jobId {}", request.jobId());
+        for (UUID jobId : request.jobIds()) {
+            JobExecutionContext context = jobContextService.getContextOrNull(jobId);
+            if (context != null) {
+                LOGGER.trace("keeping JobExecutionContext {} alive ", context);
+                context.keepAlive();
+            } else {
+                LOGGER.trace("no JobExecutionContext found for jobId {}", jobId);
+            }
         }
         listener.onResponse(TransportResponse.Empty.INSTANCE);
     }
 
+
+    /**
+     * calls the listener once all requests responded, with the first failure if any of them failed
+     */
+    private static class MultiActionListener implements ActionListener<TransportResponse.Empty> {
+
+        private final AtomicInteger pending;
+        private final ActionListener<TransportResponse.Empty> listener;
+        private volatile Throwable failure;
+
+        MultiActionListener(int numRequests, ActionListener<TransportResponse.Empty> listener) {
+            this.pending = new AtomicInteger(numRequests);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onResponse(TransportResponse.Empty empty) {
+            countDown();
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+            countDown();
+        }
+
+        private void countDown() {
+            if (pending.decrementAndGet() == 0) {
+                Throwable t = failure;
+                if (t == null) {
+                    listener.onResponse(TransportResponse.Empty.INSTANCE);
+                } else {
+                    listener.onFailure(t);
+                }
+            }
+        }
+    }
 }
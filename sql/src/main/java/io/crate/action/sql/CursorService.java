@@ -0,0 +1,319 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.job.KeepAliveRequest;
+import io.crate.action.job.TransportKeepAliveAction;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.exceptions.CursorUnknownException;
+import io.crate.executor.Job;
+import io.crate.executor.Task;
+import io.crate.executor.TaskResult;
+import io.crate.executor.transport.ExecutionPhasesTask;
+import io.crate.executor.transport.kill.KillJobsRequest;
+import io.crate.executor.transport.kill.KillResponse;
+import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
+import io.crate.jobs.HashedWheelTimer;
+import io.crate.jobs.JobContextService;
+import io.crate.jobs.KillAllListener;
+import io.crate.operation.CursorRowReceiver;
+import io.crate.types.DataType;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the cursors which have been opened on this node.
+ *
+ * A cursor is identified by the id of the job computing its result, so it can be killed using
+ * <code>KILL '&lt;cursor&gt;'</code>. While the cursor is open, the job is kept alive on all nodes.
+ * Cursors which haven't been fetched from within the job keep alive are closed and their job is killed.
+ * At most <code>cursors.max_open</code> cursors can be open on a node at the same time.
+ */
+@Singleton
+public class CursorService implements KillAllListener {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(CursorService.class);
+
+    public static final String MAX_OPEN_SETTING = "cursors.max_open";
+    private static final int DEFAULT_MAX_OPEN = 100;
+
+    private final ConcurrentMap<UUID, Cursor> cursors = ConcurrentCollections.newConcurrentMap();
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final HashedWheelTimer timer;
+    private final TimeValue keepAlive;
+    private final int maxOpen;
+    private final CircuitBreaker breaker;
+    private final TransportKeepAliveAction transportKeepAliveAction;
+    private final TransportKillJobsNodeAction transportKillJobsNodeAction;
+
+    @Inject
+    public CursorService(Settings settings,
+                         ClusterService clusterService,
+                         ThreadPool threadPool,
+                         HashedWheelTimer timer,
+                         @JobContextService.JobKeepAlive TimeValue keepAlive,
+                         CrateCircuitBreakerService breakerService,
+                         JobContextService jobContextService,
+                         TransportKeepAliveAction transportKeepAliveAction,
+                         TransportKillJobsNodeAction transportKillJobsNodeAction) {
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.timer = timer;
+        this.keepAlive = keepAlive;
+        this.maxOpen = settings.getAsInt(MAX_OPEN_SETTING, DEFAULT_MAX_OPEN);
+        this.breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        this.transportKeepAliveAction = transportKeepAliveAction;
+        this.transportKillJobsNodeAction = transportKillJobsNodeAction;
+        jobContextService.addListener(this);
+    }
+
+    public static class Cursor {
+
+        private final UUID jobId;
+        private final CursorRowReceiver receiver;
+        private final String[] outputNames;
+        private final DataType[] outputTypes;
+        private volatile long lastAccessTime;
+        private volatile long lastKeepAliveTime;
+
+        private Cursor(UUID jobId, CursorRowReceiver receiver, String[] outputNames, DataType[] outputTypes, long now) {
+            this.jobId = jobId;
+            this.receiver = receiver;
+            this.outputNames = outputNames;
+            this.outputTypes = outputTypes;
+            this.lastAccessTime = now;
+            this.lastKeepAliveTime = now;
+        }
+
+        public String[] outputNames() {
+            return outputNames;
+        }
+
+        public DataType[] outputTypes() {
+            return outputTypes;
+        }
+    }
+
+    /**
+     * opens a cursor on the result of the job. The first batch of the cursor is the result of the job.
+     *
+     * Only jobs which consist of a single {@link ExecutionPhasesTask} returning rows can be fetched using a cursor,
+     * all other jobs return their whole result at once.
+     *
+     * @return true if the cursor has been opened
+     * @throws EsRejectedExecutionException if the maximum number of cursors is already open
+     */
+    public boolean open(Job job, int fetchSize, String[] outputNames, DataType[] outputTypes) {
+        if (job.tasks().size() != 1 || outputNames.length == 0) {
+            return false;
+        }
+        Task task = job.tasks().get(0);
+        if (!(task instanceof ExecutionPhasesTask)) {
+            return false;
+        }
+        if (cursors.size() >= maxOpen && !cursors.containsKey(job.id())) {
+            throw new EsRejectedExecutionException(String.format(Locale.ENGLISH,
+                    "Cannot open more than %d cursors, see the %s setting", maxOpen, MAX_OPEN_SETTING));
+        }
+        CursorRowReceiver receiver = new CursorRowReceiver(
+                job.id().toString(), fetchSize, breaker, Arrays.asList(outputTypes));
+        Cursor cursor = new Cursor(job.id(), receiver, outputNames, outputTypes, threadPool.estimatedTimeInMillis());
+        Cursor previous = cursors.put(job.id(), cursor);
+        if (previous != null) {
+            // the job is retried
+            previous.receiver.close();
+        }
+        ((ExecutionPhasesTask) task).cursor(receiver);
+        closeOnceDone(cursor, Iterables.getOnlyElement(task.result()));
+        timer.schedule(new CursorExpiry(cursor), keepAliveInterval());
+        return true;
+    }
+
+    /**
+     * @throws CursorUnknownException if no cursor with the given id is open on this node
+     */
+    public Cursor get(String cursorId) {
+        Cursor cursor = null;
+        try {
+            cursor = cursors.get(UUID.fromString(cursorId));
+        } catch (IllegalArgumentException e) {
+            // invalid id
+        }
+        if (cursor == null) {
+            throw new CursorUnknownException(cursorId);
+        }
+        return cursor;
+    }
+
+    /**
+     * fetch the next batch of the cursor. The cursor is closed once it is exhausted or failed.
+     */
+    public ListenableFuture<TaskResult> fetch(final Cursor cursor) {
+        cursor.lastAccessTime = threadPool.estimatedTimeInMillis();
+        SettableFuture<TaskResult> result = SettableFuture.create();
+        cursor.receiver.fetch(result);
+        closeOnceDone(cursor, result);
+        return result;
+    }
+
+    private void closeOnceDone(final Cursor cursor, ListenableFuture<TaskResult> batch) {
+        Futures.addCallback(batch, new FutureCallback<TaskResult>() {
+            @Override
+            public void onSuccess(@Nullable TaskResult result) {
+                if (cursor.receiver.isExhausted()) {
+                    close(cursor);
+                }
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                close(cursor);
+            }
+        });
+    }
+
+    /**
+     * the job contexts on the other nodes expire after the same keep alive as the cursor,
+     * so they are kept alive well before
+     */
+    private long keepAliveInterval() {
+        return Math.max(1L, keepAlive.millis() / 3);
+    }
+
+    private void keepJobAlive(UUID jobId) {
+        // the collectors of a paused job don't access their contexts
+        KeepAliveRequest request = new KeepAliveRequest(jobId);
+        for (DiscoveryNode node : clusterService.state().nodes()) {
+            transportKeepAliveAction.keepAlive(node.id(), request, new ActionListener<TransportResponse.Empty>() {
+                @Override
+                public void onResponse(TransportResponse.Empty empty) {
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    LOGGER.trace("keep alive for cursor failed", e);
+                }
+            });
+        }
+    }
+
+    private void close(final Cursor cursor) {
+        if (!cursors.remove(cursor.jobId, cursor)) {
+            return;
+        }
+        boolean done = cursor.receiver.isDone();
+        cursor.receiver.close();
+        if (done) {
+            return;
+        }
+        transportKillJobsNodeAction.executeKillOnAllNodes(
+                new KillJobsRequest(Collections.singletonList(cursor.jobId)), new ActionListener<KillResponse>() {
+                    @Override
+                    public void onResponse(KillResponse killResponse) {
+                        LOGGER.trace("killed job of closed cursor {}", cursor.jobId);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        LOGGER.warn("failed to kill job of closed cursor {}", e, cursor.jobId);
+                    }
+                });
+    }
+
+    @Override
+    public void killAllJobs(long timestamp) {
+        for (Cursor cursor : cursors.values()) {
+            if (cursors.remove(cursor.jobId, cursor)) {
+                cursor.receiver.close();
+            }
+        }
+    }
+
+    @Override
+    public void killJob(UUID jobId) {
+        Cursor cursor = cursors.remove(jobId);
+        if (cursor != null) {
+            cursor.receiver.close();
+        }
+    }
+
+    /**
+     * Closes the cursor once it hasn't been fetched from within the keep alive.
+     * While the cursor is open the job is kept alive on all nodes, independent of fetches,
+     * and the task reschedules itself at the next keep alive or the time the cursor would expire next.
+     */
+    private class CursorExpiry implements HashedWheelTimer.Task {
+
+        private final Cursor cursor;
+
+        private CursorExpiry(Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public long run(long now) {
+            if (cursors.get(cursor.jobId) != cursor) {
+                return -1L;
+            }
+            long notAccessed = now - cursor.lastAccessTime;
+            if (notAccessed >= keepAlive.millis()) {
+                LOGGER.debug("closing cursor {}, it wasn't fetched from within {}", cursor.jobId, keepAlive);
+                close(cursor);
+                return -1L;
+            }
+            long notKeptAlive = now - cursor.lastKeepAliveTime;
+            if (notKeptAlive >= keepAliveInterval()) {
+                cursor.lastKeepAliveTime = now;
+                notKeptAlive = 0L;
+                keepJobAlive(cursor.jobId);
+            }
+            return Math.min(keepAliveInterval() - notKeptAlive, keepAlive.millis() - notAccessed);
+        }
+    }
+}
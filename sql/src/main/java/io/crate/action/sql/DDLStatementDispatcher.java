@@ -45,6 +45,7 @@ import io.crate.executor.transport.TransportActionProvider;
 import io.crate.metadata.OutputName;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.stats.TableStatsService;
 import io.crate.metadata.table.TableInfo;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.planner.Plan;
@@ -97,18 +98,21 @@ public class DDLStatementDispatcher extends AnalyzedStatementVisitor<UUID, Liste
     private final Provider<Executor> executorProvider;
     private final TransportActionProvider transportActionProvider;
     private final Planner planner;
+    private final TableStatsService tableStatsService;
 
     @Inject
     public DDLStatementDispatcher(ClusterService clusterService,
                                   BlobIndices blobIndices,
                                   Provider<Executor> executorProvider,
                                   TransportActionProvider transportActionProvider,
-                                  Planner planner) {
+                                  Planner planner,
+                                  TableStatsService tableStatsService) {
         this.clusterService = clusterService;
         this.blobIndices = blobIndices;
         this.executorProvider = executorProvider;
         this.transportActionProvider = transportActionProvider;
         this.planner = planner;
+        this.tableStatsService = tableStatsService;
     }
 
     @Override
@@ -339,6 +343,11 @@ public class DDLStatementDispatcher extends AnalyzedStatementVisitor<UUID, Liste
         return future;
     }
 
+    @Override
+    public ListenableFuture<Long> visitAnalyzeStatement(AnalyzeAnalyzedStatement analysis, UUID jobId) {
+        return tableStatsService.analyze(analysis.tables());
+    }
+
     private ListenableFuture<Long> wrapRowCountFuture(ListenableFuture<?> wrappedFuture, final Long rowCount) {
         final SettableFuture<Long> wrappingFuture = SettableFuture.create();
         Futures.addCallback(wrappedFuture, new FutureCallback<Object>() {
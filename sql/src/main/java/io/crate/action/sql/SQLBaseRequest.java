@@ -56,6 +56,8 @@ public abstract class SQLBaseRequest extends ActionRequest<SQLBaseRequest> {
     // Bit flags for request header
     public static final int HEADER_FLAG_OFF = 0;
     public static final int HEADER_FLAG_ALLOW_QUOTED_SUBSCRIPT = 1;
+    public static final int HEADER_FLAG_APPROX_COUNT_DISTINCT = 2;
+    public static final int HEADER_FLAG_BOUNDED_TOP_N = 4;
 
     protected String stmt;
     protected long creationTime;
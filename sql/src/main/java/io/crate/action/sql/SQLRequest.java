@@ -23,9 +23,11 @@ package io.crate.action.sql;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -35,6 +37,11 @@ import java.util.Arrays;
 public class SQLRequest extends SQLBaseRequest {
 
     public final static Object[] EMPTY_ARGS = new Object[0];
+
+    // cursor options are sent as headers to stay binary backward compatible
+    private static final String FETCH_SIZE_HEADER_KEY = "fetch_size";
+    private static final String CURSOR_HEADER_KEY = "cursor";
+
     private Object[] args;
 
     public SQLRequest() {} // used for serialization
@@ -73,6 +80,54 @@ public class SQLRequest extends SQLBaseRequest {
         this.args = MoreObjects.firstNonNull(args, EMPTY_ARGS);
     }
 
+    /**
+     * open a cursor on the result of the statement.
+     *
+     * The response will only contain the first <code>fetchSize</code> rows and the id of the cursor
+     * which can be used to fetch the next rows with another request using {@link #cursor(String)}.
+     */
+    public void fetchSize(int fetchSize) {
+        putHeader(FETCH_SIZE_HEADER_KEY, fetchSize);
+    }
+
+    /**
+     * @return the number of rows per batch if the request opens a cursor, otherwise null
+     */
+    @Nullable
+    public Integer fetchSize() {
+        return getHeader(FETCH_SIZE_HEADER_KEY);
+    }
+
+    /**
+     * fetch the next rows of an open cursor instead of executing a statement.
+     * A statement isn't required in that case.
+     */
+    public void cursor(String cursor) {
+        putHeader(CURSOR_HEADER_KEY, cursor);
+    }
+
+    /**
+     * @return the id of the cursor to fetch the next rows from or null if the request executes a statement
+     */
+    @Nullable
+    public String cursor() {
+        return getHeader(CURSOR_HEADER_KEY);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        if (cursor() != null) {
+            return null;
+        }
+        Integer fetchSize = fetchSize();
+        if (fetchSize != null && fetchSize <= 0) {
+            ActionRequestValidationException e = new ActionRequestValidationException();
+            e.addValidationError("Attribute 'fetch_size' must be greater than 0");
+            return e;
+        }
+        return super.validate();
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -91,7 +146,7 @@ public class SQLRequest extends SQLBaseRequest {
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
 
-        out.writeString(stmt);
+        out.writeString(MoreObjects.firstNonNull(stmt, ""));
         out.writeVInt(args.length);
         for (int i = 0; i < args.length; i++) {
             out.writeGenericValue(args[i]);
@@ -105,6 +160,7 @@ public class SQLRequest extends SQLBaseRequest {
         return MoreObjects.toStringHelper(this)
                 .add("stmt", stmt)
                 .add("args", Arrays.asList(args))
+                .add("cursor", cursor())
                 .add("creationTime", creationTime).toString();
     }
 }
@@ -51,6 +51,14 @@ public class SQLRequestBuilder extends ActionRequestBuilder<SQLRequest, SQLRespo
         request.includeTypesOnResponse(includeTypes);
     }
 
+    public void fetchSize(int fetchSize) {
+        request.fetchSize(fetchSize);
+    }
+
+    public void cursor(String cursor) {
+        request.cursor(cursor);
+    }
+
     public void addFlagsToRequestHeader(int flags) {
         request.putHeader(request.FLAGS_HEADER_KEY, flags);
     }
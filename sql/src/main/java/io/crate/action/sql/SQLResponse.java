@@ -27,15 +27,20 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
 public class SQLResponse extends SQLBaseResponse {
 
     public static final long NO_ROW_COUNT = -1L;
+    private static final String CURSOR_HEADER_KEY = "cursor";
 
     private Object[][] rows;
     private long rowCount = NO_ROW_COUNT;
+    private String cursor;
 
     public SQLResponse() {
     }
@@ -67,6 +72,9 @@ public class SQLResponse extends SQLBaseResponse {
         }
         builder.endArray();
         builder.field(Fields.ROWCOUNT, rowCount());
+        if (cursor != null) {
+            builder.field(Fields.CURSOR, cursor);
+        }
         builder.endObject();
         return builder;
     }
@@ -91,10 +99,26 @@ public class SQLResponse extends SQLBaseResponse {
         this.rows = rows;
     }
 
+    /**
+     * @return the id of the cursor to fetch the next rows of the result,
+     *         null if the result is complete
+     */
+    @Nullable
+    public String cursor() {
+        return cursor;
+    }
+
+    public void cursor(@Nullable String cursor) {
+        this.cursor = cursor;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         // don't user super.readFrom to stay binary backward compatible
-        in.readBoolean(); // headers in TransportResponse
+        if (in.readBoolean()) { // headers in TransportResponse
+            Map<String, Object> headers = in.readMap();
+            cursor = (String) headers.get(CURSOR_HEADER_KEY);
+        }
 
         boolean negative = in.readBoolean();
         rowCount = in.readVLong();
@@ -126,7 +150,13 @@ public class SQLResponse extends SQLBaseResponse {
     public void writeTo(StreamOutput out) throws IOException {
         // don't user super.writeTo to stay binary backward compatible
 
-        out.writeBoolean(false); // headers in TransportResponse
+        // headers in TransportResponse, only used for the cursor
+        if (cursor == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeMap(Collections.<String, Object>singletonMap(CURSOR_HEADER_KEY, cursor));
+        }
         out.writeBoolean(rowCount < 0);
         out.writeVLong(Math.abs(rowCount));
         out.writeStringArray(cols);
@@ -153,6 +183,7 @@ public class SQLResponse extends SQLBaseResponse {
                 "colTypes=" + ((colTypes !=null) ? Arrays.toString(colTypes): null) +
                 ", rows=" + ((rows!=null) ? rows.length: -1)  +
                 ", rowCount=" + rowCount  +
+                ", cursor=" + cursor  +
                 ", duration=" + duration()  +
                 '}';
     }
@@ -30,6 +30,17 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Constants;
 import io.crate.analyze.Analysis;
 import io.crate.analyze.Analyzer;
+import io.crate.analyze.InSubqueryCollector;
+import io.crate.analyze.ParameterContext;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.QueriedRelation;
+import io.crate.breaker.ConstSizeEstimator;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
 import io.crate.exceptions.*;
 import io.crate.executor.Executor;
 import io.crate.executor.Job;
@@ -39,6 +50,7 @@ import io.crate.executor.transport.kill.KillResponse;
 import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
 import io.crate.metadata.PartitionName;
 import io.crate.operation.collect.StatsTables;
+import io.crate.operation.reference.sys.job.StatementClassifier;
 import io.crate.planner.Plan;
 import io.crate.planner.PlanPrinter;
 import io.crate.planner.Planner;
@@ -46,11 +58,13 @@ import io.crate.planner.symbol.Field;
 import io.crate.sql.parser.ParsingException;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.SubqueryExpression;
 import io.crate.types.DataType;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexShardMissingException;
@@ -61,6 +75,7 @@ import org.elasticsearch.indices.IndexAlreadyExistsException;
 import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.indices.InvalidIndexNameException;
 import org.elasticsearch.indices.InvalidIndexTemplateException;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.NodeDisconnectedException;
@@ -69,9 +84,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.CancellationException;
 
 public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TResponse extends SQLBaseResponse>
@@ -80,6 +93,9 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
     private static final DataType[] EMPTY_TYPES = new DataType[0];
     private static final String[] EMPTY_NAMES = new String[0];
     private static final int MAX_SHARD_MISSING_RETRIES = 3;
+    // estimated size of a subquery value of a type without size estimator and of the set entry of a value
+    private static final int UNKNOWN_VALUE_SIZE = 64;
+    private static final int SET_ENTRY_SIZE = 32;
 
 
     private final LoadingCache<String, Statement> statementCache = CacheBuilder.newBuilder()
@@ -99,6 +115,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
     protected final Planner planner;
     private final Provider<Executor> executorProvider;
     private final StatsTables statsTables;
+    private final CircuitBreaker breaker;
     private volatile boolean disabled;
 
     public TransportBaseSQLAction(ClusterService clusterService,
@@ -110,7 +127,8 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                                   Provider<Executor> executorProvider,
                                   StatsTables statsTables,
                                   ActionFilters actionFilters,
-                                  TransportKillJobsNodeAction transportKillJobsNodeAction) {
+                                  TransportKillJobsNodeAction transportKillJobsNodeAction,
+                                  CircuitBreakerService breakerService) {
         super(settings, actionName, threadPool, actionFilters);
         this.clusterService = clusterService;
         this.analyzer = analyzer;
@@ -118,9 +136,10 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         this.executorProvider = executorProvider;
         this.statsTables = statsTables;
         this.transportKillJobsNodeAction = transportKillJobsNodeAction;
+        this.breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
     }
 
-    public abstract Analysis getAnalysis(Statement statement, TRequest request);
+    public abstract ParameterContext getParamContext(TRequest request);
 
 
     /**
@@ -156,21 +175,8 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
      * @param request  the request that created which issued the execution
      */
     private TResponse createResponseFromResult(@Nullable List<TaskResult> result, Analysis analysis, TRequest request) {
-        String[] outputNames;
-        DataType[] outputTypes;
-        if (analysis.expectsAffectedRows()) {
-            outputNames = EMPTY_NAMES;
-            outputTypes = EMPTY_TYPES;
-        } else {
-            assert analysis.rootRelation() != null;
-            outputNames = new String[analysis.rootRelation().fields().size()];
-            outputTypes = new DataType[analysis.rootRelation().fields().size()];
-            for (int i = 0; i < analysis.rootRelation().fields().size(); i++) {
-                Field field = analysis.rootRelation().fields().get(i);
-                outputNames[i] = field.path().outputName();
-                outputTypes[i] = field.valueType();
-            }
-        }
+        String[] outputNames = outputNames(analysis);
+        DataType[] outputTypes = outputTypes(analysis);
         if (result == null) {
             return emptyResponse(request, outputNames, outputTypes);
         } else {
@@ -179,6 +185,47 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
 
     }
 
+    private static String[] outputNames(Analysis analysis) {
+        if (analysis.expectsAffectedRows()) {
+            return EMPTY_NAMES;
+        }
+        assert analysis.rootRelation() != null;
+        List<Field> fields = analysis.rootRelation().fields();
+        String[] outputNames = new String[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            outputNames[i] = fields.get(i).path().outputName();
+        }
+        return outputNames;
+    }
+
+    private static DataType[] outputTypes(Analysis analysis) {
+        if (analysis.expectsAffectedRows()) {
+            return EMPTY_TYPES;
+        }
+        assert analysis.rootRelation() != null;
+        List<Field> fields = analysis.rootRelation().fields();
+        DataType[] outputTypes = new DataType[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            outputTypes[i] = fields.get(i).valueType();
+        }
+        return outputTypes;
+    }
+
+    /**
+     * @return the number of rows per batch if the result of the request should be fetched using a cursor,
+     *         null otherwise
+     */
+    @Nullable
+    protected Integer cursorFetchSize(TRequest request) {
+        return null;
+    }
+
+    /**
+     * called with the job of a request with a {@link #cursorFetchSize(SQLBaseRequest)} before it is executed.
+     */
+    protected void openCursor(Job job, int fetchSize, String[] outputNames, DataType[] outputTypes) {
+    }
+
     @Override
     protected void doExecute(TRequest request, ActionListener<TResponse> listener) {
         logger.debug("{}", request);
@@ -195,15 +242,149 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         }
         try {
             Statement statement = statementCache.get(request.stmt());
-            Analysis analysis = getAnalysis(statement, request);
-            processAnalysis(analysis, request, listener, attempt, jobId);
+            ParameterContext parameterContext = getParamContext(request);
+            List<SubqueryExpression> subqueries = InSubqueryCollector.collect(statement);
+            if (subqueries.isEmpty()) {
+                Analysis analysis = analyzer.analyze(statement, parameterContext);
+                processAnalysis(analysis, request, listener, attempt, jobId);
+            } else {
+                if (parameterContext.hasBulkParams()) {
+                    throw new UnsupportedOperationException("IN (subquery) is not supported in bulk operations");
+                }
+                RamAccountingContext ramAccountingContext = new RamAccountingContext("subqueries: " + jobId, breaker);
+                executeSubqueries(statement, subqueries.iterator(), parameterContext, ramAccountingContext,
+                        request, releasingListener(listener, ramAccountingContext), attempt, jobId);
+            }
         } catch (Throwable e) {
-            logger.debug("Error executing SQLRequest", e);
-            sendResponse(listener, buildSQLActionException(e));
-            statsTables.jobFinished(jobId, e.getMessage());
+            failRequest(listener, jobId, e);
         }
     }
 
+    private void failRequest(ActionListener<TResponse> listener, UUID jobId, Throwable e) {
+        logger.debug("Error executing SQLRequest", e);
+        sendResponse(listener, buildSQLActionException(e));
+        statsTables.jobFinished(jobId, e.getMessage());
+    }
+
+    /**
+     * executes the uncorrelated <code>IN (subquery)</code> subqueries one after another and
+     * registers their distinct values in the parameterContext, then executes the statement itself.
+     * The subqueries run under the job id of the statement, so that they're listed and killed with it.
+     */
+    private void executeSubqueries(final Statement statement,
+                                   final Iterator<SubqueryExpression> subqueries,
+                                   final ParameterContext parameterContext,
+                                   final RamAccountingContext ramAccountingContext,
+                                   final TRequest request,
+                                   final ActionListener<TResponse> listener,
+                                   final int attempt,
+                                   final UUID jobId) {
+        if (!subqueries.hasNext()) {
+            Analysis analysis = analyzer.analyze(statement, parameterContext);
+            processAnalysis(analysis, request, listener, attempt, jobId);
+            return;
+        }
+        final SubqueryExpression subquery = subqueries.next();
+        Analysis analysis = analyzer.analyze(subquery.getQuery(), parameterContext);
+        final AnalyzedRelation relation = analysis.rootRelation();
+        if (relation == null || relation.fields().size() != 1) {
+            throw new ValidationException("IN subquery must return exactly one column");
+        }
+        Plan plan = planner.plan(analysis, jobId);
+        tracePlan(plan);
+        Executor executor = executorProvider.get();
+        Futures.addCallback(Futures.allAsList(executor.execute(executor.newJob(plan))), new FutureCallback<List<TaskResult>>() {
+            @Override
+            public void onSuccess(@Nullable List<TaskResult> result) {
+                try {
+                    assert result != null && result.size() == 1 : "subquery must have a single result";
+                    parameterContext.subqueryResult(subquery,
+                            distinctValues(relation, result.get(0).rows(), ramAccountingContext));
+                } catch (Throwable t) {
+                    failRequest(listener, jobId, t);
+                    return;
+                }
+                // the contexts of the subquery might still be closing on other nodes,
+                // like on a retry they're killed before the job id is used again
+                transportKillJobsNodeAction.executeKillOnAllNodes(
+                        new KillJobsRequest(Collections.singletonList(jobId)), new ActionListener<KillResponse>() {
+                            @Override
+                            public void onResponse(KillResponse killResponse) {
+                                try {
+                                    executeSubqueries(statement, subqueries, parameterContext, ramAccountingContext,
+                                            request, listener, attempt, jobId);
+                                } catch (Throwable t) {
+                                    failRequest(listener, jobId, t);
+                                }
+                            }
+
+                            @Override
+                            public void onFailure(Throwable e) {
+                                failRequest(listener, jobId, e);
+                            }
+                        });
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                failRequest(listener, jobId, t);
+            }
+        });
+    }
+
+    /**
+     * @return the distinct non-null values of the single column of the subquery result.
+     *         Null values never match, so they're omitted.
+     *         The values are accounted on the ramAccountingContext until the statement is finished.
+     */
+    private static Set<Object> distinctValues(AnalyzedRelation relation,
+                                              Bucket rows,
+                                              RamAccountingContext ramAccountingContext) {
+        if (relation instanceof QueriedRelation
+            && ((QueriedRelation) relation).querySpec().limit() == null
+            && rows.size() >= Constants.DEFAULT_SELECT_LIMIT) {
+            // the result might have been cut off by the default limit
+            throw new UnsupportedOperationException(String.format(Locale.ENGLISH,
+                    "IN subquery returned %d rows which is the default limit, " +
+                    "add an explicit LIMIT to the subquery to use more values", rows.size()));
+        }
+        SizeEstimator<Object> estimator;
+        try {
+            estimator = SizeEstimatorFactory.create(relation.fields().get(0).valueType());
+        } catch (UnsupportedOperationException e) {
+            estimator = new ConstSizeEstimator(UNKNOWN_VALUE_SIZE);
+        }
+        Set<Object> values = new HashSet<>(rows.size());
+        for (Row row : rows) {
+            Object value = row.get(0);
+            if (value != null && values.add(value)) {
+                ramAccountingContext.addBytes(estimator.estimateSize(value) + SET_ENTRY_SIZE);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return a listener which releases the memory accounted on the ramAccountingContext once the
+     *         statement is finished
+     */
+    private ActionListener<TResponse> releasingListener(final ActionListener<TResponse> listener,
+                                                        final RamAccountingContext ramAccountingContext) {
+        return new ActionListener<TResponse>() {
+            @Override
+            public void onResponse(TResponse response) {
+                ramAccountingContext.close();
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                ramAccountingContext.close();
+                listener.onFailure(e);
+            }
+        };
+    }
+
     private void sendResponse(ActionListener<TResponse> listener, Throwable throwable) {
         listener.onFailure(throwable);
         statsTables.activeRequestsDec();
@@ -215,7 +396,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
     }
 
     private void processAnalysis(Analysis analysis, TRequest request, ActionListener<TResponse> listener, final int attempt, UUID jobId) {
-        final Plan plan = planner.plan(analysis, jobId);
+        final Plan plan = planner.plan(analysis, jobId, cursorFetchSize(request));
         assert plan != null;
         tracePlan(plan);
         executePlan(analysis, plan, listener, request, attempt);
@@ -228,6 +409,12 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                              final int attempt) {
         Executor executor = executorProvider.get();
         Job job = executor.newJob(plan);
+        Integer cursorFetchSize = cursorFetchSize(request);
+        if (cursorFetchSize != null && !analysis.expectsAffectedRows()) {
+            openCursor(job, cursorFetchSize, outputNames(analysis), outputTypes(analysis));
+        }
+        final StatementClassifier.Classification classification = statsTables.isEnabled()
+                ? StatementClassifier.classify(analysis.analyzedStatement()) : null;
 
         List<? extends ListenableFuture<TaskResult>> resultFutureList = executor.execute(job);
         Futures.addCallback(Futures.allAsList(resultFutureList), new FutureCallback<List<TaskResult>>() {
@@ -241,7 +428,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                             sendResponse(listener, buildSQLActionException(e));
                             return;
                         }
-                        statsTables.jobFinished(plan.jobId(), null);
+                        statsTables.jobFinished(plan.jobId(), null, classification);
                         sendResponse(listener, response);
                     }
 
@@ -258,11 +445,18 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
 
                             killAndRetry(t);
                             return;
+                        } else if (unwrappedException instanceof TopNErrorBoundException) {
+                            logger.debug("Bounded top-n not exact - Retry with exact grouping: [{}]", request.stmt());
+                            Integer flags = request.getRequestFlags();
+                            request.putHeader(SQLBaseRequest.FLAGS_HEADER_KEY,
+                                    (flags == null ? SQLBaseRequest.HEADER_FLAG_OFF : flags) & ~SQLBaseRequest.HEADER_FLAG_BOUNDED_TOP_N);
+                            killAndRetry(t);
+                            return;
                         } else {
                             message = Exceptions.messageOf(t);
                             logger.debug("Error processing SQLRequest", t);
                         }
-                        statsTables.jobFinished(plan.jobId(), message);
+                        statsTables.jobFinished(plan.jobId(), message, classification);
                         sendResponse(listener, buildSQLActionException(t));
                     }
 
@@ -278,7 +472,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                                     @Override
                                     public void onFailure(Throwable e) {
                                         logger.warn("Failed to kill job before Retry", e);
-                                        statsTables.jobFinished(plan.jobId(), Exceptions.messageOf(t));
+                                        statsTables.jobFinished(plan.jobId(), Exceptions.messageOf(t), classification);
                                         sendResponse(listener, buildSQLActionException(t));
                                     }
                                 }
@@ -21,20 +21,22 @@
 
 package io.crate.action.sql;
 
-import io.crate.analyze.Analysis;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import io.crate.analyze.Analyzer;
 import io.crate.analyze.ParameterContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Buckets;
 import io.crate.core.collections.Row;
 import io.crate.executor.BytesRefUtils;
+import io.crate.executor.CursorResult;
 import io.crate.executor.Executor;
+import io.crate.executor.Job;
 import io.crate.executor.TaskResult;
 import io.crate.executor.transport.ResponseForwarder;
 import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.Planner;
-import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionFilters;
@@ -42,17 +44,22 @@ import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BaseTransportRequestHandler;
 import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportService;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.List;
 
 
 public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLResponse> {
 
+    private final CursorService cursorService;
+
     @Inject
     protected TransportSQLAction(
             ClusterService clusterService,
@@ -64,17 +71,69 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
             TransportService transportService,
             StatsTables statsTables,
             ActionFilters actionFilters,
-            TransportKillJobsNodeAction transportKillJobsNodeAction) {
+            TransportKillJobsNodeAction transportKillJobsNodeAction,
+            CircuitBreakerService breakerService,
+            CursorService cursorService) {
         super(clusterService, settings, SQLAction.NAME, threadPool,
                 analyzer, planner, executor, statsTables, actionFilters,
-                transportKillJobsNodeAction);
+                transportKillJobsNodeAction, breakerService);
+        this.cursorService = cursorService;
         transportService.registerHandler(SQLAction.NAME, new TransportHandler());
     }
 
     @Override
-    public Analysis getAnalysis(Statement statement, SQLRequest request) {
-        return analyzer.analyze(statement, new ParameterContext(
-                request.args(), SQLBulkRequest.EMPTY_BULK_ARGS, request.getDefaultSchema(), request.getRequestFlags()));
+    protected void doExecute(SQLRequest request, ActionListener<SQLResponse> listener) {
+        if (request.cursor() != null) {
+            fetchFromCursor(request, listener);
+        } else {
+            super.doExecute(request, listener);
+        }
+    }
+
+    private void fetchFromCursor(final SQLRequest request, final ActionListener<SQLResponse> listener) {
+        final CursorService.Cursor cursor;
+        try {
+            cursor = cursorService.get(request.cursor());
+        } catch (Throwable t) {
+            listener.onFailure(buildSQLActionException(t));
+            return;
+        }
+        Futures.addCallback(cursorService.fetch(cursor), new FutureCallback<TaskResult>() {
+            @Override
+            public void onSuccess(@Nullable TaskResult result) {
+                SQLResponse response;
+                try {
+                    response = createResponseFromResult(cursor.outputNames(), cursor.outputTypes(),
+                            Collections.singletonList(result), false, request);
+                } catch (Throwable t) {
+                    listener.onFailure(buildSQLActionException(t));
+                    return;
+                }
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                listener.onFailure(buildSQLActionException(t));
+            }
+        });
+    }
+
+    @Nullable
+    @Override
+    protected Integer cursorFetchSize(SQLRequest request) {
+        return request.fetchSize();
+    }
+
+    @Override
+    protected void openCursor(Job job, int fetchSize, String[] outputNames, DataType[] outputTypes) {
+        cursorService.open(job, fetchSize, outputNames, outputTypes);
+    }
+
+    @Override
+    public ParameterContext getParamContext(SQLRequest request) {
+        return new ParameterContext(
+                request.args(), SQLBulkRequest.EMPTY_BULK_ARGS, request.getDefaultSchema(), request.getRequestFlags());
     }
 
     @Override
@@ -114,7 +173,7 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
             objs = Buckets.materialize(rows);
         }
         BytesRefUtils.ensureStringTypesAreStrings(outputTypes, objs);
-        return new SQLResponse(
+        SQLResponse response = new SQLResponse(
                 outputNames,
                 objs,
                 outputTypes,
@@ -122,6 +181,10 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
                 request.creationTime(),
                 request.includeTypesOnResponse()
         );
+        if (taskResult instanceof CursorResult) {
+            response.cursor(((CursorResult) taskResult).cursor());
+        }
+        return response;
     }
 
     private class TransportHandler extends BaseTransportRequestHandler<SQLRequest> {
@@ -19,32 +19,27 @@
  * software solely pursuant to the terms of the relevant commercial agreement.
  */
 
-package io.crate.core.collections;
 
-import java.util.NoSuchElementException;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+package io.crate.analyze;
 
-public class BlockingEvictingQueue<E> extends ArrayBlockingQueue<E> implements BlockingQueue<E> {
+import io.crate.metadata.doc.DocTableInfo;
 
-    public BlockingEvictingQueue(int capacity) {
-        super(capacity);
-        assert capacity > 0;
+import java.util.List;
+
+public class AnalyzeAnalyzedStatement extends AbstractDDLAnalyzedStatement {
+
+    private final List<DocTableInfo> tables;
+
+    public AnalyzeAnalyzedStatement(List<DocTableInfo> tables) {
+        this.tables = tables;
+    }
+
+    public List<DocTableInfo> tables() {
+        return tables;
     }
 
     @Override
-    public boolean offer(E e) {
-        while (true) {
-            if (!super.offer(e)){
-                try {
-                    super.remove();
-                } catch (NoSuchElementException ex) {
-                    // race condition, queue was already empty
-                }
-            } else {
-                break;
-            }
-        }
-        return true;
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
+        return analyzedStatementVisitor.visitAnalyzeStatement(this, context);
     }
 }
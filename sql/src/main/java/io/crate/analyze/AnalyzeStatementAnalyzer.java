@@ -0,0 +1,76 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze;
+
+import com.google.common.base.Preconditions;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.stats.TableStatsService;
+import io.crate.metadata.table.TableInfo;
+import io.crate.sql.tree.AnalyzeStatement;
+import io.crate.sql.tree.DefaultTraversalVisitor;
+import io.crate.sql.tree.Node;
+import io.crate.sql.tree.Table;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Singleton
+public class AnalyzeStatementAnalyzer extends DefaultTraversalVisitor<AnalyzeAnalyzedStatement, Analysis> {
+
+    private final Schemas schemas;
+
+    @Inject
+    public AnalyzeStatementAnalyzer(Schemas schemas) {
+        this.schemas = schemas;
+    }
+
+    public AnalyzeAnalyzedStatement analyze(Node node, Analysis analysis) {
+        analysis.expectsAffectedRows(true);
+        return super.process(node, analysis);
+    }
+
+    @Override
+    public AnalyzeAnalyzedStatement visitAnalyzeStatement(AnalyzeStatement node, Analysis analysis) {
+        List<DocTableInfo> tables = new ArrayList<>();
+        if (node.tables().isEmpty()) {
+            tables.addAll(TableStatsService.analyzableTables(schemas));
+        } else {
+            for (Table nodeTable : node.tables()) {
+                TableInfo tableInfo = schemas.getTableInfo(
+                        TableIdent.of(nodeTable, analysis.parameterContext().defaultSchema()));
+                Preconditions.checkArgument(tableInfo instanceof DocTableInfo,
+                        "table '%s' cannot be analyzed",
+                        tableInfo.ident().fqn());
+                Preconditions.checkArgument(!((DocTableInfo) tableInfo).isAlias(),
+                        "table alias '%s' cannot be analyzed",
+                        tableInfo.ident().fqn());
+                tables.add((DocTableInfo) tableInfo);
+            }
+        }
+        return new AnalyzeAnalyzedStatement(tables);
+    }
+}
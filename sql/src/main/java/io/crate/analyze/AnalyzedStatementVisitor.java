@@ -85,6 +85,10 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitDDLAnalyzedStatement(analysis, context);
     }
 
+    public R visitAnalyzeStatement(AnalyzeAnalyzedStatement analysis, C context) {
+        return visitDDLAnalyzedStatement(analysis, context);
+    }
+
     public R visitAlterTableStatement(AlterTableAnalyzedStatement analysis, C context) {
         return visitDDLAnalyzedStatement(analysis, context);
     }
@@ -113,4 +117,8 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitShowAnalyzedStatement(analysis, context);
     }
 
+    public R visitExplainStatement(ExplainAnalyzedStatement analysis, C context) {
+        return visitAnalyzedStatement(analysis, context);
+    }
+
 }
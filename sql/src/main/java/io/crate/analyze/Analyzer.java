@@ -60,6 +60,7 @@ public class Analyzer {
         private final UpdateStatementAnalyzer updateStatementAnalyzer;
         private final DeleteStatementAnalyzer deleteStatementAnalyzer;
         private final KillStatementAnalyzer killStatementAnalyzer;
+        private final AnalyzeStatementAnalyzer analyzeStatementAnalyzer;
 
 
         @Inject
@@ -80,7 +81,8 @@ public class Analyzer {
                                   CopyStatementAnalyzer copyStatementAnalyzer,
                                   UpdateStatementAnalyzer updateStatementAnalyzer,
                                   DeleteStatementAnalyzer deleteStatementAnalyzer,
-                                  KillStatementAnalyzer killStatementAnalyzer) {
+                                  KillStatementAnalyzer killStatementAnalyzer,
+                                  AnalyzeStatementAnalyzer analyzeStatementAnalyzer) {
             this.selectStatementAnalyzer = selectStatementAnalyzer;
             this.dropTableStatementAnalyzer = dropTableStatementAnalyzer;
             this.createTableStatementAnalyzer = createTableStatementAnalyzer;
@@ -99,6 +101,7 @@ public class Analyzer {
             this.updateStatementAnalyzer = updateStatementAnalyzer;
             this.deleteStatementAnalyzer = deleteStatementAnalyzer;
             this.killStatementAnalyzer = killStatementAnalyzer;
+            this.analyzeStatementAnalyzer = analyzeStatementAnalyzer;
         }
 
         @Override
@@ -175,6 +178,11 @@ public class Analyzer {
             return refreshTableAnalyzer.analyze(node, context);
         }
 
+        @Override
+        public AnalyzedStatement visitAnalyzeStatement(AnalyzeStatement node, Analysis context) {
+            return analyzeStatementAnalyzer.analyze(node, context);
+        }
+
         @Override
         public AnalyzedStatement visitAlterTable(AlterTable node, Analysis context) {
             return alterTableAnalyzer.analyze(node, context);
@@ -200,6 +208,21 @@ public class Analyzer {
             return killStatementAnalyzer.analyze(node, context);
         }
 
+        @Override
+        protected AnalyzedStatement visitExplain(Explain node, Analysis context) {
+            if (node.getStatement() instanceof Explain) {
+                throw new UnsupportedOperationException("EXPLAIN statements cannot be nested");
+            }
+            if (node.getStatement() instanceof AnalyzeStatement) {
+                throw new UnsupportedOperationException("EXPLAIN of ANALYZE statements is not supported");
+            }
+            AnalyzedStatement statement = process(node.getStatement(), context);
+            ExplainAnalyzedStatement explainStatement = new ExplainAnalyzedStatement(statement, node.isAnalyze());
+            context.expectsAffectedRows(false);
+            context.rootRelation(explainStatement);
+            return explainStatement;
+        }
+
         @Override
         protected AnalyzedStatement visitNode(Node node, Analysis context) {
             throw new UnsupportedOperationException(String.format("cannot analyze statement: '%s'", node));
@@ -0,0 +1,113 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedRelationVisitor;
+import io.crate.exceptions.ColumnUnknownException;
+import io.crate.metadata.OutputName;
+import io.crate.metadata.Path;
+import io.crate.planner.symbol.Field;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * EXPLAIN [ANALYZE] statement
+ *
+ * EXPLAIN returns the textual representation of the plan of the explained statement as a single row.
+ * EXPLAIN ANALYZE executes the statement and returns a row per execution phase and node
+ * containing the runtime profile of the phase.
+ */
+public class ExplainAnalyzedStatement implements AnalyzedStatement, AnalyzedRelation {
+
+    public static final String EXPLAIN_COLUMN = "EXPLAIN";
+
+    private final AnalyzedStatement statement;
+    private final boolean analyze;
+    private final List<Field> fields;
+
+    public ExplainAnalyzedStatement(AnalyzedStatement statement, boolean analyze) {
+        this.statement = statement;
+        this.analyze = analyze;
+        if (analyze) {
+            ImmutableList.Builder<Field> builder = ImmutableList.builder();
+            builder.add(field("id", DataTypes.INTEGER))
+                    .add(field("downstream_id", DataTypes.INTEGER))
+                    .add(field("name", DataTypes.STRING))
+                    .add(field("node", DataTypes.STRING))
+                    .add(field("wall_time_ms", DataTypes.DOUBLE))
+                    .add(field("cpu_time_ms", DataTypes.DOUBLE))
+                    .add(field("paused_time_ms", DataTypes.DOUBLE))
+                    .add(field("rows", DataTypes.LONG))
+                    .add(field("bytes_sent", DataTypes.LONG))
+                    .add(field("bytes_received", DataTypes.LONG))
+                    .add(field("peak_memory", DataTypes.LONG))
+                    .add(field("projectors", new ArrayType(DataTypes.STRING)));
+            fields = builder.build();
+        } else {
+            fields = ImmutableList.of(field(EXPLAIN_COLUMN, DataTypes.STRING));
+        }
+    }
+
+    private Field field(String name, DataType type) {
+        return new Field(this, new OutputName(name), type);
+    }
+
+    public AnalyzedStatement statement() {
+        return statement;
+    }
+
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
+        return analyzedStatementVisitor.visitExplainStatement(this, context);
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedRelationVisitor<C, R> visitor, C context) {
+        throw new UnsupportedOperationException("EXPLAIN can't be used as a relation");
+    }
+
+    @Nullable
+    @Override
+    public Field getField(Path path) {
+        throw new UnsupportedOperationException("getField() is not supported on ExplainAnalyzedStatement");
+    }
+
+    @Override
+    public Field getWritableField(Path path) throws UnsupportedOperationException, ColumnUnknownException {
+        throw new UnsupportedOperationException("getWritableField() is not supported on ExplainAnalyzedStatement");
+    }
+
+    @Override
+    public List<Field> fields() {
+        return fields;
+    }
+}
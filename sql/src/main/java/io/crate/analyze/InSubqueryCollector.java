@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze;
+
+import io.crate.sql.tree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the subqueries of <code>IN (subquery)</code> predicates of a statement.
+ *
+ * Subqueries nested in other subqueries are returned before the enclosing ones,
+ * so they can be executed in the returned order.
+ */
+public class InSubqueryCollector extends DefaultTraversalVisitor<Void, List<SubqueryExpression>> {
+
+    private static final InSubqueryCollector INSTANCE = new InSubqueryCollector();
+
+    public static List<SubqueryExpression> collect(Statement statement) {
+        List<SubqueryExpression> subqueries = new ArrayList<>();
+        INSTANCE.process(statement, subqueries);
+        return subqueries;
+    }
+
+    @Override
+    protected Void visitInPredicate(InPredicate node, List<SubqueryExpression> context) {
+        process(node.getValue(), context);
+        process(node.getValueList(), context);
+        if (node.getValueList() instanceof SubqueryExpression && !context.contains(node.getValueList())) {
+            context.add((SubqueryExpression) node.getValueList());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitUpdate(Update node, List<SubqueryExpression> context) {
+        for (Assignment assignment : node.assignements()) {
+            process(assignment.expression(), context);
+        }
+        if (node.whereClause().isPresent()) {
+            process(node.whereClause().get(), context);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitDelete(Delete node, List<SubqueryExpression> context) {
+        if (node.getWhere().isPresent()) {
+            process(node.getWhere().get(), context);
+        }
+        return null;
+    }
+}
@@ -22,11 +22,15 @@
 package io.crate.analyze;
 
 import io.crate.rest.action.RestSQLAction;
+import io.crate.sql.tree.SubqueryExpression;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import static io.crate.planner.symbol.Literal.newLiteral;
 
@@ -43,6 +47,8 @@ public class ParameterContext {
 
     private int headerFlags = 0;
 
+    private final Map<SubqueryExpression, Collection<?>> subqueryResults = new HashMap<>();
+
     public ParameterContext(Object[] parameters, Object[][] bulkParameters,
                             @Nullable String defaultSchema, @Nullable Integer headerFlags) {
         this.parameters = parameters;
@@ -64,6 +70,22 @@ public class ParameterContext {
         return headerFlags;
     }
 
+    /**
+     * registers the distinct values returned by an uncorrelated <code>IN (subquery)</code>,
+     * they're used instead of the subquery when the statement is analyzed
+     */
+    public void subqueryResult(SubqueryExpression subquery, Collection<?> values) {
+        subqueryResults.put(subquery, values);
+    }
+
+    /**
+     * @return the values returned by the subquery or null if it hasn't been executed
+     */
+    @Nullable
+    public Collection<?> subqueryResult(SubqueryExpression subquery) {
+        return subqueryResults.get(subquery);
+    }
+
     @Nullable
     public String defaultSchema() {
         return defaultSchema;
@@ -40,6 +40,8 @@ import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.metadata.table.TableInfo;
 import io.crate.operation.aggregation.impl.CollectSetAggregation;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.HyperLogLogDistinctAggregation;
 import io.crate.operation.operator.*;
 import io.crate.operation.operator.any.AnyEqOperator;
 import io.crate.operation.operator.any.AnyLikeOperator;
@@ -348,6 +350,10 @@ public class ExpressionAnalyzer {
             if (argumentTypes.size() > 1) {
                 throw new UnsupportedOperationException("Function(DISTINCT x) does not accept more than one argument");
             }
+            if (useApproximateCountDistinct(node)) {
+                FunctionIdent ident = new FunctionIdent(HyperLogLogDistinctAggregation.NAME, argumentTypes);
+                return context.allocateFunction(getFunctionInfo(ident), arguments);
+            }
             // define the inner function. use the arguments/argumentTypes from above
             FunctionIdent innerIdent = new FunctionIdent(CollectSetAggregation.NAME, argumentTypes);
             FunctionInfo innerInfo = getFunctionInfo(innerIdent);
@@ -370,6 +376,11 @@ public class ExpressionAnalyzer {
     }
 
 
+    private boolean useApproximateCountDistinct(FunctionCall node) {
+        return (parameterContext.headerFlags() & SQLBaseRequest.HEADER_FLAG_APPROX_COUNT_DISTINCT) == SQLBaseRequest.HEADER_FLAG_APPROX_COUNT_DISTINCT
+               && node.getName().toString().equalsIgnoreCase(CountAggregation.NAME);
+    }
+
     public void resolveWritableFields(boolean value) {
         forWrite = value;
     }
@@ -500,6 +511,21 @@ public class ExpressionAnalyzer {
                 return Literal.NULL;
             }
 
+            if (node.getValueList() instanceof SubqueryExpression) {
+                Literal values = subqueryResult((SubqueryExpression) node.getValueList(), leftType);
+                if (((Set) values.value()).isEmpty()) {
+                    // nothing is contained in an empty result, also avoids an empty terms filter
+                    return Literal.BOOLEAN_FALSE;
+                }
+                return context.allocateFunction(
+                        new FunctionInfo(
+                                new FunctionIdent(AnyEqOperator.NAME, Arrays.asList(leftType, new SetType(leftType))),
+                                DataTypes.BOOLEAN
+                        ),
+                        Arrays.asList(left, values)
+                );
+            }
+
             List<Expression> expressions = ((InListExpression) node.getValueList()).getValues();
 
             boolean useAny = true;
@@ -569,6 +595,28 @@ public class ExpressionAnalyzer {
             }
         }
 
+
+        /**
+         * the result of an uncorrelated subquery which has been executed before the statement is analyzed,
+         * converted to a set literal of the type of the left side
+         */
+        private Literal subqueryResult(SubqueryExpression subquery, DataType leftType) {
+            Collection<?> values = parameterContext.subqueryResult(subquery);
+            if (values == null) {
+                throw new UnsupportedOperationException("IN (subquery) is not supported in this statement");
+            }
+            Set<Object> converted = new HashSet<>(values.size(), 1.0F);
+            for (Object value : values) {
+                try {
+                    converted.add(leftType.value(value));
+                } catch (Throwable e) {
+                    throw new IllegalArgumentException(
+                            String.format(Locale.ENGLISH, "invalid IN subquery value %s. expected type '%s'",
+                                    value, leftType.getName()));
+                }
+            }
+            return Literal.newLiteral(new SetType(leftType), Collections.unmodifiableSet(converted));
+        }
         @Override
         protected Symbol visitIsNotNullPredicate(IsNotNullPredicate node, ExpressionAnalysisContext context) {
             Symbol argument = process(node.getValue(), context);
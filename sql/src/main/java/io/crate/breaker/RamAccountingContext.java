@@ -21,10 +21,12 @@
 
 package io.crate.breaker;
 
+import io.crate.operation.profile.PhaseProfile;
 import io.crate.planner.node.ExecutionPhase;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -38,9 +40,13 @@ public class RamAccountingContext {
 
     private final AtomicLong totalBytes = new AtomicLong(0);
     private final AtomicLong flushBuffer = new AtomicLong(0);
+    private final AtomicLong peakBytes = new AtomicLong(0);
     private volatile boolean closed = false;
     private volatile boolean tripped = false;
 
+    @Nullable
+    private PhaseProfile profile;
+
     public static RamAccountingContext forExecutionPhase(CircuitBreaker breaker, ExecutionPhase executionPhase) {
         String ramAccountingContextId = String.format(Locale.ENGLISH, "%s: %d",
                 executionPhase.name(), executionPhase.executionPhaseId());
@@ -66,11 +72,21 @@ public class RamAccountingContext {
             return;
         }
         long currentFlushBuffer = flushBuffer.addAndGet(bytes);
+        if (bytes > 0) {
+            updatePeak(totalBytes.get() + currentFlushBuffer);
+        }
         if (currentFlushBuffer >= FLUSH_BUFFER_SIZE) {
             flush(currentFlushBuffer);
         }
     }
 
+    private void updatePeak(long bytes) {
+        long peak = peakBytes.get();
+        while (bytes > peak && !peakBytes.compareAndSet(peak, bytes)) {
+            peak = peakBytes.get();
+        }
+    }
+
     /**
      * Flush the {@code bytes} to the breaker, incrementing the total
      * bytes and adjusting the buffer.
@@ -104,6 +120,14 @@ public class RamAccountingContext {
         return totalBytes.get();
     }
 
+    /**
+     * @return the highest number of bytes which have been accounted at the same time,
+     *         including bytes which haven't been flushed to the breaker yet
+     */
+    public long peakBytes() {
+        return peakBytes.get();
+    }
+
     /**
      * Close the context and adjust the breaker.
      * A remaining flush buffer will not be flushed to avoid breaking on close.
@@ -117,7 +141,10 @@ public class RamAccountingContext {
         if (totalBytes.get() != 0) {
             breaker.addWithoutBreaking(-totalBytes.get());
         }
-        totalBytes.addAndGet(flushBuffer.getAndSet(0));
+        updatePeak(totalBytes.addAndGet(flushBuffer.getAndSet(0)));
+        if (profile != null) {
+            profile.peakMemoryBytes(peakBytes.get());
+        }
     }
 
     /**
@@ -142,6 +169,18 @@ public class RamAccountingContext {
     }
 
 
+    /**
+     * Returns the profile of the execution phase this context belongs to or null if the phase isn't profiled
+     */
+    @Nullable
+    public PhaseProfile profile() {
+        return profile;
+    }
+
+    public void profile(@Nullable PhaseProfile profile) {
+        this.profile = profile;
+    }
+
     /**
      * round n up to the nearest multiple of m
      */
@@ -25,6 +25,8 @@ import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.action.job.*;
@@ -33,6 +35,7 @@ import io.crate.executor.JobTask;
 import io.crate.executor.TaskResult;
 import io.crate.jobs.*;
 import io.crate.operation.*;
+import io.crate.operation.profile.JobProfiles;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.planner.node.ExecutionPhase;
 import io.crate.planner.node.ExecutionPhases;
@@ -44,8 +47,10 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.indices.IndicesService;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public class ExecutionPhasesTask extends JobTask {
@@ -58,17 +63,24 @@ public class ExecutionPhasesTask extends JobTask {
     private ContextPreparer contextPreparer;
     private final JobContextService jobContextService;
     private final IndicesService indicesService;
-
+    private final ReplicaSelector replicaSelector;
 
     private final List<SettableFuture<TaskResult>> results = new ArrayList<>();
     private boolean hasDirectResponse;
 
+    @Nullable
+    private JobProfiles jobProfiles;
+
+    @Nullable
+    private CursorRowReceiver cursor;
+
     protected ExecutionPhasesTask(UUID jobId,
                                   ClusterService clusterService,
                                   ContextPreparer contextPreparer,
                                   JobContextService jobContextService,
                                   IndicesService indicesService,
                                   TransportJobAction transportJobAction,
+                                  ReplicaSelector replicaSelector,
                                   List<NodeOperationTree> nodeOperationTrees) {
         super(jobId);
         this.clusterService = clusterService;
@@ -76,6 +88,7 @@ public class ExecutionPhasesTask extends JobTask {
         this.jobContextService = jobContextService;
         this.indicesService = indicesService;
         this.transportJobAction = transportJobAction;
+        this.replicaSelector = replicaSelector;
         this.nodeOperationTrees = nodeOperationTrees;
 
         for (NodeOperationTree nodeOperationTree : nodeOperationTrees) {
@@ -89,6 +102,21 @@ public class ExecutionPhasesTask extends JobTask {
         }
     }
 
+    /**
+     * record the runtime profiles of all phases of this task on all involved nodes into their {@link JobProfiles}
+     */
+    public void enableProfiling(JobProfiles jobProfiles) {
+        this.jobProfiles = jobProfiles;
+    }
+
+    /**
+     * hand out the result in batches using the given cursor instead of collecting all rows at once.
+     * The result of the task is the first batch.
+     */
+    public void cursor(CursorRowReceiver cursor) {
+        this.cursor = cursor;
+    }
+
     @Override
     public void start() {
         FluentIterable<NodeOperation> nodeOperations = FluentIterable.from(nodeOperationTrees)
@@ -111,35 +139,64 @@ public class ExecutionPhasesTask extends JobTask {
                 RowCountResultRowDownstream rowDownstream = new RowCountResultRowDownstream(result);
                 handlerPhases.add(new Tuple<ExecutionPhase, RowReceiver>(nodeOperationTrees.get(i).leaf(), rowDownstream));
             }
+        } else if (cursor != null) {
+            cursor.fetch(Iterables.getOnlyElement(results));
+            handlerPhases.add(new Tuple<ExecutionPhase, RowReceiver>(Iterables.getOnlyElement(nodeOperationTrees).leaf(), cursor));
         } else {
             SettableFuture<TaskResult> result = Iterables.getOnlyElement(results);
             QueryResultRowDownstream downstream = new QueryResultRowDownstream(result);
             handlerPhases.add(new Tuple<ExecutionPhase, RowReceiver>(Iterables.getOnlyElement(nodeOperationTrees).leaf(), downstream));
         }
 
+        List<ListenableFuture<Bucket>> localDirectResponses = new ArrayList<>();
         try {
-            setupContext(operationByServer, pageDownstreamContexts, handlerPhases);
+            setupContext(operationByServer, pageDownstreamContexts, handlerPhases, localDirectResponses);
         } catch (Throwable throwable) {
             for (SettableFuture<TaskResult> result : results) {
                 result.setException(throwable);
             }
         }
+        if (!localDirectResponses.isEmpty()) {
+            // the local node operations have been removed from operationByServer,
+            // so their bucket gets the index after the ones of the remaining nodes
+            forwardLocalDirectResponses(localDirectResponses, operationByServer.size(), pageDownstreamContexts);
+        }
         if (operationByServer.isEmpty()) {
             return;
         }
         sendJobRequests(pageDownstreamContexts, operationByServer);
     }
 
+    private void forwardLocalDirectResponses(List<ListenableFuture<Bucket>> localDirectResponses,
+                                             int bucketIdx,
+                                             List<PageDownstreamContext> pageDownstreamContexts) {
+        final DirectResponseListener listener = new DirectResponseListener(bucketIdx, pageDownstreamContexts);
+        Futures.addCallback(Futures.allAsList(localDirectResponses), new FutureCallback<List<Bucket>>() {
+            @Override
+            public void onSuccess(@Nullable List<Bucket> buckets) {
+                assert buckets != null : "buckets must not be null";
+                listener.onResponse(new JobResponse(buckets));
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                listener.onFailure(t);
+            }
+        });
+    }
+
     private void setupContext(Map<String, Collection<NodeOperation>> operationByServer,
                               List<PageDownstreamContext> pageDownstreamContexts,
-                              List<Tuple<ExecutionPhase, RowReceiver>> handlerPhases) throws Throwable {
+                              List<Tuple<ExecutionPhase, RowReceiver>> handlerPhases,
+                              List<ListenableFuture<Bucket>> localDirectResponses) throws Throwable {
         boolean noNodeOperations = false;
         if (operationByServer.isEmpty()) {
             // this should never happen, instead we should use a NOOP plan instead
             // which immediately results in an empty result
             noNodeOperations = true;
         }
-        List<ExecutionSubContext> localContextAndStartOperation = createLocalContextAndStartOperation(operationByServer, handlerPhases);
+        List<ExecutionSubContext> localContextAndStartOperation =
+                createLocalContextAndStartOperation(operationByServer, handlerPhases, localDirectResponses);
         if (noNodeOperations) {
             for (ExecutionSubContext executionSubContext : localContextAndStartOperation) {
                 executionSubContext.close();
@@ -162,12 +219,18 @@ public class ExecutionPhasesTask extends JobTask {
             String serverNodeId = entry.getKey();
             Collection<NodeOperation> nodeOperations = entry.getValue();
 
-            JobRequest request = new JobRequest(jobId(), nodeOperations);
+            JobRequest request = new JobRequest(jobId(), nodeOperations, jobProfiles != null);
+            TrackedPhases trackedPhases = new TrackedPhases(serverNodeId, nodeOperations.size());
             if (hasDirectResponse) {
-                transportJobAction.execute(serverNodeId, request, new DirectResponseListener(idx, pageDownstreamContexts));
+                // the direct response is sent once the phases are done
+                transportJobAction.execute(serverNodeId, request,
+                        trackedPhases.doneOnResponse(new DirectResponseListener(idx, pageDownstreamContexts)));
             } else {
+                // the response is sent once the phases are started, they are done at the latest once
+                // the results are available
+                trackedPhases.doneWith(Futures.successfulAsList(results));
                 transportJobAction.execute(serverNodeId, request,
-                        new FailureOnlyResponseListener(results));
+                        trackedPhases.doneOnFailure(new FailureOnlyResponseListener(results)));
             }
             idx++;
         }
@@ -176,17 +239,18 @@ public class ExecutionPhasesTask extends JobTask {
     /**
      * removes the localNodeId entry from the nodesByServer map and initializes the context and starts the operation.
      *
-     * This is done in order to be able to create the JobExecutionContext with the localMerge PageDownstreamContext
+     * This is done in order to be able to create the JobExecutionContext with the localMerge PageDownstreamContext.
+     * The local node operations run in the same JobExecutionContext as the handler phases, so no job request
+     * is sent to the local node. If they have a DIRECT_RESPONSE downstream their result is added to
+     * <code>localDirectResponses</code> without being serialized.
      */
     private List<ExecutionSubContext> createLocalContextAndStartOperation(Map<String, Collection<NodeOperation>> operationsByServer,
-                                                                          List<Tuple<ExecutionPhase, RowReceiver>> handlerPhases) throws Throwable {
+                                                                          List<Tuple<ExecutionPhase, RowReceiver>> handlerPhases,
+                                                                          List<ListenableFuture<Bucket>> localDirectResponses) throws Throwable {
         String localNodeId = clusterService.localNode().id();
         JobExecutionContext.Builder builder = jobContextService.newBuilder(jobId());
-        Collection<NodeOperation> localNodeOperations = null;
         SharedShardContexts sharedShardContexts = null;
-        if (!hasDirectResponse) {
-            localNodeOperations = operationsByServer.remove(localNodeId);
-        }
+        Collection<NodeOperation> localNodeOperations = operationsByServer.remove(localNodeId);
         if (localNodeOperations == null) {
             localNodeOperations = ImmutableList.of();
         } else {
@@ -198,21 +262,111 @@ public class ExecutionPhasesTask extends JobTask {
                 localNodeOperations,
                 builder,
                 handlerPhases,
-                sharedShardContexts
+                sharedShardContexts,
+                jobProfiles == null ? null : jobProfiles.getOrCreate(jobId()),
+                localDirectResponses
         );
 
-        if (!hasDirectResponse) {
-            JobExecutionContext context = jobContextService.createContext(builder);
+        JobExecutionContext context = jobContextService.createContext(builder);
+        if (localNodeOperations.isEmpty()) {
             context.start();
         } else {
-            for (ExecutionSubContext executionSubContext : executionSubContexts) {
-                executionSubContext.prepare();
-                executionSubContext.start();
-            }
+            startTrackedForReplicaSelection(context, localNodeId, localNodeOperations.size(), localDirectResponses);
         }
         return executionSubContexts;
     }
 
+    /**
+     * starts the context with the local phases, which are tracked like a job request sent to the local node.
+     * They are done once their direct responses are available or once the context is completed.
+     */
+    private void startTrackedForReplicaSelection(JobExecutionContext context,
+                                                 String localNodeId,
+                                                 int numPhases,
+                                                 List<ListenableFuture<Bucket>> localDirectResponses) throws Throwable {
+        TrackedPhases trackedPhases = new TrackedPhases(localNodeId, numPhases);
+        try {
+            context.start();
+        } catch (Throwable t) {
+            trackedPhases.done();
+            throw t;
+        }
+        if (localDirectResponses.isEmpty()) {
+            trackedPhases.doneWith(context.completionFuture());
+        } else {
+            trackedPhases.doneWith(Futures.allAsList(localDirectResponses));
+        }
+    }
+
+    /**
+     * The phases executed on a node, which are tracked by the {@link ReplicaSelector} from the time they are sent
+     * until they are done, so that the response times reflect the time needed to execute them.
+     */
+    private class TrackedPhases {
+
+        private final String nodeId;
+        private final int numPhases;
+        private final long startTime;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        TrackedPhases(String nodeId, int numPhases) {
+            this.nodeId = nodeId;
+            this.numPhases = numPhases;
+            this.startTime = replicaSelector.onRequest(nodeId, numPhases);
+        }
+
+        void done() {
+            if (done.compareAndSet(false, true)) {
+                replicaSelector.onResponse(nodeId, numPhases, startTime);
+            }
+        }
+
+        void doneWith(ListenableFuture<?> future) {
+            Futures.addCallback(future, new FutureCallback<Object>() {
+                @Override
+                public void onSuccess(@Nullable Object result) {
+                    done();
+                }
+
+                @Override
+                public void onFailure(@Nonnull Throwable t) {
+                    done();
+                }
+            });
+        }
+
+        ActionListener<JobResponse> doneOnResponse(final ActionListener<JobResponse> listener) {
+            return new ActionListener<JobResponse>() {
+                @Override
+                public void onResponse(JobResponse jobResponse) {
+                    done();
+                    listener.onResponse(jobResponse);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    done();
+                    listener.onFailure(e);
+                }
+            };
+        }
+
+        ActionListener<JobResponse> doneOnFailure(final ActionListener<JobResponse> listener) {
+            return new ActionListener<JobResponse>() {
+                @Override
+                public void onResponse(JobResponse jobResponse) {
+                    listener.onResponse(jobResponse);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    done();
+                    listener.onFailure(e);
+                }
+            };
+        }
+    }
+
     @Override
     public List<? extends ListenableFuture<TaskResult>> result() {
         return results;
@@ -42,6 +42,9 @@ public class NodeFetchRequest extends TransportRequest {
     @Nullable
     private IntObjectOpenHashMap<IntContainer> toFetch;
 
+    // not streamed, only set if the request has been received over the wire
+    private boolean streamed = false;
+
     public NodeFetchRequest() {
     }
 
@@ -70,9 +73,18 @@ public class NodeFetchRequest extends TransportRequest {
         return toFetch;
     }
 
+    /**
+     * @return true if the request has been sent by another node and the response has to be streamed back,
+     *         false if it's executed on the node it has been created on
+     */
+    public boolean streamed() {
+        return streamed;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
+        streamed = true;
         jobId = new UUID(in.readLong(), in.readLong());
         fetchPhaseId = in.readVInt();
         int numReaders = in.readVInt();
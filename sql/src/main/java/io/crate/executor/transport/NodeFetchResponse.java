@@ -25,6 +25,7 @@ import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.IntObjectOpenHashMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportResponse;
@@ -39,9 +40,12 @@ public class NodeFetchResponse extends TransportResponse {
     private final IntObjectMap<Streamer[]> streamers;
 
     @Nullable
-    private IntObjectMap<StreamBucket> fetched;
+    private IntObjectMap<? extends Bucket> fetched;
 
-    public static NodeFetchResponse forSending(IntObjectMap<StreamBucket> fetched){
+    /**
+     * @param fetched the fetched rows per reader, must be {@link StreamBucket}s if the response is sent to another node
+     */
+    public static NodeFetchResponse forSending(IntObjectMap<? extends Bucket> fetched){
         return new NodeFetchResponse(null, fetched);
     }
 
@@ -50,13 +54,13 @@ public class NodeFetchResponse extends TransportResponse {
     }
 
     private NodeFetchResponse(@Nullable IntObjectMap<Streamer[]> streamers,
-                              @Nullable IntObjectMap<StreamBucket> fetched) {
+                              @Nullable IntObjectMap<? extends Bucket> fetched) {
         this.streamers = streamers;
         this.fetched = fetched;
     }
 
     @Nullable
-    public IntObjectMap<StreamBucket> fetched() {
+    public IntObjectMap<? extends Bucket> fetched() {
         return fetched;
     }
 
@@ -66,13 +70,14 @@ public class NodeFetchResponse extends TransportResponse {
         int numReaders = in.readVInt();
         if (numReaders > 0) {
             assert streamers != null;
-            fetched = new IntObjectOpenHashMap<>(numReaders);
+            IntObjectOpenHashMap<StreamBucket> received = new IntObjectOpenHashMap<>(numReaders);
             for (int i = 0; i < numReaders; i++) {
                 int readerId = in.readVInt();
                 StreamBucket bucket = new StreamBucket(streamers.get(readerId));
                 bucket.readFrom(in);
-                fetched.put(readerId, bucket);
+                received.put(readerId, bucket);
             }
+            fetched = received;
         }
     }
 
@@ -83,9 +88,10 @@ public class NodeFetchResponse extends TransportResponse {
             out.writeVInt(0);
         } else {
             out.writeVInt(fetched.size());
-            for (IntObjectCursor<StreamBucket> cursor : fetched) {
+            for (IntObjectCursor<? extends Bucket> cursor : fetched) {
+                assert cursor.value instanceof StreamBucket : "only StreamBuckets can be sent to another node";
                 out.writeVInt(cursor.key);
-                cursor.value.writeTo(out);
+                ((StreamBucket) cursor.value).writeTo(out);
             }
         }
     }
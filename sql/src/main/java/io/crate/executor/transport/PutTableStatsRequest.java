@@ -0,0 +1,83 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.metadata.stats.TableStats;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.master.AcknowledgedRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Request to store the statistics of one or more tables in the cluster state.
+ */
+public class PutTableStatsRequest extends AcknowledgedRequest<PutTableStatsRequest> {
+
+    private Map<String, TableStats> tableStats;
+
+    /**
+     * @param tableStats the statistics by fully qualified table name
+     */
+    public PutTableStatsRequest(Map<String, TableStats> tableStats) {
+        this.tableStats = tableStats;
+    }
+
+    PutTableStatsRequest() {
+    }
+
+    public Map<String, TableStats> tableStats() {
+        return tableStats;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        return null;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        readTimeout(in);
+        int size = in.readVInt();
+        ImmutableMap.Builder<String, TableStats> builder = ImmutableMap.builder();
+        for (int i = 0; i < size; i++) {
+            builder.put(in.readString(), TableStats.readFrom(in));
+        }
+        tableStats = builder.build();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        writeTimeout(out);
+        out.writeVInt(tableStats.size());
+        for (Map.Entry<String, TableStats> entry : tableStats.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+}
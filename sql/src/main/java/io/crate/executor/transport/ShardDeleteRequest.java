@@ -0,0 +1,231 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.Constants;
+import io.crate.planner.symbol.Symbol;
+import org.elasticsearch.action.bulk.BulkProcessorRequest;
+import org.elasticsearch.action.bulk.SymbolBasedBulkShardProcessor;
+import org.elasticsearch.action.support.replication.ShardReplicationOperationRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request to delete a batch of documents of a single shard by id.
+ *
+ * After the deletes on the primary the request is sent to the replicas, containing only the
+ * deleted items with their versions set to the versions resulting from the delete on the primary.
+ */
+public class ShardDeleteRequest extends ShardReplicationOperationRequest<ShardDeleteRequest> implements BulkProcessorRequest {
+
+    /**
+     * A single delete item.
+     */
+    static class Item implements Streamable {
+
+        private String id;
+        private long version = Versions.MATCH_ANY;
+        private VersionType versionType = VersionType.INTERNAL;
+
+        Item() {
+        }
+
+        Item(String id, @Nullable Long version) {
+            this.id = id;
+            if (version != null) {
+                this.version = version;
+            }
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public void version(long version) {
+            this.version = version;
+        }
+
+        public VersionType versionType() {
+            return versionType;
+        }
+
+        public void versionType(VersionType versionType) {
+            this.versionType = versionType;
+        }
+
+        static Item readItem(StreamInput in) throws IOException {
+            Item item = new Item();
+            item.readFrom(in);
+            return item;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            id = in.readString();
+            version = Versions.readVersion(in);
+            versionType = VersionType.fromValue(in.readByte());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(id);
+            Versions.writeVersion(version, out);
+            out.writeByte(versionType.getValue());
+        }
+    }
+
+    private UUID jobId;
+    private int shardId;
+    private List<Item> items;
+    private IntArrayList locations;
+
+    public ShardDeleteRequest() {
+    }
+
+    public ShardDeleteRequest(ShardId shardId, UUID jobId) {
+        this.index = shardId.getIndex();
+        this.shardId = shardId.id();
+        this.jobId = jobId;
+        locations = new IntArrayList();
+        items = new ArrayList<>();
+    }
+
+    public ShardDeleteRequest add(int location, String id, @Nullable Long version) {
+        locations.add(location);
+        items.add(new Item(id, version));
+        return this;
+    }
+
+    public List<Item> items() {
+        return items;
+    }
+
+    /**
+     * removes the items at the given positions, e.g. to not send them to the replicas
+     * if they couldn't be deleted on the primary
+     */
+    void removeItems(BitSet positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        int retainedSize = items.size() - positions.cardinality();
+        IntArrayList retainedLocations = new IntArrayList(retainedSize);
+        List<Item> retainedItems = new ArrayList<>(retainedSize);
+        for (int i = 0; i < items.size(); i++) {
+            if (!positions.get(i)) {
+                retainedLocations.add(locations.get(i));
+                retainedItems.add(items.get(i));
+            }
+        }
+        locations = retainedLocations;
+        items = retainedItems;
+    }
+
+    @Override
+    public IntArrayList itemIndices() {
+        return locations;
+    }
+
+    public String type() {
+        return Constants.DEFAULT_MAPPING_TYPE;
+    }
+
+    public int shardId() {
+        return shardId;
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        shardId = in.readInt();
+        jobId = new UUID(in.readLong(), in.readLong());
+        int size = in.readVInt();
+        locations = new IntArrayList(size);
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            locations.add(in.readVInt());
+            items.add(Item.readItem(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeInt(shardId);
+        out.writeLong(jobId.getMostSignificantBits());
+        out.writeLong(jobId.getLeastSignificantBits());
+        out.writeVInt(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            out.writeVInt(locations.get(i));
+            items.get(i).writeTo(out);
+        }
+    }
+
+    public static class Builder implements SymbolBasedBulkShardProcessor.BulkRequestBuilder<ShardDeleteRequest> {
+
+        private final TimeValue timeout;
+        private final UUID jobId;
+
+        public Builder(TimeValue timeout, UUID jobId) {
+            this.timeout = timeout;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public ShardDeleteRequest newRequest(ShardId shardId) {
+            return new ShardDeleteRequest(shardId, jobId).timeout(timeout);
+        }
+
+        @Override
+        public void addItem(ShardDeleteRequest existingRequest,
+                            ShardId shardId,
+                            int location,
+                            String id,
+                            @Nullable Symbol[] assignments,
+                            @Nullable Object[] missingAssignments,
+                            @Nullable String routing,
+                            @Nullable Long version) {
+            existingRequest.add(location, id, version);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.carrotsearch.hppc.IntArrayList;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.bulk.BulkProcessorResponse;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response of a {@link ShardDeleteRequest}.
+ *
+ * Contains a non-null response per item if the document was deleted and null if
+ * it didn't exist (anymore) or couldn't be deleted.
+ */
+public class ShardDeleteResponse extends ActionResponse implements BulkProcessorResponse<Boolean> {
+
+    private IntArrayList locations = new IntArrayList();
+    private List<Boolean> responses = new ArrayList<>();
+
+    public ShardDeleteResponse() {
+    }
+
+    public void add(int location, boolean deleted) {
+        locations.add(location);
+        responses.add(deleted ? Boolean.TRUE : null);
+    }
+
+    @Override
+    public IntArrayList itemIndices() {
+        return locations;
+    }
+
+    @Override
+    public List<Boolean> responses() {
+        return responses;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int size = in.readVInt();
+        locations = new IntArrayList(size);
+        responses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            locations.add(in.readVInt());
+            responses.add(in.readBoolean() ? Boolean.TRUE : null);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            out.writeVInt(locations.get(i));
+            out.writeBoolean(responses.get(i) != null);
+        }
+    }
+}
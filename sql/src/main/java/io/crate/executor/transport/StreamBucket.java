@@ -73,6 +73,13 @@ public class StreamBucket implements Bucket, Streamable {
             return size;
         }
 
+        /**
+         * @return the size of the rows serialized so far in bytes
+         */
+        public long sizeInBytes() {
+            return out.size();
+        }
+
         public void writeToStream(StreamOutput output) throws IOException {
             output.writeVInt(size);
             if (size > 0) {
@@ -103,6 +110,13 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * @return the size of the serialized rows in bytes
+     */
+    public long sizeInBytes() {
+        return bytes == null ? 0 : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -32,11 +32,14 @@ import io.crate.executor.task.NoopTask;
 import io.crate.executor.transport.task.*;
 import io.crate.executor.transport.task.elasticsearch.*;
 import io.crate.jobs.JobContextService;
+import io.crate.jobs.JobScheduler;
+import io.crate.jobs.ReplicaSelector;
 import io.crate.metadata.Functions;
 import io.crate.metadata.NestedReferenceResolver;
 import io.crate.operation.ImplementationSymbolVisitor;
 import io.crate.operation.NodeOperation;
 import io.crate.operation.NodeOperationTree;
+import io.crate.operation.profile.JobProfiles;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.planner.*;
 import io.crate.planner.node.ExecutionPhase;
@@ -46,6 +49,7 @@ import io.crate.planner.node.ddl.*;
 import io.crate.planner.node.dml.*;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.node.dql.join.NestedLoop;
+import io.crate.planner.node.management.ExplainPlan;
 import io.crate.planner.node.management.GenericShowPlan;
 import io.crate.planner.node.management.KillPlan;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
@@ -72,6 +76,9 @@ public class TransportExecutor implements Executor, TaskExecutor {
     private final TransportActionProvider transportActionProvider;
     private final IndicesService indicesService;
     private final BulkRetryCoordinatorPool bulkRetryCoordinatorPool;
+    private final JobProfiles jobProfiles;
+    private final JobScheduler jobScheduler;
+    private final ReplicaSelector replicaSelector;
 
     private final ProjectionToProjectorVisitor globalProjectionToProjectionVisitor;
 
@@ -90,7 +97,10 @@ public class TransportExecutor implements Executor, TaskExecutor {
                              ShowStatementDispatcher showStatementDispatcherProvider,
                              ClusterService clusterService,
                              IndicesService indicesService,
-                             BulkRetryCoordinatorPool bulkRetryCoordinatorPool) {
+                             BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
+                             JobProfiles jobProfiles,
+                             JobScheduler jobScheduler,
+                             ReplicaSelector replicaSelector) {
         this.jobContextService = jobContextService;
         this.contextPreparer = contextPreparer;
         this.transportActionProvider = transportActionProvider;
@@ -100,6 +110,9 @@ public class TransportExecutor implements Executor, TaskExecutor {
         this.clusterService = clusterService;
         this.indicesService = indicesService;
         this.bulkRetryCoordinatorPool = bulkRetryCoordinatorPool;
+        this.jobProfiles = jobProfiles;
+        this.jobScheduler = jobScheduler;
+        this.replicaSelector = replicaSelector;
         nodeVisitor = new NodeVisitor();
         planVisitor = new TaskCollectingVisitor();
         ImplementationSymbolVisitor globalImplementationSymbolVisitor = new ImplementationSymbolVisitor(
@@ -198,6 +211,7 @@ public class TransportExecutor implements Executor, TaskExecutor {
                     jobContextService,
                     indicesService,
                     transportActionProvider.transportJobInitAction(),
+                    replicaSelector,
                     nodeOperationTrees
             );
         }
@@ -214,6 +228,24 @@ public class TransportExecutor implements Executor, TaskExecutor {
             return ImmutableList.of(task);
         }
 
+        @Override
+        public List<? extends Task> visitExplainPlan(ExplainPlan plan, Job job) {
+            if (!plan.isAnalyze()) {
+                return ImmutableList.<Task>of(new ExplainTask(job.id(), plan.subPlan()));
+            }
+            List<Task> tasks = new ArrayList<>(process(plan.subPlan(), job));
+            for (Task task : tasks) {
+                if (task instanceof ExecutionPhasesTask) {
+                    ((ExecutionPhasesTask) task).enableProfiling(jobProfiles);
+                }
+            }
+            return ImmutableList.<Task>of(new ExplainAnalyzeTask(
+                    job.id(),
+                    TransportExecutor.this,
+                    tasks,
+                    transportActionProvider.transportCollectProfileNodeAction()));
+        }
+
         @Override
         public List<? extends Task> visitGenericShowPlan(GenericShowPlan genericShowPlan, Job job) {
             return ImmutableList.<Task>of(new GenericShowTask(job.id(),
@@ -242,16 +274,8 @@ public class TransportExecutor implements Executor, TaskExecutor {
                     transportActionProvider.transportMultiGetAction(),
                     transportActionProvider.transportGetAction(),
                     node,
-                    jobContextService));
-        }
-
-        @Override
-        public ImmutableList<Task> visitESDeleteByQueryNode(ESDeleteByQueryNode node, UUID jobId) {
-            return singleTask(new ESDeleteByQueryTask(
-                    jobId,
-                    node,
-                    transportActionProvider.transportDeleteByQueryAction(),
-                    jobContextService));
+                    jobContextService,
+                    jobScheduler));
         }
 
         @Override
@@ -260,7 +284,8 @@ public class TransportExecutor implements Executor, TaskExecutor {
                     jobId,
                     node,
                     transportActionProvider.transportDeleteAction(),
-                    jobContextService));
+                    jobContextService,
+                    jobScheduler));
         }
 
         @Override
@@ -548,6 +573,8 @@ public class TransportExecutor implements Executor, TaskExecutor {
             process(plan.right().plan(), context);
             context.leaveBranch();
 
+            context.addContextPhase(plan.fetchPhase());
+
             return null;
         }
 
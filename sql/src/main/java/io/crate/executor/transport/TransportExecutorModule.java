@@ -26,6 +26,7 @@ import io.crate.action.job.TransportKeepAliveAction;
 import io.crate.executor.Executor;
 import io.crate.executor.transport.distributed.TransportDistributedResultAction;
 import io.crate.executor.transport.kill.TransportKillAllNodeAction;
+import io.crate.executor.transport.profile.TransportCollectProfileNodeAction;
 import org.elasticsearch.common.inject.AbstractModule;
 
 public class TransportExecutorModule extends AbstractModule {
@@ -39,9 +40,13 @@ public class TransportExecutorModule extends AbstractModule {
         bind(TransportKeepAliveAction.class).asEagerSingleton();
         bind(TransportDistributedResultAction.class).asEagerSingleton();
         bind(SymbolBasedTransportShardUpsertAction.class).asEagerSingleton();
+        bind(TransportShardDeleteAction.class).asEagerSingleton();
         bind(TransportShardUpsertAction.class).asEagerSingleton();
         bind(TransportFetchNodeAction.class).asEagerSingleton();
         bind(TransportCloseContextNodeAction.class).asEagerSingleton();
         bind(TransportKillAllNodeAction.class).asEagerSingleton();
+        bind(TransportCollectProfileNodeAction.class).asEagerSingleton();
+        bind(TransportPutTableStatsAction.class).asEagerSingleton();
+        bind(TransportUpdateZoneMapAction.class).asEagerSingleton();
     }
 }
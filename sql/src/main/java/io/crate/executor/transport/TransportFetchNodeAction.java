@@ -25,6 +25,7 @@ import com.carrotsearch.hppc.IntObjectMap;
 import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
 import io.crate.exceptions.Exceptions;
 import io.crate.jobs.ExecutionSubContext;
 import io.crate.jobs.JobContextService;
@@ -141,9 +142,10 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
 
                 @Override
                 protected void doRun() throws Exception {
-                    IntObjectMap<StreamBucket> fetched = nodeFetchOperation.doFetch(
-                            fetchContext, request.toFetch());
-                    // no streamers needed to serialize, since the buckets are StreamBuckets
+                    // rows fetched for the local node are handed over without serialization
+                    IntObjectMap<? extends Bucket> fetched = nodeFetchOperation.doFetch(
+                            fetchContext, request.toFetch(), request.streamed());
+                    // no streamers needed to serialize, since the buckets are StreamBuckets if streamed
                     NodeFetchResponse response = NodeFetchResponse.forSending(fetched);
                     fetchContext.close();
                     fetchResponse.onResponse(response);
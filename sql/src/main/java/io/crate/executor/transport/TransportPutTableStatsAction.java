@@ -0,0 +1,107 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.stats.TableStatsMetaData;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeOperationAction;
+import org.elasticsearch.cluster.AckedClusterStateUpdateTask;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+/**
+ * Stores table statistics as {@link TableStatsMetaData} in the cluster state.
+ *
+ * The statistics of the request replace existing statistics of the same tables,
+ * statistics of tables which have been dropped in the meantime are removed.
+ */
+@Singleton
+public class TransportPutTableStatsAction
+        extends TransportMasterNodeOperationAction<PutTableStatsRequest, PutTableStatsResponse> {
+
+    public static final String NAME = "cluster:crate/table_stats/put";
+
+    @Inject
+    public TransportPutTableStatsAction(Settings settings,
+                                        TransportService transportService,
+                                        ClusterService clusterService,
+                                        ThreadPool threadPool,
+                                        ActionFilters actionFilters) {
+        super(settings, NAME, transportService, clusterService, threadPool, actionFilters);
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.SAME;
+    }
+
+    @Override
+    protected PutTableStatsRequest newRequest() {
+        return new PutTableStatsRequest();
+    }
+
+    @Override
+    protected PutTableStatsResponse newResponse() {
+        return new PutTableStatsResponse();
+    }
+
+    @Override
+    protected void masterOperation(final PutTableStatsRequest request,
+                                   ClusterState state,
+                                   ActionListener<PutTableStatsResponse> listener) throws ElasticsearchException {
+        clusterService.submitStateUpdateTask("put-table-stats", Priority.NORMAL,
+                new AckedClusterStateUpdateTask<PutTableStatsResponse>(request, listener) {
+
+            @Override
+            protected PutTableStatsResponse newResponse(boolean acknowledged) {
+                return new PutTableStatsResponse(acknowledged);
+            }
+
+            @Override
+            public ClusterState execute(ClusterState currentState) throws Exception {
+                MetaData metaData = currentState.metaData();
+                TableStatsMetaData tableStats = TableStatsMetaData.fromClusterState(currentState)
+                        .merge(request.tableStats(), metaData);
+                return ClusterState.builder(currentState)
+                        .metaData(MetaData.builder(metaData).putCustom(TableStatsMetaData.TYPE, tableStats))
+                        .build();
+            }
+        });
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(PutTableStatsRequest request, ClusterState state) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.METADATA);
+    }
+}
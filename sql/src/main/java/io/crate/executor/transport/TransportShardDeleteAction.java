@@ -0,0 +1,213 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import io.crate.executor.transport.kill.KillableCallable;
+import io.crate.jobs.JobContextService;
+import io.crate.jobs.KillAllListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.replication.TransportShardReplicationOperationAction;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.operation.plain.Preference;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes a batch of documents by id directly on the primary shard and replicates the deletes.
+ *
+ * Documents which don't exist anymore or whose version doesn't match the required version
+ * are not counted as deleted.
+ */
+@Singleton
+public class TransportShardDeleteAction
+        extends TransportShardReplicationOperationAction<ShardDeleteRequest, ShardDeleteRequest, ShardDeleteResponse>
+        implements KillAllListener {
+
+    private final static String ACTION_NAME = "indices:crate/data/write/delete";
+
+    private final IndicesService indicesService;
+    private final Multimap<UUID, KillableCallable> activeOperations = Multimaps.synchronizedMultimap(HashMultimap.<UUID, KillableCallable>create());
+
+    @Inject
+    public TransportShardDeleteAction(Settings settings,
+                                      ThreadPool threadPool,
+                                      ClusterService clusterService,
+                                      TransportService transportService,
+                                      ActionFilters actionFilters,
+                                      JobContextService jobContextService,
+                                      IndicesService indicesService,
+                                      ShardStateAction shardStateAction) {
+        super(settings, ACTION_NAME, transportService, clusterService, indicesService, threadPool, shardStateAction, actionFilters);
+        this.indicesService = indicesService;
+        jobContextService.addListener(this);
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.BULK;
+    }
+
+    @Override
+    protected ShardDeleteRequest newRequestInstance() {
+        return new ShardDeleteRequest();
+    }
+
+    @Override
+    protected ShardDeleteRequest newReplicaRequestInstance() {
+        return new ShardDeleteRequest();
+    }
+
+    @Override
+    protected ShardDeleteResponse newResponseInstance() {
+        return new ShardDeleteResponse();
+    }
+
+    @Override
+    protected boolean resolveIndex() {
+        return true;
+    }
+
+    @Override
+    protected ShardIterator shards(ClusterState state, InternalRequest request) {
+        return clusterService.operationRouting()
+                .getShards(state, request.request().index(), request.request().shardId(), Preference.PRIMARY.type());
+    }
+
+    @Override
+    protected Tuple<ShardDeleteResponse, ShardDeleteRequest> shardOperationOnPrimary(ClusterState clusterState,
+                                                                                     final PrimaryOperationRequest shardRequest) {
+        KillableCallable<Tuple<ShardDeleteResponse, ShardDeleteRequest>> callable =
+                new KillableCallable<Tuple<ShardDeleteResponse, ShardDeleteRequest>>() {
+
+            private AtomicBoolean killed = new AtomicBoolean(false);
+
+            @Override
+            public void kill() {
+                killed.getAndSet(true);
+            }
+
+            @Override
+            public Tuple<ShardDeleteResponse, ShardDeleteRequest> call() throws Exception {
+                ShardDeleteResponse response = deleteOnPrimary(shardRequest.request, killed);
+                return new Tuple<>(response, shardRequest.request);
+            }
+        };
+        activeOperations.put(shardRequest.request.jobId(), callable);
+        try {
+            return callable.call();
+        } catch (Throwable e) {
+            throw Throwables.propagate(e);
+        } finally {
+            activeOperations.remove(shardRequest.request.jobId(), callable);
+        }
+    }
+
+    private ShardDeleteResponse deleteOnPrimary(ShardDeleteRequest request, AtomicBoolean killed) {
+        IndexShard indexShard = indicesService.indexServiceSafe(request.index()).shardSafe(request.shardId());
+        ShardDeleteResponse response = new ShardDeleteResponse();
+        BitSet notDeleted = new BitSet();
+        for (int i = 0; i < request.itemIndices().size(); i++) {
+            if (killed.get()) {
+                throw new CancellationException();
+            }
+            int location = request.itemIndices().get(i);
+            ShardDeleteRequest.Item item = request.items().get(i);
+            boolean found;
+            try {
+                Engine.Delete delete = indexShard.prepareDelete(
+                        request.type(), item.id(), item.version(), item.versionType(), Engine.Operation.Origin.PRIMARY);
+                indexShard.delete(delete);
+                found = delete.found();
+                // replicas must apply the delete with the version resulting from the primary
+                item.versionType(item.versionType().versionTypeForReplicationAndRecovery());
+                item.version(delete.version());
+            } catch (VersionConflictEngineException e) {
+                logger.debug("{} failed to delete [{}]/[{}]", e, request.shardId(), request.type(), item.id());
+                found = false;
+            }
+            if (!found) {
+                notDeleted.set(i);
+            }
+            response.add(location, found);
+        }
+        request.removeItems(notDeleted);
+        return response;
+    }
+
+    @Override
+    protected void shardOperationOnReplica(ReplicaOperationRequest shardRequest) {
+        ShardDeleteRequest request = shardRequest.request;
+        IndexShard indexShard = indicesService.indexServiceSafe(request.index()).shardSafe(shardRequest.shardId.id());
+        for (ShardDeleteRequest.Item item : request.items()) {
+            try {
+                Engine.Delete delete = indexShard.prepareDelete(
+                        request.type(), item.id(), item.version(), item.versionType(), Engine.Operation.Origin.REPLICA);
+                indexShard.delete(delete);
+            } catch (Throwable t) {
+                // ignore, we are on a replica
+                logger.trace("{} failed to delete [{}]/[{}] on replica", t, shardRequest.shardId, request.type(), item.id());
+            }
+        }
+    }
+
+    @Override
+    public void killAllJobs(long timestamp) {
+        synchronized (activeOperations) {
+            for (KillableCallable callable : activeOperations.values()) {
+                callable.kill();
+            }
+            activeOperations.clear();
+        }
+    }
+
+    @Override
+    public void killJob(UUID jobId) {
+        synchronized (activeOperations) {
+            Collection<KillableCallable> operations = activeOperations.get(jobId);
+            for (KillableCallable callable : operations) {
+                callable.kill();
+            }
+            activeOperations.removeAll(jobId);
+        }
+    }
+}
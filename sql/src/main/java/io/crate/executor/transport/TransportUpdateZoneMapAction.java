@@ -0,0 +1,146 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.stats.IndexZoneMaps;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeOperationAction;
+import org.elasticsearch.cluster.AckedClusterStateUpdateTask;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+/**
+ * Stores or removes the zone map of a shard in the {@link IndexZoneMaps} of its index.
+ *
+ * A zone map is only stored if the sending node still holds the started primary of the shard,
+ * zone maps of a former primary might miss writes which went to the new primary.
+ * Invalidations are always applied.
+ */
+@Singleton
+public class TransportUpdateZoneMapAction
+        extends TransportMasterNodeOperationAction<UpdateZoneMapRequest, UpdateZoneMapResponse> {
+
+    public static final String NAME = "cluster:crate/zone_maps/update";
+
+    @Inject
+    public TransportUpdateZoneMapAction(Settings settings,
+                                        TransportService transportService,
+                                        ClusterService clusterService,
+                                        ThreadPool threadPool,
+                                        ActionFilters actionFilters) {
+        super(settings, NAME, transportService, clusterService, threadPool, actionFilters);
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.SAME;
+    }
+
+    @Override
+    protected UpdateZoneMapRequest newRequest() {
+        return new UpdateZoneMapRequest();
+    }
+
+    @Override
+    protected UpdateZoneMapResponse newResponse() {
+        return new UpdateZoneMapResponse();
+    }
+
+    @Override
+    protected void masterOperation(final UpdateZoneMapRequest request,
+                                   ClusterState state,
+                                   ActionListener<UpdateZoneMapResponse> listener) throws ElasticsearchException {
+        String source = request.zoneMap() == null ? "invalidate-zone-map " : "publish-zone-map ";
+        clusterService.submitStateUpdateTask(source + request.shardId(), Priority.NORMAL,
+                new AckedClusterStateUpdateTask<UpdateZoneMapResponse>(request, listener) {
+
+            @Override
+            protected UpdateZoneMapResponse newResponse(boolean acknowledged) {
+                return new UpdateZoneMapResponse(acknowledged);
+            }
+
+            @Override
+            public ClusterState execute(ClusterState currentState) throws Exception {
+                ShardId shardId = request.shardId();
+                IndexMetaData indexMetaData = currentState.metaData().index(shardId.getIndex());
+                if (indexMetaData == null) {
+                    return currentState;
+                }
+                IndexZoneMaps zoneMaps = IndexZoneMaps.fromIndexMetaData(indexMetaData);
+                IndexZoneMaps updated;
+                if (request.zoneMap() == null) {
+                    if (zoneMaps.shard(shardId.id()) == null) {
+                        return currentState;
+                    }
+                    updated = zoneMaps.withoutShard(shardId.id());
+                } else {
+                    if (!isStartedPrimary(currentState, shardId, request.nodeId())
+                        || request.zoneMap().equals(zoneMaps.shard(shardId.id()))) {
+                        return currentState;
+                    }
+                    updated = zoneMaps.withShard(shardId.id(), request.zoneMap());
+                }
+                IndexMetaData.Builder indexBuilder = IndexMetaData.builder(indexMetaData)
+                        .putCustom(IndexZoneMaps.TYPE, updated)
+                        .version(indexMetaData.version() + 1);
+                return ClusterState.builder(currentState)
+                        .metaData(MetaData.builder(currentState.metaData()).put(indexBuilder))
+                        .build();
+            }
+        });
+    }
+
+    private static boolean isStartedPrimary(ClusterState state, ShardId shardId, String nodeId) {
+        IndexRoutingTable indexRoutingTable = state.routingTable().index(shardId.getIndex());
+        if (indexRoutingTable == null) {
+            return false;
+        }
+        IndexShardRoutingTable shardRoutingTable = indexRoutingTable.shard(shardId.id());
+        if (shardRoutingTable == null) {
+            return false;
+        }
+        ShardRouting primary = shardRoutingTable.primaryShard();
+        return primary != null && primary.started() && nodeId.equals(primary.currentNodeId());
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(UpdateZoneMapRequest request, ClusterState state) {
+        return state.blocks().indexBlockedException(ClusterBlockLevel.METADATA, request.shardId().getIndex());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.stats.ZoneMap;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.master.AcknowledgedRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Request to publish the zone map of a shard or to invalidate it if the zone map is null.
+ */
+public class UpdateZoneMapRequest extends AcknowledgedRequest<UpdateZoneMapRequest> {
+
+    private ShardId shardId;
+    private String nodeId;
+    private ZoneMap zoneMap;
+
+    /**
+     * @param nodeId the node holding the primary shard the zone map was computed on
+     */
+    public UpdateZoneMapRequest(ShardId shardId, String nodeId, @Nullable ZoneMap zoneMap) {
+        this.shardId = shardId;
+        this.nodeId = nodeId;
+        this.zoneMap = zoneMap;
+    }
+
+    UpdateZoneMapRequest() {
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Nullable
+    public ZoneMap zoneMap() {
+        return zoneMap;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        return null;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        readTimeout(in);
+        shardId = ShardId.readShardId(in);
+        nodeId = in.readString();
+        if (in.readBoolean()) {
+            zoneMap = ZoneMap.readFrom(in);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        writeTimeout(out);
+        shardId.writeTo(out);
+        out.writeString(nodeId);
+        out.writeBoolean(zoneMap != null);
+        if (zoneMap != null) {
+            zoneMap.writeTo(out);
+        }
+    }
+}
@@ -24,31 +24,63 @@ package io.crate.executor.transport.distributed;
 import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.StreamBucket;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * MultiBucketBuilder that returns N buckets where N is the number of buckets specified in the constructor.
  * Internally only one bucket is built - the same instance is returned N number of times.
+ *
+ * If one of the buckets is sent to the local node its rows are kept as materialized rows
+ * instead of being serialized. If it's the only bucket no rows are serialized at all.
  */
 public class BroadcastingBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
+    private final int localBucketIdx;
+    @Nullable
     private final StreamBucket.Builder bucketBuilder;
+    private List<Object[]> localRows;
     private volatile int size = 0;
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets) {
+        this(streamers, numBuckets, -1);
+    }
+
+    /**
+     * @param localBucketIdx index of the bucket which is sent to the local node or -1 if no bucket is sent to it
+     */
+    public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets, int localBucketIdx) {
+        assert localBucketIdx < numBuckets : "localBucketIdx must be lower than numBuckets";
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers);
+        this.localBucketIdx = localBucketIdx;
+        if (localBucketIdx >= 0) {
+            localRows = new ArrayList<>();
+        }
+        if (localBucketIdx < 0 || numBuckets > 1) {
+            this.bucketBuilder = new StreamBucket.Builder(streamers);
+        } else {
+            this.bucketBuilder = null;
+        }
     }
 
     @Override
     public void add(Row row) {
+        Object[] cells = localBucketIdx >= 0 ? row.materialize() : null;
         try {
             synchronized (this) {
-                bucketBuilder.add(row);
+                if (bucketBuilder != null) {
+                    bucketBuilder.add(row);
+                }
+                if (cells != null) {
+                    localRows.add(cells);
+                }
                 size++;
             }
         } catch (IOException e) {
@@ -64,16 +96,22 @@ public class BroadcastingBucketBuilder implements MultiBucketBuilder {
     @Override
     public synchronized void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
-        final Bucket bucket;
-        try {
-            bucket = bucketBuilder.build();
-            bucketBuilder.reset();
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
+        Bucket bucket = null;
+        if (bucketBuilder != null) {
+            try {
+                bucket = bucketBuilder.build();
+                bucketBuilder.reset();
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
         }
         for (int i = 0; i < numBuckets; i++) {
             buckets[i] = bucket;
         }
+        if (localBucketIdx >= 0) {
+            buckets[localBucketIdx] = new CollectionBucket(localRows);
+            localRows = new ArrayList<>();
+        }
         size = 0;
     }
 }
@@ -25,9 +25,11 @@ import com.google.common.annotations.VisibleForTesting;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.jobs.ExecutionState;
 import io.crate.jobs.KeepAliveTimers;
 import io.crate.operation.RowUpstream;
+import io.crate.operation.profile.PhaseProfile;
 import io.crate.operation.projectors.Requirement;
 import io.crate.operation.projectors.Requirements;
 import io.crate.operation.projectors.RowReceiver;
@@ -35,6 +37,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
@@ -79,6 +82,9 @@ public class DistributingDownstream implements RowReceiver {
     private volatile boolean gatherMoreRows = true;
     private boolean hasUpstreamFinished = false;
 
+    @Nullable
+    private PhaseProfile profile;
+
     public DistributingDownstream(UUID jobId,
                                   MultiBucketBuilder multiBucketBuilder,
                                   int targetExecutionPhaseId,
@@ -108,6 +114,13 @@ public class DistributingDownstream implements RowReceiver {
         }
     }
 
+    /**
+     * set the profile of the upstream phase to account the sent bytes
+     */
+    public void profile(@Nullable PhaseProfile profile) {
+        this.profile = profile;
+    }
+
     @Override
     public boolean setNextRow(Row row) {
         multiBucketBuilder.add(row);
@@ -229,6 +242,9 @@ public class DistributingDownstream implements RowReceiver {
                 return;
             }
             keepAliveTimer.reset();
+            if (profile != null && bucket instanceof StreamBucket) {
+                profile.addBytesSent(((StreamBucket) bucket).sizeInBytes());
+            }
             LOGGER.trace("Sending request to {}", node);
             transportDistributedResultAction.pushResult(
                     node,
@@ -24,6 +24,7 @@ package io.crate.executor.transport.distributed;
 import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.StreamBucket;
 import org.apache.lucene.util.BytesRef;
@@ -37,26 +38,52 @@ import java.util.List;
 /**
  * builds N buckets where N is passed in the CTOR.
  * The rows that are added via {@link #add(Row)} are assigned to the buckets by modulo calculation.
+ *
+ * The rows of the bucket which is sent to the local node (if any) are kept as materialized rows
+ * instead of being serialized, as the bucket is passed to the downstream without a network hop.
  */
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
     private final List<StreamBucket.Builder> bucketBuilders;
     private final int distributedByColumnIdx;
+    private final int localBucketIdx;
+    private List<Object[]> localRows;
     private volatile int size = 0;
 
     public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx) {
+        this(streamers, numBuckets, distributedByColumnIdx, -1);
+    }
+
+    /**
+     * @param localBucketIdx index of the bucket which is sent to the local node or -1 if no bucket is sent to it
+     */
+    public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx, int localBucketIdx) {
+        assert localBucketIdx < numBuckets : "localBucketIdx must be lower than numBuckets";
         this.numBuckets = numBuckets;
         this.distributedByColumnIdx = distributedByColumnIdx;
+        this.localBucketIdx = localBucketIdx;
         this.bucketBuilders = new ArrayList<>(numBuckets);
         for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers));
+            bucketBuilders.add(i == localBucketIdx ? null : new StreamBucket.Builder(streamers));
+        }
+        if (localBucketIdx >= 0) {
+            localRows = new ArrayList<>();
         }
     }
 
     @Override
     public void add(Row row) {
-        final StreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
+        int bucketIdx = getBucket(row);
+        if (bucketIdx == localBucketIdx) {
+            Object[] cells = row.materialize();
+            synchronized (this) {
+                localRows.add(cells);
+                size++;
+            }
+            return;
+        }
+        final StreamBucket.Builder builder = bucketBuilders.get(bucketIdx);
         try {
             synchronized (this) {
                 builder.add(row);
@@ -76,6 +103,11 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
     public synchronized void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
         for (int i = 0; i < numBuckets; i++) {
+            if (i == localBucketIdx) {
+                buckets[i] = new CollectionBucket(localRows);
+                localRows = new ArrayList<>();
+                continue;
+            }
             try {
                 final StreamBucket.Builder builder = bucketBuilders.get(i);
                 buckets[i] = builder.build();
@@ -91,7 +123,14 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
      * get bucket number by doing modulo hashcode of the defined row-element
      */
     private int getBucket(Row row) {
-        int hash = hashCode(row.get(distributedByColumnIdx));
+        return bucket(row.get(distributedByColumnIdx), numBuckets);
+    }
+
+    /**
+     * @return the index of the bucket a row with the given value in its distributed-by column is assigned to
+     */
+    public static int bucket(@Nullable Object value, int numBuckets) {
+        int hash = hashCode(value);
         if (hash == Integer.MIN_VALUE) {
             hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
         }
@@ -26,6 +26,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.jobs.ExecutionState;
@@ -34,21 +35,50 @@ import io.crate.operation.projectors.Requirement;
 import io.crate.operation.projectors.Requirements;
 import io.crate.operation.projectors.RowReceiver;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 
+/**
+ * RowReceiver which collects all rows into a single bucket.
+ *
+ * The rows are serialized into a {@link StreamBucket} unless the builder is created using
+ * {@link #forLocalConsumer()}, in which case they're kept as materialized rows.
+ */
 public class SingleBucketBuilder implements RowReceiver {
 
+    @Nullable
     private final StreamBucket.Builder bucketBuilder;
+    @Nullable
+    private final List<Object[]> rows;
     private final SettableFuture<Bucket> bucketFuture = SettableFuture.create();
 
     public SingleBucketBuilder(Streamer<?>[] streamers) {
         bucketBuilder = new StreamBucket.Builder(streamers);
+        rows = null;
+    }
+
+    private SingleBucketBuilder() {
+        bucketBuilder = null;
+        rows = new ArrayList<>();
+    }
+
+    /**
+     * create a builder for a bucket which is consumed on the same node and therefore doesn't need to be serialized
+     */
+    public static SingleBucketBuilder forLocalConsumer() {
+        return new SingleBucketBuilder();
     }
 
     @Override
     public boolean setNextRow(Row row) {
+        if (rows != null) {
+            rows.add(row.materialize());
+            return true;
+        }
         try {
             bucketBuilder.add(row);
         } catch (Throwable e) {
@@ -63,6 +93,10 @@ public class SingleBucketBuilder implements RowReceiver {
 
     @Override
     public void finish() {
+        if (rows != null) {
+            bucketFuture.set(new CollectionBucket(rows));
+            return;
+        }
         try {
             bucketFuture.set(bucketBuilder.build());
         } catch (IOException e) {
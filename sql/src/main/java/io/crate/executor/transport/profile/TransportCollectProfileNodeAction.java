@@ -0,0 +1,145 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.profile;
+
+import io.crate.executor.transport.DefaultTransportResponseHandler;
+import io.crate.executor.transport.NodeAction;
+import io.crate.executor.transport.NodeActionRequestHandler;
+import io.crate.executor.transport.Transports;
+import io.crate.operation.profile.JobProfile;
+import io.crate.operation.profile.JobProfiles;
+import io.crate.operation.profile.PhaseProfile;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collects the runtime profiles of a job which has been executed with profiling enabled from all nodes.
+ *
+ * A node responds once all profiled sub contexts of the job on that node are closed.
+ */
+@Singleton
+public class TransportCollectProfileNodeAction implements NodeAction<CollectProfileRequest, CollectProfileResponse> {
+
+    private static final String TRANSPORT_ACTION = "crate/sql/collect_profile";
+
+    private final JobProfiles jobProfiles;
+    private final ClusterService clusterService;
+    private final Transports transports;
+
+    @Inject
+    public TransportCollectProfileNodeAction(JobProfiles jobProfiles,
+                                             ClusterService clusterService,
+                                             Transports transports,
+                                             TransportService transportService) {
+        this.jobProfiles = jobProfiles;
+        this.clusterService = clusterService;
+        this.transports = transports;
+        transportService.registerHandler(TRANSPORT_ACTION,
+                new NodeActionRequestHandler<CollectProfileRequest, CollectProfileResponse>(this) {
+            @Override
+            public CollectProfileRequest newInstance() {
+                return new CollectProfileRequest();
+            }
+        });
+    }
+
+    public void collectFromAllNodes(CollectProfileRequest request, final ActionListener<List<PhaseProfile>> listener) {
+        DiscoveryNodes nodes = clusterService.state().nodes();
+        final AtomicInteger counter = new AtomicInteger(nodes.size());
+        final List<PhaseProfile> phaseProfiles = Collections.synchronizedList(new ArrayList<PhaseProfile>());
+        final AtomicReference<Throwable> lastFailure = new AtomicReference<>();
+
+        ActionListener<CollectProfileResponse> responseListener = new ActionListener<CollectProfileResponse>() {
+            @Override
+            public void onResponse(CollectProfileResponse response) {
+                phaseProfiles.addAll(response.phaseProfiles());
+                countdown();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                lastFailure.set(e);
+                countdown();
+            }
+
+            private void countdown() {
+                if (counter.decrementAndGet() == 0) {
+                    Throwable throwable = lastFailure.get();
+                    if (throwable == null) {
+                        listener.onResponse(new ArrayList<>(phaseProfiles));
+                    } else {
+                        listener.onFailure(throwable);
+                    }
+                }
+            }
+        };
+        DefaultTransportResponseHandler<CollectProfileResponse> transportResponseHandler =
+                new DefaultTransportResponseHandler<CollectProfileResponse>(responseListener) {
+            @Override
+            public CollectProfileResponse newInstance() {
+                return new CollectProfileResponse();
+            }
+        };
+
+        for (DiscoveryNode node : nodes) {
+            transports.executeLocalOrWithTransport(
+                    this, node.id(), request, responseListener, transportResponseHandler);
+        }
+    }
+
+    @Override
+    public String actionName() {
+        return TRANSPORT_ACTION;
+    }
+
+    @Override
+    public String executorName() {
+        return ThreadPool.Names.MANAGEMENT;
+    }
+
+    @Override
+    public void nodeOperation(CollectProfileRequest request, final ActionListener<CollectProfileResponse> listener) {
+        final JobProfile jobProfile = jobProfiles.remove(request.jobId());
+        if (jobProfile == null) {
+            listener.onResponse(new CollectProfileResponse());
+            return;
+        }
+        jobProfile.whenDone(new Runnable() {
+            @Override
+            public void run() {
+                listener.onResponse(new CollectProfileResponse(jobProfile.phases()));
+            }
+        });
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.core.collections.CollectionBucket;
+import io.crate.executor.JobTask;
+import io.crate.executor.QueryResult;
+import io.crate.executor.Task;
+import io.crate.executor.TaskExecutor;
+import io.crate.executor.TaskResult;
+import io.crate.executor.transport.profile.CollectProfileRequest;
+import io.crate.executor.transport.profile.TransportCollectProfileNodeAction;
+import io.crate.operation.profile.PhaseProfile;
+import io.crate.operation.profile.ProjectorProfile;
+import org.elasticsearch.action.ActionListener;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Executes the tasks of the explained statement with profiling enabled, collects the phase profiles from all nodes
+ * once the execution is done and returns a row per phase and node.
+ *
+ * The rows are ordered depth first, starting with the phase which produces the final result,
+ * followed by its upstream phases.
+ */
+public class ExplainAnalyzeTask extends JobTask {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private static final Comparator<PhaseProfile> BY_NODE = new Comparator<PhaseProfile>() {
+        @Override
+        public int compare(PhaseProfile o1, PhaseProfile o2) {
+            return o1.nodeId().compareTo(o2.nodeId());
+        }
+    };
+
+    private final TaskExecutor taskExecutor;
+    private final List<Task> tasks;
+    private final TransportCollectProfileNodeAction collectProfileNodeAction;
+    private final SettableFuture<TaskResult> result = SettableFuture.create();
+    private final List<ListenableFuture<TaskResult>> results = ImmutableList.<ListenableFuture<TaskResult>>of(result);
+
+    public ExplainAnalyzeTask(UUID jobId,
+                              TaskExecutor taskExecutor,
+                              List<Task> tasks,
+                              TransportCollectProfileNodeAction collectProfileNodeAction) {
+        super(jobId);
+        this.taskExecutor = taskExecutor;
+        this.tasks = tasks;
+        this.collectProfileNodeAction = collectProfileNodeAction;
+    }
+
+    @Override
+    public void start() {
+        List<? extends ListenableFuture<TaskResult>> taskResults;
+        try {
+            taskResults = taskExecutor.execute(tasks);
+        } catch (Throwable t) {
+            collectProfiles(t);
+            return;
+        }
+        Futures.addCallback(Futures.allAsList(taskResults), new FutureCallback<List<TaskResult>>() {
+            @Override
+            public void onSuccess(@Nullable List<TaskResult> taskResults) {
+                collectProfiles(null);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                collectProfiles(t);
+            }
+        });
+    }
+
+    /**
+     * profiles are always collected, also if the execution failed, so that the nodes can release them
+     */
+    private void collectProfiles(@Nullable final Throwable executionFailure) {
+        collectProfileNodeAction.collectFromAllNodes(new CollectProfileRequest(jobId()),
+                new ActionListener<List<PhaseProfile>>() {
+            @Override
+            public void onResponse(List<PhaseProfile> phaseProfiles) {
+                if (executionFailure != null) {
+                    result.setException(executionFailure);
+                } else {
+                    result.set(new QueryResult(new CollectionBucket(toRows(phaseProfiles))));
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                result.setException(executionFailure == null ? e : executionFailure);
+            }
+        });
+    }
+
+    static List<Object[]> toRows(List<PhaseProfile> phaseProfiles) {
+        Map<Integer, List<PhaseProfile>> profilesByPhase = new TreeMap<>();
+        for (PhaseProfile profile : phaseProfiles) {
+            List<PhaseProfile> profiles = profilesByPhase.get(profile.phaseId());
+            if (profiles == null) {
+                profiles = new ArrayList<>();
+                profilesByPhase.put(profile.phaseId(), profiles);
+            }
+            profiles.add(profile);
+        }
+        List<Object[]> rows = new ArrayList<>(phaseProfiles.size());
+        Set<Integer> visited = new HashSet<>();
+        for (Map.Entry<Integer, List<PhaseProfile>> entry : profilesByPhase.entrySet()) {
+            int downstreamPhaseId = entry.getValue().get(0).downstreamPhaseId();
+            if (!profilesByPhase.containsKey(downstreamPhaseId)) {
+                addRows(entry.getKey(), profilesByPhase, visited, rows);
+            }
+        }
+        // phases which are part of a cycle aren't reachable from a root
+        for (Integer phaseId : profilesByPhase.keySet()) {
+            addRows(phaseId, profilesByPhase, visited, rows);
+        }
+        return rows;
+    }
+
+    private static void addRows(int phaseId,
+                                Map<Integer, List<PhaseProfile>> profilesByPhase,
+                                Set<Integer> visited,
+                                List<Object[]> rows) {
+        if (!visited.add(phaseId)) {
+            return;
+        }
+        List<PhaseProfile> profiles = profilesByPhase.get(phaseId);
+        Collections.sort(profiles, BY_NODE);
+        for (PhaseProfile profile : profiles) {
+            rows.add(toRow(profile));
+        }
+        for (Map.Entry<Integer, List<PhaseProfile>> entry : profilesByPhase.entrySet()) {
+            if (entry.getValue().get(0).downstreamPhaseId() == phaseId) {
+                addRows(entry.getKey(), profilesByPhase, visited, rows);
+            }
+        }
+    }
+
+    private static Object[] toRow(PhaseProfile profile) {
+        List<ProjectorProfile> projectorProfiles = profile.projectors();
+        Object[] projectors = new Object[projectorProfiles.size()];
+        for (int i = 0; i < projectorProfiles.size(); i++) {
+            projectors[i] = projectorProfiles.get(i).toString();
+        }
+        return new Object[]{
+                profile.phaseId(),
+                profile.downstreamPhaseId() == PhaseProfile.NO_DOWNSTREAM ? null : profile.downstreamPhaseId(),
+                profile.name(),
+                profile.nodeId(),
+                profile.wallTimeNanos() / NANOS_PER_MILLI,
+                profile.cpuTimeNanos() / NANOS_PER_MILLI,
+                profile.pausedNanos() / NANOS_PER_MILLI,
+                profile.rows(),
+                profile.bytesSent(),
+                profile.bytesReceived(),
+                profile.peakMemoryBytes() < 0 ? null : profile.peakMemoryBytes(),
+                projectors
+        };
+    }
+
+    @Override
+    public List<ListenableFuture<TaskResult>> result() {
+        return results;
+    }
+
+    @Override
+    public void upstreamResult(List<? extends ListenableFuture<TaskResult>> result) {
+        throw new UnsupportedOperationException("ExplainAnalyzeTask doesn't support upstreamResults");
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.task;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.core.collections.Row1;
+import io.crate.core.collections.SingleRowBucket;
+import io.crate.executor.JobTask;
+import io.crate.executor.QueryResult;
+import io.crate.executor.TaskResult;
+import io.crate.planner.Plan;
+import io.crate.planner.PlanPrinter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Returns the textual representation of a plan without executing it
+ */
+public class ExplainTask extends JobTask {
+
+    private final Plan plan;
+    private final SettableFuture<TaskResult> result = SettableFuture.create();
+    private final List<ListenableFuture<TaskResult>> results = ImmutableList.<ListenableFuture<TaskResult>>of(result);
+
+    public ExplainTask(UUID jobId, Plan plan) {
+        super(jobId);
+        this.plan = plan;
+    }
+
+    @Override
+    public void start() {
+        try {
+            result.set(new QueryResult(new SingleRowBucket(new Row1(new PlanPrinter().print(plan)))));
+        } catch (Throwable e) {
+            result.setException(e);
+        }
+    }
+
+    @Override
+    public List<ListenableFuture<TaskResult>> result() {
+        return results;
+    }
+
+    @Override
+    public void upstreamResult(List<? extends ListenableFuture<TaskResult>> result) {
+        throw new UnsupportedOperationException("ExplainTask doesn't support upstreamResults");
+    }
+}
@@ -25,7 +25,9 @@ import com.google.common.util.concurrent.SettableFuture;
 import io.crate.Constants;
 import io.crate.analyze.where.DocKeys;
 import io.crate.executor.TaskResult;
+import io.crate.jobs.JobClass;
 import io.crate.jobs.JobContextService;
+import io.crate.jobs.JobScheduler;
 import io.crate.planner.node.dml.ESDeleteNode;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -42,8 +44,9 @@ public class ESDeleteTask extends EsJobContextTask {
     public ESDeleteTask(UUID jobId,
                         ESDeleteNode node,
                         TransportDeleteAction transport,
-                        JobContextService jobContextService) {
-        super(jobId, node.executionPhaseId(), node.docKeys().size(), jobContextService);
+                        JobContextService jobContextService,
+                        JobScheduler jobScheduler) {
+        super(jobId, node.executionPhaseId(), node.docKeys().size(), jobContextService, jobScheduler, JobClass.DML);
         List<DeleteRequest> requests = new ArrayList<>(node.docKeys().size());
         List<ActionListener> listeners = new ArrayList<>(node.docKeys().size());
         for (DocKeys.DocKey docKey : node.docKeys()) {
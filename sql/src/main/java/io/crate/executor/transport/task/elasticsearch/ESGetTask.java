@@ -31,7 +31,9 @@ import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Buckets;
 import io.crate.executor.QueryResult;
 import io.crate.executor.TaskResult;
+import io.crate.jobs.JobClass;
 import io.crate.jobs.JobContextService;
+import io.crate.jobs.JobScheduler;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Functions;
 import io.crate.metadata.PartitionName;
@@ -69,8 +71,9 @@ public class ESGetTask extends EsJobContextTask implements RowUpstream {
                      TransportMultiGetAction multiGetAction,
                      TransportGetAction getAction,
                      ESGetNode node,
-                     JobContextService jobContextService) {
-        super(jobId, node.executionPhaseId(), 1, jobContextService);
+                     JobContextService jobContextService,
+                     JobScheduler jobScheduler) {
+        super(jobId, node.executionPhaseId(), 1, jobContextService, jobScheduler, JobClass.POINT_LOOKUP);
 
         assert multiGetAction != null;
         assert getAction != null;
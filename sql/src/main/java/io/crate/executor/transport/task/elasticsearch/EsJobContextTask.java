@@ -26,8 +26,10 @@ import com.google.common.util.concurrent.SettableFuture;
 import io.crate.executor.JobTask;
 import io.crate.executor.TaskResult;
 import io.crate.jobs.ESJobContext;
+import io.crate.jobs.JobClass;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
+import io.crate.jobs.JobScheduler;
 import io.crate.operation.projectors.FlatProjectorChain;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequest;
@@ -44,15 +46,21 @@ public class EsJobContextTask extends JobTask {
     protected final List<SettableFuture<TaskResult>> results;
     protected final int executionPhaseId;
     private final JobContextService jobContextService;
+    private final JobScheduler jobScheduler;
+    private final JobClass jobClass;
     protected JobExecutionContext context;
 
     public EsJobContextTask(UUID jobId,
                             int executionPhaseId,
                             int numResults,
-                            JobContextService jobContextService) {
+                            JobContextService jobContextService,
+                            JobScheduler jobScheduler,
+                            JobClass jobClass) {
         super(jobId);
         this.executionPhaseId = executionPhaseId;
         this.jobContextService = jobContextService;
+        this.jobScheduler = jobScheduler;
+        this.jobClass = jobClass;
         results = new ArrayList<>(numResults);
     }
 
@@ -71,12 +79,30 @@ public class EsJobContextTask extends JobTask {
     @Override
     final public void start() {
         assert context != null : "Context must be created first";
+        try {
+            jobScheduler.admit(jobClass, context.completionFuture(), new Runnable() {
+                @Override
+                public void run() {
+                    startContext();
+                }
+            });
+        } catch (Throwable throwable) {
+            context.kill();
+            setException(throwable);
+        }
+    }
+
+    private void startContext() {
         try {
             context.start();
         } catch (Throwable throwable) {
-            for (SettableFuture<TaskResult> result : results) {
-                result.setException(throwable);
-            }
+            setException(throwable);
+        }
+    }
+
+    private void setException(Throwable throwable) {
+        for (SettableFuture<TaskResult> result : results) {
+            result.setException(throwable);
         }
     }
 
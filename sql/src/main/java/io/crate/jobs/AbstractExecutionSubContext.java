@@ -34,6 +34,7 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
     protected static final ESLogger LOGGER = Loggers.getLogger(AbstractExecutionSubContext.class);
 
     protected final SubExecutionContextFuture future = new SubExecutionContextFuture();
+    protected final ExecutionProgress progress = new ExecutionProgress();
     private final int id;
 
     protected KeepAliveListener keepAliveListener;
@@ -61,6 +62,7 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
             LOGGER.trace("preparing {}: {}", this, id);
             try {
                 innerPrepare();
+                progress.state(ExecutionProgress.State.PREPARED);
             } catch (Throwable t) {
                 close(t);
             }
@@ -75,6 +77,7 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
         if (!future.closed()) {
             LOGGER.trace("starting {}: {}", this, id);
             try {
+                progress.state(ExecutionProgress.State.RUNNING);
                 innerStart();
             } catch (Throwable t) {
                 close(t);
@@ -88,6 +91,7 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
     protected boolean close(@Nullable Throwable t) {
         if (future.firstClose()) {
             LOGGER.trace("closing {}: {}", this, id);
+            progress.state(ExecutionProgress.State.CLOSED);
             try {
                 innerClose(t);
             } catch (Throwable t2) {
@@ -120,6 +124,7 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
                 t = new CancellationException();
             }
             LOGGER.trace("killing {}: {}", this, id);
+            progress.state(ExecutionProgress.State.KILLED);
             try {
                 innerKill(t);
             } catch (Throwable t2) {
@@ -137,6 +142,11 @@ public abstract class AbstractExecutionSubContext implements ExecutionSubContext
         return future;
     }
 
+    @Override
+    final public ExecutionProgress progress() {
+        return progress;
+    }
+
     @Override
     public boolean isKilled() {
         return isKilled;
@@ -0,0 +1,174 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.operation.projectors.ForwardingRowReceiver;
+import io.crate.operation.projectors.RowReceiver;
+import jsr166e.LongAdder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live state of an {@link ExecutionSubContext} which is exposed in sys.operations while it is running.
+ *
+ * Rows are counted by the producing thread in a plain field of a {@link RowReceiver} wrapper and
+ * only published every {@value #PUBLISH_INTERVAL} rows and once the upstream finished,
+ * so that counting doesn't add shared writes to the row path.
+ */
+public class ExecutionProgress {
+
+    public enum State {
+        CREATED,
+        PREPARED,
+        RUNNING,
+        CLOSED,
+        KILLED
+    }
+
+    static final int PUBLISH_INTERVAL = 1024;
+
+    private final LongAdder rows = new LongAdder();
+    private final AtomicInteger shardsCompleted = new AtomicInteger();
+    private volatile boolean countsRows = false;
+    private volatile int shardsTotal = -1;
+    private volatile State state = State.CREATED;
+    private volatile RamAccountingContext ramAccountingContext;
+
+    public State state() {
+        return state;
+    }
+
+    void state(State state) {
+        this.state = state;
+    }
+
+    /**
+     * set the context whose accounted bytes are reported as the memory used by the operation
+     */
+    public void ramAccountingContext(RamAccountingContext ramAccountingContext) {
+        this.ramAccountingContext = ramAccountingContext;
+    }
+
+    /**
+     * @return the number of bytes currently accounted or -1 if the operation doesn't account its memory
+     */
+    public long usedBytes() {
+        RamAccountingContext ramAccountingContext = this.ramAccountingContext;
+        if (ramAccountingContext == null) {
+            return -1L;
+        }
+        return ramAccountingContext.totalBytes();
+    }
+
+    public void addRows(long numRows) {
+        if (!countsRows) {
+            countsRows = true;
+        }
+        rows.add(numRows);
+    }
+
+    /**
+     * @return the number of rows processed so far or -1 if the operation doesn't count its rows
+     */
+    public long rows() {
+        if (!countsRows) {
+            return -1L;
+        }
+        return rows.sum();
+    }
+
+    public void shardsTotal(int shardsTotal) {
+        this.shardsTotal = shardsTotal;
+    }
+
+    /**
+     * @return the number of shards the operation processes or -1 if it doesn't operate on shards
+     */
+    public int shardsTotal() {
+        return shardsTotal;
+    }
+
+    public int shardsCompleted() {
+        return shardsCompleted.get();
+    }
+
+    /**
+     * wraps the given receiver to count the rows it receives
+     */
+    public RowReceiver countRows(RowReceiver rowReceiver) {
+        return new RowCountingRowReceiver(rowReceiver, false);
+    }
+
+    /**
+     * wraps the receiver of all rows of a shard to count its rows and to
+     * mark the shard as completed once its upstream finished
+     */
+    public RowReceiver countShardRows(RowReceiver rowReceiver) {
+        return new RowCountingRowReceiver(rowReceiver, true);
+    }
+
+    private class RowCountingRowReceiver extends ForwardingRowReceiver {
+
+        private final boolean isShard;
+        private long unpublishedRows = 0;
+
+        RowCountingRowReceiver(RowReceiver rowReceiver, boolean isShard) {
+            super(rowReceiver);
+            this.isShard = isShard;
+            if (!countsRows) {
+                countsRows = true;
+            }
+        }
+
+        @Override
+        public boolean setNextRow(Row row) {
+            if (++unpublishedRows == PUBLISH_INTERVAL) {
+                rows.add(unpublishedRows);
+                unpublishedRows = 0;
+            }
+            return super.setNextRow(row);
+        }
+
+        private void publish() {
+            rows.add(unpublishedRows);
+            unpublishedRows = 0;
+            if (isShard) {
+                shardsCompleted.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void finish() {
+            publish();
+            super.finish();
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            publish();
+            super.fail(throwable);
+        }
+    }
+}
@@ -57,5 +57,10 @@ public interface ExecutionSubContext {
 
     SubExecutionContextFuture future();
 
+    /**
+     * live state of the context, shown in sys.operations
+     */
+    ExecutionProgress progress();
+
     int id();
 }
@@ -0,0 +1,223 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timer which keeps its tasks in a wheel of buckets, one bucket per tick.
+ *
+ * The wheel is advanced by a single task scheduled on the {@link ThreadPool} with a fixed delay
+ * of one tick, so scheduling a task is O(1) and the cost of a tick only depends on the number of
+ * tasks in the current bucket, not on the total number of tasks.
+ * Tasks with a delay greater than one revolution of the wheel are kept in their bucket
+ * until the remaining rounds are counted down.
+ *
+ * The precision of the timer is one tick, tasks are never run before their delay expired.
+ * All tasks and tick listeners are run on the timer thread, so they must not block.
+ */
+@Singleton
+public class HashedWheelTimer {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(HashedWheelTimer.class);
+
+    public static final TimeValue DEFAULT_TICK_DURATION = TimeValue.timeValueSeconds(1);
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * A task which is run by the timer once its delay expired
+     */
+    public interface Task {
+
+        /**
+         * @param now the time in ms the task is run at
+         * @return the delay in ms after which the task should be run again, or a negative value if it's done
+         */
+        long run(long now);
+    }
+
+    private static class Entry {
+
+        private final Task task;
+        private final long deadline;
+        private long remainingRounds;
+
+        private Entry(Task task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+
+    private final ThreadPool threadPool;
+    private final TimeValue tickDuration;
+    private final long tickMillis;
+    private final int mask;
+    private final List<Entry>[] wheel;
+    private final Queue<Entry> newEntries = new ConcurrentLinkedQueue<>();
+    private final List<Runnable> tickListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    // only accessed by the timer thread
+    private long tick = 0L;
+    private volatile ScheduledFuture<?> tickFuture;
+
+    @Inject
+    public HashedWheelTimer(ThreadPool threadPool) {
+        this(threadPool, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(ThreadPool threadPool, TimeValue tickDuration, int wheelSize) {
+        assert wheelSize > 0 : "wheelSize must be greater than 0";
+        this.threadPool = threadPool;
+        this.tickDuration = tickDuration;
+        this.tickMillis = Math.max(1L, tickDuration.millis());
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    /**
+     * schedule a task to be run after the given delay.
+     * The ticks of the timer are started with the first scheduled task.
+     */
+    public void schedule(Task task, long delayMillis) {
+        newEntries.add(new Entry(task, threadPool.estimatedTimeInMillis() + delayMillis));
+        ensureStarted();
+    }
+
+    /**
+     * add a listener which is run on the timer thread after every tick,
+     * once all expired tasks of the tick have been run
+     */
+    public void addTickListener(Runnable listener) {
+        tickListeners.add(listener);
+    }
+
+    public TimeValue tickDuration() {
+        return tickDuration;
+    }
+
+    private void ensureStarted() {
+        if (started.compareAndSet(false, true)) {
+            tickFuture = threadPool.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    tick();
+                }
+            }, tickDuration);
+        }
+    }
+
+    public void stop() {
+        ScheduledFuture<?> future = tickFuture;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * advance the wheel by one tick.
+     * Must only be called by one thread at a time.
+     */
+    void tick() {
+        long now = threadPool.estimatedTimeInMillis();
+        try {
+            expireEntries(now);
+            transferNewEntries(now);
+        } catch (Throwable t) {
+            LOGGER.error("error during tick of the timer", t);
+        }
+        tick++;
+        for (Runnable tickListener : tickListeners) {
+            try {
+                tickListener.run();
+            } catch (Throwable t) {
+                LOGGER.error("error running tick listener of the timer", t);
+            }
+        }
+    }
+
+    private void transferNewEntries(long now) {
+        Entry entry;
+        while ((entry = newEntries.poll()) != null) {
+            place(entry, entry.deadline - now);
+        }
+    }
+
+    /**
+     * puts the entry into the bucket which is reached after <code>delayMillis</code>.
+     * The current bucket has already been expired, so an entry placed into it is only run
+     * after a full revolution of the wheel.
+     */
+    private void place(Entry entry, long delayMillis) {
+        long ticks = Math.max(1L, (delayMillis + tickMillis - 1) / tickMillis);
+        entry.remainingRounds = (ticks - 1) / wheel.length;
+        wheel[(int) ((tick + ticks) & mask)].add(entry);
+    }
+
+    private void expireEntries(long now) {
+        List<Entry> bucket = wheel[(int) (tick & mask)];
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry entry : entries) {
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+                bucket.add(entry);
+                continue;
+            }
+            long nextDelay;
+            try {
+                nextDelay = entry.task.run(now);
+            } catch (Throwable t) {
+                LOGGER.error("error running timer task {}", t, entry.task);
+                continue;
+            }
+            if (nextDelay >= 0) {
+                place(new Entry(entry.task, now + nextDelay), nextDelay);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import java.util.Locale;
+
+/**
+ * Classes of jobs which are admitted by the {@link JobScheduler} with separate
+ * concurrency limits, queues, weights and memory thresholds.
+ */
+public enum JobClass {
+
+    /**
+     * lookups of documents by primary key
+     */
+    POINT_LOOKUP(8, 4, 1.0),
+
+    /**
+     * collects from shards which stop after a limited number of rows and counts
+     */
+    SMALL(4, 2, 0.95),
+
+    /**
+     * collects which have to read all matching documents of the shards
+     */
+    SCAN(1, 0.5, 0.7),
+
+    /**
+     * jobs which modify data
+     */
+    DML(2, 1, 0.8),
+
+    /**
+     * collects from system tables like sys or information_schema
+     */
+    SYSTEM(2, 1, 1.0);
+
+    private final String settingsName;
+    private final int defaultWeight;
+    private final double defaultConcurrencyPerProcessor;
+    private final double defaultMemoryThreshold;
+
+    JobClass(int defaultWeight, double defaultConcurrencyPerProcessor, double defaultMemoryThreshold) {
+        this.settingsName = name().toLowerCase(Locale.ENGLISH);
+        this.defaultWeight = defaultWeight;
+        this.defaultConcurrencyPerProcessor = defaultConcurrencyPerProcessor;
+        this.defaultMemoryThreshold = defaultMemoryThreshold;
+    }
+
+    public String settingsName() {
+        return settingsName;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    int defaultMaxConcurrent(int processors) {
+        return Math.max(1, (int) (processors * defaultConcurrencyPerProcessor));
+    }
+
+    double defaultMemoryThreshold() {
+        return defaultMemoryThreshold;
+    }
+}
@@ -43,7 +43,6 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Singleton
@@ -56,15 +55,10 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
     @Retention(RetentionPolicy.RUNTIME)
     public static @interface JobKeepAlive {}
 
-    @BindingAnnotation
-    @Target({ ElementType.FIELD, ElementType.PARAMETER, ElementType.METHOD })
-    @Retention(RetentionPolicy.RUNTIME)
-    public static @interface ReaperInterval {}
-
 
     private final ThreadPool threadPool;
     private final StatsTables statsTables;
-    private final ScheduledFuture<?> keepAliveReaper;
+    private final HashedWheelTimer timer;
     private final ConcurrentMap<UUID, JobExecutionContext> activeContexts =
             ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
@@ -82,19 +76,14 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
                              ThreadPool threadPool,
                              StatsTables statsTables,
                              Reaper reaper,
-                             @JobKeepAlive TimeValue keepAlive,
-                             @ReaperInterval TimeValue reaperInterval) {
+                             HashedWheelTimer timer,
+                             @JobKeepAlive TimeValue keepAlive) {
         super(settings);
         this.threadPool = threadPool;
         this.statsTables = statsTables;
         this.keepAlive = keepAlive;
         this.reaperImpl = reaper;
-        this.keepAliveReaper = threadPool.scheduleWithFixedDelay(new Runnable() {
-            @Override
-            public void run() {
-                reaperImpl.killHangingJobs(JobContextService.this.keepAlive, activeContexts.values());
-            }
-        }, reaperInterval);
+        this.timer = timer;
     }
 
     @Override
@@ -114,7 +103,7 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
 
     @Override
     protected void doClose() throws ElasticsearchException {
-        keepAliveReaper.cancel(false);
+        timer.stop();
     }
 
     public JobExecutionContext getContext(UUID jobId) {
@@ -152,6 +141,7 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
         } finally {
             readLock.unlock();
         }
+        timer.schedule(new ContextExpiry(newContext), keepAlive.millis());
         return newContext;
     }
 
@@ -198,6 +188,36 @@ public class JobContextService extends AbstractLifecycleComponent<JobContextServ
         return numKilled;
     }
 
+    /**
+     * Checks if a context expired once its keep alive elapsed since its last access and
+     * reschedules itself at the time the context would expire next.
+     * The task is dropped as soon as the context is closed.
+     */
+    private class ContextExpiry implements HashedWheelTimer.Task {
+
+        private final JobExecutionContext context;
+
+        private ContextExpiry(JobExecutionContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public long run(long now) {
+            if (activeContexts.get(context.jobId()) != context) {
+                return -1L;
+            }
+            reaperImpl.killHangingJobs(keepAlive, Collections.singletonList(context));
+            if (activeContexts.get(context.jobId()) != context) {
+                return -1L;
+            }
+            long lastAccessTime = context.lastAccessTime();
+            if (lastAccessTime == -1L) {
+                return keepAlive.millis();
+            }
+            return Math.max(0L, lastAccessTime + keepAlive.millis() - now);
+        }
+    }
+
     private class JobContextCallback implements Callback<JobExecutionContext> {
         @Override
         public void handle(JobExecutionContext context) {
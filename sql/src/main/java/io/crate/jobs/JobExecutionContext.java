@@ -138,13 +138,20 @@ public class JobExecutionContext implements KeepAliveListener {
         return jobId;
     }
 
+    /**
+     * @return future which is done once all sub contexts are closed or killed
+     */
+    public ListenableFuture<?> completionFuture() {
+        return chainedFuture;
+    }
+
     private void prepare(){
         for (Integer id : orderedContextIds) {
             ExecutionSubContext subContext = subContexts.get(id);
             if (subContext == null || closed.get()) {
                 break; // got killed before prepare was called
             }
-            statsTables.operationStarted(id, jobId, subContext.name());
+            statsTables.operationStarted(id, jobId, subContext.name(), subContext.progress());
             subContext.prepare();
         }
     }
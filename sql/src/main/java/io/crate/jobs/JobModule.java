@@ -32,9 +32,11 @@ public class JobModule extends AbstractModule {
     protected void configure() {
         bind(JobContextService.class).asEagerSingleton();
         bind(TimeValue.class).annotatedWith(JobContextService.JobKeepAlive.class).toInstance(timeValueMinutes(5));
-        bind(TimeValue.class).annotatedWith(JobContextService.ReaperInterval.class).toInstance(timeValueMinutes(1));
+        bind(HashedWheelTimer.class).asEagerSingleton();
         bind(Reaper.class).to(LocalReaper.class).asEagerSingleton();
 
         bind(KeepAliveTimers.class).asEagerSingleton();
+        bind(JobScheduler.class).asEagerSingleton();
+        bind(ReplicaSelector.class).asEagerSingleton();
     }
 }
@@ -0,0 +1,368 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.breaker.CrateCircuitBreakerService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node level admission control for jobs.
+ *
+ * Every job is admitted within its {@link JobClass}. A class may run up to
+ * <code>scheduler.&lt;class&gt;.max_concurrent</code> jobs at the same time, additional jobs are queued
+ * (up to <code>scheduler.&lt;class&gt;.queue_size</code>, then rejected).
+ * A class only starts another job if the query circuit breaker is below the
+ * <code>scheduler.&lt;class&gt;.memory_threshold</code> of the class, a class without running jobs can
+ * always start one so that it can't starve.
+ *
+ * All classes together are limited to <code>scheduler.max_concurrent</code> jobs.
+ * If slots become available the queued jobs are started using stride scheduling,
+ * so that the classes get a share of the slots proportional to their <code>weight</code>.
+ * Slots become available if a job finishes or if the memory usage dropped, which is checked
+ * whenever a job is admitted and every <code>scheduler.dispatch_interval</code>.
+ */
+@Singleton
+public class JobScheduler extends AbstractComponent {
+
+    public static final String SETTINGS_PREFIX = "scheduler.";
+    public static final String ENABLED_SETTING = SETTINGS_PREFIX + "enabled";
+    public static final String MAX_CONCURRENT_SETTING = SETTINGS_PREFIX + "max_concurrent";
+    public static final String DISPATCH_INTERVAL_SETTING = SETTINGS_PREFIX + "dispatch_interval";
+
+    public static final String CLASS_MAX_CONCURRENT = "max_concurrent";
+    public static final String CLASS_QUEUE_SIZE = "queue_size";
+    public static final String CLASS_WEIGHT = "weight";
+    public static final String CLASS_MEMORY_THRESHOLD = "memory_threshold";
+
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final long STRIDE = 1 << 20;
+    private static final TimeValue DEFAULT_DISPATCH_INTERVAL = TimeValue.timeValueMillis(500);
+
+    private final CircuitBreakerService breakerService;
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final ClassState[] classStates;
+
+    // guarded by this
+    private int running = 0;
+    private long virtualTime = 0;
+
+    @Inject
+    public JobScheduler(Settings settings, CrateCircuitBreakerService breakerService, final ThreadPool threadPool) {
+        this(settings, (CircuitBreakerService) breakerService);
+        if (enabled) {
+            threadPool.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    if (hasQueuedJobs()) {
+                        threadPool.generic().execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                dispatchQueued();
+                            }
+                        });
+                    }
+                }
+            }, settings.getAsTime(DISPATCH_INTERVAL_SETTING, DEFAULT_DISPATCH_INTERVAL));
+        }
+    }
+
+    JobScheduler(Settings settings, CircuitBreakerService breakerService) {
+        super(settings);
+        this.breakerService = breakerService;
+        int processors = EsExecutors.boundedNumberOfProcessors(settings);
+        enabled = settings.getAsBoolean(ENABLED_SETTING, true);
+        maxConcurrent = settings.getAsInt(MAX_CONCURRENT_SETTING, processors * 4);
+
+        JobClass[] jobClasses = JobClass.values();
+        classStates = new ClassState[jobClasses.length];
+        for (JobClass jobClass : jobClasses) {
+            Settings classSettings = settings.getByPrefix(SETTINGS_PREFIX + jobClass.settingsName() + ".");
+            classStates[jobClass.ordinal()] = new ClassState(
+                    jobClass,
+                    classSettings.getAsInt(CLASS_MAX_CONCURRENT, jobClass.defaultMaxConcurrent(processors)),
+                    classSettings.getAsInt(CLASS_QUEUE_SIZE, DEFAULT_QUEUE_SIZE),
+                    Math.max(1, classSettings.getAsInt(CLASS_WEIGHT, jobClass.defaultWeight())),
+                    classSettings.getAsDouble(CLASS_MEMORY_THRESHOLD, jobClass.defaultMemoryThreshold())
+            );
+        }
+    }
+
+    /**
+     * Runs the task once the job is admitted. This is either immediately on the calling thread
+     * or later on the thread which freed up the slot.
+     *
+     * @param jobClass the class of the job, jobs without class are started right away
+     * @param completion future which is done once the job finished and its slot can be given to another job.
+     *                   If it is done while the job is still queued the job is removed from the queue.
+     * @throws EsRejectedExecutionException if the queue of the class is full
+     */
+    public void admit(@Nullable JobClass jobClass, ListenableFuture<?> completion, Runnable task) {
+        if (!enabled || jobClass == null) {
+            task.run();
+            return;
+        }
+        final ClassState classState = classStates[jobClass.ordinal()];
+        final Ticket ticket = new Ticket(classState, task);
+        boolean runNow = false;
+        boolean rejected = false;
+        List<Ticket> toRun;
+        synchronized (this) {
+            // the memory usage might have dropped since the last dispatch
+            toRun = dispatch();
+            if (classState.queue.isEmpty() && canStart(classState)) {
+                start(ticket);
+                runNow = true;
+            } else if (classState.queue.size() >= classState.queueSize) {
+                classState.rejected++;
+                rejected = true;
+            } else {
+                if (classState.queue.isEmpty()) {
+                    // don't let a class which was idle catch up on the slots it didn't use
+                    classState.pass = Math.max(classState.pass, virtualTime);
+                }
+                classState.queue.add(ticket);
+                if (logger.isTraceEnabled()) {
+                    logger.trace("queued {} job, {} jobs queued", jobClass.settingsName(), classState.queue.size());
+                }
+            }
+        }
+        run(toRun);
+        if (rejected) {
+            throw new EsRejectedExecutionException(String.format(Locale.ENGLISH,
+                    "rejected execution of job, queue for %s jobs is full (%d)",
+                    jobClass.settingsName(), classState.queueSize));
+        }
+        Futures.addCallback(completion, new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(@Nullable Object result) {
+                finished(ticket);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                finished(ticket);
+            }
+        });
+        if (runNow) {
+            task.run();
+        }
+    }
+
+    /**
+     * starts queued jobs if there are free slots
+     */
+    public void dispatchQueued() {
+        List<Ticket> toRun;
+        synchronized (this) {
+            toRun = dispatch();
+        }
+        run(toRun);
+    }
+
+    private synchronized boolean hasQueuedJobs() {
+        for (ClassState classState : classStates) {
+            if (!classState.queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canStart(ClassState classState) {
+        if (running >= maxConcurrent || classState.active >= classState.maxConcurrent) {
+            return false;
+        }
+        return classState.active == 0 || belowMemoryThreshold(classState.memoryThreshold);
+    }
+
+    private boolean belowMemoryThreshold(double threshold) {
+        if (threshold >= 1.0) {
+            return true;
+        }
+        CircuitBreaker breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        if (breaker == null || breaker.getLimit() <= 0) {
+            return true;
+        }
+        return breaker.getUsed() < breaker.getLimit() * threshold;
+    }
+
+    private void start(Ticket ticket) {
+        ClassState classState = ticket.classState;
+        ticket.started = true;
+        running++;
+        classState.active++;
+        classState.admitted++;
+        classState.waitTimeNanos += System.nanoTime() - ticket.createdNanos;
+    }
+
+    private void finished(Ticket ticket) {
+        List<Ticket> toRun;
+        synchronized (this) {
+            if (ticket.finished) {
+                return;
+            }
+            ticket.finished = true;
+            ClassState classState = ticket.classState;
+            if (!ticket.started) {
+                classState.queue.remove(ticket);
+                return;
+            }
+            running--;
+            classState.active--;
+            toRun = dispatch();
+        }
+        run(toRun);
+    }
+
+    private void run(List<Ticket> toRun) {
+        for (Ticket next : toRun) {
+            try {
+                next.task.run();
+            } catch (Throwable t) {
+                logger.error("error starting queued {} job", t, next.classState.jobClass.settingsName());
+            }
+        }
+    }
+
+    /**
+     * starts queued jobs as long as there are free slots, picking the class with the lowest pass
+     */
+    private List<Ticket> dispatch() {
+        List<Ticket> toRun = null;
+        while (running < maxConcurrent) {
+            ClassState next = null;
+            for (ClassState classState : classStates) {
+                if (!classState.queue.isEmpty() && canStart(classState)
+                    && (next == null || classState.pass < next.pass)) {
+                    next = classState;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            Ticket ticket = next.queue.poll();
+            start(ticket);
+            virtualTime = next.pass;
+            next.pass += STRIDE / next.weight;
+            if (toRun == null) {
+                toRun = new ArrayList<>();
+            }
+            toRun.add(ticket);
+        }
+        if (toRun == null) {
+            return Collections.emptyList();
+        }
+        return toRun;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public synchronized int active(JobClass jobClass) {
+        return classStates[jobClass.ordinal()].active;
+    }
+
+    public synchronized int queued(JobClass jobClass) {
+        return classStates[jobClass.ordinal()].queue.size();
+    }
+
+    public synchronized long admitted(JobClass jobClass) {
+        return classStates[jobClass.ordinal()].admitted;
+    }
+
+    public synchronized long rejected(JobClass jobClass) {
+        return classStates[jobClass.ordinal()].rejected;
+    }
+
+    /**
+     * @return the average time in ms the admitted jobs of the class had to wait in the queue
+     */
+    public synchronized long avgWaitTime(JobClass jobClass) {
+        ClassState classState = classStates[jobClass.ordinal()];
+        if (classState.admitted == 0) {
+            return 0L;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(classState.waitTimeNanos / classState.admitted);
+    }
+
+    private static class ClassState {
+
+        private final JobClass jobClass;
+        private final int maxConcurrent;
+        private final int queueSize;
+        private final int weight;
+        private final double memoryThreshold;
+        private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+
+        private int active = 0;
+        private long pass = 0;
+        private long admitted = 0;
+        private long rejected = 0;
+        private long waitTimeNanos = 0;
+
+        ClassState(JobClass jobClass, int maxConcurrent, int queueSize, int weight, double memoryThreshold) {
+            this.jobClass = jobClass;
+            this.maxConcurrent = maxConcurrent;
+            this.queueSize = queueSize;
+            this.weight = weight;
+            this.memoryThreshold = memoryThreshold;
+        }
+    }
+
+    private static class Ticket {
+
+        private final ClassState classState;
+        private final Runnable task;
+        private final long createdNanos = System.nanoTime();
+        private boolean started = false;
+        private boolean finished = false;
+
+        Ticket(ClassState classState, Runnable task) {
+            this.classState = classState;
+            this.task = task;
+        }
+    }
+}
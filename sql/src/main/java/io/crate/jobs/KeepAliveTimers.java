@@ -33,55 +33,87 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportResponse;
 
-import java.util.UUID;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.*;
 
+/**
+ * Factory for {@link ResettableTimer}s which all run on the {@link HashedWheelTimer} of the node.
+ *
+ * Keep alive timers of jobs are not sent one by one, but collected during a tick of the timer
+ * and sent as one {@link KeepAliveRequest} per target node.
+ */
 @Singleton
 public class KeepAliveTimers {
 
     private static final ESLogger LOGGER = Loggers.getLogger(KeepAliveTimers.class);
 
     private final ThreadPool threadPool;
+    private final HashedWheelTimer timer;
     private final TimeValue maxKeepAliveTime;
     private final TransportKeepAliveAction transportKeepAliveAction;
 
+    // only accessed by the timer thread
+    private final Map<String, Set<UUID>> pendingKeepAlives = new HashMap<>();
+
     @Inject
     public KeepAliveTimers(ThreadPool threadPool,
+                           HashedWheelTimer timer,
                            @JobContextService.JobKeepAlive TimeValue maxKeepAliveTime,
                            TransportKeepAliveAction transportKeepAliveAction) {
         this.threadPool = threadPool;
+        this.timer = timer;
         this.maxKeepAliveTime = maxKeepAliveTime;
         this.transportKeepAliveAction = transportKeepAliveAction;
+        timer.addTickListener(new Runnable() {
+            @Override
+            public void run() {
+                sendKeepAlives();
+            }
+        });
     }
 
     public ResettableTimer forJobOnNode(final UUID jobId, final String nodeId) {
         return forRunnable(new Runnable() {
             @Override
             public void run() {
-                transportKeepAliveAction.keepAlive(nodeId, new KeepAliveRequest(jobId), new ActionListener<TransportResponse.Empty>() {
-                    @Override
-                    public void onResponse(TransportResponse.Empty empty) {
-                        LOGGER.trace("keep alive for job [{}] on downstream [{}] finished successfully", jobId, nodeId);
-                    }
-
-                    @Override
-                    public void onFailure(Throwable e) {
-                        LOGGER.trace("keep alive for job [{}] on downstream [{}] failed", e,jobId, nodeId);
-                    }
-                });
+                Set<UUID> jobIds = pendingKeepAlives.get(nodeId);
+                if (jobIds == null) {
+                    jobIds = new HashSet<>();
+                    pendingKeepAlives.put(nodeId, jobIds);
+                }
+                jobIds.add(jobId);
             }
         });
     }
 
+    private void sendKeepAlives() {
+        if (pendingKeepAlives.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Set<UUID>> entry : pendingKeepAlives.entrySet()) {
+            final String nodeId = entry.getKey();
+            final int numJobs = entry.getValue().size();
+            transportKeepAliveAction.keepAlive(nodeId, new KeepAliveRequest(entry.getValue()), new ActionListener<TransportResponse.Empty>() {
+                @Override
+                public void onResponse(TransportResponse.Empty empty) {
+                    LOGGER.trace("keep alive for {} jobs on downstream [{}] finished successfully", numJobs, nodeId);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    LOGGER.trace("keep alive for {} jobs on downstream [{}] failed", e, numJobs, nodeId);
+                }
+            });
+        }
+        pendingKeepAlives.clear();
+    }
+
     public ResettableTimer forRunnable(Runnable runnable) {
         TimeValue delay = TimeValue.timeValueMillis(Math.max(1, maxKeepAliveTime.millis() / 3));
         return forRunnable(runnable, delay);
     }
 
     public ResettableTimer forRunnable(Runnable runnable, TimeValue delay) {
-        return new ResettableTimer(threadPool, runnable, delay);
+        return new ResettableTimer(threadPool, timer, runnable, delay);
     }
 
 
@@ -89,61 +121,65 @@ public class KeepAliveTimers {
      * A timer that executes a given runnable periodically with a given delay if
      * the delay duration was exceeded since the last reset.
      *
+     * Resetting the timer only updates its timestamp, the timer is rescheduled
+     * on the {@link HashedWheelTimer} once it expired.
+     *
      * Execution example:
      *
-     * ResettableTimer timer = new ResettableTimer(threadPool, new Runnable { System.out.println("hello world"); }, TimeValue.timeValueMillis(100));
+     * ResettableTimer timer = new ResettableTimer(threadPool, wheelTimer, new Runnable { System.out.println("hello world"); }, TimeValue.timeValueMillis(100));
      * timer.start();
      *
      * t+100 -> no reset yet -> "hello world"
      *
      * t+150 -> another thread calls reset()
      *
-     * t+200 -> only 50 ms since last reset
+     * t+200 -> only 50 ms since last reset, check again at t+250
      *
-     * t+300 -> 150 ms since last reset -> "hello world"
+     * t+250 -> 100 ms since last reset -> "hello world"
      */
-    public static class ResettableTimer {
+    public static class ResettableTimer implements HashedWheelTimer.Task {
         private final Runnable runnable;
         private final TimeValue delay;
-        private final AtomicReference<ScheduledFuture<?>> futureHolder = new AtomicReference<>();
-        private final AtomicLong lastReset = new AtomicLong(-1L);
         private final ThreadPool threadPool;
+        private final HashedWheelTimer timer;
+        private volatile long lastReset = -1L;
+        private volatile boolean cancelled = false;
 
-        public ResettableTimer(ThreadPool threadPool, Runnable runnable, TimeValue delay) {
+        public ResettableTimer(ThreadPool threadPool, HashedWheelTimer timer, Runnable runnable, TimeValue delay) {
             this.threadPool = threadPool;
+            this.timer = timer;
             this.runnable = runnable;
             this.delay = delay;
         }
 
         public void start() {
             LOGGER.trace("starting ResettableTimer with delay of {}", this.delay);
-            final long started = threadPool.estimatedTimeInMillis();
-            lastReset.set(started);
-            futureHolder.set(threadPool.scheduleWithFixedDelay(new Runnable() {
-                @Override
-                public void run() {
-                    long notAccessed = threadPool.estimatedTimeInMillis() - lastReset.get();
-                    if (notAccessed >= delay.millis()){
-                        // execute action only when delay expired since last reset
-                        LOGGER.trace("not accessed in {}ms, running keep alive runnable", notAccessed);
-                        runnable.run();
-                    } else {
-                        LOGGER.trace("not accessed in {}ms. will only execute keep alive runnable after {}ms", notAccessed, delay.millis());
-                    }
-
-                }
-            }, delay));
+            lastReset = threadPool.estimatedTimeInMillis();
+            timer.schedule(this, delay.millis());
         }
 
         public void reset() {
-            lastReset.set(threadPool.estimatedTimeInMillis());
+            lastReset = threadPool.estimatedTimeInMillis();
         }
 
         public void cancel() {
-            ScheduledFuture<?> future = futureHolder.getAndSet(null);
-            if (future != null) {
-                future.cancel(true);
+            cancelled = true;
+        }
+
+        @Override
+        public long run(long now) {
+            if (cancelled) {
+                return -1L;
+            }
+            long notAccessed = now - lastReset;
+            if (notAccessed >= delay.millis()) {
+                // execute action only when delay expired since last reset
+                LOGGER.trace("not accessed in {}ms, running keep alive runnable", notAccessed);
+                runnable.run();
+                return delay.millis();
             }
+            LOGGER.trace("not accessed in {}ms. will only execute keep alive runnable after {}ms", notAccessed, delay.millis());
+            return delay.millis() - notAccessed;
         }
     }
 }
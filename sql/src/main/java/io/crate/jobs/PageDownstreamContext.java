@@ -26,9 +26,11 @@ import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.BucketPage;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.operation.PageConsumeListener;
 import io.crate.operation.PageDownstream;
 import io.crate.operation.PageResultListener;
+import io.crate.operation.profile.PhaseProfile;
 import io.crate.operation.projectors.FlatProjectorChain;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -70,6 +72,7 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         this.ramAccountingContext = ramAccountingContext;
         this.numBuckets = numBuckets;
         this.projectorChain = projectorChain;
+        progress.ramAccountingContext(ramAccountingContext);
         bucketFutures = new ArrayList<>(numBuckets);
         allFuturesSet = new BitSet(numBuckets);
         exhausted = new BitSet(numBuckets);
@@ -96,6 +99,24 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
     }
 
     public void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
+        progress.addRows(rows.size());
+        PhaseProfile profile = ramAccountingContext.profile();
+        if (profile == null) {
+            doSetBucket(bucketIdx, rows, isLast, pageResultListener);
+            return;
+        }
+        if (rows instanceof StreamBucket) {
+            profile.addBytesReceived(((StreamBucket) rows).sizeInBytes());
+        }
+        long started = PhaseProfile.currentThreadCpuTime();
+        try {
+            doSetBucket(bucketIdx, rows, isLast, pageResultListener);
+        } finally {
+            profile.addCpuTime(PhaseProfile.currentThreadCpuTime() - started);
+        }
+    }
+
+    private void doSetBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
         synchronized (listeners) {
             listeners.add(pageResultListener);
         }
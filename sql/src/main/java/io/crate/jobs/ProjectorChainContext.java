@@ -47,6 +47,7 @@ public class ProjectorChainContext extends AbstractExecutionSubContext {
                                  RamAccountingContext ramAccountingContext) {
         super(id);
         this.name = name;
+        progress.ramAccountingContext(ramAccountingContext);
         ListenableRowReceiver listenableRowReceiver = RowReceivers.listenableRowReceiver(rowReceiver);
         Futures.addCallback(listenableRowReceiver.finishFuture(), new FutureCallback<Void>() {
             @Override
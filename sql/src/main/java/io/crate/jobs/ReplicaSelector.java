@@ -0,0 +1,344 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import io.crate.metadata.Routing;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive replica selection.
+ *
+ * Keeps track of the response times and the number of outstanding phases this node executes on the
+ * other nodes (and on itself), from the time they are sent until they are done, and ranks the nodes by them,
+ * so that the planner can route the collect phases of a table to the least loaded copy of each shard.
+ *
+ * The response time of a node is an exponentially weighted moving average. It decays towards zero
+ * while the node doesn't get any requests, so that a node that was slow once is tried again eventually.
+ */
+@Singleton
+public class ReplicaSelector extends AbstractComponent implements ClusterStateListener {
+
+    public static final String ENABLED_SETTING = "replica_selection.enabled";
+
+    private static final double ALPHA = 0.3;
+    private static final long DECAY_HALF_LIFE = TimeUnit.SECONDS.toNanos(30);
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, NodeStats> nodeStats = new ConcurrentHashMap<>();
+
+    @Inject
+    public ReplicaSelector(Settings settings, ClusterService clusterService) {
+        super(settings);
+        enabled = settings.getAsBoolean(ENABLED_SETTING, true);
+        clusterService.add(this);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * to be called before phases are sent to or started on a node
+     *
+     * @return the start time which has to be passed to {@link #onResponse(String, int, long)}
+     */
+    public long onRequest(String nodeId, int numPhases) {
+        stats(nodeId).outstandingPhases.addAndGet(numPhases);
+        return System.nanoTime();
+    }
+
+    /**
+     * to be called once the node responded to the request, regardless whether it succeeded or failed
+     */
+    public void onResponse(String nodeId, int numPhases, long startTime) {
+        long now = System.nanoTime();
+        NodeStats stats = stats(nodeId);
+        stats.outstandingPhases.addAndGet(-numPhases);
+        stats.addResponseTime(now - startTime, now);
+    }
+
+    /**
+     * @return the rank of the node, the lower the better
+     */
+    public double rank(String nodeId) {
+        NodeStats stats = nodeStats.get(nodeId);
+        if (stats == null) {
+            return NodeStats.rank(0, 0);
+        }
+        return stats.rank();
+    }
+
+    public Collection<NodeStats> nodeStats() {
+        return nodeStats.values();
+    }
+
+    /**
+     * @param seed used to choose between copies on nodes with the same rank
+     * @return a selection which takes the ranks of the nodes at the time they are first needed
+     */
+    public Selection newSelection(int seed) {
+        return new Selection(seed);
+    }
+
+    /**
+     * Creates a routing which contains the same shards as the given routing, but with every shard
+     * assigned to the active copy on the node with the lowest rank.
+     * Every shard assigned to a node counts like an outstanding phase of the node for the following shards,
+     * so that the shards are spread across the copies. A shard which has already been selected before
+     * within the same selection stays on the same copy.
+     */
+    public Routing select(ClusterState state, Routing routing, Selection selection) {
+        if (!routing.hasLocations()) {
+            return routing;
+        }
+        Map<String, Map<String, List<Integer>>> locations = new TreeMap<>();
+        List<String> candidates = new ArrayList<>();
+        for (Map.Entry<String, Map<String, List<Integer>>> nodeEntry : routing.locations().entrySet()) {
+            for (Map.Entry<String, List<Integer>> indexEntry : nodeEntry.getValue().entrySet()) {
+                String index = indexEntry.getKey();
+                IndexRoutingTable indexRoutingTable = state.routingTable().index(index);
+                for (Integer shardId : indexEntry.getValue()) {
+                    String nodeId = nodeEntry.getKey();
+                    IndexShardRoutingTable shardRoutingTable =
+                            indexRoutingTable == null ? null : indexRoutingTable.shard(shardId);
+                    if (shardRoutingTable != null) {
+                        candidates.clear();
+                        for (ShardRouting shardRouting : shardRoutingTable.activeShards()) {
+                            candidates.add(shardRouting.currentNodeId());
+                        }
+                        if (candidates.size() > 1) {
+                            nodeId = selection.selectNode(index, shardId, candidates);
+                        }
+                    }
+                    add(locations, nodeId, index, shardId);
+                }
+            }
+        }
+        Routing selected = new Routing(locations);
+        selected.skippedByZoneMaps(routing.skippedPartitions(), routing.skippedShards());
+        return selected;
+    }
+
+    private static void add(Map<String, Map<String, List<Integer>>> locations, String nodeId, String index, Integer shardId) {
+        Map<String, List<Integer>> indices = locations.get(nodeId);
+        if (indices == null) {
+            indices = new TreeMap<>();
+            locations.put(nodeId, indices);
+        }
+        List<Integer> shards = indices.get(index);
+        if (shards == null) {
+            shards = new ArrayList<>();
+            indices.put(index, shards);
+        }
+        shards.add(shardId);
+    }
+
+    private NodeStats stats(String nodeId) {
+        NodeStats stats = nodeStats.get(nodeId);
+        if (stats == null) {
+            stats = new NodeStats(nodeId);
+            NodeStats existing = nodeStats.putIfAbsent(nodeId, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.nodesRemoved()) {
+            for (DiscoveryNode node : event.nodesDelta().removedNodes()) {
+                nodeStats.remove(node.id());
+            }
+        }
+    }
+
+    /**
+     * The selected copies of a plan. The ranks of the nodes are taken once, so that all routings
+     * of a plan select the same copies, and are increased by the shards assigned to the nodes.
+     */
+    public class Selection {
+
+        private final int seed;
+        private final Map<String, double[]> nodes = new HashMap<>();
+        private final Map<String, Map<Integer, String>> selected = new HashMap<>();
+
+        private Selection(int seed) {
+            this.seed = seed;
+        }
+
+        /**
+         * @return the rank of the node including the shards assigned to it by this selection
+         */
+        double rank(String nodeId) {
+            double[] node = node(nodeId);
+            return node[0] * (1 + node[1]);
+        }
+
+        /**
+         * @return the response time (+1ms) and the number of outstanding phases of the node
+         */
+        private double[] node(String nodeId) {
+            double[] node = nodes.get(nodeId);
+            if (node == null) {
+                NodeStats stats = nodeStats.get(nodeId);
+                if (stats == null) {
+                    node = new double[] { 1, 0 };
+                } else {
+                    node = new double[] { stats.avgResponseTime() + 1, stats.outstandingPhases() };
+                }
+                nodes.put(nodeId, node);
+            }
+            return node;
+        }
+
+        private String selectNode(String index, Integer shardId, List<String> candidates) {
+            Map<Integer, String> selectedShards = selected.get(index);
+            if (selectedShards == null) {
+                selectedShards = new HashMap<>();
+                selected.put(index, selectedShards);
+            }
+            String nodeId = selectedShards.get(shardId);
+            if (nodeId != null && candidates.contains(nodeId)) {
+                return nodeId;
+            }
+            nodeId = lowestRank(candidates, seed + index.hashCode() + shardId);
+            selectedShards.put(shardId, nodeId);
+            // the shard is an additional phase of the node
+            node(nodeId)[1]++;
+            return nodeId;
+        }
+
+        private String lowestRank(List<String> candidates, int seed) {
+            Collections.sort(candidates);
+            double minRank = Double.MAX_VALUE;
+            int numMin = 0;
+            double[] candidateRanks = new double[candidates.size()];
+            for (int i = 0; i < candidates.size(); i++) {
+                double rank = rank(candidates.get(i));
+                candidateRanks[i] = rank;
+                if (rank < minRank) {
+                    minRank = rank;
+                    numMin = 1;
+                } else if (rank == minRank) {
+                    numMin++;
+                }
+            }
+            int pick = (seed & Integer.MAX_VALUE) % numMin;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (candidateRanks[i] == minRank) {
+                    if (pick == 0) {
+                        return candidates.get(i);
+                    }
+                    pick--;
+                }
+            }
+            throw new AssertionError("no node with the minimal rank found");
+        }
+    }
+
+    public static class NodeStats {
+
+        private final String nodeId;
+        private final AtomicInteger outstandingPhases = new AtomicInteger(0);
+
+        // guarded by this
+        private double responseTime = 0;
+        private long lastResponse = 0;
+        private long responses = 0;
+
+        NodeStats(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public String nodeId() {
+            return nodeId;
+        }
+
+        public int outstandingPhases() {
+            return Math.max(0, outstandingPhases.get());
+        }
+
+        public long responses() {
+            synchronized (this) {
+                return responses;
+            }
+        }
+
+        /**
+         * @return the average response time in ms
+         */
+        public double avgResponseTime() {
+            return TimeUnit.NANOSECONDS.toMicros((long) decayedResponseTime(System.nanoTime())) / 1000.0;
+        }
+
+        public double rank() {
+            return rank(avgResponseTime(), outstandingPhases());
+        }
+
+        synchronized void addResponseTime(long time, long now) {
+            if (responses == 0) {
+                responseTime = time;
+            } else {
+                responseTime = ALPHA * time + (1 - ALPHA) * decayedResponseTime(now);
+            }
+            lastResponse = now;
+            responses++;
+        }
+
+        private synchronized double decayedResponseTime(long now) {
+            long age = now - lastResponse;
+            if (responses == 0 || age <= 0) {
+                return responseTime;
+            }
+            return responseTime * Math.pow(0.5, (double) age / DECAY_HALF_LIFE);
+        }
+
+        /**
+         * nodes are ranked by their response time, weighted by the phases they are still busy with.
+         * The additional ms ensures that the outstanding phases also count for nodes with
+         * (almost) no response time.
+         */
+        static double rank(double avgResponseTime, int outstandingPhases) {
+            return (avgResponseTime + 1) * (1 + outstandingPhases);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.lucene;
+
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.Symbols;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.BitsFilteredDocIdSet;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Node level cache for the documents of a segment which match a predicate of a WHERE clause.
+ *
+ * Entries are keyed by the serialized predicate symbol and the core cache key of the segment.
+ * The matching documents are computed without taking deletions into account, so an entry stays valid
+ * as long as the segment exists and the live docs are applied on every lookup.
+ * Entries are removed once the segment is closed, e.g. because it has been merged away.
+ *
+ * Only predicates which are used by at least {@link #MIN_FREQUENCY} queries are cached,
+ * so filters of one-off queries don't evict frequently used ones.
+ * Entries are evicted in LRU order if <code>filter_bitset_cache.size</code> is exceeded.
+ * The bytes of the cached entries are accounted to the query circuit breaker, and entries are evicted
+ * while the breaker is used above {@link #BREAKER_PRESSURE} of its limit, so that the cache gives its
+ * memory back to the queries instead of holding on to its configured size.
+ */
+@Singleton
+public class FilterBitsetCache extends AbstractComponent implements AtomicReader.CoreClosedListener {
+
+    public static final String SIZE_SETTING = "filter_bitset_cache.size";
+    public static final String DEFAULT_SIZE = "2%";
+
+    static final int MIN_FREQUENCY = 2;
+    // number of predicates whose usages are tracked for the admission
+    private static final int MAX_HISTORY_SIZE = 1024;
+    static final double BREAKER_PRESSURE = 0.9;
+    private static final String BREAKER_LABEL = "filter_bitset_cache";
+    // estimate for the key, map entries and the bitset object of an entry
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final long maxSizeInBytes;
+    private final CircuitBreakerService breakerService;
+
+    // all guarded by this
+    private final LinkedHashMap<Key, CachedDocIdSet> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Object, Set<Key>> keysByCore = new IdentityHashMap<>();
+    private final LinkedHashMap<BytesReference, Integer> history = new LinkedHashMap<BytesReference, Integer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BytesReference, Integer> eldest) {
+            return size() > MAX_HISTORY_SIZE;
+        }
+    };
+    private long sizeInBytes = 0L;
+
+    @Inject
+    public FilterBitsetCache(Settings settings, CrateCircuitBreakerService breakerService) {
+        this(settings, (CircuitBreakerService) breakerService);
+    }
+
+    FilterBitsetCache(Settings settings, CircuitBreakerService breakerService) {
+        super(settings);
+        this.breakerService = breakerService;
+        this.maxSizeInBytes = settings.getAsMemory(SIZE_SETTING, DEFAULT_SIZE).bytes();
+    }
+
+    public boolean enabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * Wraps the filter so that the documents it matches on a segment are cached.
+     *
+     * @param predicate the normalized predicate the filter has been built from
+     * @return the caching filter or null if the cache is disabled or the predicate isn't deterministic
+     */
+    @Nullable
+    public Filter cache(Symbol predicate, Filter filter) {
+        if (!enabled() || !Symbols.isDeterministic(predicate)) {
+            return null;
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        try {
+            Symbol.toStream(predicate, out);
+        } catch (IOException e) {
+            logger.debug("could not create filter cache key", e);
+            return null;
+        }
+        return new CachingFilter(new BytesArray(out.bytes().toBytes()), filter);
+    }
+
+    private DocIdSet getDocIdSet(CachingFilter cachingFilter,
+                                 AtomicReaderContext context,
+                                 @Nullable Bits acceptDocs) throws IOException {
+        CircuitBreaker breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        releaseUnderPressure(breaker);
+        AtomicReader reader = context.reader();
+        Key key = new Key(cachingFilter.predicate, reader.getCoreCacheKey());
+        CachedDocIdSet cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            return BitsFilteredDocIdSet.wrap(cached.docIdSet, acceptDocs);
+        }
+        if (!cachingFilter.admitted()) {
+            return cachingFilter.filter.getDocIdSet(context, acceptDocs);
+        }
+        DocIdSet docIdSet = toBitset(cachingFilter.filter.getDocIdSet(context, null), reader);
+        put(key, reader, docIdSet, breaker);
+        return BitsFilteredDocIdSet.wrap(docIdSet, acceptDocs);
+    }
+
+    /**
+     * counts a usage of the predicate, a predicate stays admitted as long as it is part of the history
+     *
+     * @return true if the predicate has been used often enough to be cached
+     */
+    private synchronized boolean used(BytesReference predicate) {
+        Integer frequency = history.get(predicate);
+        frequency = frequency == null ? 1 : frequency + 1;
+        history.put(predicate, frequency);
+        return frequency >= MIN_FREQUENCY;
+    }
+
+    /**
+     * evicts entries while the query breaker is used above {@link #BREAKER_PRESSURE} of its limit
+     */
+    private void releaseUnderPressure(CircuitBreaker breaker) {
+        long limit = breaker.getLimit();
+        if (limit <= 0) {
+            return;
+        }
+        long excess = breaker.getUsed() - (long) (limit * BREAKER_PRESSURE);
+        if (excess <= 0) {
+            return;
+        }
+        long released;
+        synchronized (this) {
+            released = evict(Math.max(0L, sizeInBytes - excess));
+        }
+        if (released > 0) {
+            breaker.addWithoutBreaking(-released);
+        }
+    }
+
+    private static DocIdSet toBitset(@Nullable DocIdSet docIdSet, AtomicReader reader) throws IOException {
+        if (docIdSet == null) {
+            return DocIdSet.EMPTY;
+        }
+        DocIdSetIterator iterator = docIdSet.iterator();
+        if (iterator == null) {
+            return DocIdSet.EMPTY;
+        }
+        FixedBitSet bits = new FixedBitSet(reader.maxDoc());
+        bits.or(iterator);
+        return bits;
+    }
+
+    private void put(Key key, AtomicReader reader, DocIdSet docIdSet, CircuitBreaker breaker) {
+        long bytes = docIdSet.ramBytesUsed() + key.predicate.length() + ENTRY_OVERHEAD;
+        if (bytes > maxSizeInBytes) {
+            return;
+        }
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(bytes, BREAKER_LABEL);
+        } catch (CircuitBreakingException e) {
+            logger.trace("not caching filter bitset, circuit breaker would trip");
+            return;
+        }
+        boolean registerListener = false;
+        long released = 0L;
+        synchronized (this) {
+            CachedDocIdSet previous = entries.put(key, new CachedDocIdSet(docIdSet, bytes));
+            if (previous == null) {
+                Set<Key> coreKeys = keysByCore.get(key.coreKey);
+                if (coreKeys == null) {
+                    coreKeys = new HashSet<>();
+                    keysByCore.put(key.coreKey, coreKeys);
+                    registerListener = true;
+                }
+                coreKeys.add(key);
+            } else {
+                sizeInBytes -= previous.sizeInBytes;
+                released += previous.sizeInBytes;
+            }
+            sizeInBytes += bytes;
+            released += evict(maxSizeInBytes);
+        }
+        if (registerListener) {
+            reader.addCoreClosedListener(this);
+        }
+        if (released > 0) {
+            breaker.addWithoutBreaking(-released);
+        }
+    }
+
+    /**
+     * removes the least recently used entries until the size is within the given size
+     *
+     * @return the number of released bytes
+     */
+    private long evict(long maxSize) {
+        long released = 0L;
+        Iterator<Map.Entry<Key, CachedDocIdSet>> it = entries.entrySet().iterator();
+        while (sizeInBytes > maxSize && it.hasNext()) {
+            Map.Entry<Key, CachedDocIdSet> entry = it.next();
+            it.remove();
+            Key key = entry.getKey();
+            Set<Key> coreKeys = keysByCore.get(key.coreKey);
+            if (coreKeys != null) {
+                // the set is kept even if it becomes empty as the listener of the segment is still registered
+                coreKeys.remove(key);
+            }
+            sizeInBytes -= entry.getValue().sizeInBytes;
+            released += entry.getValue().sizeInBytes;
+        }
+        return released;
+    }
+
+    /**
+     * removes all entries of a segment once it is closed
+     */
+    @Override
+    public void onClose(Object ownerCoreCacheKey) {
+        long released = 0L;
+        synchronized (this) {
+            Set<Key> coreKeys = keysByCore.remove(ownerCoreCacheKey);
+            if (coreKeys == null) {
+                return;
+            }
+            for (Key key : coreKeys) {
+                CachedDocIdSet cached = entries.remove(key);
+                if (cached != null) {
+                    sizeInBytes -= cached.sizeInBytes;
+                    released += cached.sizeInBytes;
+                }
+            }
+        }
+        if (released > 0) {
+            breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER).addWithoutBreaking(-released);
+        }
+    }
+
+    synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The filter of a query. Its usage is counted once for all segments, so that the admission
+     * doesn't depend on the number of segments.
+     */
+    private class CachingFilter extends Filter {
+
+        private final BytesReference predicate;
+        private final Filter filter;
+        private volatile Boolean admitted;
+
+        CachingFilter(BytesReference predicate, Filter filter) {
+            this.predicate = predicate;
+            this.filter = filter;
+        }
+
+        private boolean admitted() {
+            Boolean admitted = this.admitted;
+            if (admitted == null) {
+                synchronized (this) {
+                    admitted = this.admitted;
+                    if (admitted == null) {
+                        admitted = used(predicate);
+                        this.admitted = admitted;
+                    }
+                }
+            }
+            return admitted;
+        }
+
+        @Override
+        public DocIdSet getDocIdSet(AtomicReaderContext context, @Nullable Bits acceptDocs) throws IOException {
+            return FilterBitsetCache.this.getDocIdSet(this, context, acceptDocs);
+        }
+
+        @Override
+        public String toString() {
+            return "cached(" + filter + ")";
+        }
+    }
+
+    private static class Key {
+
+        private final BytesReference predicate;
+        private final Object coreKey;
+
+        Key(BytesReference predicate, Object coreKey) {
+            this.predicate = predicate;
+            this.coreKey = coreKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return coreKey == key.coreKey && predicate.equals(key.predicate);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * predicate.hashCode() + System.identityHashCode(coreKey);
+        }
+    }
+
+    private static class CachedDocIdSet {
+
+        private final DocIdSet docIdSet;
+        private final long sizeInBytes;
+
+        CachedDocIdSet(DocIdSet docIdSet, long sizeInBytes) {
+            this.docIdSet = docIdSet;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+}
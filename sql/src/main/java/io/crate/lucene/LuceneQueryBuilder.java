@@ -104,9 +104,11 @@ public class LuceneQueryBuilder {
     private static final ESLogger LOGGER = Loggers.getLogger(LuceneQueryBuilder.class);
     private final static Visitor VISITOR = new Visitor();
     private final CollectInputSymbolVisitor<LuceneCollectorExpression<?>> inputSymbolVisitor;
+    private final FilterBitsetCache filterBitsetCache;
 
     @Inject
-    public LuceneQueryBuilder(Functions functions) {
+    public LuceneQueryBuilder(Functions functions, FilterBitsetCache filterBitsetCache) {
+        this.filterBitsetCache = filterBitsetCache;
         inputSymbolVisitor = new CollectInputSymbolVisitor<>(functions, new LuceneReferenceResolver(null));
     }
 
@@ -114,7 +116,7 @@ public class LuceneQueryBuilder {
                            MapperService mapperService,
                            IndexFieldDataService indexFieldDataService,
                            IndexCache indexCache) throws UnsupportedFeatureException {
-        Context ctx = new Context(inputSymbolVisitor, mapperService, indexFieldDataService, indexCache);
+        Context ctx = new Context(inputSymbolVisitor, mapperService, indexFieldDataService, indexCache, filterBitsetCache);
         if (whereClause.noMatch()) {
             ctx.query = Queries.newMatchNoDocsQuery();
         } else if (!whereClause.hasQuery()) {
@@ -139,15 +141,18 @@ public class LuceneQueryBuilder {
         final MapperService mapperService;
         final IndexFieldDataService fieldDataService;
         final IndexCache indexCache;
+        final FilterBitsetCache filterBitsetCache;
 
         Context(CollectInputSymbolVisitor<LuceneCollectorExpression<?>> inputSymbolVisitor,
                 MapperService mapperService,
                 IndexFieldDataService fieldDataService,
-                IndexCache indexCache) {
+                IndexCache indexCache,
+                FilterBitsetCache filterBitsetCache) {
             this.inputSymbolVisitor = inputSymbolVisitor;
             this.mapperService = mapperService;
             this.fieldDataService = fieldDataService;
             this.indexCache = indexCache;
+            this.filterBitsetCache = filterBitsetCache;
         }
 
         public Query query() {
@@ -825,7 +830,7 @@ public class LuceneQueryBuilder {
                     }
                     filter = new GeoPolygonFilter(fieldData, points);
                 }
-                return new FilteredQuery(Queries.newMatchAllQuery(), context.indexCache.filter().cache(filter));
+                return new FilteredQuery(Queries.newMatchAllQuery(), cachedFilter(inner, filter, context));
             }
 
             @Override
@@ -917,10 +922,23 @@ public class LuceneQueryBuilder {
                         fieldData,
                         optimizeBox
                 );
-                return new FilteredQuery(Queries.newMatchAllQuery(), context.indexCache.filter().cache(filter));
+                return new FilteredQuery(Queries.newMatchAllQuery(), cachedFilter(parent, filter, context));
             }
         }
 
+        /**
+         * wraps a filter which can't be cached by the index filter cache because it doesn't implement equals,
+         * in the node level filter bitset cache, which uses the predicate the filter has been built from as key.
+         * Falls back to the index filter cache if the filter bitset cache is disabled.
+         */
+        private static Filter cachedFilter(Symbol predicate, Filter filter, Context context) {
+            Filter cached = context.filterBitsetCache.cache(predicate, filter);
+            if (cached == null) {
+                return context.indexCache.filter().cache(filter);
+            }
+            return cached;
+        }
+
         private static GeoPointFieldMapper getGeoPointFieldMapper(String fieldName, MapperService mapperService) {
             MapperService.SmartNameFieldMappers smartMappers = mapperService.smartName(fieldName);
             if (smartMappers == null || !smartMappers.hasMapper()) {
@@ -1070,6 +1088,7 @@ public class LuceneQueryBuilder {
             if (function.valueType() != DataTypes.BOOLEAN) {
                 raiseUnsupported(function);
             }
+            Symbol predicate = function;
             // avoid field-cache
             // reason1: analyzed columns or columns with index off wouldn't work
             //   substr(n, 1, 1) in the case of n => analyzed would throw an error because n would be an array
@@ -1091,7 +1110,7 @@ public class LuceneQueryBuilder {
             for (LuceneCollectorExpression expression : expressions) {
                 expression.startCollect(collectorContext);
             }
-            return new Filter() {
+            Filter filter = new Filter() {
                 @Override
                 public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
                     for (LuceneCollectorExpression expression : expressions) {
@@ -1110,6 +1129,8 @@ public class LuceneQueryBuilder {
                     );
                 }
             };
+            Filter cached = context.filterBitsetCache.cache(predicate, filter);
+            return cached == null ? filter : cached;
         }
 
         private static Query genericFunctionQuery(Function function, Context context) {
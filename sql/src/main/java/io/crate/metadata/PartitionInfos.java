@@ -36,6 +36,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.BytesRefs;
@@ -77,15 +78,26 @@ public class PartitionInfos implements Iterable<PartitionInfo> {
     };
 
     private final ClusterService clusterService;
+    private final MetaData metaData;
 
     public PartitionInfos(ClusterService clusterService) {
         this.clusterService = clusterService;
+        this.metaData = null;
+    }
+
+    /**
+     * @param metaData the partitions are read from this metadata instead of the current cluster state
+     */
+    public PartitionInfos(MetaData metaData) {
+        this.clusterService = null;
+        this.metaData = metaData;
     }
 
     @Override
     public Iterator<PartitionInfo> iterator() {
         // get a fresh one for each iteration
-        return FluentIterable.from(clusterService.state().metaData().indices())
+        MetaData metaData = this.metaData == null ? clusterService.state().metaData() : this.metaData;
+        return FluentIterable.from(metaData.indices())
                 .filter(PARTITION_INDICES_PREDICATE)
                 .transform(CREATE_PARTITION_INFO_FUNCTION)
                 .filter(Predicates.notNull())
@@ -15,6 +15,10 @@ public class Routing implements Streamable {
     private Map<String, Map<String, List<Integer>>> locations;
     private volatile int numShards = -1;
 
+    // only used to explain the routing, not streamed
+    private int skippedPartitions = 0;
+    private int skippedShards = 0;
+
     public static abstract class RoutingLocationVisitor {
 
         public boolean visitLocations(Map<String, Map<String, List<Integer>>> locations){
@@ -177,6 +181,23 @@ public class Routing implements Streamable {
         return false;
     }
 
+    /**
+     * sets the number of partitions and shards which were excluded from this routing
+     * because their zone maps showed that they can't contain any matching row
+     */
+    public void skippedByZoneMaps(int skippedPartitions, int skippedShards) {
+        this.skippedPartitions = skippedPartitions;
+        this.skippedShards = skippedShards;
+    }
+
+    public int skippedPartitions() {
+        return skippedPartitions;
+    }
+
+    public int skippedShards() {
+        return skippedShards;
+    }
+
     @Override
     public String toString() {
         MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
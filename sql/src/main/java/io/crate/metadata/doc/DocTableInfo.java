@@ -29,6 +29,7 @@ import io.crate.analyze.TableParameterInfo;
 import io.crate.analyze.WhereClause;
 import io.crate.exceptions.UnavailableShardsException;
 import io.crate.metadata.*;
+import io.crate.metadata.stats.ZoneMapPruner;
 import io.crate.metadata.table.AbstractDynamicTableInfo;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.metadata.table.ShardedTable;
@@ -202,10 +203,15 @@ public class DocTableInfo extends AbstractDynamicTableInfo implements ShardedTab
             return new Routing();
         }
 
-        fillLocationsFromShardIterators(locations, shardIterators, missingShards);
+        ZoneMapPruner pruner = ZoneMapPruner.create(state, whereClause, isPartitioned);
+        fillLocationsFromShardIterators(locations, shardIterators, missingShards, pruner);
 
         if (missingShards.isEmpty()) {
-            return new Routing(locations);
+            Routing routing = new Routing(locations);
+            if (pruner != null) {
+                routing.skippedByZoneMaps(pruner.skippedPartitions(), pruner.skippedShards());
+            }
+            return routing;
         } else {
             return null;
         }
@@ -243,7 +249,8 @@ public class DocTableInfo extends AbstractDynamicTableInfo implements ShardedTab
                         }
 
                         final List<ShardId> missingShards = new ArrayList<>(0);
-                        fillLocationsFromShardIterators(locations, shardIterators, missingShards);
+                        fillLocationsFromShardIterators(locations, shardIterators, missingShards,
+                                ZoneMapPruner.create(state, whereClause, isPartitioned));
 
                         return missingShards.isEmpty();
                     }
@@ -261,9 +268,13 @@ public class DocTableInfo extends AbstractDynamicTableInfo implements ShardedTab
 
     private void fillLocationsFromShardIterators(Map<String, Map<String, List<Integer>>> locations,
                                                  GroupShardsIterator shardIterators,
-                                                 List<ShardId> missingShards) {
+                                                 List<ShardId> missingShards,
+                                                 @Nullable ZoneMapPruner pruner) {
         ShardRouting shardRouting;
         for (ShardIterator shardIterator : shardIterators) {
+            if (pruner != null && pruner.skip(shardIterator.shardId())) {
+                continue;
+            }
             shardRouting = shardIterator.nextOrNull();
             if (shardRouting != null) {
                 if (shardRouting.active()) {
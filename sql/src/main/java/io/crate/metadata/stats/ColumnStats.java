@@ -0,0 +1,186 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of a column of a table, computed from a sample of the table by ANALYZE.
+ *
+ * min, max and the histogram are only available for numeric and timestamp columns.
+ * The histogram is equi-depth: it contains the bounds of buckets which hold the same number of rows,
+ * starting with the minimum and ending with the maximum.
+ */
+public class ColumnStats {
+
+    private final double nullFraction;
+    private final long approxDistinct;
+    private final Double min;
+    private final Double max;
+    private final double[] histogram;
+
+    public ColumnStats(double nullFraction,
+                       long approxDistinct,
+                       @Nullable Double min,
+                       @Nullable Double max,
+                       double[] histogram) {
+        this.nullFraction = nullFraction;
+        this.approxDistinct = approxDistinct;
+        this.min = min;
+        this.max = max;
+        this.histogram = histogram;
+    }
+
+    /**
+     * @return the fraction of rows where the column is null
+     */
+    public double nullFraction() {
+        return nullFraction;
+    }
+
+    /**
+     * @return the estimated number of distinct non-null values
+     */
+    public long approxDistinct() {
+        return approxDistinct;
+    }
+
+    @Nullable
+    public Double min() {
+        return min;
+    }
+
+    @Nullable
+    public Double max() {
+        return max;
+    }
+
+    public double[] histogram() {
+        return histogram;
+    }
+
+    /**
+     * @return the estimated fraction of rows with a value equal to any of the non-null values of the column
+     */
+    public double equalsSelectivity() {
+        if (approxDistinct < 1) {
+            return 0.0;
+        }
+        return (1.0 - nullFraction) / approxDistinct;
+    }
+
+    public static ColumnStats readFrom(StreamInput in) throws IOException {
+        double nullFraction = in.readDouble();
+        long approxDistinct = in.readVLong();
+        Double min = in.readBoolean() ? in.readDouble() : null;
+        Double max = in.readBoolean() ? in.readDouble() : null;
+        double[] histogram = new double[in.readVInt()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = in.readDouble();
+        }
+        return new ColumnStats(nullFraction, approxDistinct, min, max, histogram);
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeDouble(nullFraction);
+        out.writeVLong(approxDistinct);
+        writeOptionalDouble(out, min);
+        writeOptionalDouble(out, max);
+        out.writeVInt(histogram.length);
+        for (double bound : histogram) {
+            out.writeDouble(bound);
+        }
+    }
+
+    private static void writeOptionalDouble(StreamOutput out, @Nullable Double value) throws IOException {
+        if (value == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeDouble(value);
+        }
+    }
+
+    void toXContent(XContentBuilder builder) throws IOException {
+        builder.field("null_fraction", nullFraction);
+        builder.field("approx_distinct", approxDistinct);
+        if (min != null) {
+            builder.field("min", min);
+        }
+        if (max != null) {
+            builder.field("max", max);
+        }
+        builder.startArray("histogram");
+        for (double bound : histogram) {
+            builder.value(bound);
+        }
+        builder.endArray();
+    }
+
+    static ColumnStats fromMap(Map<String, Object> map) {
+        List<?> bounds = (List<?>) map.get("histogram");
+        double[] histogram = new double[bounds == null ? 0 : bounds.size()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = ((Number) bounds.get(i)).doubleValue();
+        }
+        return new ColumnStats(
+                ((Number) map.get("null_fraction")).doubleValue(),
+                ((Number) map.get("approx_distinct")).longValue(),
+                toDouble(map.get("min")),
+                toDouble(map.get("max")),
+                histogram
+        );
+    }
+
+    @Nullable
+    private static Double toDouble(@Nullable Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ColumnStats that = (ColumnStats) o;
+        return Double.compare(that.nullFraction, nullFraction) == 0
+               && approxDistinct == that.approxDistinct
+               && (min == null ? that.min == null : min.equals(that.min))
+               && (max == null ? that.max == null : max.equals(that.max))
+               && Arrays.equals(histogram, that.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (approxDistinct ^ (approxDistinct >>> 32));
+        result = 31 * result + Arrays.hashCode(histogram);
+        return result;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Custom index metadata containing the {@link ZoneMap} of every shard of an index
+ * whose content hasn't changed since the zone map was computed.
+ */
+public class IndexZoneMaps implements IndexMetaData.Custom {
+
+    public static final String TYPE = "crate_zone_maps";
+    public static final Factory FACTORY = new Factory();
+
+    public static final IndexZoneMaps EMPTY = new IndexZoneMaps(ImmutableMap.<Integer, ZoneMap>of());
+
+    private final Map<Integer, ZoneMap> shards;
+
+    public IndexZoneMaps(Map<Integer, ZoneMap> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * registers the factory used to read the metadata from the cluster state. Must be called on every node.
+     */
+    public static void registerFactory() {
+        IndexMetaData.registerFactory(TYPE, FACTORY);
+    }
+
+    public static IndexZoneMaps fromIndexMetaData(IndexMetaData indexMetaData) {
+        IndexZoneMaps zoneMaps = indexMetaData.custom(TYPE);
+        return zoneMaps == null ? EMPTY : zoneMaps;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Nullable
+    public ZoneMap shard(int shardId) {
+        return shards.get(shardId);
+    }
+
+    /**
+     * @return the union of the zone maps of all shards or null if the zone map of any shard is missing
+     */
+    @Nullable
+    public ZoneMap complete(int numberOfShards) {
+        ZoneMap union = null;
+        for (int i = 0; i < numberOfShards; i++) {
+            ZoneMap zoneMap = shards.get(i);
+            if (zoneMap == null) {
+                return null;
+            }
+            union = union == null ? zoneMap : union.union(zoneMap);
+        }
+        return union;
+    }
+
+    public IndexZoneMaps withShard(int shardId, ZoneMap zoneMap) {
+        Map<Integer, ZoneMap> updated = new HashMap<>(shards);
+        updated.put(shardId, zoneMap);
+        return new IndexZoneMaps(ImmutableMap.copyOf(updated));
+    }
+
+    public IndexZoneMaps withoutShard(int shardId) {
+        Map<Integer, ZoneMap> updated = new HashMap<>(shards);
+        updated.remove(shardId);
+        return new IndexZoneMaps(ImmutableMap.copyOf(updated));
+    }
+
+    public Map<Integer, ZoneMap> shards() {
+        return shards;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return shards.equals(((IndexZoneMaps) o).shards);
+    }
+
+    @Override
+    public int hashCode() {
+        return shards.hashCode();
+    }
+
+    public static class Factory implements IndexMetaData.Custom.Factory<IndexZoneMaps> {
+
+        @Override
+        public String type() {
+            return TYPE;
+        }
+
+        @Override
+        public IndexZoneMaps readFrom(StreamInput in) throws IOException {
+            int size = in.readVInt();
+            ImmutableMap.Builder<Integer, ZoneMap> shards = ImmutableMap.builder();
+            for (int i = 0; i < size; i++) {
+                shards.put(in.readVInt(), ZoneMap.readFrom(in));
+            }
+            return new IndexZoneMaps(shards.build());
+        }
+
+        @Override
+        public void writeTo(IndexZoneMaps zoneMaps, StreamOutput out) throws IOException {
+            out.writeVInt(zoneMaps.shards.size());
+            for (Map.Entry<Integer, ZoneMap> entry : zoneMaps.shards.entrySet()) {
+                out.writeVInt(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public IndexZoneMaps fromMap(Map<String, Object> map) throws IOException {
+            ImmutableMap.Builder<Integer, ZoneMap> shards = ImmutableMap.builder();
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                shards.put(Integer.parseInt(entry.getKey()), ZoneMap.fromMap((Map<String, Object>) entry.getValue()));
+            }
+            return new IndexZoneMaps(shards.build());
+        }
+
+        @Override
+        public IndexZoneMaps fromXContent(XContentParser parser) throws IOException {
+            return fromMap(parser.map());
+        }
+
+        @Override
+        public void toXContent(IndexZoneMaps zoneMaps,
+                               XContentBuilder builder,
+                               ToXContent.Params params) throws IOException {
+            for (Map.Entry<Integer, ZoneMap> entry : zoneMaps.shards.entrySet()) {
+                builder.startObject(String.valueOf(entry.getKey()));
+                entry.getValue().toXContent(builder);
+                builder.endObject();
+            }
+        }
+
+        /**
+         * zone maps are never inherited from templates, the newer zone maps win
+         */
+        @Override
+        public IndexZoneMaps merge(IndexZoneMaps first, IndexZoneMaps second) {
+            return second;
+        }
+    }
+}
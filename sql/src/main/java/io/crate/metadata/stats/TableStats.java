@@ -0,0 +1,174 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Statistics of a table collected by ANALYZE.
+ *
+ * The number of documents is exact at the time of the analysis (taken from the primary shards),
+ * the column statistics are computed from a sample.
+ */
+public class TableStats {
+
+    private final long numDocs;
+    private final long analyzedAt;
+    private final Map<String, Long> partitionNumDocs;
+    private final Map<String, ColumnStats> columns;
+
+    /**
+     * @param numDocs number of documents of the table
+     * @param analyzedAt time of the analysis in milliseconds since epoch
+     * @param partitionNumDocs number of documents by partition ident, empty if the table isn't partitioned
+     * @param columns statistics by column name
+     */
+    public TableStats(long numDocs,
+                      long analyzedAt,
+                      Map<String, Long> partitionNumDocs,
+                      Map<String, ColumnStats> columns) {
+        this.numDocs = numDocs;
+        this.analyzedAt = analyzedAt;
+        this.partitionNumDocs = partitionNumDocs;
+        this.columns = columns;
+    }
+
+    public long numDocs() {
+        return numDocs;
+    }
+
+    public long analyzedAt() {
+        return analyzedAt;
+    }
+
+    public Map<String, Long> partitionNumDocs() {
+        return partitionNumDocs;
+    }
+
+    public Map<String, ColumnStats> columns() {
+        return columns;
+    }
+
+    @Nullable
+    public ColumnStats columnStats(String columnName) {
+        return columns.get(columnName);
+    }
+
+    public static TableStats readFrom(StreamInput in) throws IOException {
+        long numDocs = in.readVLong();
+        long analyzedAt = in.readLong();
+        int numPartitions = in.readVInt();
+        ImmutableMap.Builder<String, Long> partitionNumDocs = ImmutableMap.builder();
+        for (int i = 0; i < numPartitions; i++) {
+            partitionNumDocs.put(in.readString(), in.readVLong());
+        }
+        int numColumns = in.readVInt();
+        ImmutableMap.Builder<String, ColumnStats> columns = ImmutableMap.builder();
+        for (int i = 0; i < numColumns; i++) {
+            columns.put(in.readString(), ColumnStats.readFrom(in));
+        }
+        return new TableStats(numDocs, analyzedAt, partitionNumDocs.build(), columns.build());
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(numDocs);
+        out.writeLong(analyzedAt);
+        out.writeVInt(partitionNumDocs.size());
+        for (Map.Entry<String, Long> entry : partitionNumDocs.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVLong(entry.getValue());
+        }
+        out.writeVInt(columns.size());
+        for (Map.Entry<String, ColumnStats> entry : columns.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    void toXContent(XContentBuilder builder) throws IOException {
+        builder.field("num_docs", numDocs);
+        builder.field("analyzed_at", analyzedAt);
+        builder.startObject("partitions");
+        for (Map.Entry<String, Long> entry : partitionNumDocs.entrySet()) {
+            builder.field(entry.getKey(), entry.getValue());
+        }
+        builder.endObject();
+        builder.startObject("columns");
+        for (Map.Entry<String, ColumnStats> entry : columns.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder);
+            builder.endObject();
+        }
+        builder.endObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    static TableStats fromMap(Map<String, Object> map) {
+        ImmutableMap.Builder<String, Long> partitionNumDocs = ImmutableMap.builder();
+        Map<String, Object> partitions = (Map<String, Object>) map.get("partitions");
+        if (partitions != null) {
+            for (Map.Entry<String, Object> entry : partitions.entrySet()) {
+                partitionNumDocs.put(entry.getKey(), ((Number) entry.getValue()).longValue());
+            }
+        }
+        ImmutableMap.Builder<String, ColumnStats> columns = ImmutableMap.builder();
+        Map<String, Object> columnMaps = (Map<String, Object>) map.get("columns");
+        if (columnMaps != null) {
+            for (Map.Entry<String, Object> entry : columnMaps.entrySet()) {
+                columns.put(entry.getKey(), ColumnStats.fromMap((Map<String, Object>) entry.getValue()));
+            }
+        }
+        return new TableStats(
+                ((Number) map.get("num_docs")).longValue(),
+                ((Number) map.get("analyzed_at")).longValue(),
+                partitionNumDocs.build(),
+                columns.build()
+        );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TableStats that = (TableStats) o;
+        return numDocs == that.numDocs
+               && analyzedAt == that.analyzedAt
+               && partitionNumDocs.equals(that.partitionNumDocs)
+               && columns.equals(that.columns);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (numDocs ^ (numDocs >>> 32));
+        result = 31 * result + (int) (analyzedAt ^ (analyzedAt >>> 32));
+        result = 31 * result + columns.hashCode();
+        return result;
+    }
+}
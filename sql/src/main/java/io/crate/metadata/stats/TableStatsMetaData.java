@@ -0,0 +1,167 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.TableIdent;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Custom cluster metadata containing the {@link TableStats} of all analyzed tables by their fully qualified name.
+ *
+ * It is persisted with the global cluster state, so the statistics survive a full cluster restart.
+ */
+public class TableStatsMetaData implements MetaData.Custom {
+
+    public static final String TYPE = "crate_table_stats";
+    public static final Factory FACTORY = new Factory();
+
+    public static final TableStatsMetaData EMPTY = new TableStatsMetaData(ImmutableMap.<String, TableStats>of());
+
+    private final Map<String, TableStats> tableStats;
+
+    public TableStatsMetaData(Map<String, TableStats> tableStats) {
+        this.tableStats = tableStats;
+    }
+
+    /**
+     * registers the factory used to read the metadata from the cluster state. Must be called on every node.
+     */
+    public static void registerFactory() {
+        MetaData.registerFactory(TYPE, FACTORY);
+    }
+
+    public static TableStatsMetaData fromClusterState(ClusterState state) {
+        TableStatsMetaData metaData = state.metaData().custom(TYPE);
+        return metaData == null ? EMPTY : metaData;
+    }
+
+    @Nullable
+    public TableStats get(TableIdent tableIdent) {
+        return tableStats.get(tableIdent.fqn());
+    }
+
+    public Map<String, TableStats> tableStats() {
+        return tableStats;
+    }
+
+    /**
+     * @return new metadata with the given stats added or replaced
+     *         and without the stats of tables which don't exist in the given cluster metadata anymore
+     */
+    public TableStatsMetaData merge(Map<String, TableStats> updates, MetaData clusterMetaData) {
+        Map<String, TableStats> merged = new HashMap<>(tableStats.size() + updates.size());
+        for (Map.Entry<String, TableStats> entry : tableStats.entrySet()) {
+            if (tableExists(clusterMetaData, entry.getKey())) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        merged.putAll(updates);
+        return new TableStatsMetaData(ImmutableMap.copyOf(merged));
+    }
+
+    private static boolean tableExists(MetaData clusterMetaData, String fqn) {
+        TableIdent tableIdent = TableIdent.fromIndexName(fqn);
+        return clusterMetaData.hasIndex(tableIdent.indexName())
+               || clusterMetaData.templates().containsKey(
+                    PartitionName.templateName(tableIdent.schema(), tableIdent.name()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return tableStats.equals(((TableStatsMetaData) o).tableStats);
+    }
+
+    @Override
+    public int hashCode() {
+        return tableStats.hashCode();
+    }
+
+    public static class Factory extends MetaData.Custom.Factory<TableStatsMetaData> {
+
+        @Override
+        public String type() {
+            return TYPE;
+        }
+
+        @Override
+        public TableStatsMetaData readFrom(StreamInput in) throws IOException {
+            int size = in.readVInt();
+            ImmutableMap.Builder<String, TableStats> tableStats = ImmutableMap.builder();
+            for (int i = 0; i < size; i++) {
+                tableStats.put(in.readString(), TableStats.readFrom(in));
+            }
+            return new TableStatsMetaData(tableStats.build());
+        }
+
+        @Override
+        public void writeTo(TableStatsMetaData metaData, StreamOutput out) throws IOException {
+            out.writeVInt(metaData.tableStats.size());
+            for (Map.Entry<String, TableStats> entry : metaData.tableStats.entrySet()) {
+                out.writeString(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public TableStatsMetaData fromXContent(XContentParser parser) throws IOException {
+            ImmutableMap.Builder<String, TableStats> tableStats = ImmutableMap.builder();
+            for (Map.Entry<String, Object> entry : parser.map().entrySet()) {
+                tableStats.put(entry.getKey(), TableStats.fromMap((Map<String, Object>) entry.getValue()));
+            }
+            return new TableStatsMetaData(tableStats.build());
+        }
+
+        @Override
+        public void toXContent(TableStatsMetaData metaData,
+                               XContentBuilder builder,
+                               ToXContent.Params params) throws IOException {
+            for (Map.Entry<String, TableStats> entry : metaData.tableStats.entrySet()) {
+                builder.startObject(entry.getKey());
+                entry.getValue().toXContent(builder);
+                builder.endObject();
+            }
+        }
+
+        @Override
+        public EnumSet<MetaData.XContentContext> context() {
+            return MetaData.API_AND_GATEWAY;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import io.crate.metadata.TableIdent;
+import io.crate.operation.collect.IterableGetter;
+import org.elasticsearch.cluster.ClusterService;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of the sys.table_stats and sys.column_stats tables,
+ * built from the {@link TableStatsMetaData} of the current cluster state.
+ */
+public class TableStatsRows {
+
+    public static class TableRow {
+
+        public final String schemaName;
+        public final String tableName;
+        @Nullable
+        public final String partitionIdent;
+        public final long numDocs;
+        public final long analyzedAt;
+
+        TableRow(TableIdent tableIdent, @Nullable String partitionIdent, long numDocs, long analyzedAt) {
+            this.schemaName = tableIdent.schema();
+            this.tableName = tableIdent.name();
+            this.partitionIdent = partitionIdent;
+            this.numDocs = numDocs;
+            this.analyzedAt = analyzedAt;
+        }
+    }
+
+    public static class ColumnRow {
+
+        public final String schemaName;
+        public final String tableName;
+        public final String columnName;
+        public final ColumnStats stats;
+
+        ColumnRow(TableIdent tableIdent, String columnName, ColumnStats stats) {
+            this.schemaName = tableIdent.schema();
+            this.tableName = tableIdent.name();
+            this.columnName = columnName;
+            this.stats = stats;
+        }
+    }
+
+    /**
+     * one row per table and one additional row per partition of a partitioned table
+     */
+    public static IterableGetter tableRowsGetter(final ClusterService clusterService) {
+        return new IterableGetter() {
+            @Override
+            public Iterable<?> getIterable() {
+                List<TableRow> rows = new ArrayList<>();
+                for (Map.Entry<String, TableStats> entry :
+                        TableStatsMetaData.fromClusterState(clusterService.state()).tableStats().entrySet()) {
+                    TableIdent tableIdent = TableIdent.fromIndexName(entry.getKey());
+                    TableStats stats = entry.getValue();
+                    rows.add(new TableRow(tableIdent, null, stats.numDocs(), stats.analyzedAt()));
+                    for (Map.Entry<String, Long> partition : stats.partitionNumDocs().entrySet()) {
+                        rows.add(new TableRow(tableIdent, partition.getKey(), partition.getValue(), stats.analyzedAt()));
+                    }
+                }
+                return rows;
+            }
+        };
+    }
+
+    public static IterableGetter columnRowsGetter(final ClusterService clusterService) {
+        return new IterableGetter() {
+            @Override
+            public Iterable<?> getIterable() {
+                List<ColumnRow> rows = new ArrayList<>();
+                for (Map.Entry<String, TableStats> entry :
+                        TableStatsMetaData.fromClusterState(clusterService.state()).tableStats().entrySet()) {
+                    TableIdent tableIdent = TableIdent.fromIndexName(entry.getKey());
+                    for (Map.Entry<String, ColumnStats> column : entry.getValue().columns().entrySet()) {
+                        rows.add(new ColumnRow(tableIdent, column.getKey(), column.getValue()));
+                    }
+                }
+                return rows;
+            }
+        };
+    }
+}
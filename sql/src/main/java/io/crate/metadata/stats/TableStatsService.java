@@ -0,0 +1,390 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.sql.SQLRequest;
+import io.crate.action.sql.SQLResponse;
+import io.crate.action.sql.TransportSQLAction;
+import io.crate.executor.transport.PutTableStatsRequest;
+import io.crate.executor.transport.PutTableStatsResponse;
+import io.crate.executor.transport.TransportPutTableStatsAction;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Provider;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Computes the {@link TableStats} of tables and stores them in the cluster state.
+ *
+ * The statistics are computed by regular SQL queries: the number of documents is taken from the
+ * primary shards in sys.shards, the column statistics are computed by a single global aggregation
+ * over a random sample of the table using count, approx_count_distinct, min, max and percentile.
+ *
+ * Besides the explicit ANALYZE statement the elected master re-analyzes all tables periodically,
+ * see {@link #ANALYZE_INTERVAL_SETTING}.
+ */
+@Singleton
+public class TableStatsService extends AbstractLifecycleComponent<TableStatsService> {
+
+    public static final String ANALYZE_INTERVAL_SETTING = "stats.analyze_interval";
+    public static final TimeValue DEFAULT_ANALYZE_INTERVAL = TimeValue.timeValueHours(24);
+
+    public static final String SAMPLE_SIZE_SETTING = "stats.sample_size";
+    public static final int DEFAULT_SAMPLE_SIZE = 100_000;
+
+    /**
+     * bounds of the equi-depth histogram of numeric and timestamp columns
+     */
+    static final double[] HISTOGRAM_FRACTIONS = new double[] { 0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0 };
+
+    /**
+     * if the number of distinct values of the sample is at least this fraction of the sampled values,
+     * the column is considered to be (almost) unique and the number of distinct values is scaled up to the table
+     */
+    private static final double UNIQUE_THRESHOLD = 0.9;
+
+    private static final String NUM_DOCS_STMT = "select partition_ident, sum(num_docs) from sys.shards " +
+                                                "where schema_name = ? and table_name = ? and \"primary\" = true " +
+                                                "group by partition_ident";
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final Schemas schemas;
+    private final Provider<TransportSQLAction> transportSQLActionProvider;
+    private final TransportPutTableStatsAction transportPutTableStatsAction;
+    private final TimeValue analyzeInterval;
+    private final int sampleSize;
+    private final AtomicBoolean periodicAnalyzeRunning = new AtomicBoolean(false);
+
+    private volatile ScheduledFuture<?> scheduledAnalyze;
+
+    @Inject
+    public TableStatsService(Settings settings,
+                             ClusterService clusterService,
+                             ThreadPool threadPool,
+                             Schemas schemas,
+                             Provider<TransportSQLAction> transportSQLActionProvider,
+                             TransportPutTableStatsAction transportPutTableStatsAction) {
+        super(settings);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.schemas = schemas;
+        this.transportSQLActionProvider = transportSQLActionProvider;
+        this.transportPutTableStatsAction = transportPutTableStatsAction;
+        this.analyzeInterval = settings.getAsTime(ANALYZE_INTERVAL_SETTING, DEFAULT_ANALYZE_INTERVAL);
+        this.sampleSize = settings.getAsInt(SAMPLE_SIZE_SETTING, DEFAULT_SAMPLE_SIZE);
+    }
+
+    @Override
+    protected void doStart() throws ElasticsearchException {
+        if (analyzeInterval.millis() <= 0) {
+            return;
+        }
+        scheduledAnalyze = threadPool.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                analyzeAllOnMaster();
+            }
+        }, analyzeInterval);
+    }
+
+    @Override
+    protected void doStop() throws ElasticsearchException {
+        ScheduledFuture<?> future = scheduledAnalyze;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticsearchException {
+    }
+
+    private void analyzeAllOnMaster() {
+        if (!clusterService.state().nodes().localNodeMaster() || !periodicAnalyzeRunning.compareAndSet(false, true)) {
+            return;
+        }
+        ListenableFuture<Long> future;
+        try {
+            future = analyze(analyzableTables(schemas));
+        } catch (Throwable t) {
+            periodicAnalyzeRunning.set(false);
+            logger.warn("failed to analyze tables", t);
+            return;
+        }
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                periodicAnalyzeRunning.set(false);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @return all tables which can be analyzed: all doc tables which aren't aliases
+     */
+    public static List<DocTableInfo> analyzableTables(Schemas schemas) {
+        List<DocTableInfo> tables = new ArrayList<>();
+        for (SchemaInfo schemaInfo : schemas) {
+            if (schemaInfo.systemSchema()) {
+                continue;
+            }
+            for (TableInfo tableInfo : schemaInfo) {
+                if (tableInfo instanceof DocTableInfo && !((DocTableInfo) tableInfo).isAlias()) {
+                    tables.add((DocTableInfo) tableInfo);
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * computes the statistics of the given tables one after another and stores them in the cluster state.
+     *
+     * @return a future returning the number of analyzed tables
+     */
+    public ListenableFuture<Long> analyze(Collection<DocTableInfo> tables) {
+        SettableFuture<Long> result = SettableFuture.create();
+        if (tables.isEmpty()) {
+            result.set(0L);
+            return result;
+        }
+        new AnalyzeOperation(new ArrayList<>(tables), result).next();
+        return result;
+    }
+
+    private class AnalyzeOperation {
+
+        private final Iterator<DocTableInfo> tables;
+        private final SettableFuture<Long> result;
+        private final Map<String, TableStats> tableStats = new HashMap<>();
+
+        private AnalyzeOperation(List<DocTableInfo> tables, SettableFuture<Long> result) {
+            this.tables = tables.iterator();
+            this.result = result;
+        }
+
+        private void next() {
+            if (!tables.hasNext()) {
+                store();
+                return;
+            }
+            final DocTableInfo table = tables.next();
+            final long analyzedAt = System.currentTimeMillis();
+            execute(NUM_DOCS_STMT, new Object[] { table.ident().schema(), table.ident().name() },
+                    new ActionListener<SQLResponse>() {
+                @Override
+                public void onResponse(SQLResponse response) {
+                    final Map<String, Long> partitionNumDocs = new HashMap<>();
+                    long numDocs = 0L;
+                    for (Object[] row : response.rows()) {
+                        long partitionDocs = row[1] == null ? 0L : ((Number) row[1]).longValue();
+                        numDocs += partitionDocs;
+                        if (table.isPartitioned() && row[0] != null) {
+                            partitionNumDocs.put(row[0].toString(), partitionDocs);
+                        }
+                    }
+                    final List<ReferenceInfo> columns = sampledColumns(table);
+                    if (numDocs == 0L || columns.isEmpty()) {
+                        tableStats.put(table.ident().fqn(), new TableStats(
+                                numDocs, analyzedAt, partitionNumDocs, Collections.<String, ColumnStats>emptyMap()));
+                        next();
+                        return;
+                    }
+                    final long tableNumDocs = numDocs;
+                    double sampleFraction = Math.min(1.0, (double) sampleSize / numDocs);
+                    execute(sampleStatement(table, columns), new Object[] { sampleFraction },
+                            new ActionListener<SQLResponse>() {
+                        @Override
+                        public void onResponse(SQLResponse response) {
+                            tableStats.put(table.ident().fqn(), new TableStats(tableNumDocs, analyzedAt,
+                                    partitionNumDocs, columnStats(columns, response.rows()[0], tableNumDocs)));
+                            next();
+                        }
+
+                        @Override
+                        public void onFailure(Throwable e) {
+                            result.setException(e);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    result.setException(e);
+                }
+            });
+        }
+
+        private void store() {
+            transportPutTableStatsAction.execute(new PutTableStatsRequest(tableStats),
+                    new ActionListener<PutTableStatsResponse>() {
+                @Override
+                public void onResponse(PutTableStatsResponse response) {
+                    result.set((long) tableStats.size());
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    result.setException(e);
+                }
+            });
+        }
+
+        private void execute(String stmt, Object[] args, ActionListener<SQLResponse> listener) {
+            try {
+                transportSQLActionProvider.get().execute(new SQLRequest(stmt, args), listener);
+            } catch (Throwable t) {
+                result.setException(t);
+            }
+        }
+    }
+
+    private static List<ReferenceInfo> sampledColumns(DocTableInfo table) {
+        List<ReferenceInfo> columns = new ArrayList<>();
+        for (ReferenceInfo column : table.columns()) {
+            if (column.ident().columnIdent().isColumn()
+                && !column.ident().columnIdent().isSystemColumn()
+                && DataTypes.PRIMITIVE_TYPES.contains(column.type())) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    private static boolean hasRange(DataType type) {
+        return DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(type) || type.equals(DataTypes.TIMESTAMP);
+    }
+
+    /**
+     * builds the statement computing the column statistics from a sample.
+     * The resulting row contains count(*) followed by these values per column:
+     *
+     * <pre>
+     *     count(col), approx_count_distinct(col) [, min(col), max(col), percentile(col, [...])]
+     * </pre>
+     *
+     * The sample fraction is passed as parameter. The sample is a filter on random(), so every
+     * document of the table is still visited, only the aggregations are limited to the sample.
+     */
+    @VisibleForTesting
+    static String sampleStatement(DocTableInfo table, List<ReferenceInfo> columns) {
+        StringBuilder sb = new StringBuilder("select count(*)");
+        for (ReferenceInfo column : columns) {
+            String name = quote(column.ident().columnIdent().name());
+            sb.append(", count(").append(name).append(")");
+            sb.append(", approx_count_distinct(").append(name).append(")");
+            if (hasRange(column.type())) {
+                sb.append(", min(").append(name).append(")");
+                sb.append(", max(").append(name).append(")");
+                sb.append(", percentile(").append(name).append(", [");
+                for (int i = 0; i < HISTOGRAM_FRACTIONS.length; i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(HISTOGRAM_FRACTIONS[i]);
+                }
+                sb.append("])");
+            }
+        }
+        sb.append(" from ").append(quote(table.ident().schema())).append(".").append(quote(table.ident().name()));
+        sb.append(" where random() < ?");
+        return sb.toString();
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    @VisibleForTesting
+    static Map<String, ColumnStats> columnStats(List<ReferenceInfo> columns, Object[] row, long numDocs) {
+        Map<String, ColumnStats> columnStats = new HashMap<>(columns.size());
+        long sampledRows = ((Number) row[0]).longValue();
+        int idx = 1;
+        for (ReferenceInfo column : columns) {
+            long nonNull = ((Number) row[idx++]).longValue();
+            long approxDistinct = ((Number) row[idx++]).longValue();
+            Double min = null;
+            Double max = null;
+            double[] histogram = new double[0];
+            if (hasRange(column.type())) {
+                min = toDouble(row[idx++]);
+                max = toDouble(row[idx++]);
+                histogram = toDoubles(row[idx++]);
+            }
+            double nullFraction = sampledRows == 0 ? 0.0 : 1.0 - ((double) nonNull / sampledRows);
+            if (sampledRows < numDocs && nonNull > 0 && approxDistinct >= UNIQUE_THRESHOLD * nonNull) {
+                approxDistinct = (long) (approxDistinct * ((double) numDocs / sampledRows));
+            }
+            approxDistinct = Math.min(approxDistinct, (long) Math.ceil(numDocs * (1.0 - nullFraction)));
+            columnStats.put(column.ident().columnIdent().fqn(),
+                    new ColumnStats(nullFraction, approxDistinct, min, max, histogram));
+        }
+        return columnStats;
+    }
+
+    @Nullable
+    private static Double toDouble(@Nullable Object value) {
+        if (value == null) {
+            return null;
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static double[] toDoubles(@Nullable Object value) {
+        if (value == null) {
+            return new double[0];
+        }
+        if (value instanceof double[]) {
+            return (double[]) value;
+        }
+        Object[] values = value instanceof List ? ((List) value).toArray() : (Object[]) value;
+        double[] doubles = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            doubles[i] = values[i] == null ? Double.NaN : ((Number) values[i]).doubleValue();
+        }
+        return doubles;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The minimum and maximum values of the numeric and timestamp columns of a shard or of a whole index.
+ *
+ * The bounds are stored as doubles. Long values which can't be represented exactly are rounded
+ * outwards, so a zone map always contains all values of the columns it covers.
+ */
+public class ZoneMap {
+
+    private final Map<String, double[]> ranges;
+
+    public ZoneMap(Map<String, double[]> ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * @return the range of the column as {min, max} or null if the zone map doesn't cover the column
+     */
+    @Nullable
+    public double[] range(String column) {
+        return ranges.get(column);
+    }
+
+    public Map<String, double[]> ranges() {
+        return ranges;
+    }
+
+    /**
+     * @return a zone map containing the ranges of both zone maps, only columns covered by both are contained
+     */
+    public ZoneMap union(ZoneMap other) {
+        ImmutableMap.Builder<String, double[]> builder = ImmutableMap.builder();
+        for (Map.Entry<String, double[]> entry : ranges.entrySet()) {
+            double[] otherRange = other.ranges.get(entry.getKey());
+            if (otherRange != null) {
+                builder.put(entry.getKey(), new double[] {
+                        Math.min(entry.getValue()[0], otherRange[0]),
+                        Math.max(entry.getValue()[1], otherRange[1])
+                });
+            }
+        }
+        return new ZoneMap(builder.build());
+    }
+
+    /**
+     * @return the value as double which is less than or equal to the given value
+     */
+    public static double lowerBound(long value) {
+        double d = (double) value;
+        if ((long) d > value) {
+            return Math.nextAfter(d, Double.NEGATIVE_INFINITY);
+        }
+        return d;
+    }
+
+    /**
+     * @return the value as double which is greater than or equal to the given value
+     */
+    public static double upperBound(long value) {
+        double d = (double) value;
+        if ((long) d < value) {
+            return Math.nextAfter(d, Double.POSITIVE_INFINITY);
+        }
+        return d;
+    }
+
+    public static ZoneMap readFrom(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        ImmutableMap.Builder<String, double[]> builder = ImmutableMap.builder();
+        for (int i = 0; i < size; i++) {
+            builder.put(in.readString(), new double[] { in.readDouble(), in.readDouble() });
+        }
+        return new ZoneMap(builder.build());
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(ranges.size());
+        for (Map.Entry<String, double[]> entry : ranges.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeDouble(entry.getValue()[0]);
+            out.writeDouble(entry.getValue()[1]);
+        }
+    }
+
+    void toXContent(XContentBuilder builder) throws IOException {
+        for (Map.Entry<String, double[]> entry : ranges.entrySet()) {
+            builder.startArray(entry.getKey());
+            builder.value(entry.getValue()[0]);
+            builder.value(entry.getValue()[1]);
+            builder.endArray();
+        }
+    }
+
+    static ZoneMap fromMap(Map<String, Object> map) {
+        Map<String, double[]> ranges = new HashMap<>(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            List<?> bounds = (List<?>) entry.getValue();
+            ranges.put(entry.getKey(), new double[] {
+                    ((Number) bounds.get(0)).doubleValue(),
+                    ((Number) bounds.get(1)).doubleValue()
+            });
+        }
+        return new ZoneMap(ImmutableMap.copyOf(ranges));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ZoneMap zoneMap = (ZoneMap) o;
+        if (ranges.size() != zoneMap.ranges.size()) {
+            return false;
+        }
+        for (Map.Entry<String, double[]> entry : ranges.entrySet()) {
+            double[] other = zoneMap.ranges.get(entry.getKey());
+            if (other == null || other[0] != entry.getValue()[0] || other[1] != entry.getValue()[1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return ranges.keySet().hashCode();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.ColumnIdent;
+import io.crate.operation.operator.*;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.index.shard.ShardId;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which shards of a table can't contain any row matching a where clause, based on the
+ * {@link IndexZoneMaps} of the cluster state.
+ *
+ * Only comparisons of top level columns with literals (=, &lt;, &lt;=, &gt;, &gt;=) which are combined with AND
+ * are taken into account. As the bounds of a zone map might be rounded outwards, a shard is only skipped if the
+ * literal lies strictly outside the bounds.
+ */
+public class ZoneMapPruner {
+
+    private static final Map<String, String> FLIPPED_OPERATORS = new HashMap<>();
+    static {
+        FLIPPED_OPERATORS.put(EqOperator.NAME, EqOperator.NAME);
+        FLIPPED_OPERATORS.put(LtOperator.NAME, GtOperator.NAME);
+        FLIPPED_OPERATORS.put(LteOperator.NAME, GteOperator.NAME);
+        FLIPPED_OPERATORS.put(GtOperator.NAME, LtOperator.NAME);
+        FLIPPED_OPERATORS.put(GteOperator.NAME, LteOperator.NAME);
+    }
+
+    private final ClusterState clusterState;
+    private final List<Constraint> constraints;
+    private final boolean partitioned;
+    private final Map<String, Boolean> indexSkipped = new HashMap<>();
+
+    private int skippedPartitions = 0;
+    private int skippedShards = 0;
+
+    private ZoneMapPruner(ClusterState clusterState, List<Constraint> constraints, boolean partitioned) {
+        this.clusterState = clusterState;
+        this.constraints = constraints;
+        this.partitioned = partitioned;
+    }
+
+    /**
+     * @return a pruner for the given where clause or null if the where clause contains no
+     *         constraints which could be checked against zone maps
+     */
+    @Nullable
+    public static ZoneMapPruner create(ClusterState clusterState, WhereClause whereClause, boolean partitioned) {
+        if (!whereClause.hasQuery()) {
+            return null;
+        }
+        List<Constraint> constraints = new ArrayList<>();
+        collectConstraints(whereClause.query(), constraints);
+        if (constraints.isEmpty()) {
+            return null;
+        }
+        return new ZoneMapPruner(clusterState, constraints, partitioned);
+    }
+
+    private static void collectConstraints(Symbol symbol, List<Constraint> constraints) {
+        if (!(symbol instanceof Function)) {
+            return;
+        }
+        Function function = (Function) symbol;
+        String name = function.info().ident().name();
+        if (name.equals(AndOperator.NAME)) {
+            for (Symbol argument : function.arguments()) {
+                collectConstraints(argument, constraints);
+            }
+            return;
+        }
+        if (!FLIPPED_OPERATORS.containsKey(name) || function.arguments().size() != 2) {
+            return;
+        }
+        Symbol left = function.arguments().get(0);
+        Symbol right = function.arguments().get(1);
+        if (left instanceof Literal && right instanceof Reference) {
+            Symbol tmp = left;
+            left = right;
+            right = tmp;
+            name = FLIPPED_OPERATORS.get(name);
+        }
+        if (!(left instanceof Reference) || !(right instanceof Literal)) {
+            return;
+        }
+        ColumnIdent column = ((Reference) left).info().ident().columnIdent();
+        Object value = ((Literal) right).value();
+        if (!column.isColumn() || !(value instanceof Number)) {
+            return;
+        }
+        constraints.add(new Constraint(column.name(), name, ((Number) value).doubleValue()));
+    }
+
+    /**
+     * @return true if the shard can't contain any matching row
+     */
+    public boolean skip(ShardId shardId) {
+        Boolean skipIndex = indexSkipped.get(shardId.getIndex());
+        if (skipIndex == null) {
+            IndexMetaData indexMetaData = clusterState.metaData().index(shardId.getIndex());
+            ZoneMap indexZoneMap = indexMetaData == null ? null
+                    : IndexZoneMaps.fromIndexMetaData(indexMetaData).complete(indexMetaData.numberOfShards());
+            skipIndex = indexZoneMap != null && !matches(indexZoneMap);
+            indexSkipped.put(shardId.getIndex(), skipIndex);
+            if (skipIndex && partitioned) {
+                skippedPartitions++;
+            }
+        }
+        if (skipIndex) {
+            if (!partitioned) {
+                skippedShards++;
+            }
+            return true;
+        }
+        IndexMetaData indexMetaData = clusterState.metaData().index(shardId.getIndex());
+        if (indexMetaData == null) {
+            return false;
+        }
+        ZoneMap zoneMap = IndexZoneMaps.fromIndexMetaData(indexMetaData).shard(shardId.id());
+        if (zoneMap != null && !matches(zoneMap)) {
+            skippedShards++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matches(ZoneMap zoneMap) {
+        for (Constraint constraint : constraints) {
+            double[] range = zoneMap.range(constraint.column);
+            if (range != null && !constraint.matches(range[0], range[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int skippedPartitions() {
+        return skippedPartitions;
+    }
+
+    public int skippedShards() {
+        return skippedShards;
+    }
+
+    private static class Constraint {
+
+        private final String column;
+        private final String operator;
+        private final double value;
+
+        Constraint(String column, String operator, double value) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        boolean matches(double min, double max) {
+            switch (operator) {
+                case EqOperator.NAME:
+                    return value >= min && value <= max;
+                case LtOperator.NAME:
+                case LteOperator.NAME:
+                    return min <= value;
+                case GtOperator.NAME:
+                case GteOperator.NAME:
+                    return max >= value;
+                default:
+                    return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.Constants;
+import io.crate.blob.v2.BlobIndices;
+import io.crate.executor.transport.TransportUpdateZoneMapAction;
+import io.crate.executor.transport.UpdateZoneMapRequest;
+import io.crate.executor.transport.UpdateZoneMapResponse;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.indexing.IndexingOperationListener;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.core.*;
+import org.elasticsearch.index.mapper.ip.IpFieldMapper;
+import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Computes the {@link ZoneMap} of the primary shards of this node and publishes them as {@link IndexZoneMaps}
+ * in the cluster state, so the planner can skip partitions and shards which can't match a query.
+ *
+ * The minimum and maximum of every top level numeric and timestamp column are taken from the terms dictionary,
+ * which is cheap but also contains the values of deleted documents, so a zone map might be wider than necessary.
+ *
+ * Only shards which haven't been written to for a whole publish interval are published. The first write to a
+ * shard with a published zone map removes the zone map from the cluster state and waits until the removal
+ * has been applied by all nodes, so that the written documents can't be skipped by a query after the next refresh.
+ */
+@Singleton
+public class ZoneMapsService extends AbstractLifecycleComponent<ZoneMapsService> {
+
+    public static final String PUBLISH_INTERVAL_SETTING = "zone_maps.publish_interval";
+    public static final TimeValue DEFAULT_PUBLISH_INTERVAL = TimeValue.timeValueMinutes(1);
+
+    private static final String SOURCE = "zone_maps";
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final IndicesService indicesService;
+    private final TransportUpdateZoneMapAction updateZoneMapAction;
+    private final TimeValue publishInterval;
+    private final ConcurrentMap<ShardId, ShardState> shardStates = new ConcurrentHashMap<>();
+
+    private volatile ScheduledFuture<?> scheduledPublish;
+
+    @Inject
+    public ZoneMapsService(Settings settings,
+                           ClusterService clusterService,
+                           ThreadPool threadPool,
+                           IndicesService indicesService,
+                           TransportUpdateZoneMapAction updateZoneMapAction) {
+        super(settings);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.indicesService = indicesService;
+        this.updateZoneMapAction = updateZoneMapAction;
+        this.publishInterval = settings.getAsTime(PUBLISH_INTERVAL_SETTING, DEFAULT_PUBLISH_INTERVAL);
+    }
+
+    @Override
+    protected void doStart() throws ElasticsearchException {
+        if (publishInterval.millis() <= 0) {
+            return;
+        }
+        indicesService.indicesLifecycle().addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void afterIndexShardCreated(IndexShard indexShard) {
+                if (BlobIndices.isBlobIndex(indexShard.shardId().getIndex())) {
+                    return;
+                }
+                ShardState shardState = newShardState(indexShard.shardId());
+                shardStates.put(indexShard.shardId(), shardState);
+                indexShard.indexingService().addListener(shardState);
+            }
+
+            @Override
+            public void afterIndexShardClosed(ShardId shardId,
+                                              @Nullable IndexShard indexShard,
+                                              @IndexSettings Settings indexSettings) {
+                shardStates.remove(shardId);
+            }
+        });
+        scheduledPublish = threadPool.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                threadPool.generic().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        publishAll();
+                    }
+                });
+            }
+        }, publishInterval);
+    }
+
+    @Override
+    protected void doStop() throws ElasticsearchException {
+        ScheduledFuture<?> future = scheduledPublish;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticsearchException {
+    }
+
+    private void publishAll() {
+        for (IndexService indexService : indicesService) {
+            for (IndexShard indexShard : indexService) {
+                ShardState shardState = shardStates.get(indexShard.shardId());
+                if (shardState == null
+                    || indexShard.state() != IndexShardState.STARTED
+                    || !indexShard.routingEntry().primary()) {
+                    continue;
+                }
+                if (!shardState.startPublish()) {
+                    continue;
+                }
+                try {
+                    shardState.publish(zoneMap(indexShard));
+                } catch (Throwable t) {
+                    shardState.publishFailed();
+                    logger.debug("{} failed to compute zone map", t, indexShard.shardId());
+                }
+            }
+        }
+    }
+
+    private ShardState newShardState(final ShardId shardId) {
+        return new ShardState(shardId, logger) {
+            @Override
+            boolean publishedInClusterState() {
+                return ZoneMapsService.this.publishedInClusterState(shardId);
+            }
+
+            @Override
+            void update(@Nullable ZoneMap zoneMap, ActionListener<UpdateZoneMapResponse> listener) {
+                updateZoneMapAction.execute(
+                        new UpdateZoneMapRequest(shardId, clusterService.localNode().id(), zoneMap), listener);
+            }
+        };
+    }
+
+    private static ZoneMap zoneMap(IndexShard indexShard) throws IOException {
+        indexShard.refresh(SOURCE);
+        Engine.Searcher searcher = indexShard.acquireSearcher(SOURCE);
+        try {
+            return zoneMap(searcher.reader(), numericMappers(indexShard));
+        } finally {
+            searcher.close();
+        }
+    }
+
+    private boolean publishedInClusterState(ShardId shardId) {
+        IndexMetaData indexMetaData = clusterService.state().metaData().index(shardId.getIndex());
+        return indexMetaData != null
+               && IndexZoneMaps.fromIndexMetaData(indexMetaData).shard(shardId.id()) != null;
+    }
+
+    /**
+     * computes the zone map of the given reader from the terms dictionary of all segments
+     */
+    static ZoneMap zoneMap(IndexReader reader, Map<String, NumberFieldMapper<?>> mappers) throws IOException {
+        Map<String, double[]> ranges = new HashMap<>(mappers.size());
+        for (Map.Entry<String, NumberFieldMapper<?>> entry : mappers.entrySet()) {
+            NumberFieldMapper<?> mapper = entry.getValue();
+            boolean floatingPoint = mapper instanceof DoubleFieldMapper || mapper instanceof FloatFieldMapper;
+            boolean is64Bit = mapper instanceof DoubleFieldMapper || mapper instanceof LongFieldMapper
+                              || mapper instanceof DateFieldMapper;
+            double[] range = null;
+            for (AtomicReaderContext leaf : reader.leaves()) {
+                Terms terms = leaf.reader().terms(mapper.names().indexName());
+                if (terms == null) {
+                    continue;
+                }
+                double min;
+                double max;
+                if (is64Bit) {
+                    long minValue = NumericUtils.getMinLong(terms);
+                    long maxValue = NumericUtils.getMaxLong(terms);
+                    if (floatingPoint) {
+                        min = NumericUtils.sortableLongToDouble(minValue);
+                        max = NumericUtils.sortableLongToDouble(maxValue);
+                    } else {
+                        min = ZoneMap.lowerBound(minValue);
+                        max = ZoneMap.upperBound(maxValue);
+                    }
+                } else {
+                    int minValue = NumericUtils.getMinInt(terms);
+                    int maxValue = NumericUtils.getMaxInt(terms);
+                    if (floatingPoint) {
+                        min = NumericUtils.sortableIntToFloat(minValue);
+                        max = NumericUtils.sortableIntToFloat(maxValue);
+                    } else {
+                        min = minValue;
+                        max = maxValue;
+                    }
+                }
+                if (range == null) {
+                    range = new double[] { min, max };
+                } else {
+                    range[0] = Math.min(range[0], min);
+                    range[1] = Math.max(range[1], max);
+                }
+            }
+            if (range != null && !Double.isNaN(range[0]) && !Double.isNaN(range[1])) {
+                ranges.put(entry.getKey(), range);
+            }
+        }
+        return new ZoneMap(ImmutableMap.copyOf(ranges));
+    }
+
+    /**
+     * @return the mappers of all top level numeric and timestamp columns by column name
+     */
+    private static Map<String, NumberFieldMapper<?>> numericMappers(IndexShard indexShard) {
+        Map<String, NumberFieldMapper<?>> mappers = new HashMap<>();
+        DocumentMapper documentMapper = indexShard.mapperService().documentMapper(Constants.DEFAULT_MAPPING_TYPE);
+        if (documentMapper == null) {
+            return mappers;
+        }
+        for (FieldMapper<?> mapper : documentMapper.mappers()) {
+            String name = mapper.names().fullName();
+            if (!(mapper instanceof NumberFieldMapper)
+                || mapper instanceof IpFieldMapper
+                || !mapper.fieldType().indexed()
+                || name.startsWith("_")
+                || name.contains(".")) {
+                continue;
+            }
+            mappers.put(name, (NumberFieldMapper<?>) mapper);
+        }
+        return mappers;
+    }
+
+    /**
+     * Tracks the writes to a shard and its published zone map.
+     *
+     * A write marks the shard as written. If a zone map of the shard is published or being published, the write
+     * waits until the zone map has been removed from the cluster state of all nodes, otherwise a query on a node
+     * which still has the old zone map could skip the shard after the next refresh. If the removal fails the write
+     * fails too, so the zone map never misses a written document.
+     */
+    abstract static class ShardState extends IndexingOperationListener {
+
+        static final TimeValue INVALIDATE_TIMEOUT = TimeValue.timeValueMinutes(1);
+
+        private final ShardId shardId;
+        private final ESLogger logger;
+
+        private volatile boolean written = false;
+        private volatile boolean published = false;
+        private volatile boolean publishing = false;
+
+        // guarded by this, the running removal which all writes wait for
+        private SettableFuture<Void> invalidation = null;
+
+        ShardState(ShardId shardId, ESLogger logger) {
+            this.shardId = shardId;
+            this.logger = logger;
+        }
+
+        /**
+         * @return true if the cluster state contains a zone map of the shard
+         */
+        abstract boolean publishedInClusterState();
+
+        /**
+         * publishes the zone map of the shard, or removes it if it is null
+         */
+        abstract void update(@Nullable ZoneMap zoneMap, ActionListener<UpdateZoneMapResponse> listener);
+
+        @Override
+        public Engine.Create preCreate(Engine.Create create) {
+            if (create.origin() == Engine.Operation.Origin.PRIMARY) {
+                beforeWrite();
+            }
+            return create;
+        }
+
+        @Override
+        public Engine.Index preIndex(Engine.Index index) {
+            if (index.origin() == Engine.Operation.Origin.PRIMARY) {
+                beforeWrite();
+            }
+            return index;
+        }
+
+        void beforeWrite() {
+            written = true;
+            if (publishing || published || publishedInClusterState()) {
+                awaitInvalidation();
+            }
+        }
+
+        private void awaitInvalidation() {
+            ListenableFuture<Void> future = invalidate();
+            try {
+                future.get(INVALIDATE_TIMEOUT.millis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ElasticsearchException(failedMessage(), e);
+            } catch (ExecutionException e) {
+                throw new ElasticsearchException(failedMessage(), e.getCause());
+            } catch (TimeoutException e) {
+                throw new ElasticsearchException(failedMessage(), e);
+            }
+        }
+
+        @VisibleForTesting
+        boolean written() {
+            return written;
+        }
+
+        private String failedMessage() {
+            return String.format(Locale.ENGLISH, "%s failed to remove the zone map before writing to the shard", shardId);
+        }
+
+        /**
+         * @return a future which is done once the zone map has been removed from the cluster state of all nodes.
+         *         If a publish is running, the removal is sent once the publish is done.
+         */
+        private ListenableFuture<Void> invalidate() {
+            SettableFuture<Void> future;
+            synchronized (this) {
+                if (invalidation != null) {
+                    return invalidation;
+                }
+                future = SettableFuture.create();
+                invalidation = future;
+                if (publishing) {
+                    return future;
+                }
+            }
+            sendInvalidation(future);
+            return future;
+        }
+
+        private void sendInvalidation(final SettableFuture<Void> future) {
+            published = false;
+            update(null, new ActionListener<UpdateZoneMapResponse>() {
+                @Override
+                public void onResponse(UpdateZoneMapResponse response) {
+                    if (response.isAcknowledged()) {
+                        invalidationDone(future, null);
+                    } else {
+                        invalidationDone(future, new ElasticsearchTimeoutException(
+                                "removal of the zone map hasn't been acknowledged by all nodes"));
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    logger.debug("{} failed to remove zone map", e, shardId);
+                    invalidationDone(future, e);
+                }
+            });
+        }
+
+        private void invalidationDone(SettableFuture<Void> future, @Nullable Throwable failure) {
+            synchronized (this) {
+                if (invalidation == future) {
+                    invalidation = null;
+                }
+                if (failure != null) {
+                    // the zone map might still be published, the next write tries again
+                    published = true;
+                }
+            }
+            if (failure == null) {
+                future.set(null);
+            } else {
+                future.setException(failure);
+            }
+        }
+
+        /**
+         * @return true if the zone map of the shard has to be computed and published
+         */
+        boolean startPublish() {
+            if (written) {
+                // the shard must not have been written to for a whole interval
+                written = false;
+                return false;
+            }
+            if (published) {
+                return false;
+            }
+            publishing = true;
+            return true;
+        }
+
+        void publish(ZoneMap zoneMap) {
+            if (written) {
+                publishDone();
+                return;
+            }
+            published = true;
+            update(zoneMap, new ActionListener<UpdateZoneMapResponse>() {
+                @Override
+                public void onResponse(UpdateZoneMapResponse response) {
+                    publishDone();
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    logger.debug("{} failed to publish zone map", e, shardId);
+                    publishDone();
+                }
+            });
+        }
+
+        void publishFailed() {
+            published = false;
+            publishDone();
+        }
+
+        private void publishDone() {
+            SettableFuture<Void> future;
+            synchronized (this) {
+                publishing = false;
+                future = invalidation;
+            }
+            if (future != null) {
+                // written to while the zone map was published, the writes wait for its removal
+                sendInvalidation(future);
+            }
+        }
+    }
+}
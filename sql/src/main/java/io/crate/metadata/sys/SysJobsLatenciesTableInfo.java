@@ -0,0 +1,119 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.*;
+import io.crate.planner.RowGranularity;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+@Singleton
+public class SysJobsLatenciesTableInfo extends SysTableInfo {
+
+    public static final TableIdent IDENT = new TableIdent(SCHEMA, "jobs_latencies");
+
+    public static class Columns {
+        public final static ColumnIdent STATEMENT_TYPE = new ColumnIdent("statement_type");
+        public final static ColumnIdent TABLE_NAME = new ColumnIdent("table_name");
+        public final static ColumnIdent WINDOW_MINUTES = new ColumnIdent("window_minutes");
+        public final static ColumnIdent COUNT = new ColumnIdent("count");
+        public final static ColumnIdent P50 = new ColumnIdent("p50");
+        public final static ColumnIdent P95 = new ColumnIdent("p95");
+        public final static ColumnIdent P99 = new ColumnIdent("p99");
+        public final static ColumnIdent MAX = new ColumnIdent("max");
+    }
+
+    private final TableColumn nodesTableColumn;
+    private final Map<ColumnIdent, ReferenceInfo> infos = new LinkedHashMap<>();
+    private final LinkedHashSet<ReferenceInfo> columns = new LinkedHashSet<>();
+
+    private void register(ColumnIdent column, DataType type) {
+        ReferenceInfo info = new ReferenceInfo(new ReferenceIdent(IDENT, column), RowGranularity.DOC, type);
+        columns.add(info);
+        infos.put(column, info);
+    }
+
+    @Inject
+    public SysJobsLatenciesTableInfo(ClusterService clusterService,
+                                     SysSchemaInfo sysSchemaInfo,
+                                     SysNodesTableInfo sysNodesTableInfo) {
+        super(clusterService, sysSchemaInfo);
+        nodesTableColumn = sysNodesTableInfo.tableColumn();
+        register(Columns.STATEMENT_TYPE, DataTypes.STRING);
+        register(Columns.TABLE_NAME, DataTypes.STRING);
+        register(Columns.WINDOW_MINUTES, DataTypes.INTEGER);
+        register(Columns.COUNT, DataTypes.LONG);
+        register(Columns.P50, DataTypes.LONG);
+        register(Columns.P95, DataTypes.LONG);
+        register(Columns.P99, DataTypes.LONG);
+        register(Columns.MAX, DataTypes.LONG);
+        infos.put(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT));
+    }
+
+    @Nullable
+    @Override
+    public ReferenceInfo getReferenceInfo(ColumnIdent columnIdent) {
+        ReferenceInfo info = infos.get(columnIdent);
+        if (info == null) {
+            return nodesTableColumn.getReferenceInfo(this.ident(), columnIdent);
+        }
+        return info;
+    }
+
+    @Override
+    public Collection<ReferenceInfo> columns() {
+        return columns;
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return RowGranularity.DOC;
+    }
+
+    @Override
+    public TableIdent ident() {
+        return IDENT;
+    }
+
+    @Override
+    public Routing getRouting(WhereClause whereClause, @Nullable String preference) {
+        return tableRouting(whereClause);
+    }
+
+    @Override
+    public List<ColumnIdent> primaryKey() {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public Iterator<ReferenceInfo> iterator() {
+        return infos.values().iterator();
+    }
+}
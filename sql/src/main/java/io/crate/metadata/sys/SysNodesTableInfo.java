@@ -94,6 +94,20 @@ public class SysNodesTableInfo extends SysTableInfo {
         register("thread_pools", IntegerType.INSTANCE, ImmutableList.of("threads"));
         register("thread_pools", IntegerType.INSTANCE, ImmutableList.of("queue"));
 
+        register("scheduler", objectArrayType, null);
+        register("scheduler", StringType.INSTANCE, ImmutableList.of("name"));
+        register("scheduler", IntegerType.INSTANCE, ImmutableList.of("active"));
+        register("scheduler", IntegerType.INSTANCE, ImmutableList.of("queue"));
+        register("scheduler", LongType.INSTANCE, ImmutableList.of("admitted"));
+        register("scheduler", LongType.INSTANCE, ImmutableList.of("rejected"));
+        register("scheduler", LongType.INSTANCE, ImmutableList.of("avg_wait_time"));
+
+        register("replica_selection", objectArrayType, null);
+        register("replica_selection", DataTypes.STRING, ImmutableList.of("node_id"));
+        register("replica_selection", DataTypes.DOUBLE, ImmutableList.of("rank"));
+        register("replica_selection", DataTypes.DOUBLE, ImmutableList.of("avg_response_time"));
+        register("replica_selection", DataTypes.INTEGER, ImmutableList.of("outstanding_phases"));
+
         register("network", DataTypes.OBJECT, null);
         register("network", DataTypes.TIMESTAMP, ImmutableList.of("probe_timestamp"));
         register("network", DataTypes.OBJECT, ImmutableList.of("tcp"));
@@ -45,6 +45,10 @@ public class SysOperationsTableInfo extends SysTableInfo {
         public final static ColumnIdent NAME = new ColumnIdent("name");
         public final static ColumnIdent STARTED = new ColumnIdent("started");
         public final static ColumnIdent USED_BYTES = new ColumnIdent("used_bytes");
+        public final static ColumnIdent STATE = new ColumnIdent("state");
+        public final static ColumnIdent ROWS_PROCESSED = new ColumnIdent("rows_processed");
+        public final static ColumnIdent SHARDS_TOTAL = new ColumnIdent("shards_total");
+        public final static ColumnIdent SHARDS_COMPLETED = new ColumnIdent("shards_completed");
     }
 
     private final TableColumn nodesTableColumn;
@@ -68,6 +72,10 @@ public class SysOperationsTableInfo extends SysTableInfo {
         register(Columns.NAME, DataTypes.STRING);
         register(Columns.STARTED, DataTypes.TIMESTAMP);
         register(Columns.USED_BYTES, DataTypes.LONG);
+        register(Columns.STATE, DataTypes.STRING);
+        register(Columns.ROWS_PROCESSED, DataTypes.LONG);
+        register(Columns.SHARDS_TOTAL, DataTypes.INTEGER);
+        register(Columns.SHARDS_COMPLETED, DataTypes.INTEGER);
         infos.put(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT));
     }
 
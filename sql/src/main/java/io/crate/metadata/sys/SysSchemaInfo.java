@@ -48,9 +48,12 @@ public class SysSchemaInfo implements SchemaInfo {
                 .put(SysShardsTableInfo.IDENT.name(), new SysShardsTableInfo(clusterService, this, sysNodesTableInfo))
                 .put(SysJobsTableInfo.IDENT.name(), new SysJobsTableInfo(clusterService, this))
                 .put(SysJobsLogTableInfo.IDENT.name(), new SysJobsLogTableInfo(clusterService, this))
+                .put(SysJobsLatenciesTableInfo.IDENT.name(), new SysJobsLatenciesTableInfo(clusterService, this, sysNodesTableInfo))
                 .put(SysOperationsTableInfo.IDENT.name(), new SysOperationsTableInfo(clusterService, this, sysNodesTableInfo))
                 .put(SysOperationsLogTableInfo.IDENT.name(), new SysOperationsLogTableInfo(clusterService, this))
                 .put(SysChecksTableInfo.IDENT.name(), new SysChecksTableInfo(clusterService, this))
+                .put(SysTableStatsTableInfo.IDENT.name(), new SysTableStatsTableInfo(clusterService, this))
+                .put(SysColumnStatsTableInfo.IDENT.name(), new SysColumnStatsTableInfo(clusterService, this))
                 .build();
     }
 
@@ -56,6 +56,11 @@ public class SysShardsTableInfo extends SysTableInfo {
         public static final ColumnIdent SIZE = new ColumnIdent("size");
         public static final ColumnIdent STATE = new ColumnIdent("state");
         public static final ColumnIdent ORPHAN_PARTITION = new ColumnIdent("orphan_partition");
+        public static final ColumnIdent RESULT_CACHE = new ColumnIdent("result_cache");
+        public static final ColumnIdent RESULT_CACHE_HITS = new ColumnIdent("result_cache", "hits");
+        public static final ColumnIdent RESULT_CACHE_MISSES = new ColumnIdent("result_cache", "misses");
+        public static final ColumnIdent RESULT_CACHE_HIT_RATIO = new ColumnIdent("result_cache", "hit_ratio");
+        public static final ColumnIdent RESULT_CACHE_SIZE = new ColumnIdent("result_cache", "size");
     }
 
     public static class ReferenceIdents {
@@ -69,6 +74,7 @@ public class SysShardsTableInfo extends SysTableInfo {
         public static final ReferenceIdent SIZE = new ReferenceIdent(IDENT, Columns.SIZE);
         public static final ReferenceIdent STATE = new ReferenceIdent(IDENT, Columns.STATE);
         public static final ReferenceIdent ORPHAN_PARTITION = new ReferenceIdent(IDENT, Columns.ORPHAN_PARTITION);
+        public static final ReferenceIdent RESULT_CACHE = new ReferenceIdent(IDENT, Columns.RESULT_CACHE);
     }
 
     private static final ImmutableList<ColumnIdent> primaryKey = ImmutableList.of(
@@ -95,6 +101,11 @@ public class SysShardsTableInfo extends SysTableInfo {
         register(Columns.SIZE, LongType.INSTANCE);
         register(Columns.STATE, StringType.INSTANCE);
         register(Columns.ORPHAN_PARTITION, BooleanType.INSTANCE);
+        register(Columns.RESULT_CACHE, ObjectType.INSTANCE);
+        register(Columns.RESULT_CACHE_HITS, LongType.INSTANCE);
+        register(Columns.RESULT_CACHE_MISSES, LongType.INSTANCE);
+        register(Columns.RESULT_CACHE_HIT_RATIO, DoubleType.INSTANCE);
+        register(Columns.RESULT_CACHE_SIZE, LongType.INSTANCE);
 
         INFOS.put(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT));
     }
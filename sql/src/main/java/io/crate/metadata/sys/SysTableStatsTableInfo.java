@@ -0,0 +1,128 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.sys;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.WhereClause;
+import io.crate.core.collections.TreeMapBuilder;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.Routing;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.RowGranularity;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row counts of analyzed tables and their partitions, see ANALYZE.
+ */
+@Singleton
+public class SysTableStatsTableInfo extends SysTableInfo {
+
+    public static final TableIdent IDENT = new TableIdent(SCHEMA, "table_stats");
+    private static final RowGranularity GRANULARITY = RowGranularity.DOC;
+
+    public static class Columns {
+        public static final ColumnIdent SCHEMA_NAME = new ColumnIdent("schema_name");
+        public static final ColumnIdent TABLE_NAME = new ColumnIdent("table_name");
+        public static final ColumnIdent PARTITION_IDENT = new ColumnIdent("partition_ident");
+        public static final ColumnIdent NUM_DOCS = new ColumnIdent("num_docs");
+        public static final ColumnIdent ANALYZED_AT = new ColumnIdent("analyzed_at");
+    }
+
+    private static final ImmutableList<ColumnIdent> PRIMARY_KEY = ImmutableList.of(Columns.SCHEMA_NAME, Columns.TABLE_NAME, Columns.PARTITION_IDENT);
+
+    private final Map<ColumnIdent, ReferenceInfo> infos = new LinkedHashMap<>();
+    private final LinkedHashSet<ReferenceInfo> columns = new LinkedHashSet<>();
+
+    private void register(ColumnIdent columnIdent, DataType type) {
+        ReferenceInfo info = new ReferenceInfo(new ReferenceIdent(IDENT, columnIdent), GRANULARITY, type);
+        columns.add(info);
+        infos.put(columnIdent, info);
+    }
+
+    @Inject
+    protected SysTableStatsTableInfo(ClusterService clusterService, SysSchemaInfo sysSchemaInfo) {
+        super(clusterService, sysSchemaInfo);
+        register(Columns.SCHEMA_NAME, DataTypes.STRING);
+        register(Columns.TABLE_NAME, DataTypes.STRING);
+        register(Columns.PARTITION_IDENT, DataTypes.STRING);
+        register(Columns.NUM_DOCS, DataTypes.LONG);
+        register(Columns.ANALYZED_AT, DataTypes.TIMESTAMP);
+    }
+
+    @Nullable
+    @Override
+    public ReferenceInfo getReferenceInfo(ColumnIdent columnIdent) {
+        return infos.get(columnIdent);
+    }
+
+    @Override
+    public Collection<ReferenceInfo> columns() {
+        return columns;
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return GRANULARITY;
+    }
+
+    @Override
+    public TableIdent ident() {
+        return IDENT;
+    }
+
+    /**
+     * the statistics are part of the cluster state, so they are read on the handler node
+     */
+    @Override
+    public Routing getRouting(WhereClause whereClause, @Nullable String preference) {
+        return new Routing(
+                TreeMapBuilder.<String, Map<String, List<Integer>>>newMapBuilder().put(
+                        clusterService.localNode().id(),
+                        TreeMapBuilder.<String, List<Integer>>newMapBuilder().put(IDENT.fqn(), null).map()).map()
+        );
+    }
+
+    @Override
+    public List<ColumnIdent> primaryKey() {
+        return PRIMARY_KEY;
+    }
+
+    @Override
+    public Iterator<ReferenceInfo> iterator() {
+        return infos.values().iterator();
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.breaker.ConstSizeEstimator;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.core.collections.CollectionBucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.CursorResult;
+import io.crate.executor.TaskResult;
+import io.crate.jobs.ExecutionState;
+import io.crate.operation.projectors.Requirement;
+import io.crate.operation.projectors.Requirements;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.types.DataType;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * RowReceiver of a cursor which hands out the rows of a result in batches of <code>fetchSize</code> rows.
+ *
+ * Once a batch is complete the upstream is paused until the next batch is requested using {@link #fetch(SettableFuture)}.
+ * If the result is paged the collectors on the shards stay paused as well, so the next rows aren't
+ * computed before they're fetched.
+ *
+ * Rows which are received while no batch is requested (e.g. the remaining rows of the last page or the
+ * rows of an upstream which can't be paused) are buffered and accounted on the circuit breaker.
+ */
+public class CursorRowReceiver implements RowReceiver {
+
+    private static final long UNKNOWN_VALUE_SIZE = 64L;
+
+    private final String cursorId;
+    private final int fetchSize;
+    private final CircuitBreaker breaker;
+    private final List<SizeEstimator<Object>> estimators;
+    private final ArrayDeque<Object[]> rows = new ArrayDeque<>();
+
+    private RowUpstream upstream;
+    private SettableFuture<TaskResult> pendingFetch;
+    private boolean pausable = true;
+    private boolean paused = false;
+    private boolean finished = false;
+    private Throwable failure;
+    private long bufferedBytes = 0L;
+
+    public CursorRowReceiver(String cursorId, int fetchSize, CircuitBreaker breaker, List<? extends DataType> outputTypes) {
+        this.cursorId = cursorId;
+        this.fetchSize = fetchSize;
+        this.breaker = breaker;
+        this.estimators = new ArrayList<>(outputTypes.size());
+        for (DataType outputType : outputTypes) {
+            SizeEstimator<Object> estimator;
+            try {
+                estimator = SizeEstimatorFactory.create(outputType);
+            } catch (UnsupportedOperationException e) {
+                estimator = new ConstSizeEstimator(UNKNOWN_VALUE_SIZE);
+            }
+            estimators.add(estimator);
+        }
+    }
+
+    /**
+     * request the next batch of rows, the result is set once <code>fetchSize</code> rows are available
+     * or the upstream finished.
+     */
+    public void fetch(SettableFuture<TaskResult> result) {
+        synchronized (this) {
+            if (failure != null) {
+                result.setException(failure);
+                return;
+            }
+            if (pendingFetch != null) {
+                result.setException(new IllegalStateException(String.format(Locale.ENGLISH,
+                        "Cursor %s is already fetching the next rows", cursorId)));
+                return;
+            }
+            if (finished || rows.size() >= fetchSize) {
+                result.set(nextBatch());
+                return;
+            }
+            pendingFetch = result;
+            if (!paused) {
+                return;
+            }
+            paused = false;
+        }
+        upstream.resume(false);
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        Object[] cells = row.materialize();
+        long bytes = estimateSize(cells);
+        SettableFuture<TaskResult> result = null;
+        TaskResult batch = null;
+        Throwable error = null;
+        synchronized (this) {
+            if (failure != null) {
+                return false;
+            }
+            try {
+                breaker.addEstimateBytesAndMaybeBreak(bytes, cursorId);
+                bufferedBytes += bytes;
+                rows.add(cells);
+                if (pendingFetch == null || rows.size() >= fetchSize) {
+                    if (pendingFetch != null) {
+                        result = pendingFetch;
+                        pendingFetch = null;
+                        batch = nextBatch();
+                    }
+                    pauseUpstream();
+                }
+            } catch (CircuitBreakingException e) {
+                failure = e;
+                error = e;
+                result = pendingFetch;
+                pendingFetch = null;
+            }
+        }
+        if (result != null) {
+            if (error == null) {
+                result.set(batch);
+            } else {
+                result.setException(error);
+            }
+        }
+        return error == null;
+    }
+
+    private void pauseUpstream() {
+        if (paused || !pausable) {
+            return;
+        }
+        try {
+            upstream.pause();
+            paused = true;
+        } catch (UnsupportedOperationException e) {
+            // the whole result is buffered
+            pausable = false;
+        }
+    }
+
+    private CursorResult nextBatch() {
+        int size = Math.min(fetchSize, rows.size());
+        List<Object[]> batch = new ArrayList<>(size);
+        long bytes = 0L;
+        for (int i = 0; i < size; i++) {
+            Object[] cells = rows.poll();
+            bytes += estimateSize(cells);
+            batch.add(cells);
+        }
+        bufferedBytes -= bytes;
+        breaker.addWithoutBreaking(-bytes);
+        return new CursorResult(new CollectionBucket(batch), isExhausted() ? null : cursorId);
+    }
+
+    private long estimateSize(Object[] cells) {
+        long size = 0L;
+        for (int i = 0; i < cells.length; i++) {
+            size += estimators.get(i).estimateSize(cells[i]);
+        }
+        return size;
+    }
+
+    /**
+     * @return true if all rows of the result have been fetched
+     */
+    public synchronized boolean isExhausted() {
+        return finished && rows.isEmpty() && failure == null;
+    }
+
+    /**
+     * @return true if the upstream finished or failed, so that there is no running job left
+     */
+    public synchronized boolean isDone() {
+        return finished || failure != null;
+    }
+
+    /**
+     * release the buffered rows, a pending or any later fetch fails
+     */
+    public void close() {
+        SettableFuture<TaskResult> result;
+        synchronized (this) {
+            rows.clear();
+            breaker.addWithoutBreaking(-bufferedBytes);
+            bufferedBytes = 0L;
+            if (failure == null) {
+                failure = new CancellationException();
+            }
+            result = pendingFetch;
+            pendingFetch = null;
+        }
+        if (result != null) {
+            result.setException(failure);
+        }
+    }
+
+    @Override
+    public void finish() {
+        SettableFuture<TaskResult> result;
+        CursorResult batch = null;
+        synchronized (this) {
+            finished = true;
+            result = pendingFetch;
+            pendingFetch = null;
+            if (result != null) {
+                batch = nextBatch();
+            }
+        }
+        if (result != null) {
+            result.set(batch);
+        }
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        SettableFuture<TaskResult> result;
+        synchronized (this) {
+            if (failure == null) {
+                failure = throwable;
+            }
+            result = pendingFetch;
+            pendingFetch = null;
+        }
+        if (result != null) {
+            result.setException(throwable);
+        }
+    }
+
+    @Override
+    public void prepare(ExecutionState executionState) {
+    }
+
+    @Override
+    public Set<Requirement> requirements() {
+        return Requirements.NO_REQUIREMENTS;
+    }
+
+    @Override
+    public void setUpstream(RowUpstream rowUpstream) {
+        this.upstream = rowUpstream;
+    }
+}
@@ -55,10 +55,12 @@ public class AggregationImplModule extends AbstractModule {
         SumAggregation.register(this);
         CountAggregation.register(this);
         CollectSetAggregation.register(this);
+        HyperLogLogDistinctAggregation.register(this);
 
         VarianceAggregation.register(this);
         GeometricMeanAggregation.register(this);
         StandardDeviationAggregation.register(this);
+        PercentileAggregation.register(this);
 
         // bind all registered functions and resolver
         // by doing it here instead of the register functions, plugins can also use the
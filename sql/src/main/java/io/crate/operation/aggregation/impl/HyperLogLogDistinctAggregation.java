@@ -0,0 +1,286 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.base.Preconditions;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.DynamicFunctionResolver;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.statistics.cardinality.HyperLogLogPlusPlus;
+import io.crate.planner.symbol.Function;
+import io.crate.types.DataType;
+import io.crate.types.DataTypeFactory;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * approximate count of distinct values using a {@link HyperLogLogPlusPlus} sketch.
+ *
+ * <pre>
+ *     approx_count_distinct(col)
+ *     approx_count_distinct(col, precision)
+ * </pre>
+ */
+public class HyperLogLogDistinctAggregation
+        extends AggregationFunction<HyperLogLogDistinctAggregation.HllState, Long> {
+
+    public static final String NAME = "approx_count_distinct";
+
+    static {
+        DataTypes.register(HllStateType.ID, HllStateType.INSTANCE);
+    }
+
+    public static void register(AggregationImplModule mod) {
+        mod.register(NAME, new HllResolver());
+    }
+
+    static class HllResolver implements DynamicFunctionResolver {
+
+        @Override
+        public FunctionImplementation<Function> getForTypes(List<DataType> dataTypes) throws IllegalArgumentException {
+            Preconditions.checkArgument(dataTypes.size() == 1 || dataTypes.size() == 2,
+                    "%s requires one or two arguments", NAME);
+            Preconditions.checkArgument(DataTypes.PRIMITIVE_TYPES.contains(dataTypes.get(0)),
+                    "%s does not support argument type %s", NAME, dataTypes.get(0));
+            if (dataTypes.size() == 2) {
+                Preconditions.checkArgument(DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(dataTypes.get(1)),
+                        "precision argument of %s must be numeric", NAME);
+            }
+            return new HyperLogLogDistinctAggregation(new FunctionInfo(
+                    new FunctionIdent(NAME, dataTypes), DataTypes.LONG, FunctionInfo.Type.AGGREGATE));
+        }
+    }
+
+    /**
+     * The sketch is created lazily because the precision is only known once the arguments are evaluated.
+     */
+    public static class HllState implements Comparable<HllState> {
+
+        private HyperLogLogPlusPlus hll;
+
+        HllState() {
+        }
+
+        HllState(HyperLogLogPlusPlus hll) {
+            this.hll = hll;
+        }
+
+        boolean isInitialized() {
+            return hll != null;
+        }
+
+        long ramBytesUsed() {
+            return hll == null ? 0L : hll.ramBytesUsed();
+        }
+
+        Long value() {
+            return hll == null ? 0L : hll.cardinality();
+        }
+
+        @Override
+        public int compareTo(HllState o) {
+            return Long.compare(value(), o.value());
+        }
+    }
+
+    public static class HllStateType extends DataType<HllState>
+            implements Streamer<HllState>, DataTypeFactory {
+
+        public static final HllStateType INSTANCE = new HllStateType();
+        public static final int ID = 16384;
+
+        @Override
+        public int id() {
+            return ID;
+        }
+
+        @Override
+        public String getName() {
+            return "hll_state";
+        }
+
+        @Override
+        public Streamer<?> streamer() {
+            return this;
+        }
+
+        @Override
+        public HllState value(Object value) throws IllegalArgumentException, ClassCastException {
+            return (HllState) value;
+        }
+
+        @Override
+        public int compareValueTo(HllState val1, HllState val2) {
+            return val1.compareTo(val2);
+        }
+
+        @Override
+        public DataType<?> create() {
+            return INSTANCE;
+        }
+
+        @Override
+        public HllState readValueFrom(StreamInput in) throws IOException {
+            if (!in.readBoolean()) {
+                return new HllState();
+            }
+            HyperLogLogPlusPlus hll = new HyperLogLogPlusPlus();
+            hll.readFrom(in);
+            return new HllState(hll);
+        }
+
+        @Override
+        public void writeValueTo(StreamOutput out, Object v) throws IOException {
+            HllState state = (HllState) v;
+            out.writeBoolean(state.isInitialized());
+            if (state.isInitialized()) {
+                state.hll.writeTo(out);
+            }
+        }
+    }
+
+    private final FunctionInfo info;
+    private final HashFunction hashFunction;
+
+    HyperLogLogDistinctAggregation(FunctionInfo info) {
+        this.info = info;
+        this.hashFunction = hashFunctionFor(info.ident().argumentTypes().get(0));
+    }
+
+    @Nullable
+    @Override
+    public HllState newState(RamAccountingContext ramAccountingContext) {
+        ramAccountingContext.addBytes(HyperLogLogPlusPlus.SHALLOW_SIZE);
+        return new HllState();
+    }
+
+    @Override
+    public HllState iterate(RamAccountingContext ramAccountingContext, HllState state, Input... args)
+            throws CircuitBreakingException {
+        if (!state.isInitialized()) {
+            int precision = HyperLogLogPlusPlus.DEFAULT_PRECISION;
+            if (args.length > 1) {
+                Number precisionValue = (Number) args[1].value();
+                if (precisionValue != null) {
+                    precision = precisionValue.intValue();
+                }
+            }
+            state.hll = new HyperLogLogPlusPlus(precision);
+        }
+        Object value = args[0].value();
+        if (value != null) {
+            long bytesBefore = state.hll.ramBytesUsed();
+            state.hll.add(hashFunction.hash(value));
+            long bytesAfter = state.hll.ramBytesUsed();
+            if (bytesAfter != bytesBefore) {
+                ramAccountingContext.addBytes(bytesAfter - bytesBefore);
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public HllState reduce(RamAccountingContext ramAccountingContext, HllState state1, HllState state2) {
+        if (state1 == null || !state1.isInitialized()) {
+            return state2;
+        }
+        if (state2 == null || !state2.isInitialized()) {
+            return state1;
+        }
+        long bytesBefore = state1.ramBytesUsed();
+        state1.hll.merge(state2.hll);
+        ramAccountingContext.addBytes(state1.ramBytesUsed() - bytesBefore);
+        return state1;
+    }
+
+    @Override
+    public Long terminatePartial(RamAccountingContext ramAccountingContext, HllState state) {
+        return state.value();
+    }
+
+    @Override
+    public DataType partialType() {
+        return HllStateType.INSTANCE;
+    }
+
+    @Override
+    public FunctionInfo info() {
+        return info;
+    }
+
+    interface HashFunction {
+        long hash(Object value);
+    }
+
+    private static final HashFunction BYTES_REF_HASH = new HashFunction() {
+        @Override
+        public long hash(Object value) {
+            return HyperLogLogPlusPlus.hash((BytesRef) value);
+        }
+    };
+
+    private static final HashFunction FLOATING_POINT_HASH = new HashFunction() {
+        @Override
+        public long hash(Object value) {
+            return HyperLogLogPlusPlus.hash(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+    };
+
+    private static final HashFunction INTEGRAL_HASH = new HashFunction() {
+        @Override
+        public long hash(Object value) {
+            return HyperLogLogPlusPlus.hash(((Number) value).longValue());
+        }
+    };
+
+    private static final HashFunction BOOLEAN_HASH = new HashFunction() {
+        @Override
+        public long hash(Object value) {
+            return HyperLogLogPlusPlus.hash((Boolean) value ? 1L : 0L);
+        }
+    };
+
+    private static HashFunction hashFunctionFor(DataType dataType) {
+        if (dataType.equals(DataTypes.STRING) || dataType.equals(DataTypes.IP)) {
+            return BYTES_REF_HASH;
+        }
+        if (dataType.equals(DataTypes.DOUBLE) || dataType.equals(DataTypes.FLOAT)) {
+            return FLOATING_POINT_HASH;
+        }
+        if (dataType.equals(DataTypes.BOOLEAN)) {
+            return BOOLEAN_HASH;
+        }
+        return INTEGRAL_HASH;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.base.Preconditions;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.DynamicFunctionResolver;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.statistics.quantile.TDigestState;
+import io.crate.planner.symbol.Function;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypeFactory;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * approximate percentiles using a t-digest as partial state.
+ *
+ * <pre>
+ *     percentile(col, fraction)        returns a double
+ *     percentile(col, [fraction, ...]) returns an array of doubles
+ * </pre>
+ */
+public class PercentileAggregation extends AggregationFunction<PercentileAggregation.PercentileState, Object> {
+
+    public static final String NAME = "percentile";
+
+    private static final ArrayType DOUBLE_ARRAY_TYPE = new ArrayType(DataTypes.DOUBLE);
+
+    static {
+        DataTypes.register(PercentileStateType.ID, PercentileStateType.INSTANCE);
+    }
+
+    public static void register(AggregationImplModule mod) {
+        mod.register(NAME, new PercentileResolver());
+    }
+
+    static class PercentileResolver implements DynamicFunctionResolver {
+
+        @Override
+        public FunctionImplementation<Function> getForTypes(List<DataType> dataTypes) throws IllegalArgumentException {
+            Preconditions.checkArgument(dataTypes.size() == 2, "%s requires exactly two arguments", NAME);
+            DataType valueType = dataTypes.get(0);
+            Preconditions.checkArgument(
+                    DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(valueType) || valueType.equals(DataTypes.TIMESTAMP),
+                    "%s does not support argument type %s", NAME, valueType);
+            DataType fractionType = dataTypes.get(1);
+            DataType returnType;
+            if (fractionType.equals(DataTypes.DOUBLE)) {
+                returnType = DataTypes.DOUBLE;
+            } else if (fractionType.equals(DOUBLE_ARRAY_TYPE)) {
+                returnType = DOUBLE_ARRAY_TYPE;
+            } else {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "fractions argument of %s must be a double or an array of doubles", NAME));
+            }
+            return new PercentileAggregation(new FunctionInfo(
+                    new FunctionIdent(NAME, dataTypes), returnType, FunctionInfo.Type.AGGREGATE));
+        }
+    }
+
+    /**
+     * The fractions are only known once the arguments are evaluated, so they are set on the first iterate
+     * and are streamed along with the digest to be available after the reduce on another node.
+     */
+    public static class PercentileState implements Comparable<PercentileState> {
+
+        private double[] fractions;
+        private TDigestState digest;
+
+        PercentileState() {
+        }
+
+        PercentileState(double[] fractions, TDigestState digest) {
+            this.fractions = fractions;
+            this.digest = digest;
+        }
+
+        boolean isInitialized() {
+            return digest != null;
+        }
+
+        long ramBytesUsed() {
+            return digest == null ? 0L : digest.ramBytesUsed();
+        }
+
+        @Override
+        public int compareTo(PercentileState o) {
+            long size = digest == null ? 0L : digest.size();
+            long otherSize = o.digest == null ? 0L : o.digest.size();
+            return Long.compare(size, otherSize);
+        }
+    }
+
+    public static class PercentileStateType extends DataType<PercentileState>
+            implements Streamer<PercentileState>, DataTypeFactory {
+
+        public static final PercentileStateType INSTANCE = new PercentileStateType();
+        public static final int ID = 32768;
+
+        @Override
+        public int id() {
+            return ID;
+        }
+
+        @Override
+        public String getName() {
+            return "percentile_state";
+        }
+
+        @Override
+        public Streamer<?> streamer() {
+            return this;
+        }
+
+        @Override
+        public PercentileState value(Object value) throws IllegalArgumentException, ClassCastException {
+            return (PercentileState) value;
+        }
+
+        @Override
+        public int compareValueTo(PercentileState val1, PercentileState val2) {
+            return val1.compareTo(val2);
+        }
+
+        @Override
+        public DataType<?> create() {
+            return INSTANCE;
+        }
+
+        @Override
+        public PercentileState readValueFrom(StreamInput in) throws IOException {
+            if (!in.readBoolean()) {
+                return new PercentileState();
+            }
+            double[] fractions = new double[in.readVInt()];
+            for (int i = 0; i < fractions.length; i++) {
+                fractions[i] = in.readDouble();
+            }
+            return new PercentileState(fractions, TDigestState.read(in));
+        }
+
+        @Override
+        public void writeValueTo(StreamOutput out, Object v) throws IOException {
+            PercentileState state = (PercentileState) v;
+            out.writeBoolean(state.isInitialized());
+            if (state.isInitialized()) {
+                out.writeVInt(state.fractions.length);
+                for (double fraction : state.fractions) {
+                    out.writeDouble(fraction);
+                }
+                TDigestState.write(state.digest, out);
+            }
+        }
+    }
+
+    private final FunctionInfo info;
+    private final boolean multipleFractions;
+
+    PercentileAggregation(FunctionInfo info) {
+        this.info = info;
+        this.multipleFractions = info.returnType().equals(DOUBLE_ARRAY_TYPE);
+    }
+
+    @Nullable
+    @Override
+    public PercentileState newState(RamAccountingContext ramAccountingContext) {
+        ramAccountingContext.addBytes(TDigestState.SHALLOW_SIZE);
+        return new PercentileState();
+    }
+
+    @Override
+    public PercentileState iterate(RamAccountingContext ramAccountingContext, PercentileState state, Input... args)
+            throws CircuitBreakingException {
+        if (!state.isInitialized()) {
+            state.fractions = toFractions(args[1].value());
+            state.digest = new TDigestState(TDigestState.DEFAULT_COMPRESSION);
+        }
+        Number value = (Number) args[0].value();
+        if (value != null) {
+            long bytesBefore = state.ramBytesUsed();
+            state.digest.add(value.doubleValue());
+            long bytesAfter = state.ramBytesUsed();
+            if (bytesAfter != bytesBefore) {
+                ramAccountingContext.addBytes(bytesAfter - bytesBefore);
+            }
+        }
+        return state;
+    }
+
+    private double[] toFractions(Object value) {
+        double[] fractions;
+        if (value instanceof Object[]) {
+            Object[] values = (Object[]) value;
+            fractions = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                fractions[i] = toFraction(values[i]);
+            }
+        } else {
+            fractions = new double[]{toFraction(value)};
+        }
+        return fractions;
+    }
+
+    private static double toFraction(Object value) {
+        Preconditions.checkArgument(value != null, "fractions of %s must not be null", NAME);
+        double fraction = ((Number) value).doubleValue();
+        Preconditions.checkArgument(fraction >= 0.0 && fraction <= 1.0,
+                "fractions of %s must be between 0 and 1, got %s", NAME, fraction);
+        return fraction;
+    }
+
+    @Override
+    public PercentileState reduce(RamAccountingContext ramAccountingContext, PercentileState state1, PercentileState state2) {
+        if (state1 == null || !state1.isInitialized()) {
+            return state2;
+        }
+        if (state2 == null || !state2.isInitialized()) {
+            return state1;
+        }
+        long bytesBefore = state1.ramBytesUsed();
+        state1.digest.add(state2.digest);
+        ramAccountingContext.addBytes(state1.ramBytesUsed() - bytesBefore);
+        return state1;
+    }
+
+    @Override
+    public Object terminatePartial(RamAccountingContext ramAccountingContext, PercentileState state) {
+        if (!state.isInitialized() || state.digest.size() == 0) {
+            return null;
+        }
+        if (multipleFractions) {
+            Double[] percentiles = new Double[state.fractions.length];
+            for (int i = 0; i < state.fractions.length; i++) {
+                percentiles[i] = state.digest.quantile(state.fractions[i]);
+            }
+            return percentiles;
+        }
+        return state.digest.quantile(state.fractions[0]);
+    }
+
+    @Override
+    public DataType partialType() {
+        return PercentileStateType.INSTANCE;
+    }
+
+    @Override
+    public FunctionInfo info() {
+        return info;
+    }
+}
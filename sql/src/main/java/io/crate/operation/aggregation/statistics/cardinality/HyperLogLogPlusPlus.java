@@ -0,0 +1,236 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.aggregation.statistics.cardinality;
+
+import com.carrotsearch.hppc.IntByteOpenHashMap;
+import com.carrotsearch.hppc.cursors.IntByteCursor;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * HyperLogLog++ cardinality sketch.
+ *
+ * Starts with a sparse representation (register index to rank) and switches to a dense
+ * register array of size 2^precision once the sparse one would use more memory.
+ * Two sketches with the same precision can be merged without loss.
+ */
+public class HyperLogLogPlusPlus implements Streamable {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    public static final int DEFAULT_PRECISION = 14;
+
+    /**
+     * estimated bytes used per entry in the sparse map (key, value and hash table overhead)
+     */
+    static final int SPARSE_ENTRY_BYTES = 10;
+    static final int SHALLOW_SIZE = 32;
+
+    private int precision;
+    private int numRegisters;
+    private IntByteOpenHashMap sparse;
+    private byte[] dense;
+
+    public HyperLogLogPlusPlus() {
+    }
+
+    public HyperLogLogPlusPlus(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "precision must be between %d and %d, got %d", MIN_PRECISION, MAX_PRECISION, precision));
+        }
+        init(precision);
+        sparse = new IntByteOpenHashMap();
+    }
+
+    private void init(int precision) {
+        this.precision = precision;
+        this.numRegisters = 1 << precision;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public boolean isSparse() {
+        return dense == null;
+    }
+
+    public long ramBytesUsed() {
+        if (dense == null) {
+            return SHALLOW_SIZE + sparse.size() * SPARSE_ENTRY_BYTES;
+        }
+        return SHALLOW_SIZE + numRegisters;
+    }
+
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        setRegister(index, rank);
+    }
+
+    private void setRegister(int index, byte rank) {
+        if (dense != null) {
+            if (dense[index] < rank) {
+                dense[index] = rank;
+            }
+            return;
+        }
+        if (sparse.get(index) < rank) {
+            sparse.put(index, rank);
+            if (sparse.size() * SPARSE_ENTRY_BYTES > numRegisters) {
+                toDense();
+            }
+        }
+    }
+
+    private void toDense() {
+        dense = new byte[numRegisters];
+        for (IntByteCursor cursor : sparse) {
+            dense[cursor.key] = cursor.value;
+        }
+        sparse = null;
+    }
+
+    public void merge(HyperLogLogPlusPlus other) {
+        if (precision != other.precision) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Cannot merge HyperLogLog++ sketches with different precision (%d and %d)",
+                    precision, other.precision));
+        }
+        if (other.dense == null) {
+            for (IntByteCursor cursor : other.sparse) {
+                setRegister(cursor.key, cursor.value);
+            }
+            return;
+        }
+        if (dense == null) {
+            toDense();
+        }
+        for (int i = 0; i < numRegisters; i++) {
+            if (dense[i] < other.dense[i]) {
+                dense[i] = other.dense[i];
+            }
+        }
+    }
+
+    public long cardinality() {
+        if (dense == null) {
+            return linearCounting(numRegisters - sparse.size());
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte rank : dense) {
+            if (rank == 0) {
+                zeros++;
+            }
+            sum += 1.0 / (1L << rank);
+        }
+        double estimate = alpha(numRegisters) * numRegisters * numRegisters / sum;
+        if (zeros > 0 && estimate <= 2.5 * numRegisters) {
+            // linear counting is more accurate for small cardinalities
+            return linearCounting(zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private long linearCounting(int zeros) {
+        return Math.round(numRegisters * Math.log((double) numRegisters / zeros));
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    public static long hash(BytesRef bytes) {
+        return MurmurHash3.hash128(bytes.bytes, bytes.offset, bytes.length, 0, new MurmurHash3.Hash128()).h1;
+    }
+
+    /**
+     * 64 bit finalizer of MurmurHash3 to spread the bits of numeric values
+     */
+    public static long hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        init(in.readVInt());
+        if (in.readBoolean()) {
+            dense = new byte[numRegisters];
+            in.readBytes(dense, 0, numRegisters);
+        } else {
+            int size = in.readVInt();
+            sparse = new IntByteOpenHashMap(size);
+            int index = 0;
+            for (int i = 0; i < size; i++) {
+                index += in.readVInt();
+                sparse.put(index, in.readByte());
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(precision);
+        out.writeBoolean(dense != null);
+        if (dense != null) {
+            out.writeBytes(dense);
+            return;
+        }
+        // sorted indices are written as deltas to keep the sparse form compact
+        int[] indices = new int[sparse.size()];
+        int i = 0;
+        for (IntByteCursor cursor : sparse) {
+            indices[i++] = cursor.key;
+        }
+        Arrays.sort(indices);
+        out.writeVInt(indices.length);
+        int previous = 0;
+        for (int index : indices) {
+            out.writeVInt(index - previous);
+            out.writeByte(sparse.get(index));
+            previous = index;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.statistics.quantile;
+
+import com.tdunning.math.stats.AVLTreeDigest;
+import com.tdunning.math.stats.Centroid;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * t-digest which can be streamed as a compact list of centroids.
+ * The number of centroids, and with it the memory usage, is bounded by the compression.
+ */
+public class TDigestState extends AVLTreeDigest {
+
+    public static final double DEFAULT_COMPRESSION = 100.0;
+
+    /**
+     * estimated bytes used per centroid (mean, count and tree node overhead)
+     */
+    public static final int CENTROID_BYTES = 40;
+    public static final int SHALLOW_SIZE = 64;
+
+    private final double compression;
+
+    public TDigestState(double compression) {
+        super(compression);
+        this.compression = compression;
+    }
+
+    @Override
+    public double compression() {
+        return compression;
+    }
+
+    public long ramBytesUsed() {
+        return SHALLOW_SIZE + (long) centroidCount() * CENTROID_BYTES;
+    }
+
+    public static void write(TDigestState state, StreamOutput out) throws IOException {
+        out.writeDouble(state.compression);
+        out.writeVInt(state.centroidCount());
+        for (Centroid centroid : state.centroids()) {
+            out.writeDouble(centroid.mean());
+            out.writeVInt(centroid.count());
+        }
+    }
+
+    public static TDigestState read(StreamInput in) throws IOException {
+        TDigestState state = new TDigestState(in.readDouble());
+        int numCentroids = in.readVInt();
+        for (int i = 0; i < numCentroids; i++) {
+            state.add(in.readDouble(), in.readVInt());
+        }
+        return state;
+    }
+}
@@ -33,6 +33,7 @@ public class CollectOperationModule extends AbstractModule {
         bind(UnassignedShardsCollectSource.class).asEagerSingleton();
 
         bind(StatsTables.class).asEagerSingleton();
+        bind(ShardResultCache.class).asEagerSingleton();
         bind(SystemCollectSource.class).asEagerSingleton();
     }
 }
@@ -32,6 +32,8 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.AbstractExecutionSubContext;
 import io.crate.jobs.ExecutionState;
 import io.crate.jobs.KeepAliveListener;
+import io.crate.operation.profile.PhaseProfile;
+import io.crate.operation.profile.ProfilingCollector;
 import io.crate.operation.projectors.ListenableRowReceiver;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.projectors.RowReceivers;
@@ -40,7 +42,9 @@ import org.elasticsearch.common.StopWatch;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 
 public class JobCollectContext extends AbstractExecutionSubContext implements ExecutionState {
@@ -67,6 +71,7 @@ public class JobCollectContext extends AbstractExecutionSubContext implements Ex
         this.collectOperation = collectOperation;
         this.queryPhaseRamAccountingContext = queryPhaseRamAccountingContext;
         this.sharedShardContexts = sharedShardContexts;
+        progress.ramAccountingContext(queryPhaseRamAccountingContext);
 
         listenableRowReceiver = RowReceivers.listenableRowReceiver(rowReceiver);
         Futures.addCallback(listenableRowReceiver.finishFuture(), new FutureCallback<Void>() {
@@ -159,7 +164,14 @@ public class JobCollectContext extends AbstractExecutionSubContext implements Ex
     @Override
     protected void innerPrepare() {
         collectors = collectOperation.createCollectors(collectPhase, rowReceiver, this);
-
+        PhaseProfile profile = queryPhaseRamAccountingContext.profile();
+        if (profile != null) {
+            List<CrateCollector> profilingCollectors = new ArrayList<>(collectors.size());
+            for (CrateCollector collector : collectors) {
+                profilingCollectors.add(new ProfilingCollector(collector, profile));
+            }
+            collectors = profilingCollectors;
+        }
     }
 
     @Override
@@ -21,11 +21,15 @@
 
 package io.crate.operation.collect;
 
+import com.google.common.base.Function;
+import io.crate.Constants;
 import io.crate.action.job.SharedShardContext;
 import io.crate.action.sql.query.CrateSearchContext;
 import io.crate.action.sql.query.LuceneSortGenerator;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.blob.v2.BlobIndices;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.lucene.CrateDocIndexService;
 import io.crate.metadata.Functions;
@@ -33,19 +37,35 @@ import io.crate.metadata.NestedReferenceResolver;
 import io.crate.metadata.ScoreReferenceDetector;
 import io.crate.metadata.shard.ShardReferenceResolver;
 import io.crate.metadata.shard.blob.BlobShardReferenceResolver;
+import io.crate.operation.AggregationContext;
 import io.crate.operation.ImplementationSymbolVisitor;
 import io.crate.operation.Input;
+import io.crate.operation.InputRow;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.MaximumAggregation;
+import io.crate.operation.aggregation.impl.MinimumAggregation;
 import io.crate.operation.collect.blobs.BlobDocCollector;
+import io.crate.operation.collect.collectors.CachedResultCollector;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import io.crate.operation.collect.collectors.CrateDocCollector;
+import io.crate.operation.collect.collectors.IndexMetadataAggregationCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
+import io.crate.operation.collect.collectors.TopNThreshold;
+import io.crate.operation.collect.collectors.OrdinalGroupingCollector;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.projectors.ShardProjectorChain;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.dql.CollectPhase;
-import io.crate.planner.symbol.Literal;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.DeleteProjection;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.*;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
@@ -54,18 +74,27 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 @Singleton
 public class ShardCollectService {
 
     private static final ESLogger LOGGER = Loggers.getLogger(ShardCollectService.class);
+    private static final String[] DEFAULT_MAPPING_TYPES = new String[]{Constants.DEFAULT_MAPPING_TYPE};
 
     private final CollectInputSymbolVisitor<?> docInputSymbolVisitor;
     private final SearchContextFactory searchContextFactory;
@@ -79,6 +108,7 @@ public class ShardCollectService {
     private final BlobIndices blobIndices;
     private final MapperService mapperService;
     private final IndexFieldDataService indexFieldDataService;
+    private final ShardResultCache resultCache;
 
     @Inject
     public ShardCollectService(SearchContextFactory searchContextFactory,
@@ -94,7 +124,8 @@ public class ShardCollectService {
                                MapperService mapperService,
                                IndexFieldDataService indexFieldDataService,
                                BlobShardReferenceResolver blobShardReferenceResolver,
-                               CrateDocIndexService crateDocIndexService) {
+                               CrateDocIndexService crateDocIndexService,
+                               ShardResultCache resultCache) {
         this.searchContextFactory = searchContextFactory;
         this.threadPool = threadPool;
         this.clusterService = clusterService;
@@ -102,6 +133,7 @@ public class ShardCollectService {
         this.blobIndices = blobIndices;
         this.mapperService = mapperService;
         this.indexFieldDataService = indexFieldDataService;
+        this.resultCache = resultCache;
         isBlobShard = BlobIndices.isBlobShard(this.shardId);
 
         NestedReferenceResolver shardResolver = isBlobShard ? blobShardReferenceResolver : referenceResolver;
@@ -193,11 +225,25 @@ public class ShardCollectService {
                                                    final ShardProjectorChain projectorChain,
                                                    final JobCollectContext jobCollectContext) throws Exception {
         SharedShardContext sharedShardContext = jobCollectContext.sharedShardContexts().getOrCreateContext(shardId);
-        Engine.Searcher searcher = sharedShardContext.searcher();
         IndexShard indexShard = sharedShardContext.indexShard();
+        if (isDelete(collectNode)) {
+            // a delete has to match all documents written before, not only the ones visible after the last refresh
+            indexShard.refresh("crate_delete");
+        }
+        Engine.Searcher searcher = sharedShardContext.searcher();
         CrateSearchContext searchContext = null;
         try {
-             searchContext = searchContextFactory.createContext(
+            ShardResultCache.Key cacheKey = resultCache.key(shardId, searcher.reader(), collectNode);
+            if (cacheKey != null) {
+                Bucket cachedResult = resultCache.get(cacheKey);
+                if (cachedResult != null) {
+                    CrateCollector collector = new CachedResultCollector(
+                            cachedResult, projectorChain.newShardDownstreamWithoutShardProjections());
+                    searcher.close();
+                    return collector;
+                }
+            }
+            searchContext = searchContextFactory.createContext(
                     sharedShardContext.readerId(),
                     indexShard,
                     searcher,
@@ -207,12 +253,41 @@ public class ShardCollectService {
             CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.extractImplementations(collectNode);
             Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
 
+            IndexOrdinalsFieldData keyFieldData = ordinalGroupingKeyFieldData(collectNode);
+            if (keyFieldData != null) {
+                return createOrdinalGroupingCollector(
+                        collectNode,
+                        recordResult(cacheKey, collectNode, projectorChain.newShardDownstreamWithoutShardProjections()),
+                        jobCollectContext, searchContext, docCtx, executor, keyFieldData);
+            }
+            List<IndexMetadataAggregationCollector.MetadataAggregation> metadataAggregations =
+                    indexMetadataAggregations(collectNode);
+            if (metadataAggregations != null) {
+                return new IndexMetadataAggregationCollector(
+                        searchContext.searcher().getIndexReader(),
+                        jobCollectContext.keepAliveListener(),
+                        recordResult(cacheKey, collectNode, projectorChain.newShardDownstreamWithoutShardProjections()),
+                        metadataAggregations);
+            }
+            RowReceiver downstream;
+            if (cacheKey == null) {
+                downstream = projectorChain.newShardDownstreamProjector(projectorVisitor);
+            } else {
+                final ShardResultCache.Key key = cacheKey;
+                downstream = projectorChain.newShardDownstreamProjector(projectorVisitor,
+                        new Function<RowReceiver, RowReceiver>() {
+                            @Override
+                            public RowReceiver apply(RowReceiver input) {
+                                return resultCache.recordingReceiver(key, collectNode, input);
+                            }
+                        });
+            }
             return new CrateDocCollector(
                     searchContext,
                     executor,
                     jobCollectContext.keepAliveListener(),
                     jobCollectContext.queryPhaseRamAccountingContext(),
-                    projectorChain.newShardDownstreamProjector(projectorVisitor),
+                    downstream,
                     docCtx.topLevelInputs(),
                     docCtx.docLevelExpressions()
             );
@@ -226,9 +301,168 @@ public class ShardCollectService {
         }
     }
 
+    private static boolean isDelete(CollectPhase collectPhase) {
+        for (Projection projection : collectPhase.projections()) {
+            if (projection instanceof DeleteProjection) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RowReceiver recordResult(@Nullable ShardResultCache.Key cacheKey,
+                                     CollectPhase collectPhase,
+                                     RowReceiver rowReceiver) {
+        if (cacheKey == null) {
+            return rowReceiver;
+        }
+        return resultCache.recordingReceiver(cacheKey, collectPhase, rowReceiver);
+    }
+
+    /**
+     * @return true if the shard level grouping of the collectPhase can be done using the ordinals
+     *         of the grouping key on this shard
+     */
+    public boolean canGroupByOrdinals(CollectPhase collectPhase) {
+        return !isBlobShard && ordinalGroupingKeyFieldData(collectPhase) != null;
+    }
+
+    /**
+     * returns the ordinals field data of the grouping key if the first projection is a shard level
+     * group projection on a single string column, otherwise null.
+     */
+    @Nullable
+    private IndexOrdinalsFieldData ordinalGroupingKeyFieldData(CollectPhase collectPhase) {
+        if (!collectPhase.hasProjections()) {
+            return null;
+        }
+        Projection projection = collectPhase.projections().get(0);
+        if (!(projection instanceof GroupProjection) || projection.requiredGranularity() != RowGranularity.SHARD) {
+            return null;
+        }
+        List<Symbol> keys = ((GroupProjection) projection).keys();
+        if (keys.size() != 1 || !(keys.get(0) instanceof InputColumn)) {
+            return null;
+        }
+        Symbol key = collectPhase.toCollect().get(((InputColumn) keys.get(0)).index());
+        if (!(key instanceof Reference) || !key.valueType().equals(DataTypes.STRING)) {
+            return null;
+        }
+        FieldMapper mapper = mapperService.smartNameFieldMapper(
+                ((Reference) key).info().ident().columnIdent().fqn(), DEFAULT_MAPPING_TYPES);
+        if (mapper == null) {
+            return null;
+        }
+        IndexFieldData<?> fieldData = indexFieldDataService.getForField(mapper);
+        if (fieldData instanceof IndexOrdinalsFieldData) {
+            return (IndexOrdinalsFieldData) fieldData;
+        }
+        return null;
+    }
+
+    private CrateCollector createOrdinalGroupingCollector(CollectPhase collectPhase,
+                                                          RowReceiver downstream,
+                                                          JobCollectContext jobCollectContext,
+                                                          CrateSearchContext searchContext,
+                                                          CollectInputSymbolVisitor.Context docCtx,
+                                                          Executor executor,
+                                                          IndexOrdinalsFieldData keyFieldData) {
+        GroupProjection groupProjection = (GroupProjection) collectPhase.projections().get(0);
+        ImplementationSymbolVisitor.Context aggregationCtx = new ImplementationSymbolVisitor.Context();
+        for (Aggregation aggregation : groupProjection.values()) {
+            shardImplementationSymbolVisitor.process(aggregation, aggregationCtx);
+        }
+        RamAccountingContext ramAccountingContext = jobCollectContext.queryPhaseRamAccountingContext();
+        AggregationContext[] aggregations = aggregationCtx.aggregations();
+        Aggregator[] aggregators = new Aggregator[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            aggregators[i] = new Aggregator(
+                    ramAccountingContext,
+                    aggregations[i].symbol(),
+                    aggregations[i].function(),
+                    aggregations[i].inputs()
+            );
+        }
+        return new OrdinalGroupingCollector(
+                searchContext,
+                executor,
+                jobCollectContext.keepAliveListener(),
+                ramAccountingContext,
+                downstream,
+                new CollectorContext(
+                        mapperService,
+                        indexFieldDataService,
+                        new CollectorFieldsVisitor(docCtx.docLevelExpressions().size()),
+                        (int) searchContext.id()),
+                new InputRow(docCtx.topLevelInputs()),
+                docCtx.docLevelExpressions(),
+                keyFieldData,
+                aggregationCtx.collectExpressions().toArray(new CollectExpression[aggregationCtx.collectExpressions().size()]),
+                aggregators
+        );
+    }
+
+    /**
+     * returns the aggregations of the first projection if it is a shard level aggregation projection
+     * whose partial results can be computed from the index metadata, otherwise null.
+     */
+    @Nullable
+    private List<IndexMetadataAggregationCollector.MetadataAggregation> indexMetadataAggregations(CollectPhase collectPhase) {
+        if (!collectPhase.hasProjections() || collectPhase.whereClause().hasQuery()) {
+            return null;
+        }
+        Projection projection = collectPhase.projections().get(0);
+        if (!(projection instanceof AggregationProjection) || projection.requiredGranularity() != RowGranularity.SHARD) {
+            return null;
+        }
+        List<Aggregation> aggregations = ((AggregationProjection) projection).aggregations();
+        List<IndexMetadataAggregationCollector.MetadataAggregation> metadataAggregations = new ArrayList<>(aggregations.size());
+        for (Aggregation aggregation : aggregations) {
+            String name = aggregation.functionIdent().name();
+            if (name.equals(CountAggregation.NAME) && aggregation.inputs().isEmpty()) {
+                metadataAggregations.add(new IndexMetadataAggregationCollector.CountStar());
+                continue;
+            }
+            boolean max = name.equals(MaximumAggregation.NAME);
+            if ((!max && !name.equals(MinimumAggregation.NAME))
+                || aggregation.inputs().size() != 1
+                || !(aggregation.inputs().get(0) instanceof InputColumn)) {
+                return null;
+            }
+            Symbol column = collectPhase.toCollect().get(((InputColumn) aggregation.inputs().get(0)).index());
+            DataType dataType = column.valueType();
+            if (!(column instanceof Reference)
+                || !(DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(dataType) || dataType.equals(DataTypes.TIMESTAMP))) {
+                return null;
+            }
+            FieldMapper mapper = mapperService.smartNameFieldMapper(
+                    ((Reference) column).info().ident().columnIdent().fqn(), DEFAULT_MAPPING_TYPES);
+            if (!(mapper instanceof NumberFieldMapper) || !mapper.fieldType().indexed()) {
+                return null;
+            }
+            IndexFieldData<?> fieldData = indexFieldDataService.getForField(mapper);
+            if (!(fieldData instanceof IndexNumericFieldData)) {
+                return null;
+            }
+            boolean floatingPoint = dataType.equals(DataTypes.DOUBLE) || dataType.equals(DataTypes.FLOAT);
+            boolean is64Bit = dataType.equals(DataTypes.DOUBLE)
+                              || dataType.equals(DataTypes.LONG)
+                              || dataType.equals(DataTypes.TIMESTAMP);
+            metadataAggregations.add(new IndexMetadataAggregationCollector.NumericMinMax(
+                    mapper.names().indexName(),
+                    dataType,
+                    (IndexNumericFieldData) fieldData,
+                    max,
+                    is64Bit,
+                    floatingPoint));
+        }
+        return metadataAggregations;
+    }
+
     public OrderedDocCollector getOrderedCollector(CollectPhase collectPhase,
                                                 SharedShardContext sharedShardContext,
-                                                JobCollectContext jobCollectContext) {
+                                                JobCollectContext jobCollectContext,
+                                                @Nullable TopNThreshold threshold) {
         collectPhase = collectPhase.normalize(shardNormalizer);
 
         CrateSearchContext searchContext = null;
@@ -271,7 +505,8 @@ public class ShardCollectService {
                 collectPhase.orderBy(),
                 LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputSymbolVisitor),
                 ctx.topLevelInputs(),
-                ctx.docLevelExpressions()
+                ctx.docLevelExpressions(),
+                threshold
         );
     }
 }
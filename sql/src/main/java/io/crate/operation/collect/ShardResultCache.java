@@ -0,0 +1,460 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import io.crate.Streamer;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.projectors.ForwardingRowReceiver;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.dql.CollectPhase;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.Symbols;
+import io.crate.types.DataTypes;
+import jsr166e.LongAdder;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Node level cache for the partial results of shard level aggregations and groupings.
+ *
+ * Entries are keyed by the shard, the version of the index reader the result was computed from and
+ * the normalized collect phase (collected symbols, where clause and shard projection).
+ * Any change of the shard results in a new reader version, so outdated entries are never hit.
+ * They are removed once a result of a newer reader version is stored and if the shard is closed.
+ *
+ * The cache is disabled unless <code>query_result_cache.size</code> is set.
+ * Entries are evicted in LRU order if the size is exceeded and their bytes are accounted
+ * to the query circuit breaker. A result which would trip the breaker is not cached.
+ */
+@Singleton
+public class ShardResultCache extends AbstractComponent {
+
+    public static final String SIZE_SETTING = "query_result_cache.size";
+    public static final String DEFAULT_SIZE = "0b";
+
+    private static final String BREAKER_LABEL = "query_result_cache";
+    // results larger than 1/10 of the cache size are not cached
+    private static final int MAX_ENTRY_FRACTION = 10;
+    // estimate for the key, map entry and bucket objects of an entry
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final long maxSizeInBytes;
+    private final CircuitBreakerService breakerService;
+    private final ConcurrentMap<ShardId, ShardStats> shardStats = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private final LinkedHashMap<Key, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes = 0L;
+
+    @Inject
+    public ShardResultCache(Settings settings, CrateCircuitBreakerService breakerService, IndicesService indicesService) {
+        this(settings, (CircuitBreakerService) breakerService);
+        indicesService.indicesLifecycle().addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void afterIndexShardClosed(ShardId shardId,
+                                              @Nullable IndexShard indexShard,
+                                              @IndexSettings Settings indexSettings) {
+                clear(shardId);
+            }
+        });
+    }
+
+    ShardResultCache(Settings settings, CircuitBreakerService breakerService) {
+        super(settings);
+        this.breakerService = breakerService;
+        this.maxSizeInBytes = settings.getAsMemory(SIZE_SETTING, DEFAULT_SIZE).bytes();
+    }
+
+    public boolean enabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    /**
+     * Creates the key for the result of the given collect phase on a shard.
+     *
+     * @param collectPhase the collect phase normalized on the shard
+     * @return the key or null if the cache is disabled or the result of the collect phase can't be cached.
+     *         Results are cached if the phase has exactly one shard projection which is an aggregation or grouping,
+     *         all used functions are deterministic and the reader is a {@link DirectoryReader}.
+     */
+    @Nullable
+    public Key key(ShardId shardId, IndexReader reader, CollectPhase collectPhase) {
+        if (!enabled() || !(reader instanceof DirectoryReader) || !isCacheable(collectPhase)) {
+            return null;
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        try {
+            out.writeVInt(collectPhase.toCollect().size());
+            for (Symbol symbol : collectPhase.toCollect()) {
+                Symbol.toStream(symbol, out);
+            }
+            collectPhase.whereClause().writeTo(out);
+            Projection.toStream(collectPhase.projections().get(0), out);
+        } catch (IOException e) {
+            logger.debug("could not create result cache key for {}", e, shardId);
+            return null;
+        }
+        return new Key(shardId, ((DirectoryReader) reader).getVersion(), new BytesArray(out.bytes().toBytes()));
+    }
+
+    private static boolean isCacheable(CollectPhase collectPhase) {
+        List<Projection> projections = collectPhase.projections();
+        if (projections.isEmpty()) {
+            return false;
+        }
+        Projection projection = projections.get(0);
+        if (projection.requiredGranularity() != RowGranularity.SHARD
+            || !(projection instanceof AggregationProjection || projection instanceof GroupProjection)) {
+            return false;
+        }
+        if (projections.size() > 1 && projections.get(1).requiredGranularity() == RowGranularity.SHARD) {
+            return false;
+        }
+        for (Symbol symbol : collectPhase.toCollect()) {
+            if (!Symbols.isDeterministic(symbol)) {
+                return false;
+            }
+        }
+        return !collectPhase.whereClause().hasQuery() || Symbols.isDeterministic(collectPhase.whereClause().query());
+    }
+
+    /**
+     * @return the cached result or null. Every call is counted as hit or miss of the shard.
+     */
+    @Nullable
+    public Bucket get(Key key) {
+        CachedResult result;
+        synchronized (this) {
+            result = entries.get(key);
+        }
+        ShardStats stats = shardStats(key.shardId);
+        if (result == null) {
+            stats.misses.increment();
+            return null;
+        }
+        stats.hits.increment();
+        return result.bucket;
+    }
+
+    /**
+     * Returns a RowReceiver which forwards the rows emitted by the shard projection of the collect phase
+     * to the given receiver and stores them in the cache once the upstream finished, if the receiver
+     * consumed all rows.
+     */
+    public RowReceiver recordingReceiver(Key key, CollectPhase collectPhase, RowReceiver rowReceiver) {
+        Streamer<?>[] streamers = DataTypes.getStreamer(Symbols.extractTypes(collectPhase.projections().get(0).outputs()));
+        return new RecordingRowReceiver(key, streamers, rowReceiver);
+    }
+
+    public ShardStats stats(ShardId shardId) {
+        ShardStats stats = shardStats.get(shardId);
+        return stats == null ? ShardStats.EMPTY : stats;
+    }
+
+    private ShardStats shardStats(ShardId shardId) {
+        ShardStats stats = shardStats.get(shardId);
+        if (stats == null) {
+            stats = new ShardStats();
+            ShardStats existing = shardStats.putIfAbsent(shardId, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    private void put(Key key, StreamBucket bucket) {
+        long bytes = bucket.sizeInBytes() + key.phase.length() + ENTRY_OVERHEAD;
+        if (bytes > maxSizeInBytes / MAX_ENTRY_FRACTION) {
+            return;
+        }
+        CircuitBreaker breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(bytes, BREAKER_LABEL);
+        } catch (CircuitBreakingException e) {
+            logger.trace("not caching result of {}, circuit breaker would trip", key.shardId);
+            return;
+        }
+        long released = 0L;
+        synchronized (this) {
+            // read under the lock, so that the entry can't be added to the stats of a shard which is cleared meanwhile
+            ShardStats stats = shardStats(key.shardId);
+            if (key.readerVersion < stats.readerVersion) {
+                // computed from a reader which has been replaced meanwhile
+                released = bytes;
+            } else {
+                if (key.readerVersion > stats.readerVersion) {
+                    released += removeShardEntries(stats);
+                    stats.readerVersion = key.readerVersion;
+                }
+                CachedResult previous = entries.put(key, new CachedResult(bucket, bytes));
+                if (previous == null) {
+                    stats.keys.add(key);
+                } else {
+                    released += previous.sizeInBytes;
+                    sizeInBytes -= previous.sizeInBytes;
+                    stats.sizeInBytes -= previous.sizeInBytes;
+                }
+                sizeInBytes += bytes;
+                stats.sizeInBytes += bytes;
+                released += evict();
+            }
+        }
+        if (released > 0) {
+            breaker.addWithoutBreaking(-released);
+        }
+    }
+
+    /**
+     * removes the least recently used entries until the size is within the limit
+     */
+    private long evict() {
+        long released = 0L;
+        Iterator<Map.Entry<Key, CachedResult>> it = entries.entrySet().iterator();
+        while (sizeInBytes > maxSizeInBytes && it.hasNext()) {
+            Map.Entry<Key, CachedResult> entry = it.next();
+            it.remove();
+            released += removed(entry.getKey(), entry.getValue());
+        }
+        return released;
+    }
+
+    private long removeShardEntries(ShardStats stats) {
+        long released = 0L;
+        for (Key key : stats.keys.toArray(new Key[stats.keys.size()])) {
+            CachedResult result = entries.remove(key);
+            if (result != null) {
+                released += removed(key, result);
+            }
+        }
+        return released;
+    }
+
+    private long removed(Key key, CachedResult result) {
+        sizeInBytes -= result.sizeInBytes;
+        ShardStats stats = shardStats.get(key.shardId);
+        if (stats != null) {
+            stats.keys.remove(key);
+            stats.sizeInBytes -= result.sizeInBytes;
+        }
+        return result.sizeInBytes;
+    }
+
+    /**
+     * removes all entries and the stats of the shard
+     */
+    public void clear(ShardId shardId) {
+        long released = 0L;
+        synchronized (this) {
+            ShardStats stats = shardStats.remove(shardId);
+            if (stats == null) {
+                return;
+            }
+            for (Key key : stats.keys) {
+                CachedResult result = entries.remove(key);
+                if (result != null) {
+                    sizeInBytes -= result.sizeInBytes;
+                    released += result.sizeInBytes;
+                }
+            }
+            stats.keys.clear();
+            stats.sizeInBytes = 0L;
+        }
+        if (released > 0) {
+            breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER).addWithoutBreaking(-released);
+        }
+    }
+
+    synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public static class Key {
+
+        private final ShardId shardId;
+        private final long readerVersion;
+        private final BytesReference phase;
+
+        Key(ShardId shardId, long readerVersion, BytesReference phase) {
+            this.shardId = shardId;
+            this.readerVersion = readerVersion;
+            this.phase = phase;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return readerVersion == key.readerVersion && shardId.equals(key.shardId) && phase.equals(key.phase);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shardId.hashCode();
+            result = 31 * result + (int) (readerVersion ^ (readerVersion >>> 32));
+            result = 31 * result + phase.hashCode();
+            return result;
+        }
+    }
+
+    public static class ShardStats {
+
+        static final ShardStats EMPTY = new ShardStats();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        // guarded by the cache
+        private final Set<Key> keys = new HashSet<>();
+        private long readerVersion = -1L;
+        private volatile long sizeInBytes = 0L;
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        /**
+         * @return the ratio of lookups which were served from the cache or null if there was no lookup yet
+         */
+        @Nullable
+        public Double hitRatio() {
+            long hits = hits();
+            long lookups = hits + misses();
+            if (lookups == 0) {
+                return null;
+            }
+            return (double) hits / lookups;
+        }
+
+        public long sizeInBytes() {
+            return sizeInBytes;
+        }
+    }
+
+    private static class CachedResult {
+
+        private final StreamBucket bucket;
+        private final long sizeInBytes;
+
+        CachedResult(StreamBucket bucket, long sizeInBytes) {
+            this.bucket = bucket;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
+    private class RecordingRowReceiver extends ForwardingRowReceiver {
+
+        private final Key key;
+        private final long maxEntrySize;
+        private StreamBucket.Builder builder;
+        private boolean finished = false;
+
+        RecordingRowReceiver(Key key, Streamer<?>[] streamers, RowReceiver rowReceiver) {
+            super(rowReceiver);
+            this.key = key;
+            this.maxEntrySize = maxSizeInBytes / MAX_ENTRY_FRACTION;
+            this.builder = new StreamBucket.Builder(streamers);
+        }
+
+        @Override
+        public boolean setNextRow(Row row) {
+            if (!finished && builder != null) {
+                try {
+                    builder.add(row);
+                    if (builder.sizeInBytes() > maxEntrySize) {
+                        builder = null;
+                    }
+                } catch (IOException e) {
+                    builder = null;
+                }
+            }
+            boolean wantMore = super.setNextRow(row);
+            if (!wantMore) {
+                // the result is incomplete
+                builder = null;
+            }
+            return wantMore;
+        }
+
+        @Override
+        public void finish() {
+            if (!finished) {
+                finished = true;
+                if (builder != null) {
+                    try {
+                        put(key, builder.build());
+                    } catch (Throwable t) {
+                        logger.debug("could not cache result of {}", t, key.shardId);
+                    }
+                    builder = null;
+                }
+            }
+            super.finish();
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            finished = true;
+            builder = null;
+            super.fail(throwable);
+        }
+    }
+}
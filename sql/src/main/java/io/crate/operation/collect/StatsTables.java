@@ -21,14 +21,19 @@
 
 package io.crate.operation.collect;
 
-import io.crate.core.collections.BlockingEvictingQueue;
+import com.google.common.cache.CacheBuilder;
 import io.crate.core.collections.NoopQueue;
+import io.crate.core.collections.RingBuffer;
+import io.crate.jobs.ExecutionProgress;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
+import io.crate.operation.reference.sys.job.LatencyHistogram;
+import io.crate.operation.reference.sys.job.StatementClassifier;
 import io.crate.operation.reference.sys.operation.OperationContext;
 import io.crate.operation.reference.sys.operation.OperationContextLog;
 import jsr166e.LongAdder;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
@@ -36,11 +41,13 @@ import org.elasticsearch.node.settings.NodeSettingsService;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -49,23 +56,35 @@ import java.util.concurrent.atomic.AtomicReference;
  *
  * injected via guice instead of using static so that if two nodes run
  * in the same jvm the memoryTables aren't shared between the nodes.
+ *
+ * The logs are {@link RingBuffer}s so that finishing a job or operation never blocks.
+ * Latencies of finished jobs are additionally recorded in a {@link LatencyHistogram}
+ * per statement type and per statement type and table. The number of histograms is bound by the
+ * jobs log size and {@link #MAX_LATENCY_HISTOGRAMS}, the least recently used ones are evicted.
  */
 @ThreadSafe
 @Singleton
 public class StatsTables {
 
-    private final static BlockingQueue<OperationContextLog> NOOP_OPERATIONS_LOG = NoopQueue.instance();
-    private final static BlockingQueue<JobContextLog> NOOP_JOBS_LOG = NoopQueue.instance();
+    private final static Collection<OperationContextLog> NOOP_OPERATIONS_LOG = NoopQueue.instance();
+    private final static Collection<JobContextLog> NOOP_JOBS_LOG = NoopQueue.instance();
+
+    /**
+     * a histogram takes up to 57KB
+     */
+    static final int MAX_LATENCY_HISTOGRAMS = 256;
 
     protected final Map<UUID, JobContext> jobsTable = new ConcurrentHashMap<>();
     protected final Map<Integer, OperationContext> operationsTable = new ConcurrentHashMap<>();
-    protected final AtomicReference<BlockingQueue<JobContextLog>> jobsLog = new AtomicReference<>(NOOP_JOBS_LOG);
-    protected final AtomicReference<BlockingQueue<OperationContextLog>> operationsLog = new AtomicReference<>(NOOP_OPERATIONS_LOG);
+    protected final AtomicReference<Collection<JobContextLog>> jobsLog = new AtomicReference<>(NOOP_JOBS_LOG);
+    protected final AtomicReference<Collection<OperationContextLog>> operationsLog = new AtomicReference<>(NOOP_OPERATIONS_LOG);
+    protected volatile ConcurrentMap<Tuple<String, String>, LatencyHistogram> jobsLatencies = newJobsLatencies(0);
 
     private final JobsLogIterableGetter jobsLogIterableGetter;
     private final JobsIterableGetter jobsIterableGetter;
     private final OperationsIterableGetter operationsIterableGetter;
     private final OperationsLogIterableGetter operationsLogIterableGetter;
+    private final JobsLatenciesIterableGetter jobsLatenciesIterableGetter;
 
     protected final NodeSettingsService.Listener listener = new NodeSettingListener();
     protected volatile int lastOperationsLogSize;
@@ -109,6 +128,7 @@ public class StatsTables {
         jobsIterableGetter = new JobsIterableGetter();
         operationsIterableGetter = new OperationsIterableGetter();
         operationsLogIterableGetter = new OperationsLogIterableGetter();
+        jobsLatenciesIterableGetter = new JobsLatenciesIterableGetter();
     }
 
     /**
@@ -138,6 +158,17 @@ public class StatsTables {
      * If {@link #isEnabled()} is false this method won't do anything.
      */
     public void jobFinished(UUID jobId, @Nullable String errorMessage) {
+        jobFinished(jobId, errorMessage, null);
+    }
+
+    /**
+     * mark a job as finished and record its latency if the statement has been classified.
+     *
+     * If {@link #isEnabled()} is false this method won't do anything.
+     */
+    public void jobFinished(UUID jobId,
+                            @Nullable String errorMessage,
+                            @Nullable StatementClassifier.Classification classification) {
         if (!isEnabled()) {
             return;
         }
@@ -145,15 +176,40 @@ public class StatsTables {
         if (jobContext == null) {
             return;
         }
-        Queue<JobContextLog> jobContextLogs = jobsLog.get();
-        jobContextLogs.offer(new JobContextLog(jobContext, errorMessage));
+        JobContextLog jobContextLog = new JobContextLog(jobContext, errorMessage);
+        jobsLog.get().add(jobContextLog);
+        if (classification != null) {
+            long latency = jobContextLog.ended() - jobContextLog.started();
+            latencyHistogram(classification.type(), null).record(jobContextLog.ended(), latency);
+            for (String table : classification.tables()) {
+                latencyHistogram(classification.type(), table).record(jobContextLog.ended(), latency);
+            }
+        }
+    }
+
+    private LatencyHistogram latencyHistogram(String statementType, @Nullable String tableName) {
+        ConcurrentMap<Tuple<String, String>, LatencyHistogram> latencies = jobsLatencies;
+        Tuple<String, String> key = new Tuple<>(statementType, tableName);
+        LatencyHistogram histogram = latencies.get(key);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(statementType, tableName);
+            LatencyHistogram existing = latencies.putIfAbsent(key, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
     }
 
     public void operationStarted(int operationId, UUID jobId, String name) {
+        operationStarted(operationId, jobId, name, null);
+    }
+
+    public void operationStarted(int operationId, UUID jobId, String name, @Nullable ExecutionProgress progress) {
         if (isEnabled()) {
             operationsTable.put(
                     operationId,
-                    new OperationContext(operationId, jobId, name, System.currentTimeMillis()));
+                    new OperationContext(operationId, jobId, name, System.currentTimeMillis(), progress));
         }
     }
 
@@ -168,8 +224,7 @@ public class StatsTables {
             return;
         }
         operationContext.usedBytes = usedBytes;
-        Queue<OperationContextLog> operationContextLogs = operationsLog.get();
-        operationContextLogs.offer(new OperationContextLog(operationContext, errorMessage));
+        operationsLog.get().add(new OperationContextLog(operationContext, errorMessage));
     }
 
 
@@ -189,6 +244,10 @@ public class StatsTables {
         return operationsLogIterableGetter;
     }
 
+    public IterableGetter jobsLatenciesGetter() {
+        return jobsLatenciesIterableGetter;
+    }
+
     private class JobsLogIterableGetter implements IterableGetter {
 
         @Override
@@ -221,28 +280,58 @@ public class StatsTables {
         }
     }
 
+    private class JobsLatenciesIterableGetter implements IterableGetter {
+
+        @Override
+        public Iterable<?> getIterable() {
+            long now = System.currentTimeMillis();
+            List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>();
+            for (LatencyHistogram histogram : jobsLatencies.values()) {
+                for (int windowMinutes : LatencyHistogram.WINDOW_MINUTES) {
+                    LatencyHistogram.Snapshot snapshot = histogram.snapshot(now, windowMinutes);
+                    if (snapshot.count() > 0) {
+                        snapshots.add(snapshot);
+                    }
+                }
+            }
+            return snapshots;
+        }
+    }
+
     private void setOperationsLog(int size) {
         if (size == 0) {
             operationsLog.set(NOOP_OPERATIONS_LOG);
         } else {
-            Queue<OperationContextLog> oldQ = operationsLog.get();
-            BlockingEvictingQueue<OperationContextLog> newQ = new BlockingEvictingQueue<>(size);
-            newQ.addAll(oldQ);
-            operationsLog.set(newQ);
+            Collection<OperationContextLog> oldLog = operationsLog.get();
+            RingBuffer<OperationContextLog> newLog = new RingBuffer<>(size);
+            newLog.addAll(oldLog);
+            operationsLog.set(newLog);
         }
     }
 
     private void setJobsLog(int size) {
         if (size == 0) {
             jobsLog.set(NOOP_JOBS_LOG);
+            jobsLatencies = newJobsLatencies(0);
         } else {
-            Queue<JobContextLog> oldQ = jobsLog.get();
-            BlockingEvictingQueue<JobContextLog> newQ = new BlockingEvictingQueue<>(size);
-            newQ.addAll(oldQ);
-            jobsLog.set(newQ);
+            Collection<JobContextLog> oldLog = jobsLog.get();
+            RingBuffer<JobContextLog> newLog = new RingBuffer<>(size);
+            newLog.addAll(oldLog);
+            jobsLog.set(newLog);
+
+            ConcurrentMap<Tuple<String, String>, LatencyHistogram> newLatencies = newJobsLatencies(size);
+            newLatencies.putAll(jobsLatencies);
+            jobsLatencies = newLatencies;
         }
     }
 
+    private static ConcurrentMap<Tuple<String, String>, LatencyHistogram> newJobsLatencies(int jobsLogSize) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(Math.min(jobsLogSize, MAX_LATENCY_HISTOGRAMS))
+                .<Tuple<String, String>, LatencyHistogram>build()
+                .asMap();
+    }
+
     private class NodeSettingListener implements NodeSettingsService.Listener {
 
         @Override
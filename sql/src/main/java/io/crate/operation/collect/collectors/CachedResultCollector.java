@@ -0,0 +1,61 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.collectors;
+
+import io.crate.core.collections.Bucket;
+import io.crate.jobs.ExecutionState;
+import io.crate.operation.collect.CrateCollector;
+import io.crate.operation.collect.ShardResultCache;
+import io.crate.operation.projectors.IterableRowEmitter;
+import io.crate.operation.projectors.RowReceiver;
+
+import javax.annotation.Nullable;
+
+/**
+ * Collector which emits the result of the shard projection of a collect phase from the
+ * {@link ShardResultCache} instead of collecting the documents of the shard.
+ */
+public class CachedResultCollector implements CrateCollector, ExecutionState {
+
+    private final IterableRowEmitter emitter;
+    private volatile boolean killed = false;
+
+    public CachedResultCollector(Bucket cachedResult, RowReceiver rowReceiver) {
+        this.emitter = new IterableRowEmitter(rowReceiver, this, cachedResult);
+    }
+
+    @Override
+    public void doCollect() {
+        emitter.run();
+    }
+
+    @Override
+    public void kill(@Nullable Throwable throwable) {
+        killed = true;
+    }
+
+    @Override
+    public boolean isKilled() {
+        return killed;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.jobs.ExecutionState;
+import io.crate.jobs.KeepAliveListener;
+import io.crate.operation.Input;
+import io.crate.operation.InputRow;
+import io.crate.operation.collect.CrateCollector;
+import io.crate.operation.projectors.IterableRowEmitter;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.types.DataType;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Collector which computes the partial results of global aggregations on a shard from
+ * index metadata instead of iterating over all matching documents.
+ *
+ * Used if the query matches all documents of the shard (no query or a query on partition columns only)
+ * and all aggregations are one of:
+ *
+ * <ul>
+ *     <li>count(*) - taken from the number of live documents of every segment</li>
+ *     <li>min(numericColumn) / max(numericColumn) - taken from the terms dictionary of every segment</li>
+ * </ul>
+ *
+ * The terms dictionary still contains the values of deleted documents, so segments with deletions
+ * are scanned using the field data of the column.
+ *
+ * Emits a single row in the form of: [partialAggState1, partialAggState2, ...]
+ */
+public class IndexMetadataAggregationCollector implements CrateCollector, ExecutionState {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(IndexMetadataAggregationCollector.class);
+
+    private static final int KEEP_ALIVE_AFTER_DOCS = 1_000_000;
+
+    private final IndexReader indexReader;
+    private final KeepAliveListener keepAliveListener;
+    private final RowReceiver rowReceiver;
+    private final List<MetadataAggregation> aggregations;
+    private final IterableRowEmitter emitter;
+    private volatile boolean killed = false;
+
+    public IndexMetadataAggregationCollector(IndexReader indexReader,
+                                             KeepAliveListener keepAliveListener,
+                                             RowReceiver rowReceiver,
+                                             List<MetadataAggregation> aggregations) {
+        this.indexReader = indexReader;
+        this.keepAliveListener = keepAliveListener;
+        this.rowReceiver = rowReceiver;
+        this.aggregations = aggregations;
+        this.emitter = new IterableRowEmitter(
+                rowReceiver, this, ImmutableList.of(new InputRow(new ArrayList<Input<?>>(aggregations))));
+    }
+
+    @Override
+    public void doCollect() {
+        try {
+            for (AtomicReaderContext leaf : indexReader.leaves()) {
+                if (killed) {
+                    throw new CancellationException();
+                }
+                keepAliveListener.keepAlive();
+                for (MetadataAggregation aggregation : aggregations) {
+                    aggregation.collect(leaf.reader(), this);
+                }
+            }
+        } catch (Throwable t) {
+            rowReceiver.fail(t);
+            return;
+        }
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("computed {} aggregations of {} segments from index metadata",
+                    aggregations.size(), indexReader.leaves().size());
+        }
+        emitter.run();
+    }
+
+    @Override
+    public void kill(@Nullable Throwable throwable) {
+        killed = true;
+    }
+
+    @Override
+    public boolean isKilled() {
+        return killed;
+    }
+
+    private void checkDoc(int doc) {
+        if (doc % KEEP_ALIVE_AFTER_DOCS == 0) {
+            if (killed) {
+                throw new CancellationException();
+            }
+            keepAliveListener.keepAlive();
+        }
+    }
+
+    /**
+     * An aggregation whose partial result can be computed segment by segment from the index metadata
+     */
+    public static abstract class MetadataAggregation implements Input<Object> {
+
+        abstract void collect(AtomicReader reader, IndexMetadataAggregationCollector collector) throws IOException;
+    }
+
+    public static class CountStar extends MetadataAggregation {
+
+        private long count = 0L;
+
+        @Override
+        void collect(AtomicReader reader, IndexMetadataAggregationCollector collector) {
+            count += reader.numDocs();
+        }
+
+        @Override
+        public Object value() {
+            return count;
+        }
+    }
+
+    /**
+     * min or max of a column which is indexed as a numeric trie field.
+     * All full precision terms are sorted before the lower precision terms,
+     * so the first term of a segment is its minimum and the last full precision term its maximum.
+     */
+    public static class NumericMinMax extends MetadataAggregation {
+
+        private final String indexName;
+        private final DataType dataType;
+        private final IndexNumericFieldData fieldData;
+        private final boolean max;
+        private final boolean is64Bit;
+        private final boolean floatingPoint;
+
+        private Comparable current = null;
+
+        public NumericMinMax(String indexName,
+                             DataType dataType,
+                             IndexNumericFieldData fieldData,
+                             boolean max,
+                             boolean is64Bit,
+                             boolean floatingPoint) {
+            this.indexName = indexName;
+            this.dataType = dataType;
+            this.fieldData = fieldData;
+            this.max = max;
+            this.is64Bit = is64Bit;
+            this.floatingPoint = floatingPoint;
+        }
+
+        @Override
+        void collect(AtomicReader reader, IndexMetadataAggregationCollector collector) throws IOException {
+            if (reader.numDocs() == 0) {
+                return;
+            }
+            if (reader.hasDeletions()) {
+                scan(reader, collector);
+                return;
+            }
+            Terms terms = reader.terms(indexName);
+            if (terms == null) {
+                return;
+            }
+            // no conditional expressions here, they would promote the integral values to floating point
+            if (is64Bit) {
+                long value = max ? NumericUtils.getMaxLong(terms) : NumericUtils.getMinLong(terms);
+                if (floatingPoint) {
+                    offer(NumericUtils.sortableLongToDouble(value));
+                } else {
+                    offer(value);
+                }
+            } else {
+                int value = max ? NumericUtils.getMaxInt(terms) : NumericUtils.getMinInt(terms);
+                if (floatingPoint) {
+                    offer(NumericUtils.sortableIntToFloat(value));
+                } else {
+                    offer(value);
+                }
+            }
+        }
+
+        /**
+         * the terms of a segment with deletions might belong to deleted documents only,
+         * so the values of all live documents have to be looked at
+         */
+        private void scan(AtomicReader reader, IndexMetadataAggregationCollector collector) {
+            Bits liveDocs = reader.getLiveDocs();
+            int maxDoc = reader.maxDoc();
+            if (floatingPoint) {
+                SortedNumericDoubleValues values = fieldData.load(reader.getContext()).getDoubleValues();
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    collector.checkDoc(doc);
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    values.setDocument(doc);
+                    int count = values.count();
+                    if (count > 0) {
+                        offer(values.valueAt(max ? count - 1 : 0));
+                    }
+                }
+            } else {
+                SortedNumericDocValues values = fieldData.load(reader.getContext()).getLongValues();
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    collector.checkDoc(doc);
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    values.setDocument(doc);
+                    int count = values.count();
+                    if (count > 0) {
+                        offer(values.valueAt(max ? count - 1 : 0));
+                    }
+                }
+            }
+        }
+
+        private void offer(Number number) {
+            Comparable value = (Comparable) dataType.value(number);
+            if (current == null) {
+                current = value;
+                return;
+            }
+            //noinspection unchecked
+            int cmp = value.compareTo(current);
+            if (max ? cmp > 0 : cmp < 0) {
+                current = value;
+            }
+        }
+
+        @Override
+        public Object value() {
+            return current;
+        }
+    }
+}
@@ -62,7 +62,8 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
     private final ScoreDocRowFunction rowFunction;
     private final DummyScorer scorer;
     private final ContextIndexSearcher searcher;
-
+    @Nullable
+    private final TopNThreshold threshold;
 
     @Nullable
     private volatile FieldDoc lastDoc = null;
@@ -76,7 +77,8 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
                                OrderBy orderBy,
                                Sort sort,
                                List<Input<?>> inputs,
-                               Collection<LuceneCollectorExpression<?>> expressions) {
+                               Collection<LuceneCollectorExpression<?>> expressions,
+                               @Nullable TopNThreshold threshold) {
         this.searchContext = searchContext;
         this.shardId = searchContext.indexShard().shardId().id();
         this.doDocsScores = doDocsScores;
@@ -87,6 +89,7 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
         this.sort = sort;
         this.scorer = new DummyScorer();
         this.expressions = expressions;
+        this.threshold = threshold;
         this.rowFunction = new ScoreDocRowFunction(
                 searcher.getIndexReader(),
                 inputs,
@@ -113,6 +116,11 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
         if (lastDoc == null) {
             return initialSearch();
         }
+        if (threshold != null && threshold.excludes(lastDoc)) {
+            // the remaining docs are sorted after the last one, so none of them is part of the result
+            exhausted = true;
+            return empty;
+        }
         return searchMore();
     }
 
@@ -127,6 +135,14 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
         exhausted = scoreDocs.length < batchSize;
         if (scoreDocs.length > 0) {
             lastDoc = (FieldDoc) scoreDocs[scoreDocs.length - 1];
+            if (threshold != null) {
+                threshold.offer(scoreDocs);
+                int numIncluded = threshold.numIncluded(scoreDocs);
+                if (numIncluded < scoreDocs.length) {
+                    exhausted = true;
+                    scoreDocs = Arrays.copyOf(scoreDocs, numIncluded);
+                }
+            }
         }
         return new NumberedIterable<>(shardId, Iterables.transform(Arrays.asList(scoreDocs), rowFunction));
     }
@@ -137,7 +153,8 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
             return empty;
         }
         LOGGER.debug("searchMore from [{}]", lastDoc);
-        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), null, batchSize, sort, doDocsScores, false);
+        TopDocs topDocs = searcher.searchAfter(
+                lastDoc, withThreshold(query(lastDoc)), null, batchSize, sort, doDocsScores, false);
         return scoreDocToIterable(topDocs.scoreDocs);
     }
 
@@ -147,7 +164,8 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
             expression.setScorer(scorer);
         }
         searcher.inStage(ContextIndexSearcher.Stage.MAIN_QUERY);
-        TopFieldDocs topFieldDocs = searcher.search(searchContext.query(), null, batchSize, sort, doDocsScores, false);
+        TopFieldDocs topFieldDocs = searcher.search(
+                withThreshold(searchContext.query()), null, batchSize, sort, doDocsScores, false);
         return scoreDocToIterable(topFieldDocs.scoreDocs);
     }
 
@@ -162,6 +180,29 @@ public class OrderedDocCollector implements Callable<NumberedIterable<Row>>, Aut
         return searchAfterQuery;
     }
 
+    /**
+     * restricts the query to rows whose first order by value is at least as good as the
+     * threshold reached by the collectors of other shards, if there is one yet.
+     * The range is applied as filter so it doesn't influence the scores.
+     */
+    private Query withThreshold(Query query) {
+        Object thresholdValue = threshold == null ? null : threshold.value();
+        if (thresholdValue == null) {
+            return query;
+        }
+        Reference order = (Reference) orderBy.orderBySymbols().get(0);
+        QueryBuilderHelper helper = QueryBuilderHelper.forType(order.valueType());
+        String columnName = order.info().ident().columnIdent().fqn();
+        Query range;
+        if (orderBy.reverseFlags()[0]) {
+            range = helper.rangeQuery(columnName, thresholdValue, null, true, false);
+        } else {
+            range = helper.rangeQuery(columnName, null, thresholdValue, false, true);
+        }
+        LOGGER.trace("[{}] restricting search to {}", shardId, range);
+        return new FilteredQuery(query, new QueryWrapperFilter(range));
+    }
+
     @Nullable
     private Query nextPageQuery(FieldDoc lastCollected) {
         BooleanQuery query = new BooleanQuery();
@@ -0,0 +1,310 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import io.crate.action.sql.query.CrateSearchContext;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.exceptions.GroupByOnArrayUnsupportedException;
+import io.crate.jobs.KeepAliveListener;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.CrateCollector;
+import io.crate.operation.collect.UnexpectedCollectionTerminatedException;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+/**
+ * Collector which does the first grouping step on a shard if the grouping key is a single
+ * not-analyzed string column.
+ *
+ * Instead of materializing and hashing the value of every document the aggregation states
+ * are kept in a dense array indexed by the global ordinal of the key.
+ * The ordinals are only resolved to their {@link BytesRef} values once per group when the
+ * partial results are emitted to the downstream.
+ *
+ * Emits rows in the form of: [key, partialAggState1, partialAggState2, ...]
+ */
+public class OrdinalGroupingCollector implements CrateCollector {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(OrdinalGroupingCollector.class);
+
+    private static final int KEEP_ALIVE_AFTER_ROWS = 1_000_000;
+    // 24 bytes overhead for the states array per group
+    private static final int GROUP_OVERHEAD = 24;
+
+    private final CrateSearchContext searchContext;
+    private final KeepAliveListener keepAliveListener;
+    private final RamAccountingContext ramAccountingContext;
+    private final RowReceiver rowReceiver;
+    private final Row inputRow;
+    private final Collection<? extends LuceneCollectorExpression<?>> expressions;
+    private final CollectExpression[] aggregationInputs;
+    private final Aggregator[] aggregators;
+    private final IndexOrdinalsFieldData keyFieldData;
+    private final CollectorContext collectorContext;
+    private final TopRowUpstream upstreamState;
+
+    private Object[][] groupStates;
+    private Object[] nullKeyStates;
+    private RandomAccessOrds globalOrdinals;
+
+    private final Object[] cells;
+    private final RowN row;
+    private long emitPosition = -1;
+
+    public OrdinalGroupingCollector(CrateSearchContext searchContext,
+                                    Executor executor,
+                                    KeepAliveListener keepAliveListener,
+                                    RamAccountingContext ramAccountingContext,
+                                    RowReceiver rowReceiver,
+                                    CollectorContext collectorContext,
+                                    Row inputRow,
+                                    Collection<? extends LuceneCollectorExpression<?>> expressions,
+                                    IndexOrdinalsFieldData keyFieldData,
+                                    CollectExpression[] aggregationInputs,
+                                    Aggregator[] aggregators) {
+        this.searchContext = searchContext;
+        this.keepAliveListener = keepAliveListener;
+        this.ramAccountingContext = ramAccountingContext;
+        this.rowReceiver = rowReceiver;
+        this.collectorContext = collectorContext;
+        this.inputRow = inputRow;
+        this.expressions = expressions;
+        this.keyFieldData = keyFieldData;
+        this.aggregationInputs = aggregationInputs;
+        this.aggregators = aggregators;
+        this.cells = new Object[1 + aggregators.length];
+        this.row = new RowN(cells.length);
+        upstreamState = new TopRowUpstream(
+                executor,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        emitGroups();
+                    }
+                },
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        emitPosition = -1;
+                        emitGroups();
+                    }
+                }
+        );
+        rowReceiver.setUpstream(upstreamState);
+    }
+
+    @Override
+    public void doCollect() {
+        ContextIndexSearcher searcher = searchContext.searcher();
+        try {
+            for (LuceneCollectorExpression<?> expression : expressions) {
+                expression.startCollect(collectorContext);
+            }
+            IndexOrdinalsFieldData globalFieldData = keyFieldData.loadGlobal(searcher.getIndexReader());
+            searcher.inStage(ContextIndexSearcher.Stage.MAIN_QUERY);
+            searcher.search(searchContext.query(), new OrdinalsCollector(globalFieldData));
+        } catch (Throwable t) {
+            finishStage();
+            rowReceiver.fail(t);
+            return;
+        }
+        finishStage();
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("{} collected groups using ordinals, grouping size is {} bytes",
+                    searchContext.indexShard().shardId(), ramAccountingContext.totalBytes());
+        }
+        emitGroups();
+    }
+
+    private void finishStage() {
+        searchContext.searcher().finishStage(ContextIndexSearcher.Stage.MAIN_QUERY);
+        searchContext.clearReleasables(SearchContext.Lifetime.PHASE);
+    }
+
+    private void emitGroups() {
+        try {
+            if (emitPosition < 0) {
+                emitPosition = 0;
+                if (nullKeyStates != null && !emitRow(null, nullKeyStates)) {
+                    rowReceiver.finish();
+                    return;
+                }
+                if (upstreamState.shouldPause()) {
+                    upstreamState.pauseProcessed();
+                    return;
+                }
+            }
+            if (groupStates != null) {
+                while (emitPosition < groupStates.length) {
+                    upstreamState.throwIfKilled();
+                    int ord = (int) emitPosition++;
+                    Object[] states = groupStates[ord];
+                    if (states == null) {
+                        continue;
+                    }
+                    if (!emitRow(BytesRef.deepCopyOf(globalOrdinals.lookupOrd(ord)), states)) {
+                        break;
+                    }
+                    if (upstreamState.shouldPause()) {
+                        upstreamState.pauseProcessed();
+                        return;
+                    }
+                }
+            }
+            rowReceiver.finish();
+        } catch (Throwable t) {
+            rowReceiver.fail(t);
+        }
+    }
+
+    private boolean emitRow(@Nullable BytesRef key, Object[] states) {
+        cells[0] = key;
+        for (int i = 0; i < aggregators.length; i++) {
+            cells[i + 1] = aggregators[i].finishCollect(states[i]);
+        }
+        row.cells(cells);
+        return rowReceiver.setNextRow(row);
+    }
+
+    @Override
+    public void kill(@Nullable Throwable throwable) {
+        upstreamState.kill(throwable);
+    }
+
+    private Object[] newStates() {
+        ramAccountingContext.addBytes(GROUP_OVERHEAD);
+        Object[] states = new Object[aggregators.length];
+        for (int i = 0; i < aggregators.length; i++) {
+            states[i] = aggregators[i].prepareState();
+        }
+        return states;
+    }
+
+    private class OrdinalsCollector extends Collector {
+
+        private final IndexOrdinalsFieldData globalFieldData;
+        private RandomAccessOrds ordinals;
+        private int rowCount = 0;
+
+        public OrdinalsCollector(IndexOrdinalsFieldData globalFieldData) {
+            this.globalFieldData = globalFieldData;
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+            for (LuceneCollectorExpression<?> expression : expressions) {
+                expression.setScorer(scorer);
+            }
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            upstreamState.throwIfKilled();
+            checkCircuitBreaker();
+
+            rowCount++;
+            if (rowCount % KEEP_ALIVE_AFTER_ROWS == 0) {
+                keepAliveListener.keepAlive();
+            }
+            for (LuceneCollectorExpression<?> expression : expressions) {
+                expression.setNextDocId(doc);
+            }
+            for (CollectExpression aggregationInput : aggregationInputs) {
+                //noinspection unchecked
+                aggregationInput.setNextRow(inputRow);
+            }
+
+            Object[] states;
+            ordinals.setDocument(doc);
+            switch (ordinals.cardinality()) {
+                case 0:
+                    if (nullKeyStates == null) {
+                        nullKeyStates = newStates();
+                    }
+                    states = nullKeyStates;
+                    break;
+                case 1:
+                    int ord = (int) ordinals.ordAt(0);
+                    states = groupStates[ord];
+                    if (states == null) {
+                        states = newStates();
+                        groupStates[ord] = states;
+                    }
+                    break;
+                default:
+                    throw new GroupByOnArrayUnsupportedException(keyFieldData.getFieldNames().fullName());
+            }
+            for (int i = 0; i < aggregators.length; i++) {
+                states[i] = aggregators[i].processRow(states[i]);
+            }
+        }
+
+        private void checkCircuitBreaker() throws UnexpectedCollectionTerminatedException {
+            if (ramAccountingContext.trippedBreaker()) {
+                throw new UnexpectedCollectionTerminatedException(
+                        CrateCircuitBreakerService.breakingExceptionMessage(ramAccountingContext.contextId(),
+                                ramAccountingContext.limit()));
+            }
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            keepAliveListener.keepAlive();
+            ordinals = globalFieldData.load(context).getOrdinalsValues();
+            if (groupStates == null) {
+                // global ordinals: the value count is the same for every segment
+                long valueCount = ordinals.getValueCount();
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + valueCount * 4));
+                groupStates = new Object[(int) valueCount][];
+                globalOrdinals = ordinals;
+            }
+            for (LuceneCollectorExpression<?> expression : expressions) {
+                expression.setNextReader(context);
+            }
+        }
+
+        @Override
+        public boolean acceptsDocsOutOfOrder() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import com.google.common.collect.Ordering;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+
+import javax.annotation.Nullable;
+import java.util.PriorityQueue;
+
+/**
+ * Threshold for the first ORDER BY column of an <code>ORDER BY ... LIMIT</code> query, shared by the
+ * {@link OrderedDocCollector}s of all shards of a node.
+ *
+ * Every collected page offers its sort values. Once <code>limit</code> values have been offered, the worst of the
+ * <code>limit</code> best values is the threshold: no row which is worse than it can be part of the result,
+ * so shards which search afterwards can restrict their query to rows which are at least as good as the threshold,
+ * and shards which already searched drop the rows of their pages which are worse and stop paging.
+ * The threshold isn't shared with other nodes.
+ *
+ * Only used for numeric columns with nulls sorted last. Missing values are sorted using the largest
+ * (or smallest if descending) value of the type, such values are never taken as threshold.
+ */
+public class TopNThreshold {
+
+    /**
+     * the best values are kept in memory, so larger limits don't get a threshold
+     */
+    public static final int MAX_LIMIT = 10_000;
+
+    private final int limit;
+    private final boolean reverse;
+    private final Ordering<Comparable> worstFirst;
+
+    // guarded by this
+    private final PriorityQueue<Comparable> bestValues;
+
+    @Nullable
+    private volatile Object value = null;
+
+    /**
+     * @param limit the number of rows required by the query, including the offset
+     * @param reverse true if the first ORDER BY column is sorted descending
+     */
+    public TopNThreshold(int limit, boolean reverse) {
+        assert limit > 0 && limit <= MAX_LIMIT : "limit must be > 0 and <= " + MAX_LIMIT;
+        this.limit = limit;
+        this.reverse = reverse;
+        Ordering<Comparable> natural = Ordering.natural();
+        this.worstFirst = reverse ? natural : natural.reverse();
+        this.bestValues = new PriorityQueue<>(limit, worstFirst);
+    }
+
+    /**
+     * offers the values of the first sort field of a page of sorted docs
+     */
+    public void offer(ScoreDoc[] scoreDocs) {
+        synchronized (this) {
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                Object fieldValue = ((FieldDoc) scoreDoc).fields[0];
+                if (fieldValue == null || isMissingValue(fieldValue)) {
+                    // nulls are sorted last, so none of the following values are better
+                    break;
+                }
+                Comparable sortValue = (Comparable) fieldValue;
+                if (bestValues.size() < limit) {
+                    bestValues.add(sortValue);
+                } else if (worstFirst.compare(sortValue, bestValues.peek()) > 0) {
+                    bestValues.poll();
+                    bestValues.add(sortValue);
+                } else {
+                    // the docs are sorted, so none of the following values are better
+                    break;
+                }
+            }
+            if (bestValues.size() == limit) {
+                value = bestValues.peek();
+            }
+        }
+    }
+
+    private boolean isMissingValue(Object value) {
+        if (value instanceof Long) {
+            return (Long) value == (reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+        }
+        if (value instanceof Integer) {
+            return (Integer) value == (reverse ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isInfinite(d) || Double.isNaN(d) || d == (reverse ? -Double.MAX_VALUE : Double.MAX_VALUE);
+        }
+        if (value instanceof Float) {
+            float f = (Float) value;
+            return Float.isInfinite(f) || Float.isNaN(f) || f == (reverse ? -Float.MAX_VALUE : Float.MAX_VALUE);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the first sort value of the doc is worse than the threshold,
+     *         so neither the doc nor any of the docs sorted after it can be part of the result
+     */
+    public boolean excludes(FieldDoc doc) {
+        Object thresholdValue = value;
+        if (thresholdValue == null) {
+            return false;
+        }
+        Object fieldValue = doc.fields[0];
+        return fieldValue == null || worstFirst.compare((Comparable) fieldValue, (Comparable) thresholdValue) < 0;
+    }
+
+    /**
+     * @return the number of the leading sorted docs which aren't excluded by the threshold
+     */
+    public int numIncluded(ScoreDoc[] scoreDocs) {
+        for (int i = 0; i < scoreDocs.length; i++) {
+            if (excludes((FieldDoc) scoreDocs[i])) {
+                return i;
+            }
+        }
+        return scoreDocs.length;
+    }
+
+    /**
+     * @return the threshold or null if less than <code>limit</code> values have been offered yet
+     */
+    @Nullable
+    public Object value() {
+        return value;
+    }
+}
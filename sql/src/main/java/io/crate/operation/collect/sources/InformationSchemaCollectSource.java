@@ -21,140 +21,137 @@
 
 package io.crate.operation.collect.sources;
 
-import com.google.common.base.Function;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import io.crate.metadata.*;
-import io.crate.metadata.table.SchemaInfo;
-import io.crate.metadata.table.TableInfo;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectInputSymbolVisitor;
 import io.crate.operation.collect.CrateCollector;
 import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.RowsCollector;
 import io.crate.operation.projectors.RowReceiver;
-import io.crate.operation.reference.information.ColumnContext;
 import io.crate.operation.reference.information.InformationReferenceResolver;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.symbol.Literal;
-import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.inject.Inject;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-public class InformationSchemaCollectSource implements CollectSource {
+public class InformationSchemaCollectSource implements CollectSource, ClusterStateListener {
 
     private final CollectInputSymbolVisitor<RowCollectExpression<?, ?>> docInputSymbolVisitor;
-    private final ImmutableMap<String, Iterable<?>> iterables;
+    private final Schemas schemas;
+    private final Iterable<RoutineInfo> routinesIterable;
     private final ClusterService clusterService;
 
+    /**
+     * version of the cluster state which contained the last metadata change visible in the information_schema
+     */
+    private volatile long metaDataStateVersion = -1L;
+    private volatile InformationSchemaSnapshot snapshot;
+
     @Inject
     protected InformationSchemaCollectSource(Functions functions,
                                              Schemas schemas,
                                              InformationReferenceResolver refResolver,
                                              FulltextAnalyzerResolver ftResolver,
                                              ClusterService clusterService) {
+        this.schemas = schemas;
         this.clusterService = clusterService;
 
         RoutineInfos routineInfos = new RoutineInfos(ftResolver);
         this.docInputSymbolVisitor = new CollectInputSymbolVisitor<>(functions, refResolver);
-
-        Iterable<TableInfo> tablesIterable = FluentIterable.from(schemas)
-                .transformAndConcat(new Function<SchemaInfo, Iterable<TableInfo>>() {
-                    @Nullable
-                    @Override
-                    public Iterable<TableInfo> apply(SchemaInfo input) {
-                        assert input != null;
-                        // filter out partitions
-                        return FluentIterable.from(input).filter(new Predicate<TableInfo>() {
-                            @Override
-                            public boolean apply(TableInfo input) {
-                                assert input != null;
-                                return !PartitionName.isPartition(input.ident().indexName());
-                            }
-                        });
-                    }
-                });
-        Iterable<PartitionInfo> tablePartitionsIterable = new PartitionInfos(clusterService);
-        Iterable<ColumnContext> columnsIterable = FluentIterable
-                .from(tablesIterable)
-                .transformAndConcat(new Function<TableInfo, Iterable<ColumnContext>>() {
-                    @Nullable
-                    @Override
-                    public Iterable<ColumnContext> apply(TableInfo input) {
-                        assert input != null;
-                        return new ColumnsIterator(input);
-                    }
-                });
-        Iterable<TableInfo> tableConstraintsIterable = FluentIterable.from(tablesIterable).filter(new Predicate<TableInfo>() {
-            @Override
-            public boolean apply(@Nullable TableInfo input) {
-                return input != null && input.primaryKey().size() > 0;
-            }
-        });
-        Iterable<RoutineInfo> routinesIterable = FluentIterable.from(routineInfos)
+        this.routinesIterable = FluentIterable.from(routineInfos)
                 .filter(new Predicate<RoutineInfo>() {
                     @Override
                     public boolean apply(@Nullable RoutineInfo input) {
                         return input != null;
                     }
                 });
-        this.iterables = ImmutableMap.<String, Iterable<?>>builder()
-                .put("information_schema.tables", tablesIterable)
-                .put("information_schema.columns", columnsIterable)
-                .put("information_schema.table_constraints", tableConstraintsIterable)
-                .put("information_schema.table_partitions", tablePartitionsIterable)
-                .put("information_schema.routines", routinesIterable)
-                .put("information_schema.schemata", schemas).build();
+        // add as last listener so that the schemas are already updated if the snapshot is invalidated
+        clusterService.addLast(this);
     }
 
-    class ColumnsIterator implements Iterator<ColumnContext>, Iterable<ColumnContext> {
-
-        private final ColumnContext context = new ColumnContext();
-        private final Iterator<ReferenceInfo> columns;
-
-        ColumnsIterator(TableInfo ti) {
-            context.ordinal = 0;
-            columns = FluentIterable.from(ti).filter(new Predicate<ReferenceInfo>() {
-                @Override
-                public boolean apply(@Nullable ReferenceInfo input) {
-                    return input != null
-                            && !input.ident().columnIdent().isSystemColumn()
-                            && input.type() != DataTypes.NOT_SUPPORTED;
-                }
-            }).iterator();
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.metaDataChanged() && schemaChanged(event.previousState().metaData(), event.state().metaData())) {
+            metaDataStateVersion = event.state().version();
         }
+    }
 
-        @Override
-        public boolean hasNext() {
-            return columns.hasNext();
+    /**
+     * @return true if indices have been added or removed, or if the state, settings, mappings or aliases
+     *         of an index or the templates changed.
+     *         Other changes, like the zone maps stored in the index metadata or the table statistics,
+     *         don't change the information_schema and keep the current snapshot.
+     */
+    static boolean schemaChanged(MetaData previous, MetaData current) {
+        if (previous.templates() != current.templates() && !previous.templates().equals(current.templates())) {
+            return true;
         }
-
-        @Override
-        public ColumnContext next() {
-            context.info = columns.next();
-            context.ordinal++;
-            return context;
+        if (previous.indices().size() != current.indices().size()) {
+            return true;
         }
-
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException("remove not allowed");
+        for (ObjectObjectCursor<String, IndexMetaData> cursor : current.indices()) {
+            IndexMetaData previousIndex = previous.index(cursor.key);
+            IndexMetaData index = cursor.value;
+            if (previousIndex == index) {
+                continue;
+            }
+            if (previousIndex == null
+                || previousIndex.state() != index.state()
+                || !previousIndex.settings().equals(index.settings())
+                || !previousIndex.mappings().equals(index.mappings())
+                || !previousIndex.aliases().equals(index.aliases())) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        @Override
-        public Iterator<ColumnContext> iterator() {
-            return this;
+    /**
+     * @return the snapshot of the information_schema rows for the current metadata,
+     *         a new one is created if the metadata changed since the last one has been created.
+     *         The partitions are read from the metadata at the time the snapshot is created.
+     */
+    private InformationSchemaSnapshot snapshot() {
+        long version = metaDataStateVersion;
+        InformationSchemaSnapshot current = snapshot;
+        if (current == null || current.version() != version) {
+            current = new InformationSchemaSnapshot(version, schemas, new PartitionInfos(clusterService.state().metaData()));
+            snapshot = current;
         }
+        return current;
+    }
 
+    private Iterable<?> rows(String fqTableName, InformationSchemaNameFilter filter) {
+        switch (fqTableName) {
+            case "information_schema.tables":
+                return snapshot().tables(filter);
+            case "information_schema.columns":
+                return snapshot().columns(filter);
+            case "information_schema.table_constraints":
+                return snapshot().tableConstraints(filter);
+            case "information_schema.table_partitions":
+                return snapshot().partitions(filter);
+            case "information_schema.routines":
+                return routinesIterable;
+            case "information_schema.schemata":
+                return snapshot().schemata(filter);
+            default:
+                throw new IllegalArgumentException("Unknown information_schema table " + fqTableName);
+        }
     }
 
     @Override
@@ -167,13 +164,14 @@ public class InformationSchemaCollectSource implements CollectSource {
         assert locations.containsKey(localNodeId);
         assert locations.get(localNodeId).size() == 1;
         String fqTableName = Iterables.getOnlyElement(locations.get(localNodeId).keySet());
-        Iterable<?> iterator = iterables.get(fqTableName);
         CollectInputSymbolVisitor.Context ctx = docInputSymbolVisitor.extractImplementations(collectPhase);
 
         Input<Boolean> condition;
         if (collectPhase.whereClause().noMatch()) {
             return ImmutableList.<CrateCollector>of(RowsCollector.empty(downstream));
         }
+        // only generate the rows which can match the schema and table names of the where clause
+        Iterable<?> iterator = rows(fqTableName, InformationSchemaNameFilter.fromWhereClause(collectPhase.whereClause()));
         if (collectPhase.whereClause().hasQuery()) {
             // TODO: single arg method
             condition = (Input<Boolean>) docInputSymbolVisitor.process(collectPhase.whereClause().query(), ctx);
@@ -0,0 +1,172 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.sources;
+
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.ColumnIdent;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.OrOperator;
+import io.crate.operation.operator.any.AnyEqOperator;
+import io.crate.planner.symbol.*;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.lucene.BytesRefs;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The schema and table names a query on an information_schema table can match at most.
+ *
+ * The names are extracted from equality and <code>IN</code> predicates on the
+ * <code>schema_name</code> and <code>table_name</code> columns, so the rows which
+ * can't match don't have to be generated at all.
+ * The filter is a superset of the matching rows, the where clause still has to be applied.
+ */
+public class InformationSchemaNameFilter {
+
+    public static final InformationSchemaNameFilter MATCH_ALL = new InformationSchemaNameFilter(null, null);
+
+    static final ColumnIdent SCHEMA_NAME = new ColumnIdent("schema_name");
+    static final ColumnIdent TABLE_NAME = new ColumnIdent("table_name");
+
+    private static final NamesExtractor EXTRACTOR = new NamesExtractor();
+
+    private final Set<String> schemaNames;
+    private final Set<String> tableNames;
+
+    InformationSchemaNameFilter(@Nullable Set<String> schemaNames, @Nullable Set<String> tableNames) {
+        this.schemaNames = schemaNames;
+        this.tableNames = tableNames;
+    }
+
+    public static InformationSchemaNameFilter fromWhereClause(WhereClause whereClause) {
+        if (!whereClause.hasQuery()) {
+            return MATCH_ALL;
+        }
+        Symbol query = whereClause.query();
+        return new InformationSchemaNameFilter(
+                EXTRACTOR.process(query, SCHEMA_NAME),
+                EXTRACTOR.process(query, TABLE_NAME));
+    }
+
+    /**
+     * @return the schema names which can match or null if any schema name can match
+     */
+    @Nullable
+    public Set<String> schemaNames() {
+        return schemaNames;
+    }
+
+    /**
+     * @return the table names which can match or null if any table name can match
+     */
+    @Nullable
+    public Set<String> tableNames() {
+        return tableNames;
+    }
+
+    public boolean matchesSchema(String schemaName) {
+        return schemaNames == null || schemaNames.contains(schemaName);
+    }
+
+    public boolean matchesTable(String tableName) {
+        return tableNames == null || tableNames.contains(tableName);
+    }
+
+    /**
+     * returns the values the given column is restricted to, or null if the column isn't restricted
+     */
+    private static class NamesExtractor extends SymbolVisitor<ColumnIdent, Set<String>> {
+
+        @Override
+        public Set<String> visitFunction(Function function, ColumnIdent column) {
+            String functionName = function.info().ident().name();
+            List<Symbol> arguments = function.arguments();
+            if (functionName.equals(AndOperator.NAME)) {
+                Set<String> left = process(arguments.get(0), column);
+                Set<String> right = process(arguments.get(1), column);
+                if (left == null) {
+                    return right;
+                }
+                if (right == null) {
+                    return left;
+                }
+                left.retainAll(right);
+                return left;
+            }
+            if (functionName.equals(OrOperator.NAME)) {
+                Set<String> left = process(arguments.get(0), column);
+                if (left == null) {
+                    return null;
+                }
+                Set<String> right = process(arguments.get(1), column);
+                if (right == null) {
+                    return null;
+                }
+                left.addAll(right);
+                return left;
+            }
+            if (functionName.equals(EqOperator.NAME)) {
+                Symbol left = arguments.get(0);
+                Symbol right = arguments.get(1);
+                if (isColumn(left, column) && right.symbolType().isValueSymbol()) {
+                    return values(Collections.singletonList((Literal) right));
+                }
+                if (isColumn(right, column) && left.symbolType().isValueSymbol()) {
+                    return values(Collections.singletonList((Literal) left));
+                }
+                return null;
+            }
+            if (functionName.equals(AnyEqOperator.NAME)) {
+                // col = any(['a', 'b']), col in ('a', 'b')
+                Symbol right = arguments.get(1);
+                if (isColumn(arguments.get(0), column)
+                    && right.symbolType().isValueSymbol()
+                    && DataTypes.isCollectionType(right.valueType())) {
+                    return values(Literal.explodeCollection((Literal) right));
+                }
+            }
+            return null;
+        }
+
+        private static boolean isColumn(Symbol symbol, ColumnIdent column) {
+            return symbol instanceof Reference && ((Reference) symbol).ident().columnIdent().equals(column);
+        }
+
+        private static Set<String> values(Iterable<Literal> literals) {
+            Set<String> values = new LinkedHashSet<>();
+            for (Literal literal : literals) {
+                Object value = literal.value();
+                // comparisons with null never match
+                if (value != null) {
+                    values.add(BytesRefs.toString(value));
+                }
+            }
+            return values;
+        }
+    }
+}
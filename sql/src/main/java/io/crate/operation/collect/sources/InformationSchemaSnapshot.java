@@ -0,0 +1,218 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.sources;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import io.crate.metadata.PartitionInfo;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.table.SchemaInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.operation.reference.information.ColumnContext;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable rows of the information_schema tables which are built from the cluster metadata.
+ *
+ * A snapshot is only valid for the cluster state version it has been created for.
+ * The table rows are created eagerly, the column and partition rows once they are requested.
+ * Rows are looked up by schema and table name, so that a query filtering on these
+ * only visits the matching rows.
+ */
+class InformationSchemaSnapshot {
+
+    private static final Function<TableInfo, TableIdent> TABLE_IDENT = new Function<TableInfo, TableIdent>() {
+        @Nullable
+        @Override
+        public TableIdent apply(TableInfo input) {
+            return input.ident();
+        }
+    };
+
+    private static final Function<PartitionInfo, TableIdent> PARTITION_TABLE_IDENT = new Function<PartitionInfo, TableIdent>() {
+        @Nullable
+        @Override
+        public TableIdent apply(PartitionInfo input) {
+            return input.name().tableIdent();
+        }
+    };
+
+    private static final Predicate<TableInfo> HAS_PRIMARY_KEY = new Predicate<TableInfo>() {
+        @Override
+        public boolean apply(@Nullable TableInfo input) {
+            return input != null && input.primaryKey().size() > 0;
+        }
+    };
+
+    private static final Predicate<ReferenceInfo> IS_VISIBLE_COLUMN = new Predicate<ReferenceInfo>() {
+        @Override
+        public boolean apply(@Nullable ReferenceInfo input) {
+            return input != null
+                   && !input.ident().columnIdent().isSystemColumn()
+                   && input.type() != DataTypes.NOT_SUPPORTED;
+        }
+    };
+
+    private final long version;
+    private final ImmutableList<SchemaInfo> schemas;
+    private final TableRows<TableInfo> tables;
+    private final Iterable<PartitionInfo> partitionInfos;
+    private final ConcurrentMap<TableInfo, List<ColumnContext>> columns = new ConcurrentHashMap<>();
+    private volatile TableRows<PartitionInfo> partitions;
+
+    InformationSchemaSnapshot(long version, Iterable<SchemaInfo> schemas, Iterable<PartitionInfo> partitionInfos) {
+        this.version = version;
+        this.schemas = ImmutableList.copyOf(schemas);
+        this.partitionInfos = partitionInfos;
+
+        List<TableInfo> tableInfos = new ArrayList<>();
+        for (SchemaInfo schemaInfo : this.schemas) {
+            for (TableInfo tableInfo : schemaInfo) {
+                // filter out partitions
+                if (!PartitionName.isPartition(tableInfo.ident().indexName())) {
+                    tableInfos.add(tableInfo);
+                }
+            }
+        }
+        this.tables = new TableRows<>(tableInfos, TABLE_IDENT);
+    }
+
+    long version() {
+        return version;
+    }
+
+    Iterable<SchemaInfo> schemata(final InformationSchemaNameFilter filter) {
+        if (filter.schemaNames() == null) {
+            return schemas;
+        }
+        return FluentIterable.from(schemas).filter(new Predicate<SchemaInfo>() {
+            @Override
+            public boolean apply(@Nullable SchemaInfo input) {
+                return input != null && filter.matchesSchema(input.name());
+            }
+        });
+    }
+
+    Iterable<TableInfo> tables(InformationSchemaNameFilter filter) {
+        return tables.select(filter);
+    }
+
+    Iterable<TableInfo> tableConstraints(InformationSchemaNameFilter filter) {
+        return FluentIterable.from(tables.select(filter)).filter(HAS_PRIMARY_KEY);
+    }
+
+    Iterable<ColumnContext> columns(InformationSchemaNameFilter filter) {
+        return FluentIterable.from(tables.select(filter))
+                .transformAndConcat(new Function<TableInfo, Iterable<ColumnContext>>() {
+                    @Nullable
+                    @Override
+                    public Iterable<ColumnContext> apply(TableInfo input) {
+                        return columns(input);
+                    }
+                });
+    }
+
+    Iterable<PartitionInfo> partitions(InformationSchemaNameFilter filter) {
+        TableRows<PartitionInfo> rows = partitions;
+        if (rows == null) {
+            rows = new TableRows<>(ImmutableList.copyOf(partitionInfos), PARTITION_TABLE_IDENT);
+            partitions = rows;
+        }
+        return rows.select(filter);
+    }
+
+    private List<ColumnContext> columns(TableInfo tableInfo) {
+        List<ColumnContext> rows = columns.get(tableInfo);
+        if (rows == null) {
+            ImmutableList.Builder<ColumnContext> builder = ImmutableList.builder();
+            short ordinal = 0;
+            for (ReferenceInfo info : FluentIterable.from(tableInfo).filter(IS_VISIBLE_COLUMN)) {
+                ColumnContext context = new ColumnContext();
+                context.info = info;
+                context.ordinal = ++ordinal;
+                builder.add(context);
+            }
+            rows = builder.build();
+            columns.putIfAbsent(tableInfo, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * rows which belong to a table, indexed by schema and by table name
+     */
+    private static class TableRows<T> {
+
+        private final ImmutableList<T> all;
+        private final ImmutableListMultimap<String, T> bySchema;
+        private final ImmutableListMultimap<String, T> byTable;
+        private final Function<T, TableIdent> tableIdent;
+
+        TableRows(List<T> rows, Function<T, TableIdent> tableIdent) {
+            this.all = ImmutableList.copyOf(rows);
+            this.tableIdent = tableIdent;
+            ImmutableListMultimap.Builder<String, T> bySchema = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<String, T> byTable = ImmutableListMultimap.builder();
+            for (T row : rows) {
+                TableIdent ident = tableIdent.apply(row);
+                bySchema.put(ident.schema(), row);
+                byTable.put(ident.name(), row);
+            }
+            this.bySchema = bySchema.build();
+            this.byTable = byTable.build();
+        }
+
+        Iterable<T> select(InformationSchemaNameFilter filter) {
+            if (filter.tableNames() != null) {
+                List<T> rows = new ArrayList<>();
+                for (String tableName : filter.tableNames()) {
+                    for (T row : byTable.get(tableName)) {
+                        if (filter.matchesSchema(tableIdent.apply(row).schema())) {
+                            rows.add(row);
+                        }
+                    }
+                }
+                return rows;
+            }
+            if (filter.schemaNames() != null) {
+                List<T> rows = new ArrayList<>();
+                for (String schemaName : filter.schemaNames()) {
+                    rows.addAll(bySchema.get(schemaName));
+                }
+                return rows;
+            }
+            return all;
+        }
+    }
+}
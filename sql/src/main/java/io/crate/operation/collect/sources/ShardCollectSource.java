@@ -21,6 +21,7 @@
 
 package io.crate.operation.collect.sources;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -40,6 +41,7 @@ import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.ShardCollectService;
 import io.crate.operation.collect.collectors.MultiShardScoreDocCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
+import io.crate.operation.collect.collectors.TopNThreshold;
 import io.crate.operation.projectors.*;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
 import io.crate.operation.reference.sys.node.NodeSysExpression;
@@ -47,6 +49,13 @@ import io.crate.operation.reference.sys.node.NodeSysReferenceResolver;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.consumer.OrderByPositionVisitor;
 import io.crate.planner.node.dql.CollectPhase;
+import io.crate.planner.node.dql.GroupByConsumer;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
@@ -64,6 +73,7 @@ import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -157,6 +167,16 @@ public class ShardCollectSource implements CollectSource {
 
         // actual shards might be less if table is partitioned and a partition has been deleted meanwhile
         int maxNumShards = normalizedPhase.routing().numShards(localNodeId);
+        jobCollectContext.progress().shardsTotal(maxNumShards);
+
+        if (normalizedPhase.maxRowGranularity() == RowGranularity.DOC) {
+            List<Projection> hashGroupingProjections =
+                    GroupByConsumer.hashGroupingProjections(normalizedPhase.projections());
+            if (hashGroupingProjections != null && !canGroupByOrdinals(normalizedPhase, localNodeId)) {
+                // the shard collectors must see the same projections as the node, they must not group by ordinals
+                normalizedPhase = normalizedPhase.withProjections(hashGroupingProjections);
+            }
+        }
 
         ShardProjectorChain projectorChain = ShardProjectorChain.passThroughMerge(
                 normalizedPhase.jobId(),
@@ -164,7 +184,8 @@ public class ShardCollectSource implements CollectSource {
                 normalizedPhase.projections(),
                 downstream,
                 projectorFactory,
-                jobCollectContext.queryPhaseRamAccountingContext());
+                jobCollectContext.queryPhaseRamAccountingContext(),
+                jobCollectContext.progress());
 
         Map<String, Map<String, List<Integer>>> locations = normalizedPhase.routing().locations();
         if (locations == null) {
@@ -197,6 +218,7 @@ public class ShardCollectSource implements CollectSource {
         SharedShardContexts sharedShardContexts = jobCollectContext.sharedShardContexts();
         Map<String, List<Integer>> indexShards = locations.get(localNodeId);
         List<OrderedDocCollector> orderedDocCollectors = new ArrayList<>();
+        TopNThreshold threshold = topNThreshold(collectPhase, collectPhase.routing().numShards(localNodeId));
         for (Map.Entry<String, List<Integer>> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
 
@@ -206,7 +228,8 @@ public class ShardCollectSource implements CollectSource {
                 try {
                     Injector shardInjector = context.indexService().shardInjectorSafe(shardId);
                     ShardCollectService shardCollectService = shardInjector.getInstance(ShardCollectService.class);
-                    orderedDocCollectors.add(shardCollectService.getOrderedCollector(collectPhase, context, jobCollectContext));
+                    orderedDocCollectors.add(shardCollectService.getOrderedCollector(
+                            collectPhase, context, jobCollectContext, threshold));
                 } catch (IndexShardMissingException | CancellationException | IllegalIndexShardStateException e) {
                     throw e;
                 } catch (IndexMissingException e) {
@@ -235,6 +258,65 @@ public class ShardCollectSource implements CollectSource {
         );
     }
 
+    /**
+     * @return a threshold shared by the ordered collectors of all shards of this node if their rows are consumed
+     *         by a top-n projection and the first order by symbol is a column whose nulls are sorted last
+     */
+    @Nullable
+    private static TopNThreshold topNThreshold(CollectPhase collectPhase, int numShards) {
+        OrderBy orderBy = collectPhase.orderBy();
+        if (numShards < 2 || orderBy == null || collectPhase.projections().isEmpty()) {
+            return null;
+        }
+        Symbol firstOrderBy = orderBy.orderBySymbols().get(0);
+        DataType type = firstOrderBy.valueType();
+        boolean reverse = orderBy.reverseFlags()[0];
+        // nulls are sorted first by default if sorted descending
+        boolean nullsFirst = MoreObjects.firstNonNull(orderBy.nullsFirst()[0], reverse);
+        if (!(firstOrderBy instanceof Reference)
+            || nullsFirst
+            || !(DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(type) || type.equals(DataTypes.TIMESTAMP))) {
+            return null;
+        }
+        Projection projection = collectPhase.projections().get(0);
+        if (!(projection instanceof TopNProjection) || ((TopNProjection) projection).isOrdered()) {
+            return null;
+        }
+        TopNProjection topN = (TopNProjection) projection;
+        int limit = topN.limit() + topN.offset();
+        if (limit <= 0 || limit > TopNThreshold.MAX_LIMIT) {
+            return null;
+        }
+        return new TopNThreshold(limit, reverse);
+    }
+
+    /**
+     * @return true if the shards of every index on this node can use ordinals for the shard level grouping.
+     *         The grouping key is mapped the same way on all shards of an index, so one shard per index is checked.
+     */
+    private boolean canGroupByOrdinals(CollectPhase collectPhase, String localNodeId) {
+        Map<String, List<Integer>> indexShards = collectPhase.routing().locations().get(localNodeId);
+        if (indexShards == null) {
+            return true;
+        }
+        for (Map.Entry<String, List<Integer>> entry : indexShards.entrySet()) {
+            IndexService indexService = indicesService.indexService(entry.getKey());
+            if (indexService == null) {
+                continue;
+            }
+            for (Integer shardId : entry.getValue()) {
+                Injector shardInjector = indexService.shardInjector(shardId);
+                if (shardInjector != null) {
+                    if (!shardInjector.getInstance(ShardCollectService.class).canGroupByOrdinals(collectPhase)) {
+                        return false;
+                    }
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
     private Collection<CrateCollector> getDocCollectors(JobCollectContext jobCollectContext,
                                                         CollectPhase collectPhase,
                                                         ShardProjectorChain projectorChain,
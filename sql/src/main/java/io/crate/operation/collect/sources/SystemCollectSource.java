@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RowCollectExpression;
+import io.crate.metadata.stats.TableStatsRows;
 import io.crate.metadata.sys.*;
 import io.crate.operation.Input;
 import io.crate.operation.collect.*;
@@ -33,6 +34,7 @@ import io.crate.operation.reference.sys.check.SysChecker;
 import io.crate.operation.reference.sys.job.RowContextReferenceResolver;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.symbol.Literal;
+import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.discovery.DiscoveryService;
 
@@ -50,16 +52,23 @@ public class SystemCollectSource implements CollectSource {
 
 
     @Inject
-    public SystemCollectSource(DiscoveryService discoveryService, Functions functions, StatsTables statsTables, SysChecker sysChecker) {
+    public SystemCollectSource(DiscoveryService discoveryService,
+                               ClusterService clusterService,
+                               Functions functions,
+                               StatsTables statsTables,
+                               SysChecker sysChecker) {
         docInputSymbolVisitor = new CollectInputSymbolVisitor<>(functions, RowContextReferenceResolver.INSTANCE);
 
-        iterableGetters = ImmutableMap.of(
-                SysJobsTableInfo.IDENT.fqn(), statsTables.jobsGetter(),
-                SysJobsLogTableInfo.IDENT.fqn(), statsTables.jobsLogGetter(),
-                SysOperationsTableInfo.IDENT.fqn(), statsTables.operationsGetter(),
-                SysOperationsLogTableInfo.IDENT.fqn(), statsTables.operationsLogGetter(),
-                SysChecksTableInfo.IDENT.fqn(), sysChecker
-        );
+        iterableGetters = ImmutableMap.<String, IterableGetter>builder()
+                .put(SysJobsTableInfo.IDENT.fqn(), statsTables.jobsGetter())
+                .put(SysJobsLogTableInfo.IDENT.fqn(), statsTables.jobsLogGetter())
+                .put(SysJobsLatenciesTableInfo.IDENT.fqn(), statsTables.jobsLatenciesGetter())
+                .put(SysOperationsTableInfo.IDENT.fqn(), statsTables.operationsGetter())
+                .put(SysOperationsLogTableInfo.IDENT.fqn(), statsTables.operationsLogGetter())
+                .put(SysChecksTableInfo.IDENT.fqn(), sysChecker)
+                .put(SysTableStatsTableInfo.IDENT.fqn(), TableStatsRows.tableRowsGetter(clusterService))
+                .put(SysColumnStatsTableInfo.IDENT.fqn(), TableStatsRows.columnRowsGetter(clusterService))
+                .build();
         this.discoveryService = discoveryService;
     }
 
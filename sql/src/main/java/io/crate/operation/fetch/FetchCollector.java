@@ -86,12 +86,25 @@ public class FetchCollector {
 
     public void collect(IntContainer docIds, StreamBucket.Builder builder) throws IOException {
         for (IntCursor cursor : docIds) {
-            final int docId = cursor.value;
-            int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
-            AtomicReaderContext subReaderContext = readerContexts.get(readerIndex);
-            setNextReader(subReaderContext);
-            setNextDocId(docId - subReaderContext.docBase);
+            moveTo(cursor.value);
             builder.add(row);
         }
     }
+
+    /**
+     * collect the rows of the given docIds as materialized rows
+     */
+    public void collect(IntContainer docIds, List<Object[]> rows) throws IOException {
+        for (IntCursor cursor : docIds) {
+            moveTo(cursor.value);
+            rows.add(row.materialize());
+        }
+    }
+
+    private void moveTo(int docId) throws IOException {
+        int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
+        AtomicReaderContext subReaderContext = readerContexts.get(readerIndex);
+        setNextReader(subReaderContext);
+        setNextDocId(docId - subReaderContext.docBase);
+    }
 }
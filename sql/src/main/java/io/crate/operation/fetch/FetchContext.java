@@ -96,6 +96,10 @@ public class FetchContext extends AbstractExecutionSubContext {
                         for (Integer shard : indexShardsEntry.getValue()) {
                             ShardId shardId = new ShardId(index, shard);
                             int readerId = base + shardId.id();
+                            if (shardContexts.containsKey(readerId)) {
+                                // the same table is collected by multiple collect phases, e.g. in a self join
+                                continue;
+                            }
                             SharedShardContext shardContext = sharedShardContexts.createContext(shardId, readerId);
                             shardContexts.put(readerId, shardContext);
                             try {
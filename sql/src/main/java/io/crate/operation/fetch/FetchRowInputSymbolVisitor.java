@@ -121,11 +121,12 @@ public class FetchRowInputSymbolVisitor extends BaseImplementationSymbolVisitor<
         public Input<?> allocateInput(FetchReference fetchReference) {
             FetchSource fs = null;
             int fetchIdx = 0;
+            sources:
             for (FetchSource fetchSource : fetchSources) {
                 for (Field field : fetchSource.docIdFields()) {
                     if (field.equals(fetchReference.docId())){
                         fs = fetchSource;
-                        break;
+                        break sources;
                     }
                     fetchIdx++;
                 }
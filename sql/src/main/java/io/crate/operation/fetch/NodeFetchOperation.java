@@ -27,6 +27,8 @@ import com.carrotsearch.hppc.IntObjectOpenHashMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.google.common.collect.Iterables;
 import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.CollectionBucket;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.metadata.TableIdent;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
@@ -39,6 +41,7 @@ import org.elasticsearch.index.IndexService;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
 @Singleton
 public class NodeFetchOperation {
@@ -89,19 +92,30 @@ public class NodeFetchOperation {
         return result;
     }
 
-    public IntObjectMap<StreamBucket> doFetch(
-            FetchContext fetchContext, IntObjectMap<IntContainer> toFetch) throws Exception {
+    /**
+     * @param streamed if true the fetched rows are serialized into {@link StreamBucket}s to be sent to
+     *                 another node, otherwise they're returned as materialized rows
+     */
+    public IntObjectMap<? extends Bucket> doFetch(
+            FetchContext fetchContext, IntObjectMap<IntContainer> toFetch, boolean streamed) throws Exception {
 
-        IntObjectOpenHashMap<StreamBucket> fetched = new IntObjectOpenHashMap<>(toFetch.size());
+        IntObjectOpenHashMap<Bucket> fetched = new IntObjectOpenHashMap<>(toFetch.size());
         HashMap<TableIdent, TableFetchInfo> tableFetchInfos = getTableFetchInfos(fetchContext);
 
         for (IntObjectCursor<IntContainer> toFetchCursor : toFetch) {
             TableIdent ident = fetchContext.tableIdent(toFetchCursor.key);
             TableFetchInfo tfi = tableFetchInfos.get(ident);
             assert tfi != null;
-            StreamBucket.Builder builder = new StreamBucket.Builder(tfi.streamers());
-            tfi.createCollector(toFetchCursor.key).collect(toFetchCursor.value, builder);
-            fetched.put(toFetchCursor.key, builder.build());
+            FetchCollector collector = tfi.createCollector(toFetchCursor.key);
+            if (streamed) {
+                StreamBucket.Builder builder = new StreamBucket.Builder(tfi.streamers());
+                collector.collect(toFetchCursor.value, builder);
+                fetched.put(toFetchCursor.key, builder.build());
+            } else {
+                List<Object[]> rows = new ArrayList<>(toFetchCursor.value.size());
+                collector.collect(toFetchCursor.value, rows);
+                fetched.put(toFetchCursor.key, new CollectionBucket(rows));
+            }
         }
         return fetched;
 
@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import com.google.common.util.concurrent.FutureCallback;
+import io.crate.jobs.ExecutionSubContext;
+import io.crate.jobs.SubExecutionContextFuture;
+import io.crate.planner.node.ExecutionPhase;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The profiles of all phases of a job which run on this node.
+ *
+ * A phase profile is finished once the sub context executing the phase is closed,
+ * the job profile is done once all tracked sub contexts are closed.
+ */
+public class JobProfile {
+
+    private final UUID jobId;
+    private final String nodeId;
+    private final Map<Integer, PhaseProfile> phases = new LinkedHashMap<>();
+    private final List<Runnable> doneListeners = new ArrayList<>();
+    private int pendingSubContexts = 0;
+
+    JobProfile(UUID jobId, String nodeId) {
+        this.jobId = jobId;
+        this.nodeId = nodeId;
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    /**
+     * get or create the profile of the given phase
+     */
+    public synchronized PhaseProfile phase(ExecutionPhase phase, int downstreamPhaseId) {
+        PhaseProfile profile = phases.get(phase.executionPhaseId());
+        if (profile == null) {
+            profile = new PhaseProfile(phase.executionPhaseId(), phase.name(), nodeId, downstreamPhaseId);
+            phases.put(phase.executionPhaseId(), profile);
+        }
+        return profile;
+    }
+
+    /**
+     * finish the profile of the phase once the sub context executing it is closed
+     */
+    public void track(final PhaseProfile profile, ExecutionSubContext subContext) {
+        synchronized (this) {
+            pendingSubContexts++;
+        }
+        subContext.future().addCallback(new FutureCallback<SubExecutionContextFuture.State>() {
+            @Override
+            public void onSuccess(@Nullable SubExecutionContextFuture.State state) {
+                subContextClosed(profile);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                subContextClosed(profile);
+            }
+        });
+    }
+
+    private void subContextClosed(PhaseProfile profile) {
+        profile.finish();
+        List<Runnable> listeners;
+        synchronized (this) {
+            pendingSubContexts--;
+            if (pendingSubContexts > 0 || doneListeners.isEmpty()) {
+                return;
+            }
+            listeners = new ArrayList<>(doneListeners);
+            doneListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * runs the listener once all tracked sub contexts are closed, or immediately if they already are
+     */
+    public void whenDone(Runnable listener) {
+        synchronized (this) {
+            if (pendingSubContexts > 0) {
+                doneListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    public synchronized List<PhaseProfile> phases() {
+        return new ArrayList<>(phases.values());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link JobProfile}s of the jobs which are executed with profiling enabled (EXPLAIN ANALYZE)
+ * until the handler node collects them.
+ *
+ * Profiles which are never collected (e.g. because the handler node died) expire.
+ */
+@Singleton
+public class JobProfiles {
+
+    private static final long EXPIRE_AFTER_MINUTES = 10;
+
+    private final ClusterService clusterService;
+    private final Cache<UUID, JobProfile> profiles = CacheBuilder.newBuilder()
+            .expireAfterWrite(EXPIRE_AFTER_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    @Inject
+    public JobProfiles(ClusterService clusterService) {
+        this.clusterService = clusterService;
+    }
+
+    public JobProfile getOrCreate(final UUID jobId) {
+        try {
+            return profiles.get(jobId, new Callable<JobProfile>() {
+                @Override
+                public JobProfile call() throws Exception {
+                    return new JobProfile(jobId, clusterService.localNode().id());
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the profile of the job or null if the job wasn't profiled on this node
+     */
+    @Nullable
+    public JobProfile remove(UUID jobId) {
+        JobProfile profile = profiles.getIfPresent(jobId);
+        profiles.invalidate(jobId);
+        return profile;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import io.crate.planner.projection.Projection;
+import jsr166e.LongAdder;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runtime profile of a single execution phase on a single node.
+ *
+ * The counters are updated concurrently by the threads working on the phase, e.g. the collector
+ * threads of the different shards or the threads consuming incoming pages.
+ */
+public class PhaseProfile implements Streamable {
+
+    public static final int NO_DOWNSTREAM = -1;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private int phaseId;
+    private String name;
+    private String nodeId;
+    private int downstreamPhaseId = NO_DOWNSTREAM;
+    private long wallTimeNanos;
+    private long peakMemoryBytes = -1;
+
+    private final LongAdder cpuTimeNanos = new LongAdder();
+    private final LongAdder pausedNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final List<ProjectorProfile> projectors = new ArrayList<>();
+
+    private final long startedNanos;
+    private volatile boolean finished = false;
+
+    PhaseProfile() {
+        startedNanos = 0;
+    }
+
+    PhaseProfile(int phaseId, String name, String nodeId, int downstreamPhaseId) {
+        this.phaseId = phaseId;
+        this.name = name;
+        this.nodeId = nodeId;
+        this.downstreamPhaseId = downstreamPhaseId;
+        this.startedNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the cpu time of the current thread in nanoseconds or 0 if it can't be measured on this JVM
+     */
+    public static long currentThreadCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0L;
+    }
+
+    /**
+     * returns the profile of the projector for the given projection, all projectors created for the same
+     * projection instance share one profile
+     */
+    public synchronized ProjectorProfile projector(Projection projection) {
+        for (ProjectorProfile projector : projectors) {
+            if (projector.projection() == projection) {
+                return projector;
+            }
+        }
+        ProjectorProfile projector = new ProjectorProfile(projection);
+        projectors.add(projector);
+        return projector;
+    }
+
+    public void addCpuTime(long nanos) {
+        cpuTimeNanos.add(nanos);
+    }
+
+    public void addBytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    public void addBytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    LongAdder rowsCounter() {
+        return rows;
+    }
+
+    LongAdder pausedCounter() {
+        return pausedNanos;
+    }
+
+    /**
+     * records the peak of the bytes accounted by a context of the phase once the context is closed.
+     * If multiple contexts of the phase report a peak, the highest one is kept.
+     */
+    public synchronized void peakMemoryBytes(long bytes) {
+        peakMemoryBytes = Math.max(peakMemoryBytes, bytes);
+    }
+
+    /**
+     * stops the wall time of the phase
+     *
+     * @return true if this was the first call
+     */
+    synchronized boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        this.wallTimeNanos = System.nanoTime() - startedNanos;
+        return true;
+    }
+
+    public int phaseId() {
+        return phaseId;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public int downstreamPhaseId() {
+        return downstreamPhaseId;
+    }
+
+    public long wallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public long cpuTimeNanos() {
+        return cpuTimeNanos.sum();
+    }
+
+    public long pausedNanos() {
+        return pausedNanos.sum();
+    }
+
+    public long rows() {
+        return rows.sum();
+    }
+
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * @return the highest number of bytes accounted by the phase at the same time, -1 if unknown
+     */
+    public long peakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    public synchronized List<ProjectorProfile> projectors() {
+        return new ArrayList<>(projectors);
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        phaseId = in.readVInt();
+        name = in.readString();
+        nodeId = in.readString();
+        downstreamPhaseId = in.readInt();
+        wallTimeNanos = in.readVLong();
+        peakMemoryBytes = in.readLong();
+        cpuTimeNanos.add(in.readVLong());
+        pausedNanos.add(in.readVLong());
+        rows.add(in.readVLong());
+        bytesSent.add(in.readVLong());
+        bytesReceived.add(in.readVLong());
+        int numProjectors = in.readVInt();
+        for (int i = 0; i < numProjectors; i++) {
+            ProjectorProfile projector = new ProjectorProfile();
+            projector.readFrom(in);
+            projectors.add(projector);
+        }
+        finished = true;
+    }
+
+    @Override
+    public synchronized void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(phaseId);
+        out.writeString(name);
+        out.writeString(nodeId);
+        out.writeInt(downstreamPhaseId);
+        out.writeVLong(wallTimeNanos);
+        out.writeLong(peakMemoryBytes);
+        out.writeVLong(cpuTimeNanos.sum());
+        out.writeVLong(pausedNanos.sum());
+        out.writeVLong(rows.sum());
+        out.writeVLong(bytesSent.sum());
+        out.writeVLong(bytesReceived.sum());
+        out.writeVInt(projectors.size());
+        for (ProjectorProfile projector : projectors) {
+            projector.writeTo(out);
+        }
+    }
+
+    public static PhaseProfile fromStream(StreamInput in) throws IOException {
+        PhaseProfile profile = new PhaseProfile();
+        profile.readFrom(in);
+        return profile;
+    }
+}
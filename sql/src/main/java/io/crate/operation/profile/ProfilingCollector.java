@@ -0,0 +1,57 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import io.crate.operation.collect.CrateCollector;
+
+import javax.annotation.Nullable;
+
+/**
+ * Collector which adds the cpu time spent in {@link #doCollect()} of its delegate to the phase profile.
+ *
+ * Work done after the delegate got paused and resumed from another thread isn't included.
+ */
+public class ProfilingCollector implements CrateCollector {
+
+    private final CrateCollector delegate;
+    private final PhaseProfile profile;
+
+    public ProfilingCollector(CrateCollector delegate, PhaseProfile profile) {
+        this.delegate = delegate;
+        this.profile = profile;
+    }
+
+    @Override
+    public void doCollect() {
+        long started = PhaseProfile.currentThreadCpuTime();
+        try {
+            delegate.doCollect();
+        } finally {
+            profile.addCpuTime(PhaseProfile.currentThreadCpuTime() - started);
+        }
+    }
+
+    @Override
+    public void kill(@Nullable Throwable throwable) {
+        delegate.kill(throwable);
+    }
+}
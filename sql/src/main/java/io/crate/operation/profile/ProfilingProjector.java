@@ -0,0 +1,96 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import io.crate.core.collections.Row;
+import io.crate.jobs.ExecutionState;
+import io.crate.operation.RowUpstream;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.projectors.Requirement;
+import io.crate.operation.projectors.RowReceiver;
+
+import java.util.Set;
+
+/**
+ * Projector which counts the rows going in and out of its delegate
+ */
+public class ProfilingProjector implements Projector {
+
+    private final Projector delegate;
+    private final ProjectorProfile profile;
+
+    public ProfilingProjector(Projector delegate, ProjectorProfile profile) {
+        this.delegate = delegate;
+        this.profile = profile;
+    }
+
+    @Override
+    public void downstream(RowReceiver rowDownstreamHandle) {
+        delegate.downstream(new ProfilingRowReceiver(rowDownstreamHandle, profile.rowsOutCounter(), null));
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        profile.rowsInCounter().increment();
+        return delegate.setNextRow(row);
+    }
+
+    @Override
+    public void finish() {
+        delegate.finish();
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        delegate.fail(throwable);
+    }
+
+    @Override
+    public void prepare(ExecutionState executionState) {
+        delegate.prepare(executionState);
+    }
+
+    @Override
+    public void setUpstream(RowUpstream rowUpstream) {
+        delegate.setUpstream(rowUpstream);
+    }
+
+    @Override
+    public Set<Requirement> requirements() {
+        return delegate.requirements();
+    }
+
+    @Override
+    public void pause() {
+        delegate.pause();
+    }
+
+    @Override
+    public void resume(boolean async) {
+        delegate.resume(async);
+    }
+
+    @Override
+    public void repeat() {
+        delegate.repeat();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import io.crate.core.collections.Row;
+import io.crate.operation.RowUpstream;
+import io.crate.operation.projectors.ForwardingRowReceiver;
+import io.crate.operation.projectors.RowReceiver;
+import jsr166e.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * RowReceiver which counts the rows passed to its delegate and optionally
+ * measures how long the upstreams are paused by the delegate (backpressure).
+ */
+public class ProfilingRowReceiver extends ForwardingRowReceiver {
+
+    private final LongAdder rows;
+
+    @Nullable
+    private final LongAdder pausedNanos;
+
+    ProfilingRowReceiver(RowReceiver rowReceiver, LongAdder rows, @Nullable LongAdder pausedNanos) {
+        super(rowReceiver);
+        this.rows = rows;
+        this.pausedNanos = pausedNanos;
+    }
+
+    /**
+     * wraps the output RowReceiver of a phase
+     */
+    public static RowReceiver forPhase(RowReceiver rowReceiver, PhaseProfile profile) {
+        return new ProfilingRowReceiver(rowReceiver, profile.rowsCounter(), profile.pausedCounter());
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        rows.increment();
+        return super.setNextRow(row);
+    }
+
+    @Override
+    public void setUpstream(RowUpstream rowUpstream) {
+        if (pausedNanos == null) {
+            super.setUpstream(rowUpstream);
+        } else {
+            super.setUpstream(new TimingRowUpstream(rowUpstream, pausedNanos));
+        }
+    }
+
+    private static class TimingRowUpstream implements RowUpstream {
+
+        private final RowUpstream delegate;
+        private final LongAdder pausedNanos;
+        private volatile long pausedAt = -1;
+
+        TimingRowUpstream(RowUpstream delegate, LongAdder pausedNanos) {
+            this.delegate = delegate;
+            this.pausedNanos = pausedNanos;
+        }
+
+        @Override
+        public void pause() {
+            pausedAt = System.nanoTime();
+            delegate.pause();
+        }
+
+        @Override
+        public void resume(boolean async) {
+            long started = pausedAt;
+            if (started >= 0) {
+                pausedAt = -1;
+                pausedNanos.add(System.nanoTime() - started);
+            }
+            delegate.resume(async);
+        }
+
+        @Override
+        public void repeat() {
+            delegate.repeat();
+        }
+    }
+}
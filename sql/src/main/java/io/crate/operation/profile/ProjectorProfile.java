@@ -0,0 +1,99 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.profile;
+
+import io.crate.planner.projection.Projection;
+import jsr166e.LongAdder;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * rows in/out of all projectors created for one {@link Projection} of a phase on a node.
+ *
+ * Shard level projections create a projector per shard; all of them count into the same profile.
+ */
+public class ProjectorProfile implements Streamable {
+
+    private String name;
+    private final LongAdder rowsIn = new LongAdder();
+    private final LongAdder rowsOut = new LongAdder();
+
+    @Nullable
+    private final Projection projection;
+
+    ProjectorProfile() {
+        projection = null;
+    }
+
+    ProjectorProfile(Projection projection) {
+        this.projection = projection;
+        this.name = projection.projectionType().name();
+    }
+
+    @Nullable
+    Projection projection() {
+        return projection;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long rowsIn() {
+        return rowsIn.sum();
+    }
+
+    public long rowsOut() {
+        return rowsOut.sum();
+    }
+
+    LongAdder rowsInCounter() {
+        return rowsIn;
+    }
+
+    LongAdder rowsOutCounter() {
+        return rowsOut;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        name = in.readString();
+        rowsIn.add(in.readVLong());
+        rowsOut.add(in.readVLong());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(name);
+        out.writeVLong(rowsIn.sum());
+        out.writeVLong(rowsOut.sum());
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + rowsIn.sum() + " -> " + rowsOut.sum();
+    }
+}
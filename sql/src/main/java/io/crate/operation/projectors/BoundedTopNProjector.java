@@ -0,0 +1,133 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.Sets;
+import io.crate.core.collections.ArrayBucket;
+import io.crate.core.collections.Row;
+import io.crate.exceptions.TopNErrorBoundException;
+
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import static io.crate.operation.projectors.TopNCandidatesProjector.longValue;
+
+/**
+ * Emits the <code>limit</code> rows with the highest value in the order by column, if the error bounds
+ * of the groups guarantee that the result is exact. Fails with a {@link TopNErrorBoundException} otherwise.
+ *
+ * The value of a group can be higher than the received one by at most the sum of the bounds of the
+ * upstreams which discarded some groups but didn't send this one. That is the sum of the bounds of all upstreams
+ * (the summed up boundOnce column) minus the summed up bound column of the group.
+ * A group which wasn't received at all can have a value of at most the sum of the bounds of all upstreams.
+ *
+ * The result is exact if all emitted groups have an error of 0 and no other group can exceed the
+ * lowest emitted value.
+ */
+public class BoundedTopNProjector extends AbstractProjector {
+
+    private final int orderByIdx;
+    private final int boundIdx;
+    private final int boundOnceIdx;
+    private final int limit;
+
+    private final PriorityQueue<Object[]> pq;
+    private long boundsSum = 0L;
+    private long maxDiscardedValueMinusBound = Long.MIN_VALUE;
+    private Set<Requirement> requirements;
+
+    public BoundedTopNProjector(int orderByIdx, int boundIdx, int boundOnceIdx, int limit) {
+        assert limit > 0 : "limit must be greater than 0";
+        this.orderByIdx = orderByIdx;
+        this.boundIdx = boundIdx;
+        this.boundOnceIdx = boundOnceIdx;
+        this.limit = limit;
+        this.pq = new PriorityQueue<>(limit + 1, new TopNCandidatesProjector.OrderByColumnComparator(orderByIdx));
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        boundsSum += longValue(row.get(boundOnceIdx));
+        long value = longValue(row.get(orderByIdx));
+        if (pq.size() == limit && value <= longValue(pq.peek()[orderByIdx])) {
+            discarded(value, longValue(row.get(boundIdx)));
+            return true;
+        }
+        pq.add(row.materialize());
+        if (pq.size() > limit) {
+            Object[] cells = pq.poll();
+            discarded(longValue(cells[orderByIdx]), longValue(cells[boundIdx]));
+        }
+        return true;
+    }
+
+    private void discarded(long value, long bound) {
+        maxDiscardedValueMinusBound = Math.max(maxDiscardedValueMinusBound, value - bound);
+    }
+
+    @Override
+    public void finish() {
+        long lowestValue = pq.size() < limit ? 0L : longValue(pq.peek()[orderByIdx]);
+        if (boundsSum > lowestValue) {
+            failInexact(String.format(Locale.ENGLISH,
+                    "groups which weren't received could have a value of up to %d", boundsSum));
+            return;
+        }
+        if (maxDiscardedValueMinusBound != Long.MIN_VALUE && maxDiscardedValueMinusBound + boundsSum > lowestValue) {
+            failInexact(String.format(Locale.ENGLISH,
+                    "a discarded group could have a value of up to %d", maxDiscardedValueMinusBound + boundsSum));
+            return;
+        }
+        Object[][] rows = new Object[pq.size()][];
+        int i = 0;
+        for (Object[] cells : pq) {
+            if (longValue(cells[boundIdx]) != boundsSum) {
+                failInexact("the value of a returned group isn't exact");
+                return;
+            }
+            rows[i++] = cells;
+        }
+        pq.clear();
+        new IterableRowEmitter(downstream, executionState, new ArrayBucket(rows)).run();
+    }
+
+    private void failInexact(String reason) {
+        pq.clear();
+        downstream.fail(new TopNErrorBoundException(String.format(Locale.ENGLISH,
+                "Bounded top-%d is not exact: %s", limit, reason)));
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        downstream.fail(throwable);
+    }
+
+    @Override
+    public Set<Requirement> requirements() {
+        if (requirements == null) {
+            requirements = Sets.newEnumSet(downstream.requirements(), Requirement.class);
+            requirements.remove(Requirement.REPEAT);
+        }
+        return requirements;
+    }
+}
@@ -33,7 +33,6 @@ import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 import io.crate.executor.transport.NodeFetchRequest;
 import io.crate.executor.transport.NodeFetchResponse;
-import io.crate.executor.transport.StreamBucket;
 import io.crate.executor.transport.TransportFetchNodeAction;
 import io.crate.jobs.ExecutionState;
 import io.crate.metadata.Functions;
@@ -204,9 +203,9 @@ public class FetchProjector extends AbstractProjector {
             transportFetchNodeAction.execute(nodeId, streamers, request, new ActionListener<NodeFetchResponse>() {
                 @Override
                 public void onResponse(NodeFetchResponse nodeFetchResponse) {
-                    IntObjectMap<StreamBucket> fetched = nodeFetchResponse.fetched();
+                    IntObjectMap<? extends Bucket> fetched = nodeFetchResponse.fetched();
                     if (fetched != null) {
-                        for (IntObjectCursor<StreamBucket> cursor : fetched) {
+                        for (IntObjectCursor<? extends Bucket> cursor : fetched) {
                             ReaderBucket readerBucket = fetches.readerBuckets.get(cursor.key);
                             readerBucket.fetched(cursor.value);
                         }
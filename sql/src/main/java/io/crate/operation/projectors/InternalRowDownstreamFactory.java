@@ -21,6 +21,8 @@
 
 package io.crate.operation.projectors;
 
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import io.crate.Streamer;
 import io.crate.executor.transport.distributed.*;
@@ -64,20 +66,25 @@ public class InternalRowDownstreamFactory implements RowDownstreamFactory {
         // TODO: set bucketIdx properly
         ArrayList<String> server = Lists.newArrayList(nodeOperation.executionPhase().executionNodes());
         Collections.sort(server);
-        int bucketIdx = Math.max(server.indexOf(clusterService.localNode().id()), 0);
+        String localNodeId = clusterService.localNode().id();
+        int bucketIdx = Math.max(server.indexOf(localNodeId), 0);
+        // the bucket for the local node is handed over without serialization
+        int localBucketIdx = Iterables.indexOf(nodeOperation.downstreamNodes(), Predicates.equalTo(localNodeId));
 
         MultiBucketBuilder multiBucketBuilder;
         switch (distributionInfo.distributionType()) {
             case MODULO:
                 if (nodeOperation.downstreamNodes().size() == 1) {
-                    multiBucketBuilder = new BroadcastingBucketBuilder(streamers, nodeOperation.downstreamNodes().size());
+                    multiBucketBuilder = new BroadcastingBucketBuilder(
+                            streamers, nodeOperation.downstreamNodes().size(), localBucketIdx);
                 } else {
                     multiBucketBuilder = new ModuloBucketBuilder(streamers,
-                            nodeOperation.downstreamNodes().size(), distributionInfo.distributeByColumn());
+                            nodeOperation.downstreamNodes().size(), distributionInfo.distributeByColumn(), localBucketIdx);
                 }
                 break;
             case BROADCAST:
-                multiBucketBuilder = new BroadcastingBucketBuilder(streamers, nodeOperation.downstreamNodes().size());
+                multiBucketBuilder = new BroadcastingBucketBuilder(
+                        streamers, nodeOperation.downstreamNodes().size(), localBucketIdx);
                 break;
             default:
                 throw new UnsupportedOperationException("Can't handle distributionInfo: " + distributionInfo);
@@ -29,6 +29,8 @@ import io.crate.metadata.ColumnIdent;
 import io.crate.operation.ImplementationSymbolVisitor;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.profile.PhaseProfile;
+import io.crate.operation.profile.ProfilingProjector;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
 import io.crate.planner.projection.*;
 import io.crate.planner.symbol.*;
@@ -149,6 +151,14 @@ public class ProjectionToProjectorVisitor
         for (Aggregation aggregation : projection.values()) {
             symbolVisitor.process(aggregation, symbolContext);
         }
+        if (projection.keysSorted()) {
+            return new StreamingGroupingProjector(
+                    keyInputs,
+                    symbolContext.collectExpressions().toArray(new CollectExpression[symbolContext.collectExpressions().size()]),
+                    symbolContext.aggregations(),
+                    context.ramAccountingContext
+            );
+        }
         return new GroupingProjector(
                 Symbols.extractTypes(projection.keys()),
                 keyInputs,
@@ -323,6 +333,45 @@ public class ProjectionToProjectorVisitor
                 context.jobId);
     }
 
+    @Override
+    public Projector visitDeleteProjection(DeleteProjection projection, Context context) {
+        if (shardId == null) {
+            throw new UnsupportedOperationException("Delete projection can only be executed on a shard");
+        }
+
+        ImplementationSymbolVisitor.Context ctx = new ImplementationSymbolVisitor.Context();
+        symbolVisitor.process(projection.uidSymbol(), ctx);
+        assert ctx.collectExpressions().size() == 1;
+
+        return new DeleteProjector(
+                clusterService,
+                settings,
+                shardId,
+                transportActionProvider,
+                bulkRetryCoordinatorPool,
+                ctx.collectExpressions().toArray(new CollectExpression[ctx.collectExpressions().size()])[0],
+                projection.requiredVersion(),
+                context.jobId);
+    }
+
+    @Override
+    public Projector visitTopNCandidatesProjection(TopNCandidatesProjection projection, Context context) {
+        return new TopNCandidatesProjector(
+                projection.orderByIdx(),
+                projection.distributedByColumnIdx(),
+                projection.numBuckets(),
+                projection.candidateSize());
+    }
+
+    @Override
+    public Projector visitBoundedTopNProjection(BoundedTopNProjection projection, Context context) {
+        return new BoundedTopNProjector(
+                projection.orderByIdx(),
+                projection.boundIdx(),
+                projection.boundOnceIdx(),
+                projection.limit());
+    }
+
     @Override
     public Projector visitFetchProjection(FetchProjection projection, Context context) {
         return new FetchProjector(
@@ -339,7 +388,12 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector create(Projection projection, RamAccountingContext ramAccountingContext, UUID jobId) {
-        return process(projection, new Context(ramAccountingContext, jobId));
+        Projector projector = process(projection, new Context(ramAccountingContext, jobId));
+        PhaseProfile profile = ramAccountingContext.profile();
+        if (profile != null) {
+            return new ProfilingProjector(projector, profile.projector(projection));
+        }
+        return projector;
     }
 
     @Override
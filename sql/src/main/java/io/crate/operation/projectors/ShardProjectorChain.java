@@ -21,9 +21,12 @@
 
 package io.crate.operation.projectors;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.jobs.ExecutionProgress;
 import io.crate.jobs.ExecutionState;
 import io.crate.operation.RowDownstream;
 import io.crate.planner.RowGranularity;
@@ -31,6 +34,7 @@ import io.crate.planner.projection.Projection;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -80,7 +84,8 @@ public class ShardProjectorChain {
     private int shardProjectionsIndex = -1;
 
     private final RowDownstream rowDownstream;
-
+    @Nullable
+    private final ExecutionProgress progress;
 
     public static ShardProjectorChain passThroughMerge(UUID jobId,
                                                        int maxNumShards,
@@ -88,13 +93,29 @@ public class ShardProjectorChain {
                                                        RowReceiver finalDownstream,
                                                        ProjectorFactory projectorFactory,
                                                        RamAccountingContext ramAccountingContext) {
+        return passThroughMerge(jobId, maxNumShards, projections, finalDownstream, projectorFactory,
+                ramAccountingContext, null);
+    }
+
+    /**
+     * @param progress if not null the rows of every shard are counted and the shards are
+     *                 marked as completed once their collectors finished
+     */
+    public static ShardProjectorChain passThroughMerge(UUID jobId,
+                                                       int maxNumShards,
+                                                       List<? extends Projection> projections,
+                                                       RowReceiver finalDownstream,
+                                                       ProjectorFactory projectorFactory,
+                                                       RamAccountingContext ramAccountingContext,
+                                                       @Nullable ExecutionProgress progress) {
         return new ShardProjectorChain(
                 jobId,
                 projections,
                 maxNumShards,
                 finalDownstream,
                 projectorFactory,
-                ramAccountingContext
+                ramAccountingContext,
+                progress
         );
     }
 
@@ -104,9 +125,11 @@ public class ShardProjectorChain {
                                 int maxNumShards,
                                 RowReceiver finalDownstream,
                                 ProjectorFactory projectorFactory,
-                                RamAccountingContext ramAccountingContext) {
+                                RamAccountingContext ramAccountingContext,
+                                @Nullable ExecutionProgress progress) {
         this.jobId = jobId;
         this.ramAccountingContext = ramAccountingContext;
+        this.progress = progress;
         this.projections = projections;
         nodeProjectors = new ArrayList<>();
 
@@ -174,11 +197,20 @@ public class ShardProjectorChain {
      * @return a new projector connected to the internal chain
      */
     public RowReceiver newShardDownstreamProjector(ProjectorFactory projectorFactory) {
+        return newShardDownstreamProjector(projectorFactory, Functions.<RowReceiver>identity());
+    }
+
+    /**
+     * Like {@link #newShardDownstreamProjector(ProjectorFactory)} but the rows emitted by the shard projections
+     * are passed to the receiver returned by <code>shardOutput</code> before they reach the node projectors.
+     */
+    public RowReceiver newShardDownstreamProjector(ProjectorFactory projectorFactory,
+                                                   Function<RowReceiver, RowReceiver> shardOutput) {
         if (shardProjectionsIndex < 0) {
-            return rowDownstream.newRowReceiver();
+            return trackShard(rowDownstream.newRowReceiver());
         }
 
-        RowReceiver previousProjector = rowDownstream.newRowReceiver();
+        RowReceiver previousProjector = shardOutput.apply(rowDownstream.newRowReceiver());
         Projector projector = null;
         for (int i = shardProjectionsIndex; i >= 0; i--) {
             projector = projectorFactory.create(projections.get(i), ramAccountingContext, jobId);
@@ -188,7 +220,22 @@ public class ShardProjectorChain {
             previousProjector = projector;
         }
 
-        return projector;
+        return trackShard(projector);
+    }
+
+    /**
+     * Returns a downstream which is connected directly to the node level projectors.
+     * To be used by collectors which already do the work of the shard projections themselves.
+     */
+    public RowReceiver newShardDownstreamWithoutShardProjections() {
+        return trackShard(rowDownstream.newRowReceiver());
+    }
+
+    private RowReceiver trackShard(RowReceiver shardDownstream) {
+        if (progress == null) {
+            return shardDownstream;
+        }
+        return progress.countShardRows(shardDownstream);
     }
 
     public void prepare(ExecutionState executionState) {
@@ -0,0 +1,174 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.collect.CollectExpression;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Grouping projector for rows which arrive ordered by the group keys.
+ *
+ * Only the aggregation states of the current group are kept, the group is emitted as soon as a row
+ * with different keys arrives. So in contrast to the {@link GroupingProjector} the memory usage doesn't
+ * depend on the number of groups and the first groups are emitted before all rows have been received.
+ *
+ * Emits rows in the form of: [key1, key2, ..., agg1, agg2, ...], in the order of the incoming rows.
+ */
+public class StreamingGroupingProjector extends AbstractProjector {
+
+    private final List<Input<?>> keyInputs;
+    private final CollectExpression[] collectExpressions;
+    private final Aggregator[] aggregators;
+    private final GroupRamAccountingContext groupRamAccountingContext;
+
+    private final Object[] keys;
+    private final Object[] states;
+    private final Object[] cells;
+    private final RowN outputRow;
+    private boolean hasGroup = false;
+
+    public StreamingGroupingProjector(List<Input<?>> keyInputs,
+                                      CollectExpression[] collectExpressions,
+                                      AggregationContext[] aggregations,
+                                      RamAccountingContext ramAccountingContext) {
+        this.keyInputs = keyInputs;
+        this.collectExpressions = collectExpressions;
+        this.groupRamAccountingContext = new GroupRamAccountingContext(ramAccountingContext);
+        this.aggregators = new Aggregator[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            aggregators[i] = new Aggregator(
+                    groupRamAccountingContext,
+                    aggregations[i].symbol(),
+                    aggregations[i].function(),
+                    aggregations[i].inputs()
+            );
+        }
+        keys = new Object[keyInputs.size()];
+        states = new Object[aggregators.length];
+        cells = new Object[keys.length + aggregators.length];
+        outputRow = new RowN(cells);
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        for (CollectExpression collectExpression : collectExpressions) {
+            collectExpression.setNextRow(row);
+        }
+        if (hasGroup) {
+            if (sameKeys()) {
+                for (int i = 0; i < aggregators.length; i++) {
+                    states[i] = aggregators[i].processRow(states[i]);
+                }
+                return true;
+            }
+            if (!emitGroup()) {
+                return false;
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyInputs.get(i).value();
+        }
+        for (int i = 0; i < aggregators.length; i++) {
+            states[i] = aggregators[i].processRow(aggregators[i].prepareState());
+        }
+        hasGroup = true;
+        return true;
+    }
+
+    private boolean sameKeys() {
+        for (int i = 0; i < keys.length; i++) {
+            if (!Objects.equals(keys[i], keyInputs.get(i).value())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean emitGroup() {
+        System.arraycopy(keys, 0, cells, 0, keys.length);
+        for (int i = 0; i < aggregators.length; i++) {
+            cells[keys.length + i] = aggregators[i].finishCollect(states[i]);
+            states[i] = null;
+        }
+        hasGroup = false;
+        // the states of the emitted group aren't referenced anymore
+        groupRamAccountingContext.release();
+        return downstream.setNextRow(outputRow);
+    }
+
+    @Override
+    public void finish() {
+        if (hasGroup) {
+            try {
+                emitGroup();
+            } catch (Throwable t) {
+                downstream.fail(t);
+                return;
+            }
+        }
+        downstream.finish();
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        hasGroup = false;
+        groupRamAccountingContext.release();
+        downstream.fail(throwable);
+    }
+
+    /**
+     * Accounts the bytes of the aggregation states on the ram accounting context of the projector
+     * and keeps track of them so that they can be released once the group is emitted.
+     */
+    private static class GroupRamAccountingContext extends RamAccountingContext {
+
+        private final RamAccountingContext parent;
+        private long groupBytes = 0;
+
+        GroupRamAccountingContext(RamAccountingContext parent) {
+            super(parent.contextId(), new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+            this.parent = parent;
+        }
+
+        @Override
+        public void addBytes(long bytes) throws CircuitBreakingException {
+            parent.addBytes(bytes);
+            groupBytes += bytes;
+        }
+
+        void release() {
+            parent.addBytes(-groupBytes);
+            groupBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.Sets;
+import io.crate.core.collections.ArrayBucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.distributed.ModuloBucketBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Keeps the <code>candidateSize</code> rows with the highest value in the order by column per bucket
+ * the rows are distributed to and appends the bound columns described in
+ * {@link io.crate.planner.projection.TopNCandidatesProjection}.
+ */
+public class TopNCandidatesProjector extends AbstractProjector {
+
+    private final int orderByIdx;
+    private final int distributedByColumnIdx;
+    private final int numBuckets;
+    private final int candidateSize;
+
+    private final List<PriorityQueue<Object[]>> buckets;
+    private final long[] bounds;
+    private Set<Requirement> requirements;
+
+    public TopNCandidatesProjector(int orderByIdx, int distributedByColumnIdx, int numBuckets, int candidateSize) {
+        assert candidateSize > 0 : "candidateSize must be greater than 0";
+        this.orderByIdx = orderByIdx;
+        this.distributedByColumnIdx = distributedByColumnIdx;
+        this.numBuckets = numBuckets;
+        this.candidateSize = candidateSize;
+        this.bounds = new long[numBuckets];
+        this.buckets = new ArrayList<>(numBuckets);
+        Comparator<Object[]> comparator = new OrderByColumnComparator(orderByIdx);
+        for (int i = 0; i < numBuckets; i++) {
+            // lowest value first, it is discarded if a higher one arrives
+            buckets.add(new PriorityQueue<>(candidateSize + 1, comparator));
+        }
+    }
+
+    @Override
+    public boolean setNextRow(Row row) {
+        int bucketIdx = ModuloBucketBuilder.bucket(row.get(distributedByColumnIdx), numBuckets);
+        PriorityQueue<Object[]> bucket = buckets.get(bucketIdx);
+        long value = longValue(row.get(orderByIdx));
+        if (bucket.size() == candidateSize && value <= longValue(bucket.peek()[orderByIdx])) {
+            bounds[bucketIdx] = Math.max(bounds[bucketIdx], value);
+            return true;
+        }
+        Object[] cells = new Object[row.size() + 2];
+        for (int i = 0; i < row.size(); i++) {
+            cells[i] = row.get(i);
+        }
+        bucket.add(cells);
+        if (bucket.size() > candidateSize) {
+            Object[] discarded = bucket.poll();
+            bounds[bucketIdx] = Math.max(bounds[bucketIdx], longValue(discarded[orderByIdx]));
+        }
+        return true;
+    }
+
+    @Override
+    public void finish() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int b = 0; b < numBuckets; b++) {
+            boolean first = true;
+            for (Object[] cells : buckets.get(b)) {
+                cells[cells.length - 2] = bounds[b];
+                cells[cells.length - 1] = first ? bounds[b] : 0L;
+                first = false;
+                rows.add(cells);
+            }
+            buckets.get(b).clear();
+        }
+        new IterableRowEmitter(downstream, executionState, new ArrayBucket(rows.toArray(new Object[rows.size()][]))).run();
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        downstream.fail(throwable);
+    }
+
+    @Override
+    public Set<Requirement> requirements() {
+        if (requirements == null) {
+            requirements = Sets.newEnumSet(downstream.requirements(), Requirement.class);
+            requirements.remove(Requirement.REPEAT);
+        }
+        return requirements;
+    }
+
+    static long longValue(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    static class OrderByColumnComparator implements Comparator<Object[]> {
+
+        private final int orderByIdx;
+
+        OrderByColumnComparator(int orderByIdx) {
+            this.orderByIdx = orderByIdx;
+        }
+
+        @Override
+        public int compare(Object[] o1, Object[] o2) {
+            return Long.compare(longValue(o1[orderByIdx]), longValue(o2[orderByIdx]));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.job;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histogram of job latencies in milliseconds over a sliding window of up to 15 minutes.
+ *
+ * Values are counted in log-linear buckets: each power of two is split into 16 buckets,
+ * so a percentile is off by at most 1/16th of its value. Values below 16ms are exact.
+ *
+ * The window is split into one-minute slices which are recycled once they are older than
+ * the largest window. A window of n minutes covers the n preceding minutes plus the current one.
+ *
+ * Recording doesn't lock: it only increments the counter of a bucket in the current slice.
+ */
+public class LatencyHistogram {
+
+    public static final int[] WINDOW_MINUTES = new int[] { 1, 5, 15 };
+
+    private static final long SLICE_MILLIS = 60_000L;
+    private static final int NUM_SLICES = 16;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int NUM_BUCKETS = SUB_BUCKETS + (31 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String statementType;
+    @Nullable
+    private final String tableName;
+    private final AtomicReferenceArray<Slice> slices = new AtomicReferenceArray<>(NUM_SLICES);
+
+    public LatencyHistogram(String statementType, @Nullable String tableName) {
+        this.statementType = statementType;
+        this.tableName = tableName;
+    }
+
+    public String statementType() {
+        return statementType;
+    }
+
+    /**
+     * @return the table the histogram is restricted to or null if it covers all statements of its type
+     */
+    @Nullable
+    public String tableName() {
+        return tableName;
+    }
+
+    public void record(long nowMillis, long latencyMillis) {
+        Slice slice = slice(nowMillis / SLICE_MILLIS);
+        slice.counts.incrementAndGet(bucket(latencyMillis));
+        slice.updateMax(latencyMillis);
+    }
+
+    private Slice slice(long minute) {
+        int idx = (int) (minute % NUM_SLICES);
+        while (true) {
+            Slice slice = slices.get(idx);
+            if (slice != null && slice.minute >= minute) {
+                return slice;
+            }
+            Slice newSlice = new Slice(minute);
+            if (slices.compareAndSet(idx, slice, newSlice)) {
+                return newSlice;
+            }
+        }
+    }
+
+    public Snapshot snapshot(long nowMillis, int windowMinutes) {
+        assert windowMinutes < NUM_SLICES : "window must be smaller than " + NUM_SLICES + " minutes";
+        long minute = nowMillis / SLICE_MILLIS;
+        long[] counts = new long[NUM_BUCKETS];
+        long count = 0;
+        long max = 0;
+        for (int i = 0; i < NUM_SLICES; i++) {
+            Slice slice = slices.get(i);
+            if (slice == null || slice.minute < minute - windowMinutes || slice.minute > minute) {
+                continue;
+            }
+            for (int b = 0; b < NUM_BUCKETS; b++) {
+                long bucketCount = slice.counts.get(b);
+                counts[b] += bucketCount;
+                count += bucketCount;
+            }
+            max = Math.max(max, slice.max.get());
+        }
+        return new Snapshot(statementType, tableName, windowMinutes, counts, count, max);
+    }
+
+    static int bucket(long value) {
+        value = Math.max(0, Math.min(value, Integer.MAX_VALUE));
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the largest value which is counted in the given bucket
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1L) << shift) - 1;
+    }
+
+    private static class Slice {
+
+        private final long minute;
+        private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        private Slice(long minute) {
+            this.minute = minute;
+        }
+
+        private void updateMax(long value) {
+            long current;
+            do {
+                current = max.get();
+            } while (value > current && !max.compareAndSet(current, value));
+        }
+    }
+
+    public static class Snapshot {
+
+        private final String statementType;
+        private final String tableName;
+        private final int windowMinutes;
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(String statementType,
+                         @Nullable String tableName,
+                         int windowMinutes,
+                         long[] counts,
+                         long count,
+                         long max) {
+            this.statementType = statementType;
+            this.tableName = tableName;
+            this.windowMinutes = windowMinutes;
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        public String statementType() {
+            return statementType;
+        }
+
+        @Nullable
+        public String tableName() {
+            return tableName;
+        }
+
+        public int windowMinutes() {
+            return windowMinutes;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        /**
+         * @param percentile between 0.0 and 1.0
+         * @return the upper bound of the bucket containing the given percentile, never greater than {@link #max()}
+         */
+        public long valueAt(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                seen += counts[b];
+                if (seen >= rank) {
+                    return Math.min(upperBound(b), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package io.crate.operation.reference.sys.job;
 import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.*;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
+import io.crate.metadata.stats.TableStatsRows;
 import io.crate.metadata.sys.*;
 import io.crate.operation.reference.ReferenceResolver;
 import io.crate.operation.reference.sys.check.checks.SysCheck;
@@ -49,9 +50,12 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
     private RowContextReferenceResolver() {
         tableFactories.put(SysJobsTableInfo.IDENT, getSysJobsExpressions());
         tableFactories.put(SysJobsLogTableInfo.IDENT, getSysJobsLogExpressions());
+        tableFactories.put(SysJobsLatenciesTableInfo.IDENT, getSysJobsLatenciesExpressions());
         tableFactories.put(SysOperationsTableInfo.IDENT, getSysOperationExpressions());
         tableFactories.put(SysOperationsLogTableInfo.IDENT, getSysOperationLogExpressions());
         tableFactories.put(SysChecksTableInfo.IDENT, getSysChecksExpressions());
+        tableFactories.put(SysTableStatsTableInfo.IDENT, getSysTableStatsExpressions());
+        tableFactories.put(SysColumnStatsTableInfo.IDENT, getSysColumnStatsExpressions());
     }
 
     private Map<ColumnIdent, RowCollectExpressionFactory> getSysOperationLogExpressions() {
@@ -192,10 +196,68 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                         return new RowContextCollectorExpression<OperationContext, Long>() {
                             @Override
                             public Long value() {
-                                if (row.usedBytes == 0) {
+                                // live value while running, the operation reports its final value once finished
+                                long usedBytes = row.progress == null ? row.usedBytes : row.progress.usedBytes();
+                                if (usedBytes <= 0) {
                                     return null;
                                 }
-                                return row.usedBytes;
+                                return usedBytes;
+                            }
+                        };
+                    }
+                })
+                .put(SysOperationsTableInfo.Columns.STATE, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<OperationContext, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                if (row.progress == null) {
+                                    return null;
+                                }
+                                return new BytesRef(row.progress.state().name());
+                            }
+                        };
+                    }
+                })
+                .put(SysOperationsTableInfo.Columns.ROWS_PROCESSED, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<OperationContext, Long>() {
+                            @Override
+                            public Long value() {
+                                if (row.progress == null || row.progress.rows() < 0) {
+                                    return null;
+                                }
+                                return row.progress.rows();
+                            }
+                        };
+                    }
+                })
+                .put(SysOperationsTableInfo.Columns.SHARDS_TOTAL, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<OperationContext, Integer>() {
+                            @Override
+                            public Integer value() {
+                                if (row.progress == null || row.progress.shardsTotal() < 0) {
+                                    return null;
+                                }
+                                return row.progress.shardsTotal();
+                            }
+                        };
+                    }
+                })
+                .put(SysOperationsTableInfo.Columns.SHARDS_COMPLETED, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<OperationContext, Integer>() {
+                            @Override
+                            public Integer value() {
+                                if (row.progress == null || row.progress.shardsTotal() < 0) {
+                                    return null;
+                                }
+                                return row.progress.shardsCompleted();
                             }
                         };
                     }
@@ -267,6 +329,99 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                 .build();
     }
 
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysJobsLatenciesExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysJobsLatenciesTableInfo.Columns.STATEMENT_TYPE, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return new BytesRef(row.statementType());
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.TABLE_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.tableName());
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.WINDOW_MINUTES, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, Integer>() {
+                            @Override
+                            public Integer value() {
+                                return row.windowMinutes();
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.COUNT, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.count();
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.P50, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.valueAt(0.5);
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.P95, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.valueAt(0.95);
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.P99, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.valueAt(0.99);
+                            }
+                        };
+                    }
+                })
+                .put(SysJobsLatenciesTableInfo.Columns.MAX, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<LatencyHistogram.Snapshot, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.max();
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
     private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysJobsExpressions() {
         return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
                 .put(SysJobsTableInfo.Columns.ID, new RowCollectExpressionFactory() {
@@ -354,6 +509,164 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                 .build();
     }
 
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysTableStatsExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysTableStatsTableInfo.Columns.SCHEMA_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.TableRow, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return new BytesRef(row.schemaName);
+                            }
+                        };
+                    }
+                })
+                .put(SysTableStatsTableInfo.Columns.TABLE_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.TableRow, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return new BytesRef(row.tableName);
+                            }
+                        };
+                    }
+                })
+                .put(SysTableStatsTableInfo.Columns.PARTITION_IDENT, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.TableRow, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return BytesRefs.toBytesRef(row.partitionIdent);
+                            }
+                        };
+                    }
+                })
+                .put(SysTableStatsTableInfo.Columns.NUM_DOCS, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.TableRow, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.numDocs;
+                            }
+                        };
+                    }
+                })
+                .put(SysTableStatsTableInfo.Columns.ANALYZED_AT, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.TableRow, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.analyzedAt;
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
+    private ImmutableMap<ColumnIdent, RowCollectExpressionFactory> getSysColumnStatsExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+                .put(SysColumnStatsTableInfo.Columns.SCHEMA_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return new BytesRef(row.schemaName);
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.TABLE_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return new BytesRef(row.tableName);
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.COLUMN_NAME, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, BytesRef>() {
+                            @Override
+                            public BytesRef value() {
+                                return new BytesRef(row.columnName);
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.NULL_FRACTION, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.stats.nullFraction();
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.APPROX_DISTINCT, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, Long>() {
+                            @Override
+                            public Long value() {
+                                return row.stats.approxDistinct();
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.MIN, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.stats.min();
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.MAX, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, Double>() {
+                            @Override
+                            public Double value() {
+                                return row.stats.max();
+                            }
+                        };
+                    }
+                })
+                .put(SysColumnStatsTableInfo.Columns.HISTOGRAM, new RowCollectExpressionFactory() {
+                    @Override
+                    public RowCollectExpression create() {
+                        return new RowContextCollectorExpression<TableStatsRows.ColumnRow, Double[]>() {
+                            @Override
+                            public Double[] value() {
+                                double[] histogram = row.stats.histogram();
+                                Double[] values = new Double[histogram.length];
+                                for (int i = 0; i < histogram.length; i++) {
+                                    values[i] = histogram[i];
+                                }
+                                return values;
+                            }
+                        };
+                    }
+                })
+                .build();
+    }
+
     @Override
     public RowCollectExpression<?, ?> getImplementation(ReferenceInfo refInfo) {
         return rowCollectExpressionFromFactoryMap(tableFactories, refInfo);
@@ -0,0 +1,150 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.job;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.*;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+
+import java.util.Set;
+
+/**
+ * Determines the type of an analyzed statement and the tables it operates on,
+ * used to group the latencies of finished jobs.
+ */
+public class StatementClassifier extends AnalyzedStatementVisitor<ImmutableSet.Builder<String>, String> {
+
+    private static final StatementClassifier INSTANCE = new StatementClassifier();
+
+    public static class Classification {
+
+        private final String type;
+        private final Set<String> tables;
+
+        public Classification(String type, Set<String> tables) {
+            this.type = type;
+            this.tables = tables;
+        }
+
+        public String type() {
+            return type;
+        }
+
+        public Set<String> tables() {
+            return tables;
+        }
+    }
+
+    private StatementClassifier() {
+    }
+
+    public static Classification classify(AnalyzedStatement statement) {
+        ImmutableSet.Builder<String> tables = ImmutableSet.builder();
+        String type = INSTANCE.process(statement, tables);
+        return new Classification(type, tables.build());
+    }
+
+    @Override
+    protected String visitAnalyzedStatement(AnalyzedStatement analyzedStatement, ImmutableSet.Builder<String> tables) {
+        return "OTHER";
+    }
+
+    @Override
+    protected String visitSelectStatement(SelectAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        if (analysis.relation() instanceof MultiSourceSelect) {
+            for (AnalyzedRelation relation : ((MultiSourceSelect) analysis.relation()).sources().values()) {
+                addTable(relation, tables);
+            }
+        } else {
+            addTable(analysis.relation(), tables);
+        }
+        return "SELECT";
+    }
+
+    @Override
+    protected String visitInsertFromValuesStatement(InsertFromValuesAnalyzedStatement analysis,
+                                                    ImmutableSet.Builder<String> tables) {
+        tables.add(analysis.tableInfo().ident().fqn());
+        return "INSERT";
+    }
+
+    @Override
+    protected String visitInsertFromSubQueryStatement(InsertFromSubQueryAnalyzedStatement analysis,
+                                                      ImmutableSet.Builder<String> tables) {
+        tables.add(analysis.tableInfo().ident().fqn());
+        return "INSERT";
+    }
+
+    @Override
+    protected String visitUpdateStatement(UpdateAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        addTable(analysis.sourceRelation(), tables);
+        return "UPDATE";
+    }
+
+    @Override
+    protected String visitDeleteStatement(DeleteAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        tables.add(analysis.analyzedRelation().tableInfo().ident().fqn());
+        return "DELETE";
+    }
+
+    @Override
+    protected String visitCopyStatement(CopyAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        tables.add(analysis.table().ident().fqn());
+        return "COPY";
+    }
+
+    @Override
+    protected String visitDDLAnalyzedStatement(AbstractDDLAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        return "DDL";
+    }
+
+    @Override
+    public String visitSetStatement(SetAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        return "SET";
+    }
+
+    @Override
+    public String visitKillAnalyzedStatement(KillAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        return "KILL";
+    }
+
+    @Override
+    protected String visitShowAnalyzedStatement(AbstractShowAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        return "SHOW";
+    }
+
+    @Override
+    public String visitExplainStatement(ExplainAnalyzedStatement analysis, ImmutableSet.Builder<String> tables) {
+        return "EXPLAIN";
+    }
+
+    private static void addTable(AnalyzedRelation relation, ImmutableSet.Builder<String> tables) {
+        if (relation instanceof QueriedTableRelation) {
+            relation = ((QueriedTableRelation) relation).tableRelation();
+        }
+        if (relation instanceof AbstractTableRelation) {
+            tables.add(((AbstractTableRelation) relation).tableInfo().ident().fqn());
+        }
+    }
+}
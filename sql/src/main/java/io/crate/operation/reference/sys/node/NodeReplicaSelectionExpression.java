@@ -0,0 +1,110 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.node;
+
+import io.crate.jobs.ReplicaSelector;
+import io.crate.metadata.ColumnIdent;
+import io.crate.operation.reference.NestedObjectExpression;
+import io.crate.operation.reference.sys.SysNodeObjectArrayReference;
+import io.crate.operation.reference.sys.SysNodeObjectReference;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * the ranking of the nodes used by the adaptive replica selection of this node
+ */
+public class NodeReplicaSelectionExpression extends SysNodeObjectArrayReference {
+
+    public static final String NAME = "replica_selection";
+
+    private static final Comparator<ReplicaSelector.NodeStats> NODE_ID_ORDER = new Comparator<ReplicaSelector.NodeStats>() {
+        @Override
+        public int compare(ReplicaSelector.NodeStats o1, ReplicaSelector.NodeStats o2) {
+            return o1.nodeId().compareTo(o2.nodeId());
+        }
+    };
+
+    private final ReplicaSelector replicaSelector;
+
+    protected NodeReplicaSelectionExpression(ReplicaSelector replicaSelector) {
+        super(new ColumnIdent(NAME));
+        this.replicaSelector = replicaSelector;
+    }
+
+    @Override
+    protected List<NestedObjectExpression> getChildImplementations() {
+        List<ReplicaSelector.NodeStats> nodeStats = new ArrayList<>(replicaSelector.nodeStats());
+        Collections.sort(nodeStats, NODE_ID_ORDER);
+        List<NestedObjectExpression> childImplementations = new ArrayList<>(nodeStats.size());
+        for (ReplicaSelector.NodeStats stats : nodeStats) {
+            childImplementations.add(new NodeStatsExpression(stats));
+        }
+        return childImplementations;
+    }
+
+    private static class NodeStatsExpression extends SysNodeObjectReference {
+
+        public static final String NODE_ID = "node_id";
+        public static final String RANK = "rank";
+        public static final String AVG_RESPONSE_TIME = "avg_response_time";
+        public static final String OUTSTANDING_PHASES = "outstanding_phases";
+
+        private final ReplicaSelector.NodeStats stats;
+
+        protected NodeStatsExpression(ReplicaSelector.NodeStats stats) {
+            this.stats = stats;
+            addChildImplementations();
+        }
+
+        private void addChildImplementations() {
+            childImplementations.put(NODE_ID, new ChildExpression<BytesRef>() {
+                @Override
+                public BytesRef value() {
+                    return new BytesRef(stats.nodeId());
+                }
+            });
+            childImplementations.put(RANK, new ChildExpression<Double>() {
+                @Override
+                public Double value() {
+                    return stats.rank();
+                }
+            });
+            childImplementations.put(AVG_RESPONSE_TIME, new ChildExpression<Double>() {
+                @Override
+                public Double value() {
+                    return stats.avgResponseTime();
+                }
+            });
+            childImplementations.put(OUTSTANDING_PHASES, new ChildExpression<Integer>() {
+                @Override
+                public Integer value() {
+                    return stats.outstandingPhases();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.node;
+
+import io.crate.jobs.JobClass;
+import io.crate.jobs.JobScheduler;
+import io.crate.operation.reference.sys.SysNodeObjectReference;
+import org.apache.lucene.util.BytesRef;
+
+public class NodeSchedulerClassExpression extends SysNodeObjectReference {
+
+    abstract class SchedulerExpression<ChildType> extends SysNodeExpression<ChildType> {
+    }
+
+    public static final String CLASS_NAME = "name";
+    public static final String ACTIVE = "active";
+    public static final String QUEUE = "queue";
+    public static final String ADMITTED = "admitted";
+    public static final String REJECTED = "rejected";
+    public static final String AVG_WAIT_TIME = "avg_wait_time";
+
+    private final JobScheduler jobScheduler;
+    private final JobClass jobClass;
+    private final BytesRef name;
+
+    public NodeSchedulerClassExpression(JobScheduler jobScheduler, JobClass jobClass) {
+        this.jobScheduler = jobScheduler;
+        this.jobClass = jobClass;
+        this.name = new BytesRef(jobClass.settingsName());
+        addChildImplementations();
+    }
+
+    private void addChildImplementations() {
+        childImplementations.put(CLASS_NAME, new SchedulerExpression<BytesRef>() {
+            @Override
+            public BytesRef value() {
+                return name;
+            }
+        });
+        childImplementations.put(ACTIVE, new SchedulerExpression<Integer>() {
+            @Override
+            public Integer value() {
+                return jobScheduler.active(jobClass);
+            }
+        });
+        childImplementations.put(QUEUE, new SchedulerExpression<Integer>() {
+            @Override
+            public Integer value() {
+                return jobScheduler.queued(jobClass);
+            }
+        });
+        childImplementations.put(ADMITTED, new SchedulerExpression<Long>() {
+            @Override
+            public Long value() {
+                return jobScheduler.admitted(jobClass);
+            }
+        });
+        childImplementations.put(REJECTED, new SchedulerExpression<Long>() {
+            @Override
+            public Long value() {
+                return jobScheduler.rejected(jobClass);
+            }
+        });
+        childImplementations.put(AVG_WAIT_TIME, new SchedulerExpression<Long>() {
+            @Override
+            public Long value() {
+                return jobScheduler.avgWaitTime(jobClass);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.node;
+
+import io.crate.jobs.JobClass;
+import io.crate.jobs.JobScheduler;
+import io.crate.operation.reference.sys.SysNodeStaticObjectArrayReference;
+
+public class NodeSchedulerExpression extends SysNodeStaticObjectArrayReference {
+
+    public static final String NAME = "scheduler";
+
+    private final JobScheduler jobScheduler;
+
+    protected NodeSchedulerExpression(JobScheduler jobScheduler) {
+        super(NAME);
+        this.jobScheduler = jobScheduler;
+        addChildImplementations();
+    }
+
+    private void addChildImplementations() {
+        for (JobClass jobClass : JobClass.values()) {
+            childImplementations.add(new NodeSchedulerClassExpression(jobScheduler, jobClass));
+        }
+    }
+
+}
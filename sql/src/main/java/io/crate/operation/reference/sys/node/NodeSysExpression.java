@@ -21,6 +21,8 @@
 
 package io.crate.operation.reference.sys.node;
 
+import io.crate.jobs.JobScheduler;
+import io.crate.jobs.ReplicaSelector;
 import io.crate.metadata.*;
 import io.crate.operation.reference.NestedObjectExpression;
 import io.crate.operation.reference.sys.node.fs.NodeFsExpression;
@@ -62,7 +64,9 @@ public class NodeSysExpression extends NestedObjectExpression {
                              NetworkService networkService,
                              NodeEnvironment nodeEnvironment,
                              Discovery discovery,
-                             ThreadPool threadPool) {
+                             ThreadPool threadPool,
+                             JobScheduler jobScheduler,
+                             ReplicaSelector replicaSelector) {
         this.nodeService = nodeService;
         this.osService = osService;
         this.jvmService = jvmService;
@@ -83,6 +87,10 @@ public class NodeSysExpression extends NestedObjectExpression {
                 new NodeVersionExpression());
         childImplementations.put(NodeThreadPoolsExpression.NAME,
                 new NodeThreadPoolsExpression(threadPool));
+        childImplementations.put(NodeSchedulerExpression.NAME,
+                new NodeSchedulerExpression(jobScheduler));
+        childImplementations.put(NodeReplicaSelectionExpression.NAME,
+                new NodeReplicaSelectionExpression(replicaSelector));
         childImplementations.put(NodeOsInfoExpression.NAME,
                 new NodeOsInfoExpression(osService.info()));
     }
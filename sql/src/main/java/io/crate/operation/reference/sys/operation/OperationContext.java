@@ -21,6 +21,9 @@
 
 package io.crate.operation.reference.sys.operation;
 
+import io.crate.jobs.ExecutionProgress;
+
+import javax.annotation.Nullable;
 import java.util.UUID;
 
 public class OperationContext {
@@ -31,10 +34,21 @@ public class OperationContext {
     public final long started;
     public long usedBytes;
 
+    /**
+     * live progress of the running operation, null if the operation doesn't track it
+     */
+    @Nullable
+    public final ExecutionProgress progress;
+
     public OperationContext(int id, UUID jobId, String name, long started) {
+        this(id, jobId, name, started, null);
+    }
+
+    public OperationContext(int id, UUID jobId, String name, long started, @Nullable ExecutionProgress progress) {
         this.id = id;
         this.jobId = jobId;
         this.name = name;
         this.started = started;
+        this.progress = progress;
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.shard;
+
+import io.crate.metadata.SimpleObjectExpression;
+import io.crate.metadata.shard.ShardReferenceImplementation;
+import io.crate.operation.collect.ShardResultCache;
+import io.crate.operation.reference.NestedObjectExpression;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.Map;
+
+public class ShardResultCacheExpression extends NestedObjectExpression
+        implements ShardReferenceImplementation<Map<String, Object>> {
+
+    public static final String NAME = "result_cache";
+
+    public static final String HITS = "hits";
+    public static final String MISSES = "misses";
+    public static final String HIT_RATIO = "hit_ratio";
+    public static final String SIZE = "size";
+
+    private final ShardResultCache resultCache;
+    private final ShardId shardId;
+
+    @Inject
+    public ShardResultCacheExpression(ShardResultCache resultCache, ShardId shardId) {
+        this.resultCache = resultCache;
+        this.shardId = shardId;
+        addChildImplementations();
+    }
+
+    private void addChildImplementations() {
+        childImplementations.put(HITS, new SimpleObjectExpression<Long>() {
+            @Override
+            public Long value() {
+                return resultCache.stats(shardId).hits();
+            }
+        });
+        childImplementations.put(MISSES, new SimpleObjectExpression<Long>() {
+            @Override
+            public Long value() {
+                return resultCache.stats(shardId).misses();
+            }
+        });
+        childImplementations.put(HIT_RATIO, new SimpleObjectExpression<Double>() {
+            @Override
+            public Double value() {
+                return resultCache.stats(shardId).hitRatio();
+            }
+        });
+        childImplementations.put(SIZE, new SimpleObjectExpression<Long>() {
+            @Override
+            public Long value() {
+                return resultCache.stats(shardId).sizeInBytes();
+            }
+        });
+    }
+}
@@ -18,6 +18,18 @@ public class UnassignedShardsReferenceResolver implements ReferenceResolver<RowC
 
     private final Map<TableIdent, Map<ColumnIdent, RowCollectExpressionFactory>> factoryMap;
 
+    private static final RowCollectExpressionFactory NULL_VALUE_FACTORY = new RowCollectExpressionFactory() {
+        @Override
+        public RowContextCollectorExpression create() {
+            return new RowContextCollectorExpression<UnassignedShard, Object>() {
+                @Override
+                public Object value() {
+                    return null;
+                }
+            };
+        }
+    };
+
     @Inject
     public UnassignedShardsReferenceResolver() {
         ImmutableMap.Builder<TableIdent, Map<ColumnIdent, RowCollectExpressionFactory>> builder = ImmutableMap.builder();
@@ -138,6 +150,11 @@ public class UnassignedShardsReferenceResolver implements ReferenceResolver<RowC
                         };
                     }
                 })
+                .put(SysShardsTableInfo.Columns.RESULT_CACHE, NULL_VALUE_FACTORY)
+                .put(SysShardsTableInfo.Columns.RESULT_CACHE_HITS, NULL_VALUE_FACTORY)
+                .put(SysShardsTableInfo.Columns.RESULT_CACHE_MISSES, NULL_VALUE_FACTORY)
+                .put(SysShardsTableInfo.Columns.RESULT_CACHE_HIT_RATIO, NULL_VALUE_FACTORY)
+                .put(SysShardsTableInfo.Columns.RESULT_CACHE_SIZE, NULL_VALUE_FACTORY)
                 .put(SysNodesTableInfo.SYS_COL_IDENT, new RowCollectExpressionFactory() {
                     @Override
                     public RowContextCollectorExpression create() {
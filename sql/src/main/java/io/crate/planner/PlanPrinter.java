@@ -26,11 +26,14 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import io.crate.analyze.relations.PlannedAnalyzedRelation;
+import io.crate.metadata.Routing;
 import io.crate.planner.node.PlanNode;
 import io.crate.planner.node.PlanNodeVisitor;
 import io.crate.planner.node.dml.SymbolBasedUpsertByIdNode;
 import io.crate.planner.node.dml.Upsert;
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.projection.*;
 import io.crate.planner.symbol.Aggregation;
 import io.crate.planner.symbol.Symbol;
@@ -98,6 +101,9 @@ public class PlanPrinter extends PlanVisitor<PlanPrinter.PrintContext, Void> {
         public Void visitGroupProjection(GroupProjection projection, PrintContext context) {
             context.print("GroupProjection:");
             context.indent();
+            if (projection.keysSorted()) {
+                context.print("streaming: input sorted by group keys");
+            }
             context.print("group by keys:");
             context.indent();
             for (Symbol key : projection.keys()) {
@@ -191,6 +197,11 @@ public class PlanPrinter extends PlanVisitor<PlanPrinter.PrintContext, Void> {
             context.print("Collect");
             context.indent();
             context.print("routing: %s", node.routing());
+            Routing routing = node.routing();
+            if (routing != null && (routing.skippedPartitions() > 0 || routing.skippedShards() > 0)) {
+                context.print("skipped by zone maps: %d partitions, %d shards",
+                        routing.skippedPartitions(), routing.skippedShards());
+            }
             context.print("toCollect:");
             for (Symbol symbol : node.toCollect()) {
                 symbolPrinter.process(symbol, context);
@@ -309,6 +320,34 @@ public class PlanPrinter extends PlanVisitor<PlanPrinter.PrintContext, Void> {
         return null;
     }
 
+    @Override
+    public Void visitCollectAndMerge(CollectAndMerge plan, PrintContext context) {
+        context.print(plan.getClass().getSimpleName() + ": ");
+        context.indent();
+        planNodePrinter.process(plan.collectPhase(), context);
+        if (plan.localMerge() != null) {
+            planNodePrinter.process(plan.localMerge(), context);
+        }
+        context.dedent();
+        return null;
+    }
+
+    @Override
+    public Void visitNestedLoop(NestedLoop plan, PrintContext context) {
+        context.print(plan.getClass().getSimpleName() + ": ");
+        context.indent();
+        context.print("join order (outer first): %s", Joiner.on(", ").join(plan.joinOrder()));
+        for (PlannedAnalyzedRelation relation : Arrays.asList(plan.left(), plan.right())) {
+            if (relation instanceof Plan) {
+                process((Plan) relation, context);
+            }
+        }
+        context.print("NestedLoop");
+        processProjections(plan.nestedLoopPhase(), context);
+        context.dedent();
+        return null;
+    }
+
     @Override
     public Void visitIterablePlan(IterablePlan plan, PrintContext context) {
         visitPlan(plan, context);
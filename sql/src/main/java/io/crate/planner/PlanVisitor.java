@@ -25,6 +25,7 @@ import io.crate.planner.node.dml.InsertFromSubQuery;
 import io.crate.planner.node.dml.Upsert;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.node.dql.join.NestedLoop;
+import io.crate.planner.node.management.ExplainPlan;
 import io.crate.planner.node.management.GenericShowPlan;
 import io.crate.planner.node.management.KillPlan;
 import org.elasticsearch.common.Nullable;
@@ -90,4 +91,8 @@ public class PlanVisitor<C, R> {
     public R visitNestedLoop(NestedLoop plan, C context) {
         return visitPlan(plan, context);
     }
+
+    public R visitExplainPlan(ExplainPlan plan, C context) {
+        return visitPlan(plan, context);
+    }
 }
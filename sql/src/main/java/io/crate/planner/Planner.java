@@ -29,6 +29,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import io.crate.action.sql.SQLBaseRequest;
 import io.crate.analyze.*;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.DocTableRelation;
@@ -36,9 +37,12 @@ import io.crate.analyze.relations.PlannedAnalyzedRelation;
 import io.crate.analyze.where.DocKeys;
 import io.crate.core.collections.TreeMapBuilder;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.jobs.ReplicaSelector;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.stats.TableStats;
+import io.crate.metadata.stats.TableStatsMetaData;
 import io.crate.metadata.table.TableInfo;
 import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.planner.consumer.ConsumerContext;
@@ -47,7 +51,6 @@ import io.crate.planner.consumer.UpdateConsumer;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.fetch.IndexBaseVisitor;
 import io.crate.planner.node.ddl.*;
-import io.crate.planner.node.dml.ESDeleteByQueryNode;
 import io.crate.planner.node.dml.ESDeleteNode;
 import io.crate.planner.node.dml.SymbolBasedUpsertByIdNode;
 import io.crate.planner.node.dml.Upsert;
@@ -55,17 +58,22 @@ import io.crate.planner.node.dql.CollectAndMerge;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.FileUriCollectPhase;
 import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.node.management.ExplainPlan;
 import io.crate.planner.node.management.GenericShowPlan;
 import io.crate.planner.node.management.KillPlan;
+import io.crate.planner.projection.DeleteProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.SourceIndexWriterProjection;
 import io.crate.planner.projection.WriterProjection;
 import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.ValueSymbolVisitor;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.operation.plain.Preference;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.ImmutableSettings;
@@ -82,6 +90,7 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
     private final ConsumingPlanner consumingPlanner;
     private final ClusterService clusterService;
     private UpdateConsumer updateConsumer;
+    private final ReplicaSelector replicaSelector;
 
     public static class Context {
 
@@ -95,11 +104,40 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
         private final Multimap<TableIdent, TableRouting> tableRoutings = HashMultimap.create();
         private ReaderAllocations readerAllocations;
         private HashMultimap<TableIdent, String> tableIndices;
+        private final int headerFlags;
+        private final Integer cursorFetchSize;
+        private final ReplicaSelector replicaSelector;
+        // the shard copies selected for all routings of the plan
+        private ReplicaSelector.Selection replicaSelection;
 
         public Context(ClusterService clusterService, UUID jobId, ConsumingPlanner consumingPlanner) {
+            this(clusterService, jobId, consumingPlanner, SQLBaseRequest.HEADER_FLAG_OFF);
+        }
+
+        public Context(ClusterService clusterService, UUID jobId, ConsumingPlanner consumingPlanner, int headerFlags) {
+            this(clusterService, jobId, consumingPlanner, headerFlags, null);
+        }
+
+        public Context(ClusterService clusterService,
+                       UUID jobId,
+                       ConsumingPlanner consumingPlanner,
+                       int headerFlags,
+                       @Nullable Integer cursorFetchSize) {
+            this(clusterService, jobId, consumingPlanner, headerFlags, cursorFetchSize, null);
+        }
+
+        public Context(ClusterService clusterService,
+                       UUID jobId,
+                       ConsumingPlanner consumingPlanner,
+                       int headerFlags,
+                       @Nullable Integer cursorFetchSize,
+                       @Nullable ReplicaSelector replicaSelector) {
             this.clusterService = clusterService;
             this.jobId = jobId;
             this.consumingPlanner = consumingPlanner;
+            this.headerFlags = headerFlags;
+            this.cursorFetchSize = cursorFetchSize;
+            this.replicaSelector = replicaSelector;
         }
 
         public static class ReaderAllocations {
@@ -184,6 +222,14 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             return clusterService;
         }
 
+        /**
+         * @return the statistics of the table collected by ANALYZE or null if the table hasn't been analyzed
+         */
+        @Nullable
+        public TableStats tableStats(TableIdent tableIdent) {
+            return TableStatsMetaData.fromClusterState(clusterService.state()).get(tableIdent);
+        }
+
         public PlannedAnalyzedRelation planSubRelation(AnalyzedRelation relation, ConsumerContext consumerContext) {
             assert consumingPlanner != null;
             return consumingPlanner.plan(relation, consumerContext);
@@ -193,6 +239,21 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             return jobId;
         }
 
+        /**
+         * @return true if the flag is set in the header flags of the request the plan is created for
+         */
+        public boolean hasHeaderFlag(int flag) {
+            return (headerFlags & flag) == flag;
+        }
+
+        /**
+         * @return the number of rows per batch if the result is fetched using a cursor, otherwise null
+         */
+        @Nullable
+        public Integer cursorFetchSize() {
+            return cursorFetchSize;
+        }
+
         public int nextExecutionPhaseId() {
             return executionPhaseId++;
         }
@@ -232,12 +293,28 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             return success;
         }
 
+        /**
+         * Routes the shards of doc tables without explicit preference to the shard copies
+         * on the nodes with the lowest rank of the {@link ReplicaSelector}.
+         */
+        private Routing getRouting(TableInfo tableInfo, WhereClause where, @Nullable String preference) {
+            Routing routing = tableInfo.getRouting(where, preference);
+            if (replicaSelector == null || !replicaSelector.enabled()
+                || preference != null || !(tableInfo instanceof DocTableInfo)) {
+                return routing;
+            }
+            if (replicaSelection == null) {
+                replicaSelection = replicaSelector.newSelection(jobId.hashCode());
+            }
+            return replicaSelector.select(clusterService.state(), routing, replicaSelection);
+        }
+
         public Routing allocateRouting(TableInfo tableInfo, WhereClause where, @Nullable String preference) {
             Collection<TableRouting> existingRoutings = tableRoutings.get(tableInfo.ident());
             // allocate routing nodes only if we have more than one table routings
             Routing routing;
             if (existingRoutings.isEmpty()) {
-                routing = tableInfo.getRouting(where, preference);
+                routing = getRouting(tableInfo, where, preference);
             } else {
                 for (TableRouting existing : existingRoutings) {
                     assert preference == null || preference.equals(existing.preference);
@@ -252,7 +329,7 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                         existingRouting.nodesAllocated = true;
                     }
                 }
-                routing = tableInfo.getRouting(where, preference);
+                routing = getRouting(tableInfo, where, preference);
                 if (!allocateRoutingNodes(tableInfo.ident(), routing.locations())) {
                     throw new UnsupportedOperationException(
                             "Nodes of existing routing are not allocated, routing rebuild needed");
@@ -279,8 +356,12 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
     }
 
     @Inject
-    public Planner(ClusterService clusterService, ConsumingPlanner consumingPlanner, UpdateConsumer updateConsumer) {
+    public Planner(ClusterService clusterService,
+                   ConsumingPlanner consumingPlanner,
+                   UpdateConsumer updateConsumer,
+                   ReplicaSelector replicaSelector) {
         this.clusterService = clusterService;
+        this.replicaSelector = replicaSelector;
         this.updateConsumer = updateConsumer;
         this.consumingPlanner = consumingPlanner;
     }
@@ -292,8 +373,16 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
      * @return plan
      */
     public Plan plan(Analysis analysis, UUID jobId) {
+        return plan(analysis, jobId, null);
+    }
+
+    /**
+     * @param cursorFetchSize if not null the plan is optimized to fetch its result in batches of this size
+     */
+    public Plan plan(Analysis analysis, UUID jobId, @Nullable Integer cursorFetchSize) {
         AnalyzedStatement analyzedStatement = analysis.analyzedStatement();
-        return process(analyzedStatement, new Context(clusterService, jobId, consumingPlanner));
+        return process(analyzedStatement, new Context(clusterService, jobId, consumingPlanner,
+                analysis.parameterContext().headerFlags(), cursorFetchSize, replicaSelector));
     }
 
     @Override
@@ -343,12 +432,19 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                 whereClauses.add(whereClause);
             }
         }
+        List<Plan> deleteByQueryPlans = new ArrayList<>();
         if (!docKeys.isEmpty()) {
             plan.add(new ESDeleteNode(context.nextExecutionPhaseId(), tableRelation.tableInfo(), docKeys));
         } else if (!whereClauses.isEmpty()) {
-            createESDeleteByQueryNode(tableRelation.tableInfo(), whereClauses, plan, context);
+            createDeleteByQueryPlans(tableRelation.tableInfo(), whereClauses, plan, deleteByQueryPlans, context);
         }
 
+        if (!deleteByQueryPlans.isEmpty()) {
+            if (!plan.isEmpty()) {
+                deleteByQueryPlans.add(0, plan);
+            }
+            return new Upsert(deleteByQueryPlans, context.jobId());
+        }
         if (plan.isEmpty()) {
             return new NoopPlan(context.jobId());
         }
@@ -633,6 +729,11 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
         return node != null ? new IterablePlan(context.jobId(), node) : new NoopPlan(context.jobId());
     }
 
+    @Override
+    public Plan visitExplainStatement(ExplainAnalyzedStatement analysis, Context context) {
+        return new ExplainPlan(context.jobId(), process(analysis.statement(), context), analysis.isAnalyze());
+    }
+
     @Override
     public Plan visitKillAnalyzedStatement(KillAnalyzedStatement analysis, Context context) {
         return analysis.jobId().isPresent() ?
@@ -640,28 +741,71 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                 new KillPlan(context.jobId());
     }
 
-    private void createESDeleteByQueryNode(DocTableInfo tableInfo,
-                                           List<WhereClause> whereClauses,
-                                           IterablePlan plan,
-                                           Context context) {
-
-        List<String[]> indicesList = new ArrayList<>(whereClauses.size());
+    private void createDeleteByQueryPlans(DocTableInfo tableInfo,
+                                          List<WhereClause> whereClauses,
+                                          IterablePlan plan,
+                                          List<Plan> deleteByQueryPlans,
+                                          Context context) {
+        // the partition deletes are executed before the deletes by query, so partitions can only be deleted
+        // as a whole if no bulk argument requires a delete by query. Otherwise the row counts wouldn't
+        // be returned in the order of the bulk arguments
+        boolean deletePartitions = tableInfo.isPartitioned();
+        for (WhereClause whereClause : whereClauses) {
+            if (whereClause.hasQuery() && indices(tableInfo, whereClause).length > 0) {
+                deletePartitions = false;
+                break;
+            }
+        }
         for (WhereClause whereClause : whereClauses) {
             String[] indices = indices(tableInfo, whereClause);
             if (indices.length > 0) {
-                if (!whereClause.hasQuery() && tableInfo.isPartitioned()) {
+                if (!whereClause.hasQuery() && deletePartitions) {
                     plan.add(new ESDeletePartitionNode(indices));
                 } else {
-                    indicesList.add(indices);
+                    deleteByQueryPlans.add(collectAndDelete(tableInfo, whereClause, context));
                 }
             }
         }
-        // TODO: if we allow queries like 'partitionColumn=X or column=Y' which is currently
-        // forbidden through analysis, we must issue deleteByQuery request in addition
-        // to above deleteIndex request(s)
-        if (!indicesList.isEmpty()) {
-            plan.add(new ESDeleteByQueryNode(context.nextExecutionPhaseId(), indicesList, whereClauses));
-        }
+    }
+
+    /**
+     * Plans a delete by query as collect of the `_uid` of all matching documents on the primary shards,
+     * which are then deleted shard-local in batches by the {@link DeleteProjection}.
+     * The number of deleted rows of every shard is summed up by the merge phase.
+     */
+    private Plan collectAndDelete(DocTableInfo tableInfo, WhereClause whereClause, Context context) {
+        Long version = null;
+        if (whereClause.hasVersions()) {
+            Symbol versionSymbol = VersionRewriter.get(whereClause.query());
+            version = ValueSymbolVisitor.LONG.process(versionSymbol);
+            whereClause = new WhereClause(whereClause.query(), whereClause.docKeys().orNull(), whereClause.partitions());
+        }
+        Reference uidReference = new Reference(
+                new ReferenceInfo(
+                        new ReferenceIdent(tableInfo.ident(), DocSysColumns.UID),
+                        RowGranularity.DOC, DataTypes.STRING));
+        DeleteProjection deleteProjection = new DeleteProjection(new InputColumn(0, DataTypes.STRING), version);
+
+        Routing routing = context.allocateRouting(tableInfo, whereClause, Preference.PRIMARY.type());
+        CollectPhase collectPhase = new CollectPhase(
+                context.jobId(),
+                context.nextExecutionPhaseId(),
+                "collect",
+                routing,
+                tableInfo.rowGranularity(),
+                ImmutableList.<Symbol>of(uidReference),
+                ImmutableList.<Projection>of(deleteProjection),
+                whereClause,
+                DistributionInfo.DEFAULT_BROADCAST
+        );
+        MergePhase mergePhase = MergePhase.localMerge(
+                context.jobId(),
+                context.nextExecutionPhaseId(),
+                ImmutableList.<Projection>of(CountAggregation.PARTIAL_COUNT_AGGREGATION_PROJECTION),
+                collectPhase.executionNodes().size(),
+                collectPhase.outputTypes()
+        );
+        return new CollectAndMerge(collectPhase, mergePhase, context.jobId());
     }
 
     private Upsert processInsertStatement(InsertFromValuesAnalyzedStatement analysis, Context context) {
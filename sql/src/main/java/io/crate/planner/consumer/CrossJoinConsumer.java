@@ -28,20 +28,28 @@ import io.crate.analyze.*;
 import io.crate.analyze.relations.*;
 import io.crate.exceptions.ValidationException;
 import io.crate.metadata.OutputName;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.stats.ColumnStats;
+import io.crate.metadata.stats.TableStats;
+import io.crate.metadata.table.TableInfo;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
 import io.crate.operation.projectors.TopN;
+import io.crate.planner.Planner;
 import io.crate.planner.distribution.UpstreamPhase;
-import io.crate.planner.fetch.FetchRequiredVisitor;
+import io.crate.planner.fetch.MultiSourceFetchPushDown;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
+import io.crate.planner.node.dql.CollectAndMerge;
+import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.MergePhase;
 import io.crate.planner.node.dql.join.NestedLoop;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
+import io.crate.planner.node.fetch.FetchPhase;
+import io.crate.planner.projection.FetchProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.TopNProjection;
 import io.crate.planner.projection.builder.ProjectionBuilder;
-import io.crate.planner.symbol.Field;
-import io.crate.planner.symbol.Literal;
-import io.crate.planner.symbol.Symbol;
-import io.crate.planner.symbol.Symbols;
+import io.crate.planner.symbol.*;
 import io.crate.sql.tree.QualifiedName;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.Nullable;
@@ -51,6 +59,11 @@ import java.util.*;
 
 public class CrossJoinConsumer implements Consumer {
 
+    /**
+     * fraction of rows assumed to match a query which can't be estimated from the column statistics
+     */
+    private static final double DEFAULT_SELECTIVITY = 0.25;
+
     private final Visitor visitor;
 
     public CrossJoinConsumer(ClusterService clusterService,
@@ -63,6 +76,64 @@ public class CrossJoinConsumer implements Consumer {
         return visitor.process(rootRelation, context);
     }
 
+    /**
+     * @return the estimated number of rows a relation emits after its WHERE clause and limit have been applied
+     *         or {@link Long#MAX_VALUE} if the table hasn't been analyzed
+     */
+    static long estimatedRows(@Nullable TableStats tableStats, QuerySpec querySpec) {
+        if (tableStats == null) {
+            return Long.MAX_VALUE;
+        }
+        WhereClause where = querySpec.where();
+        long rows = tableStats.numDocs();
+        if (!where.partitions().isEmpty() && !tableStats.partitionNumDocs().isEmpty()) {
+            rows = 0L;
+            for (String partition : where.partitions()) {
+                Long partitionRows = tableStats.partitionNumDocs().get(
+                        PartitionName.fromIndexOrTemplate(partition).ident());
+                rows += partitionRows == null ? 0L : partitionRows;
+            }
+        }
+        if (where.hasQuery()) {
+            rows = (long) Math.ceil(rows * selectivity(tableStats, where.query()));
+        }
+        Integer limit = querySpec.limit();
+        if (limit != null) {
+            rows = Math.min(rows, limit + querySpec.offset());
+        }
+        return rows;
+    }
+
+    /**
+     * @return the estimated fraction of rows matching the query.
+     *         Only equality comparisons of analyzed columns with literals are estimated from the column
+     *         statistics, {@link #DEFAULT_SELECTIVITY} is used for everything else.
+     */
+    private static double selectivity(TableStats tableStats, Symbol query) {
+        if (query instanceof Literal) {
+            return Boolean.TRUE.equals(((Literal) query).value()) ? 1.0 : 0.0;
+        }
+        if (!(query instanceof Function)) {
+            return DEFAULT_SELECTIVITY;
+        }
+        Function function = (Function) query;
+        String name = function.info().ident().name();
+        if (name.equals(AndOperator.NAME)) {
+            return selectivity(tableStats, function.arguments().get(0))
+                   * selectivity(tableStats, function.arguments().get(1));
+        }
+        if (name.equals(EqOperator.NAME)
+            && function.arguments().get(0) instanceof Reference
+            && function.arguments().get(1) instanceof Literal) {
+            ColumnStats columnStats = tableStats.columnStats(
+                    ((Reference) function.arguments().get(0)).info().ident().columnIdent().fqn());
+            if (columnStats != null) {
+                return (1.0 - columnStats.nullFraction()) / Math.max(columnStats.approxDistinct(), 1L);
+            }
+        }
+        return DEFAULT_SELECTIVITY;
+    }
+
     private static class Visitor extends AnalyzedRelationVisitor<ConsumerContext, PlannedAnalyzedRelation> {
 
         private final ClusterService clusterService;
@@ -89,9 +160,8 @@ public class CrossJoinConsumer implements Consumer {
 
             final Map<Object, Integer> relationOrder = getRelationOrder(statement);
 
-            // TODO: replace references with docIds.. and add fetch projection
-
             List<QueriedTableRelation> queriedTables = new ArrayList<>();
+            Map<QueriedTableRelation, QualifiedName> relationNames = new IdentityHashMap<>();
             for (Map.Entry<QualifiedName, AnalyzedRelation> entry : statement.sources().entrySet()) {
                 AnalyzedRelation analyzedRelation = entry.getValue();
                 QueriedTableRelation queriedTable;
@@ -102,6 +172,7 @@ public class CrossJoinConsumer implements Consumer {
                     return null;
                 }
                 queriedTables.add(queriedTable);
+                relationNames.put(queriedTable, entry.getKey());
             }
 
             WhereClause where = statement.querySpec().where();
@@ -118,7 +189,15 @@ public class CrossJoinConsumer implements Consumer {
                 }
             }
             sortQueriedTables(relationOrder, queriedTables);
-
+            Map<QueriedTableRelation, Long> estimatedRows = sortQueriedTablesByEstimatedRows(
+                    queriedTables, context.plannerContext());
+            List<String> joinOrder = joinOrder(queriedTables, relationNames, estimatedRows);
+
+            MultiSourceFetchPushDown fetchPushDown = new MultiSourceFetchPushDown(statement, queriedTables);
+            boolean fetchRequired = fetchPushDown.pushDown();
+            if (fetchRequired) {
+                queriedTables = fetchPushDown.joinRelations();
+            }
 
             QueriedTableRelation<?> left = queriedTables.get(0);
             QueriedTableRelation<?> right = queriedTables.get(1);
@@ -154,25 +233,120 @@ public class CrossJoinConsumer implements Consumer {
             inputs.addAll(left.fields());
             inputs.addAll(right.fields());
 
-            TopNProjection topN = projectionBuilder.topNProjection(
-                    inputs,
-                    statement.querySpec().orderBy(),
-                    statement.querySpec().offset(),
-                    statement.querySpec().limit(),
-                    statement.querySpec().outputs()
-            );
+            List<Projection> projections;
+            FetchPhase fetchPhase = null;
+            if (fetchRequired) {
+                // only the docIds and order by symbols are joined, the other columns are fetched for the
+                // rows which are left after the limit has been applied
+                TopNProjection topN = projectionBuilder.topNProjection(
+                        inputs,
+                        fetchPushDown.joinOrderBy(),
+                        statement.querySpec().offset(),
+                        statement.querySpec().limit(),
+                        null
+                );
+                Map<QueriedTableRelation, PlannedAnalyzedRelation> plans = new IdentityHashMap<>(2);
+                plans.put(left, leftPlan);
+                plans.put(right, rightPlan);
+                fetchPhase = fetchPhase(context.plannerContext(), fetchPushDown, plans);
+                Planner.Context.ReaderAllocations readerAllocations = context.plannerContext().buildReaderAllocations();
+                FetchProjection fetchProjection = new FetchProjection(
+                        fetchPhase.executionPhaseId(),
+                        fetchPushDown.fetchSources(),
+                        fetchPushDown.fetchOutputs(),
+                        readerAllocations.nodeReaders(),
+                        readerAllocations.indices());
+                projections = ImmutableList.<Projection>of(topN, fetchProjection);
+            } else {
+                TopNProjection topN = projectionBuilder.topNProjection(
+                        inputs,
+                        statement.querySpec().orderBy(),
+                        statement.querySpec().offset(),
+                        statement.querySpec().limit(),
+                        statement.querySpec().outputs()
+                );
+                projections = ImmutableList.<Projection>of(topN);
+            }
 
             NestedLoopPhase nl = new NestedLoopPhase(
                     context.plannerContext().jobId(),
                     context.plannerContext().nextExecutionPhaseId(),
                     "nested-loop",
-                    ImmutableList.<Projection>of(topN),
+                    projections,
                     leftMerge,
                     rightMerge,
                     localExecutionNodes
             );
 
-            return new NestedLoop(nl, leftPlan, rightPlan, true);
+            NestedLoop nestedLoop = new NestedLoop(nl, leftPlan, rightPlan, true);
+            nestedLoop.joinOrder(joinOrder);
+            nestedLoop.fetchPhase(fetchPhase);
+            return nestedLoop;
+        }
+
+        private FetchPhase fetchPhase(Planner.Context plannerContext,
+                                      MultiSourceFetchPushDown fetchPushDown,
+                                      Map<QueriedTableRelation, PlannedAnalyzedRelation> plans) {
+            List<QueriedDocTable> fetchedRelations = fetchPushDown.fetchedRelations();
+            List<Integer> collectPhaseIds = new ArrayList<>(fetchedRelations.size());
+            Set<String> executionNodes = new HashSet<>();
+            for (QueriedDocTable fetchedRelation : fetchedRelations) {
+                CollectPhase collectPhase = ((CollectAndMerge) plans.get(fetchedRelation)).collectPhase();
+                collectPhaseIds.add(collectPhase.executionPhaseId());
+                executionNodes.addAll(collectPhase.executionNodes());
+            }
+            Planner.Context.ReaderAllocations readerAllocations = plannerContext.buildReaderAllocations();
+            return new FetchPhase(
+                    plannerContext.jobId(),
+                    plannerContext.nextExecutionPhaseId(),
+                    collectPhaseIds,
+                    executionNodes,
+                    readerAllocations.bases(),
+                    readerAllocations.tableIndices(),
+                    fetchPushDown.fetchRefs()
+            );
+        }
+
+        /**
+         * Orders the relations by their estimated number of rows, the largest first.
+         * The first relation is iterated in the outer loop while the rows of the inner relation are
+         * kept and emitted again for every outer row, so the inner relation should be the smaller one.
+         *
+         * Relations with the same estimate or without statistics keep their order.
+         *
+         * @return the estimated number of rows by relation
+         */
+        private Map<QueriedTableRelation, Long> sortQueriedTablesByEstimatedRows(List<QueriedTableRelation> queriedTables,
+                                                                                Planner.Context plannerContext) {
+            final Map<QueriedTableRelation, Long> estimatedRows = new IdentityHashMap<>();
+            for (QueriedTableRelation<?> queriedTable : queriedTables) {
+                TableInfo tableInfo = queriedTable.tableRelation().tableInfo();
+                estimatedRows.put(queriedTable, estimatedRows(
+                        plannerContext.tableStats(tableInfo.ident()), queriedTable.querySpec()));
+            }
+            Collections.sort(queriedTables, new Comparator<QueriedTableRelation>() {
+                @Override
+                public int compare(QueriedTableRelation o1, QueriedTableRelation o2) {
+                    return Long.compare(estimatedRows.get(o2), estimatedRows.get(o1));
+                }
+            });
+            return estimatedRows;
+        }
+
+        private List<String> joinOrder(List<QueriedTableRelation> queriedTables,
+                                       Map<QueriedTableRelation, QualifiedName> relationNames,
+                                       Map<QueriedTableRelation, Long> estimatedRows) {
+            List<String> joinOrder = new ArrayList<>(queriedTables.size());
+            for (QueriedTableRelation queriedTable : queriedTables) {
+                String name = relationNames.get(queriedTable).toString();
+                long rows = estimatedRows.get(queriedTable);
+                if (rows == Long.MAX_VALUE) {
+                    joinOrder.add(name);
+                } else {
+                    joinOrder.add(name + " (estimated rows: " + rows + ")");
+                }
+            }
+            return joinOrder;
         }
 
         @Nullable
@@ -281,20 +455,9 @@ public class CrossJoinConsumer implements Consumer {
                 context.validationException(new ValidationException("AGGREGATIONS on CROSS JOIN is not supported"));
                 return true;
             }
-
-            if (hasOutputsToFetch(statement.querySpec())) {
-                context.validationException(new ValidationException("Only fields that are used in ORDER BY can be selected within a CROSS JOIN"));
-                return true;
-            }
             return false;
         }
 
-        private boolean hasOutputsToFetch(QuerySpec querySpec) {
-            FetchRequiredVisitor.Context ctx = new FetchRequiredVisitor.Context(querySpec.orderBy());
-            return FetchRequiredVisitor.INSTANCE.process(querySpec.outputs(), ctx);
-        }
-
-
     }
 
     private static class SubRelationConverter extends AnalyzedRelationVisitor<MultiSourceSelect, QueriedTableRelation> {
@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import io.crate.Constants;
+import io.crate.action.sql.SQLBaseRequest;
 import io.crate.analyze.HavingClause;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.QuerySpec;
@@ -34,9 +35,13 @@ import io.crate.analyze.relations.AnalyzedRelationVisitor;
 import io.crate.analyze.relations.PlannedAnalyzedRelation;
 import io.crate.analyze.relations.QueriedDocTable;
 import io.crate.exceptions.VersionInvalidException;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.Functions;
 import io.crate.metadata.Routing;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.SumAggregation;
 import io.crate.planner.Planner;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
@@ -44,13 +49,20 @@ import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.DistributedGroupBy;
 import io.crate.planner.node.dql.GroupByConsumer;
 import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.projection.BoundedTopNProjection;
 import io.crate.planner.projection.GroupProjection;
 import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.TopNCandidatesProjection;
 import io.crate.planner.projection.TopNProjection;
 import io.crate.planner.projection.builder.ProjectionBuilder;
 import io.crate.planner.projection.builder.SplitPoints;
 import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.Symbols;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
@@ -61,6 +73,8 @@ import java.util.List;
 @Singleton
 public class DistributedGroupByConsumer implements Consumer {
 
+    private static final double BOUNDED_TOP_N_CANDIDATES_FACTOR = 1.5;
+
     private final Visitor visitor;
 
     @Inject
@@ -100,12 +114,8 @@ public class DistributedGroupByConsumer implements Consumer {
             SplitPoints splitPoints = projectionBuilder.getSplitPoints();
 
             // start: Map/Collect side
-            GroupProjection groupProjection = projectionBuilder.groupProjection(
-                    splitPoints.leaves(),
-                    querySpec.groupBy(),
-                    splitPoints.aggregates(),
-                    Aggregation.Step.ITER,
-                    Aggregation.Step.PARTIAL);
+            List<Projection> collectProjections = GroupByConsumer.collectPhaseProjections(
+                    projectionBuilder, splitPoints, querySpec.groupBy());
 
             Planner.Context plannerContext = context.plannerContext();
             Routing routing = plannerContext.allocateRouting(tableInfo, querySpec.where(), null);
@@ -116,10 +126,25 @@ public class DistributedGroupByConsumer implements Consumer {
                     routing,
                     tableInfo.rowGranularity(),
                     splitPoints.leaves(),
-                    ImmutableList.<Projection>of(groupProjection),
+                    collectProjections,
                     querySpec.where(),
                     DistributionInfo.DEFAULT_MODULO
             );
+
+            boolean isRootRelation = context.rootRelation() == table;
+            int boundedTopNOrderByIdx = boundedTopNOrderByIdx(plannerContext, querySpec, splitPoints, isRootRelation);
+            int numCollectOutputs = collectNode.outputTypes().size();
+            int topNLimit = MoreObjects.firstNonNull(querySpec.limit(), Constants.DEFAULT_SELECT_LIMIT) + querySpec.offset();
+            if (boundedTopNOrderByIdx >= 0 && !collectNode.executionNodes().isEmpty()) {
+                collectNode.addProjection(new TopNCandidatesProjection(
+                        inputColumns(collectNode.outputTypes()),
+                        boundedTopNOrderByIdx,
+                        DistributionInfo.DEFAULT_MODULO.distributeByColumn(),
+                        collectNode.executionNodes().size(),
+                        candidateSize(topNLimit)));
+            } else {
+                boundedTopNOrderByIdx = -1;
+            }
             // end: Map/Collect side
 
             // start: Reducer
@@ -130,13 +155,30 @@ public class DistributedGroupByConsumer implements Consumer {
             collectOutputs.addAll(splitPoints.aggregates());
 
             List<Projection> reducerProjections = new LinkedList<>();
-            reducerProjections.add(projectionBuilder.groupProjection(
+            GroupProjection groupProjection = projectionBuilder.groupProjection(
                     collectOutputs,
                     querySpec.groupBy(),
                     splitPoints.aggregates(),
                     Aggregation.Step.PARTIAL,
-                    Aggregation.Step.FINAL)
-            );
+                    Aggregation.Step.FINAL);
+            reducerProjections.add(groupProjection);
+            if (boundedTopNOrderByIdx >= 0) {
+                // sum up the bound columns of the candidates per group
+                FunctionInfo sumInfo = functions.getSafe(
+                        new FunctionIdent(SumAggregation.NAME, ImmutableList.<DataType>of(DataTypes.LONG))).info();
+                List<Aggregation> values = new ArrayList<>(groupProjection.values());
+                values.add(Aggregation.finalAggregation(sumInfo,
+                        ImmutableList.<Symbol>of(new InputColumn(numCollectOutputs, DataTypes.LONG)), Aggregation.Step.ITER));
+                values.add(Aggregation.finalAggregation(sumInfo,
+                        ImmutableList.<Symbol>of(new InputColumn(numCollectOutputs + 1, DataTypes.LONG)), Aggregation.Step.ITER));
+                groupProjection.values(values);
+                reducerProjections.add(new BoundedTopNProjection(
+                        inputColumns(Symbols.extractTypes(groupProjection.outputs())),
+                        boundedTopNOrderByIdx,
+                        numCollectOutputs,
+                        numCollectOutputs + 1,
+                        topNLimit));
+            }
 
             OrderBy orderBy = querySpec.orderBy();
             if (orderBy != null) {
@@ -155,14 +197,12 @@ public class DistributedGroupByConsumer implements Consumer {
                 }
             }
 
-            boolean isRootRelation = context.rootRelation() == table;
             if (isRootRelation) {
                 reducerProjections.add(projectionBuilder.topNProjection(
                         collectOutputs,
                         orderBy,
                         0,
-                        MoreObjects.firstNonNull(querySpec.limit(),
-                                Constants.DEFAULT_SELECT_LIMIT) + querySpec.offset(),
+                        topNLimit,
                         querySpec.outputs()));
             }
 
@@ -204,6 +244,54 @@ public class DistributedGroupByConsumer implements Consumer {
             );
         }
 
+        /**
+         * The bounded top-n is used if it is enabled by the request flags and the query orders by a count
+         * descending with an explicit limit, e.g. <code>select x, count(*) from t group by x order by 2 desc limit 10</code>.
+         *
+         * @return the index of the count in the collect outputs or -1 if the bounded top-n can't be used
+         */
+        private static int boundedTopNOrderByIdx(Planner.Context plannerContext,
+                                                 QuerySpec querySpec,
+                                                 SplitPoints splitPoints,
+                                                 boolean isRootRelation) {
+            if (!plannerContext.hasHeaderFlag(SQLBaseRequest.HEADER_FLAG_BOUNDED_TOP_N)
+                || !isRootRelation
+                || querySpec.limit() == null
+                || querySpec.having() != null) {
+                return -1;
+            }
+            OrderBy orderBy = querySpec.orderBy();
+            if (orderBy == null || orderBy.orderBySymbols().size() != 1 || !orderBy.reverseFlags()[0]) {
+                return -1;
+            }
+            Symbol orderBySymbol = orderBy.orderBySymbols().get(0);
+            if (!(orderBySymbol instanceof Function)
+                || !((Function) orderBySymbol).info().ident().name().equals(CountAggregation.NAME)) {
+                return -1;
+            }
+            int idx = splitPoints.aggregates().indexOf(orderBySymbol);
+            if (idx < 0) {
+                return -1;
+            }
+            return querySpec.groupBy().size() + idx;
+        }
+
+        /**
+         * number of candidate groups kept per reducer on every node, over-fetching to reduce the
+         * probability that the error bound can't be guaranteed
+         */
+        private static int candidateSize(int limit) {
+            return (int) (limit * BOUNDED_TOP_N_CANDIDATES_FACTOR) + 10;
+        }
+
+        private static List<Symbol> inputColumns(List<DataType> types) {
+            List<Symbol> inputColumns = new ArrayList<>(types.size());
+            for (int i = 0; i < types.size(); i++) {
+                inputColumns.add(new InputColumn(i, types.get(i)));
+            }
+            return inputColumns;
+        }
+
         @Override
         protected PlannedAnalyzedRelation visitAnalyzedRelation(AnalyzedRelation relation, ConsumerContext context) {
             return null;
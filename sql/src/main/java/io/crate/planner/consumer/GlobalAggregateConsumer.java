@@ -30,7 +30,11 @@ import io.crate.exceptions.VersionInvalidException;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceInfo;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.MaximumAggregation;
+import io.crate.operation.aggregation.impl.MinimumAggregation;
 import io.crate.planner.Planner;
+import io.crate.planner.RowGranularity;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.GlobalAggregate;
@@ -41,6 +45,7 @@ import io.crate.planner.projection.TopNProjection;
 import io.crate.planner.projection.builder.ProjectionBuilder;
 import io.crate.planner.projection.builder.SplitPoints;
 import io.crate.planner.symbol.*;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
@@ -119,7 +124,12 @@ public class GlobalAggregateConsumer implements Consumer {
                 splitPoints.aggregates(),
                 Aggregation.Step.ITER,
                 Aggregation.Step.PARTIAL);
-
+        if (table instanceof QueriedDocTable
+            && !table.querySpec().where().hasQuery()
+            && answerableFromIndexMetadata(splitPoints.aggregates())) {
+            // aggregate per shard so that the shard can compute the partial result without a full collect
+            ap.setRequiredGranularity(RowGranularity.SHARD);
+        }
 
         CollectPhase collectPhase = CollectPhase.forQueriedTable(
                 plannerContext,
@@ -163,6 +173,35 @@ public class GlobalAggregateConsumer implements Consumer {
         return new GlobalAggregate(collectPhase, localMergeNode, plannerContext.jobId());
     }
 
+    /**
+     * count(*), min(col) and max(col) of numeric columns can be computed from the
+     * index metadata of each shard if the query matches all documents.
+     * See {@link io.crate.operation.collect.collectors.IndexMetadataAggregationCollector}
+     */
+    private static boolean answerableFromIndexMetadata(List<Function> aggregates) {
+        for (Function aggregate : aggregates) {
+            if (aggregate.info().equals(CountAggregation.COUNT_STAR_FUNCTION)) {
+                continue;
+            }
+            String name = aggregate.info().ident().name();
+            if (!name.equals(MinimumAggregation.NAME) && !name.equals(MaximumAggregation.NAME)) {
+                return false;
+            }
+            Symbol argument = aggregate.arguments().get(0);
+            if (!(argument instanceof Reference)) {
+                return false;
+            }
+            ReferenceInfo info = ((Reference) argument).info();
+            if (info.granularity() != RowGranularity.DOC
+                || info.indexType() == ReferenceInfo.IndexType.NO
+                || info.ident().columnIdent().isSystemColumn()
+                || !(DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(info.type()) || info.type().equals(DataTypes.TIMESTAMP))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static void validateAggregationOutputs(AbstractTableRelation tableRelation, Collection<? extends Symbol> outputSymbols) {
         OutputValidatorContext context = new OutputValidatorContext(tableRelation);
         for (Symbol outputSymbol : outputSymbols) {
@@ -20,7 +20,6 @@
  */
 package io.crate.planner.consumer;
 
-import com.google.common.collect.ImmutableList;
 import io.crate.analyze.HavingClause;
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.QueriedTable;
@@ -33,26 +32,36 @@ import io.crate.exceptions.VersionInvalidException;
 import io.crate.metadata.Functions;
 import io.crate.metadata.Routing;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.stats.ColumnStats;
+import io.crate.metadata.stats.TableStats;
 import io.crate.planner.node.NoopPlannedAnalyzedRelation;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.GroupByConsumer;
 import io.crate.planner.node.dql.MergePhase;
 import io.crate.planner.node.dql.NonDistributedGroupBy;
-import io.crate.planner.projection.GroupProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.builder.ProjectionBuilder;
 import io.crate.planner.projection.builder.SplitPoints;
 import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
 @Singleton
 public class NonDistributedGroupByConsumer implements Consumer {
 
+    /**
+     * group by queries on tables with shards on multiple nodes are executed without distribution
+     * if the statistics of the table estimate at most this number of groups.
+     * Merging that few groups on the handler is cheaper than an additional distribution step.
+     */
+    static final long MAX_NON_DISTRIBUTED_GROUPS = 10_000L;
+
     private final Visitor visitor;
 
     @Inject
@@ -65,6 +74,35 @@ public class NonDistributedGroupByConsumer implements Consumer {
         return visitor.process(relation, context);
     }
 
+    /**
+     * estimates the number of groups from the number of distinct values of the group by columns.
+     *
+     * @return the estimated number of groups or {@link Long#MAX_VALUE} if there are no statistics
+     *         for all group by columns
+     */
+    static long estimatedGroups(@Nullable TableStats tableStats, List<Symbol> groupBy) {
+        if (tableStats == null) {
+            return Long.MAX_VALUE;
+        }
+        long groups = 1L;
+        for (Symbol symbol : groupBy) {
+            if (!(symbol instanceof Reference)) {
+                return Long.MAX_VALUE;
+            }
+            ColumnStats columnStats = tableStats.columnStats(((Reference) symbol).info().ident().columnIdent().fqn());
+            if (columnStats == null) {
+                return Long.MAX_VALUE;
+            }
+            // null is a group as well
+            long distinct = columnStats.approxDistinct() + (columnStats.nullFraction() > 0.0 ? 1 : 0);
+            if (groups > MAX_NON_DISTRIBUTED_GROUPS / Math.max(distinct, 1L)) {
+                return Long.MAX_VALUE;
+            }
+            groups *= Math.max(distinct, 1L);
+        }
+        return Math.min(groups, tableStats.numDocs());
+    }
+
     private static class Visitor extends AnalyzedRelationVisitor<ConsumerContext, PlannedAnalyzedRelation> {
 
         private final Functions functions;
@@ -86,8 +124,15 @@ public class NonDistributedGroupByConsumer implements Consumer {
             }
 
             Routing routing = context.plannerContext().allocateRouting(tableInfo, table.querySpec().where(), null);
-            if (routing.hasLocations() && routing.locations().size()>1) {
-                return null;
+            if (routing.hasLocations() && routing.locations().size() > 1) {
+                if (GroupByConsumer.groupedByClusteredColumnOrPrimaryKeys(
+                        table.tableRelation(), table.querySpec().where(), table.querySpec().groupBy())) {
+                    return null;
+                }
+                TableStats tableStats = context.plannerContext().tableStats(tableInfo.ident());
+                if (estimatedGroups(tableStats, table.querySpec().groupBy()) > MAX_NON_DISTRIBUTED_GROUPS) {
+                    return null;
+                }
             }
             GroupByConsumer.validateGroupBySymbols(table.tableRelation(), table.querySpec().groupBy());
             return nonDistributedGroupBy(table, routing, context);
@@ -125,18 +170,11 @@ public class NonDistributedGroupByConsumer implements Consumer {
             SplitPoints splitPoints = projectionBuilder.getSplitPoints();
 
             // mapper / collect
-            GroupProjection groupProjection = projectionBuilder.groupProjection(
-                    splitPoints.leaves(),
-                    table.querySpec().groupBy(),
-                    splitPoints.aggregates(),
-                    Aggregation.Step.ITER,
-                    Aggregation.Step.PARTIAL);
-
             CollectPhase collectPhase = CollectPhase.forQueriedTable(
                     context.plannerContext(),
                     table,
                     splitPoints.leaves(),
-                    ImmutableList.<Projection>of(groupProjection)
+                    GroupByConsumer.collectPhaseProjections(projectionBuilder, splitPoints, groupBy)
             );
 
             // handler
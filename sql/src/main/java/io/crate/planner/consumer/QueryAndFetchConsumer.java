@@ -147,6 +147,8 @@ public class QueryAndFetchConsumer implements Consumer {
             MergePhase mergeNode = null;
             OrderBy orderBy = querySpec.orderBy();
             Planner.Context plannerContext = context.plannerContext();
+            Integer cursorFetchSize = context.rootRelation() == table && table instanceof QueriedDocTable
+                    ? plannerContext.cursorFetchSize() : null;
             if (querySpec.isLimited() || orderBy != null) {
                 /**
                  * select id, name, order by id, date
@@ -183,7 +185,8 @@ public class QueryAndFetchConsumer implements Consumer {
 
 
                 CollectPhaseOrderedProjectionBuilderContext projectionBuilderContext =
-                        new CollectPhaseOrderedProjectionBuilderContext(querySpec, orderByInputColumns, allOutputs);
+                        new CollectPhaseOrderedProjectionBuilderContext(querySpec, orderByInputColumns, allOutputs,
+                                cursorFetchSize != null);
 
                 List<Projection> collectPhaseProjections = ORDERED_PROJECTION_BUILDER.process(table, projectionBuilderContext);
                 collectPhase = CollectPhase.forQueriedTable(
@@ -199,7 +202,7 @@ public class QueryAndFetchConsumer implements Consumer {
 
                 // MERGE
                 if (context.rootRelation() == table) {
-                    int limit = firstNonNull(querySpec.limit(), Constants.DEFAULT_SELECT_LIMIT);
+                    int limit = limit(querySpec, cursorFetchSize != null);
                     TopNProjection tnp = new TopNProjection(limit, querySpec.offset());
                     tnp.outputs(finalOutputs);
                     if (orderBy == null) {
@@ -247,8 +250,13 @@ public class QueryAndFetchConsumer implements Consumer {
             if (context.requiredPageSize() != null) {
                 collectPhase.pageSizeHint(context.requiredPageSize());
             }
-            SimpleSelect.enablePagingIfApplicable(
-                    collectPhase, mergeNode, querySpec.limit(), querySpec.offset(), plannerContext.clusterService().localNode().id());
+            if (cursorFetchSize != null) {
+                SimpleSelect.enableCursorPaging(
+                        collectPhase, mergeNode, cursorFetchSize, plannerContext.clusterService().localNode().id());
+            } else {
+                SimpleSelect.enablePagingIfApplicable(
+                        collectPhase, mergeNode, querySpec.limit(), querySpec.offset(), plannerContext.clusterService().localNode().id());
+            }
             return new CollectAndMerge(collectPhase, mergeNode, plannerContext.jobId());
         }
 
@@ -261,6 +269,12 @@ public class QueryAndFetchConsumer implements Consumer {
         }
     }
 
+    private static int limit(QuerySpec querySpec, boolean isCursor) {
+        // a cursor fetches the result batch by batch, so the default limit doesn't apply
+        return firstNonNull(querySpec.limit(),
+                isCursor ? Integer.MAX_VALUE - querySpec.offset() : Constants.DEFAULT_SELECT_LIMIT);
+    }
+
     private static class CollectPhaseOrderedProjectionBuilderContext {
         OrderBy orderBy;
         int offset;
@@ -270,12 +284,13 @@ public class QueryAndFetchConsumer implements Consumer {
 
         public CollectPhaseOrderedProjectionBuilderContext(QuerySpec querySpec,
                                                            List<Symbol> orderByInputColumns,
-                                                           List<Symbol> allOutputs) {
+                                                           List<Symbol> allOutputs,
+                                                           boolean isCursor) {
             this.orderByInputColumns = orderByInputColumns;
             this.allOutputs = allOutputs;
             this.orderBy = querySpec.orderBy();
             this.offset = querySpec.offset();
-            this.limit = firstNonNull(querySpec.limit(), Constants.DEFAULT_SELECT_LIMIT);
+            this.limit = limit(querySpec, isCursor);
         }
     }
 
@@ -89,6 +89,11 @@ public class QueryThenFetchConsumer implements Consumer {
             if (querySpec.where().noMatch()) {
                 return new NoopPlannedAnalyzedRelation(table, plannerContext.jobId());
             }
+            if (plannerContext.cursorFetchSize() != null) {
+                // the fetch projector fetches all rows at once,
+                // cursors are paged through the QueryAndFetchConsumer to fetch the rows batch by batch
+                return null;
+            }
 
             OrderBy orderBy = querySpec.orderBy();
             if (orderBy != null) {
@@ -106,6 +106,7 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
          *
          * SELECT:
          * CollectNode ( GroupProjection, [FilterProjection], [TopN] )
+         * (rows are collected ordered by the group keys if the query is ordered by them)
          * LocalMergeNode ( TopN )
          */
         private PlannedAnalyzedRelation optimizedReduceOnCollectorGroupBy(QueriedDocTable table, DocTableRelation tableRelation, ConsumerContext context) {
@@ -145,6 +146,15 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
             groupProjection.setRequiredGranularity(RowGranularity.SHARD);
             projections.add(groupProjection);
 
+            // if the query is ordered by the group keys the rows are collected in that order
+            // and grouped as they arrive instead of building a hash table of all groups
+            OrderBy keysOrderBy = ignoreSorting ? null : GroupByConsumer.groupKeysOrderBy(tableRelation, groupBy, orderBy);
+            if (keysOrderBy != null) {
+                groupProjection.keysSorted(true);
+            }
+            // groups are emitted in the order of the query, the topN on the collector can stop early
+            boolean groupsInQueryOrder = keysOrderBy != null && orderBy.orderBySymbols().size() == groupBy.size();
+
             HavingClause havingClause = table.querySpec().having();
             if (havingClause != null) {
                 if (havingClause.noMatch()) {
@@ -167,7 +177,7 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
             if (collectorTopN) {
                 projections.add(projectionBuilder.topNProjection(
                         collectOutputs,
-                        orderBy,
+                        groupsInQueryOrder ? null : orderBy,
                         0, // no offset
                         firstNonNull(table.querySpec().limit(), Constants.DEFAULT_SELECT_LIMIT) + table.querySpec().offset(),
                         table.querySpec().outputs()
@@ -180,6 +190,9 @@ public class ReduceOnCollectorGroupByConsumer implements Consumer {
                     splitPoints.leaves(),
                     ImmutableList.copyOf(projections)
             );
+            if (keysOrderBy != null) {
+                collectPhase.orderBy(keysOrderBy);
+            }
 
             // handler
             List<Projection> handlerProjections = new ArrayList<>();
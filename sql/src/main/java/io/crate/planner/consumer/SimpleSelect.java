@@ -48,4 +48,19 @@ public class SimpleSelect {
             collectPhase.pageSizeHint(limit + offset);
         }
     }
+
+    /**
+     * enables paging regardless of the limit so that the collectors only collect about one batch of a cursor
+     * and are paused until the next batch is fetched.
+     */
+    public static void enableCursorPaging(CollectPhase collectPhase,
+                                          @Nullable MergePhase mergePhase,
+                                          int fetchSize,
+                                          String localNodeId) {
+        if (mergePhase == null) {
+            return;
+        }
+        mergePhase.executionNodes(ImmutableList.of(localNodeId));
+        collectPhase.pageSizeHint(fetchSize);
+    }
 }
@@ -0,0 +1,359 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.fetch;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.MultiSourceSelect;
+import io.crate.analyze.OrderBy;
+import io.crate.analyze.QuerySpec;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.relations.QueriedDocTable;
+import io.crate.analyze.relations.QueriedTableRelation;
+import io.crate.metadata.ColumnIndex;
+import io.crate.metadata.DocReferenceConverter;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.ReplacingSymbolVisitor;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.fetch.FetchSource;
+import io.crate.planner.symbol.*;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Late materialization for the relations of a join.
+ *
+ * The doc table relations are replaced by relations which only collect the {@code _docid} and the
+ * symbols required to order the joined rows. The remaining outputs are fetched
+ * for the rows that are left after the join, order by and limit have been applied.
+ *
+ * Outputs of the joined row are addressed by fields of the statement with a {@link ColumnIndex} path,
+ * which is the position in the row emitted by the join: the fields of all relations in join order.
+ */
+public class MultiSourceFetchPushDown {
+
+    private final MultiSourceSelect statement;
+    private final QuerySpec querySpec;
+    private final List<QueriedTableRelation> relations;
+
+    private final List<QueriedTableRelation> joinRelations = new ArrayList<>();
+    private final Map<Field, Symbol> joinFields = new HashMap<>();
+    private final Map<Field, Symbol> fetchOutputs = new HashMap<>();
+    private final LinkedHashMap<TableIdent, TableFetch> tableFetches = new LinkedHashMap<>();
+
+    private static class TableFetch {
+
+        private final TableIdent tableIdent;
+        private final List<ReferenceInfo> partitionedByColumns;
+        private final List<Field> docIdFields = new ArrayList<>();
+        private final LinkedHashMap<ReferenceIdent, Reference> references = new LinkedHashMap<>();
+
+        private TableFetch(TableIdent tableIdent, List<ReferenceInfo> partitionedByColumns) {
+            this.tableIdent = tableIdent;
+            this.partitionedByColumns = partitionedByColumns;
+        }
+    }
+
+    /**
+     * @param statement the join, its querySpec must only contain fields of the given relations
+     * @param relations the relations to join in the order of the join
+     */
+    public MultiSourceFetchPushDown(MultiSourceSelect statement, List<QueriedTableRelation> relations) {
+        this.statement = statement;
+        this.querySpec = statement.querySpec();
+        this.relations = relations;
+    }
+
+    /**
+     * @return true if any output has to be fetched. In that case {@link #joinRelations()} contains the relations
+     * which have to be joined instead of the original ones.
+     */
+    public boolean pushDown() {
+        Set<Field> orderByFields = new HashSet<>();
+        if (querySpec.orderBy() != null) {
+            FieldCollector.INSTANCE.process(querySpec.orderBy().orderBySymbols(), orderByFields);
+        }
+
+        boolean fetchRequired = false;
+        int offset = 0;
+        for (QueriedTableRelation<?> relation : relations) {
+            QueriedTableRelation joinRelation = relation;
+            if (relation instanceof QueriedDocTable) {
+                QueriedDocTable docTable = (QueriedDocTable) relation;
+                if (hasFetchableOutputs(docTable, orderByFields)) {
+                    joinRelation = pushDown(docTable, orderByFields, offset);
+                    fetchRequired = true;
+                }
+            }
+            if (joinRelation == relation) {
+                for (Field field : relation.fields()) {
+                    joinFields.put(field, field);
+                    fetchOutputs.put(field, new Field(statement, new ColumnIndex(offset + field.index()), field.valueType()));
+                }
+            }
+            joinRelations.add(joinRelation);
+            offset += joinRelation.fields().size();
+        }
+        return fetchRequired;
+    }
+
+    private static boolean hasFetchableOutputs(QueriedDocTable docTable, Set<Field> orderByFields) {
+        List<Symbol> outputs = docTable.querySpec().outputs();
+        for (int i = 0; i < outputs.size(); i++) {
+            if (isFetched(docTable.fields().get(i), outputs.get(i), orderByFields)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFetched(Field field, Symbol output, Set<Field> orderByFields) {
+        return !orderByFields.contains(field) && FetchableVisitor.INSTANCE.process(output, null);
+    }
+
+    private QueriedDocTable pushDown(QueriedDocTable docTable, Set<Field> orderByFields, int offset) {
+        DocTableRelation tableRelation = docTable.tableRelation();
+        QuerySpec querySpec = docTable.querySpec();
+        TableIdent tableIdent = tableRelation.tableInfo().ident();
+
+        List<Symbol> outputs = new ArrayList<>();
+        outputs.add(new Reference(DocSysColumns.forTable(tableIdent, DocSysColumns.DOCID)));
+        for (int i = 0; i < querySpec.outputs().size(); i++) {
+            Symbol output = querySpec.outputs().get(i);
+            if (!isFetched(docTable.fields().get(i), output, orderByFields) && !outputs.contains(output)) {
+                outputs.add(output);
+            }
+        }
+        OrderBy orderBy = querySpec.orderBy();
+        if (orderBy != null) {
+            for (Symbol symbol : orderBy.orderBySymbols()) {
+                if (!outputs.contains(symbol)) {
+                    outputs.add(symbol);
+                }
+            }
+        }
+
+        QuerySpec sub = new QuerySpec()
+                .outputs(outputs)
+                .where(querySpec.where())
+                .orderBy(orderBy)
+                .limit(querySpec.limit())
+                .offset(querySpec.offset());
+        QueriedDocTable subRelation = new QueriedDocTable(tableRelation, sub);
+
+        Field docIdField = new Field(statement, new ColumnIndex(offset), subRelation.fields().get(0).valueType());
+        TableFetch tableFetch = tableFetches.get(tableIdent);
+        if (tableFetch == null) {
+            tableFetch = new TableFetch(tableIdent, tableRelation.tableInfo().partitionedByColumns());
+            tableFetches.put(tableIdent, tableFetch);
+        }
+        tableFetch.docIdFields.add(docIdField);
+        ToFetchReferenceVisitor toFetchReference = new ToFetchReferenceVisitor(docIdField, tableFetch);
+
+        for (int i = 0; i < querySpec.outputs().size(); i++) {
+            Field field = docTable.fields().get(i);
+            Symbol output = querySpec.outputs().get(i);
+            if (isFetched(field, output, orderByFields)) {
+                fetchOutputs.put(field, toFetchReference.process(output, null));
+            } else {
+                int idx = outputs.indexOf(output);
+                Field subField = subRelation.fields().get(idx);
+                joinFields.put(field, subField);
+                fetchOutputs.put(field, new Field(statement, new ColumnIndex(offset + idx), subField.valueType()));
+            }
+        }
+        return subRelation;
+    }
+
+    /**
+     * @return the relations to join
+     */
+    public List<QueriedTableRelation> joinRelations() {
+        return joinRelations;
+    }
+
+    /**
+     * @return the order by of the statement with the fields replaced by the fields of the {@link #joinRelations()}
+     */
+    @Nullable
+    public OrderBy joinOrderBy() {
+        OrderBy orderBy = querySpec.orderBy();
+        if (orderBy == null) {
+            return null;
+        }
+        return new OrderBy(
+                new FieldReplacingVisitor(joinFields).process(orderBy.orderBySymbols(), null),
+                orderBy.reverseFlags(),
+                orderBy.nullsFirst());
+    }
+
+    /**
+     * @return the outputs of the statement, resolved against the joined row and the fetched columns
+     */
+    public List<Symbol> fetchOutputs() {
+        return new FieldReplacingVisitor(fetchOutputs).process(querySpec.outputs(), null);
+    }
+
+    public Collection<FetchSource> fetchSources() {
+        List<FetchSource> fetchSources = new ArrayList<>(tableFetches.size());
+        for (TableFetch tableFetch : tableFetches.values()) {
+            fetchSources.add(new FetchSource(
+                    tableFetch.tableIdent,
+                    tableFetch.partitionedByColumns,
+                    tableFetch.docIdFields,
+                    tableFetch.references.values()));
+        }
+        return fetchSources;
+    }
+
+    public Collection<Collection<Reference>> fetchRefs() {
+        List<Collection<Reference>> fetchRefs = new ArrayList<>(tableFetches.size());
+        for (TableFetch tableFetch : tableFetches.values()) {
+            fetchRefs.add(tableFetch.references.values());
+        }
+        return fetchRefs;
+    }
+
+    /**
+     * @return the relations of the join for which columns are fetched
+     */
+    public List<QueriedDocTable> fetchedRelations() {
+        ImmutableList.Builder<QueriedDocTable> builder = ImmutableList.builder();
+        for (int i = 0; i < relations.size(); i++) {
+            if (relations.get(i) != joinRelations.get(i)) {
+                builder.add((QueriedDocTable) joinRelations.get(i));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * returns true for symbols which can be evaluated from the fetched columns,
+     * partition columns and _score are always collected
+     */
+    private static class FetchableVisitor extends SymbolVisitor<Void, Boolean> {
+
+        private static final FetchableVisitor INSTANCE = new FetchableVisitor();
+
+        @Override
+        public Boolean visitReference(Reference symbol, Void context) {
+            return symbol.info().granularity() == RowGranularity.DOC
+                   && !symbol.ident().columnIdent().equals(DocSysColumns.SCORE)
+                   && !symbol.ident().columnIdent().equals(DocSysColumns.DOCID);
+        }
+
+        @Override
+        public Boolean visitDynamicReference(DynamicReference symbol, Void context) {
+            return visitReference(symbol, context);
+        }
+
+        @Override
+        public Boolean visitFunction(Function symbol, Void context) {
+            boolean fetchable = false;
+            for (Symbol argument : symbol.arguments()) {
+                if (argument.symbolType().isValueSymbol()) {
+                    continue;
+                }
+                if (!process(argument, context)) {
+                    return false;
+                }
+                fetchable = true;
+            }
+            return fetchable;
+        }
+
+        @Override
+        protected Boolean visitSymbol(Symbol symbol, Void context) {
+            return false;
+        }
+    }
+
+    private static class FieldCollector extends SymbolVisitor<Set<Field>, Void> {
+
+        private static final FieldCollector INSTANCE = new FieldCollector();
+
+        public void process(Collection<Symbol> symbols, Set<Field> fields) {
+            for (Symbol symbol : symbols) {
+                process(symbol, fields);
+            }
+        }
+
+        @Override
+        public Void visitField(Field field, Set<Field> fields) {
+            fields.add(field);
+            return null;
+        }
+
+        @Override
+        public Void visitFunction(Function symbol, Set<Field> fields) {
+            process(symbol.arguments(), fields);
+            return null;
+        }
+    }
+
+    private static class FieldReplacingVisitor extends ReplacingSymbolVisitor<Void> {
+
+        private final Map<Field, Symbol> replacements;
+
+        private FieldReplacingVisitor(Map<Field, Symbol> replacements) {
+            super(false);
+            this.replacements = replacements;
+        }
+
+        @Override
+        public Symbol visitField(Field field, Void context) {
+            Symbol replacement = replacements.get(field);
+            assert replacement != null : "field must belong to one of the joined relations";
+            return replacement;
+        }
+    }
+
+    private static class ToFetchReferenceVisitor extends ReplacingSymbolVisitor<Void> {
+
+        private final Field docIdField;
+        private final TableFetch tableFetch;
+
+        private ToFetchReferenceVisitor(Field docIdField, TableFetch tableFetch) {
+            super(false);
+            this.docIdField = docIdField;
+            this.tableFetch = tableFetch;
+        }
+
+        @Override
+        public Symbol visitReference(Reference ref, Void context) {
+            if (!ref.ident().columnIdent().isSystemColumn()) {
+                ref = DocReferenceConverter.toSourceLookup(ref);
+            }
+            Reference existing = tableFetch.references.get(ref.ident());
+            if (existing == null) {
+                tableFetch.references.put(ref.ident(), ref);
+            } else {
+                ref = existing;
+            }
+            return new FetchReference(docIdField, ref);
+        }
+    }
+}
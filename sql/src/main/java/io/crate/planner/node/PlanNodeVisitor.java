@@ -22,7 +22,6 @@
 package io.crate.planner.node;
 
 import io.crate.planner.node.ddl.*;
-import io.crate.planner.node.dml.ESDeleteByQueryNode;
 import io.crate.planner.node.dml.ESDeleteNode;
 import io.crate.planner.node.dml.SymbolBasedUpsertByIdNode;
 import io.crate.planner.node.dql.CollectPhase;
@@ -53,10 +52,6 @@ public class PlanNodeVisitor<C, R> {
         return visitPlanNode(node, context);
     }
 
-    public R visitESDeleteByQueryNode(ESDeleteByQueryNode node, C context) {
-        return visitPlanNode(node, context);
-    }
-
     public R visitESDeleteNode(ESDeleteNode node, C context) {
         return visitPlanNode(node, context);
     }
@@ -318,6 +318,23 @@ public class CollectPhase extends AbstractDQLPlanPhase implements UpstreamPhase
         return result;
     }
 
+    /**
+     * @return a copy of this node with the given projections instead of its own
+     */
+    public CollectPhase withProjections(List<Projection> projections) {
+        return new CollectPhase(
+                jobId(),
+                executionPhaseId(),
+                name(),
+                routing,
+                maxRowGranularity,
+                toCollect,
+                projections,
+                whereClause,
+                distributionInfo
+        );
+    }
+
     public static CollectPhase forQueriedTable(Planner.Context plannerContext,
                                                QueriedTableRelation table,
                                                List<Symbol> toCollect,
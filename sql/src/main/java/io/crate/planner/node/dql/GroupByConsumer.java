@@ -21,12 +21,25 @@
 
 package io.crate.planner.node.dql;
 
+import com.google.common.collect.ImmutableList;
+import io.crate.action.sql.query.SortSymbolVisitor;
+import io.crate.analyze.OrderBy;
 import io.crate.analyze.WhereClause;
 import io.crate.analyze.relations.DocTableRelation;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.builder.ProjectionBuilder;
+import io.crate.planner.projection.builder.SplitPoints;
 import io.crate.planner.symbol.*;
+import io.crate.types.DataTypes;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class GroupByConsumer {
@@ -55,6 +68,129 @@ public class GroupByConsumer {
                     .equals(tableRelation.tableInfo().clusteredBy()));
     }
 
+    /**
+     * grouping on a single not-analyzed string column can be done on each shard using the
+     * ordinals of the column instead of hashing the values of every row.
+     * See {@link io.crate.operation.collect.collectors.OrdinalGroupingCollector}
+     */
+    public static boolean groupedBySingleStringColumn(List<Symbol> groupBySymbols) {
+        if (groupBySymbols.size() != 1 || !(groupBySymbols.get(0) instanceof Reference)) {
+            return false;
+        }
+        ReferenceInfo info = ((Reference) groupBySymbols.get(0)).info();
+        return info.type().equals(DataTypes.STRING)
+               && info.granularity() == RowGranularity.DOC
+               && info.indexType() == ReferenceInfo.IndexType.NOT_ANALYZED
+               && !info.ident().columnIdent().isSystemColumn();
+    }
+
+    /**
+     * creates the projections of the collect phase of a group by: GroupProjection ITER -&gt; PARTIAL
+     *
+     * If grouped by a single string column the grouping is done per shard (using ordinals) and the shard
+     * results are merged with an additional GroupProjection PARTIAL -&gt; PARTIAL on the node.
+     * Nodes whose shards can't use ordinals replace both with a single grouping on the node,
+     * see {@link #hashGroupingProjections(List)}.
+     */
+    public static List<Projection> collectPhaseProjections(ProjectionBuilder projectionBuilder,
+                                                           SplitPoints splitPoints,
+                                                           List<Symbol> groupBy) {
+        GroupProjection groupProjection = projectionBuilder.groupProjection(
+                splitPoints.leaves(),
+                groupBy,
+                splitPoints.aggregates(),
+                Aggregation.Step.ITER,
+                Aggregation.Step.PARTIAL);
+        if (!groupedBySingleStringColumn(groupBy)) {
+            return ImmutableList.<Projection>of(groupProjection);
+        }
+        groupProjection.setRequiredGranularity(RowGranularity.SHARD);
+
+        List<Symbol> shardOutputs = new ArrayList<>(groupBy.size() + splitPoints.aggregates().size());
+        shardOutputs.addAll(groupBy);
+        shardOutputs.addAll(splitPoints.aggregates());
+        return ImmutableList.<Projection>of(
+                groupProjection,
+                projectionBuilder.groupProjection(
+                        shardOutputs,
+                        groupBy,
+                        splitPoints.aggregates(),
+                        Aggregation.Step.PARTIAL,
+                        Aggregation.Step.PARTIAL)
+        );
+    }
+
+    /**
+     * Returns the ordering of the query truncated to the group keys if the query is ordered by all group keys first.
+     * If the rows are collected in this ordering they arrive ordered by the group keys and the grouping can be
+     * streamed, see {@link GroupProjection#keysSorted()}.
+     *
+     * @return the ordering or null if the rows can't be collected ordered by the group keys
+     */
+    @Nullable
+    public static OrderBy groupKeysOrderBy(DocTableRelation tableRelation,
+                                           List<Symbol> groupBy,
+                                           @Nullable OrderBy orderBy) {
+        if (orderBy == null || orderBy.orderBySymbols().size() < groupBy.size()) {
+            return null;
+        }
+        List<Symbol> leadingSymbols = orderBy.orderBySymbols().subList(0, groupBy.size());
+        if (!leadingSymbols.containsAll(groupBy) || !groupBy.containsAll(leadingSymbols)) {
+            return null;
+        }
+        DocTableInfo tableInfo = tableRelation.tableInfo();
+        for (Symbol key : groupBy) {
+            if (!(key instanceof Reference)) {
+                return null;
+            }
+            ReferenceInfo info = ((Reference) key).info();
+            if (info.granularity() != RowGranularity.DOC
+                || info.ident().columnIdent().isSystemColumn()
+                || tableInfo.partitionedBy().contains(info.ident().columnIdent())
+                || !SortSymbolVisitor.LUCENE_TYPE_MAP.containsKey(info.type())) {
+                return null;
+            }
+        }
+        return new OrderBy(
+                new ArrayList<>(leadingSymbols),
+                Arrays.copyOf(orderBy.reverseFlags(), groupBy.size()),
+                Arrays.copyOf(orderBy.nullsFirst(), groupBy.size()));
+    }
+
+    /**
+     * @return the projections to group the rows on the node instead of on every shard if the projections
+     *         are the shard level grouping using ordinals created by
+     *         {@link #collectPhaseProjections(ProjectionBuilder, SplitPoints, List)}, otherwise null.
+     *         Without ordinals the shard level grouping would only add a second grouping of the same rows.
+     */
+    @Nullable
+    public static List<Projection> hashGroupingProjections(List<Projection> projections) {
+        if (projections.size() < 2
+            || !isGrouping(projections.get(0), Aggregation.Step.ITER, Aggregation.Step.PARTIAL)
+            || projections.get(0).requiredGranularity() != RowGranularity.SHARD
+            || !isGrouping(projections.get(1), Aggregation.Step.PARTIAL, Aggregation.Step.PARTIAL)
+            || projections.get(1).requiredGranularity() == RowGranularity.SHARD) {
+            return null;
+        }
+        GroupProjection shardGrouping = (GroupProjection) projections.get(0);
+        List<Projection> hashGrouping = new ArrayList<>(projections.size() - 1);
+        hashGrouping.add(new GroupProjection(shardGrouping.keys(), shardGrouping.values()));
+        hashGrouping.addAll(projections.subList(2, projections.size()));
+        return hashGrouping;
+    }
+
+    private static boolean isGrouping(Projection projection, Aggregation.Step fromStep, Aggregation.Step toStep) {
+        if (!(projection instanceof GroupProjection)) {
+            return false;
+        }
+        for (Aggregation aggregation : ((GroupProjection) projection).values()) {
+            if (aggregation.fromStep() != fromStep || aggregation.toStep() != toStep) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean groupedByPrimaryKeys(DocTableRelation tableRelation, List<Symbol> groupBy) {
         List<ColumnIdent> primaryKeys = tableRelation.tableInfo().primaryKey();
         if (groupBy.size() != primaryKeys.size()) {
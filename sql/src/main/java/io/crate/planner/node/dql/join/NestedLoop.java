@@ -20,12 +20,16 @@
 */
 package io.crate.planner.node.dql.join;
 
+import com.google.common.collect.ImmutableList;
 import io.crate.analyze.relations.PlannedAnalyzedRelation;
 import io.crate.planner.PlanAndPlannedAnalyzedRelation;
 import io.crate.planner.PlanVisitor;
 import io.crate.planner.distribution.UpstreamPhase;
+import io.crate.planner.node.fetch.FetchPhase;
 import io.crate.planner.projection.Projection;
 
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -61,6 +65,8 @@ public class NestedLoop extends PlanAndPlannedAnalyzedRelation {
     private final UUID jobId;
 
     private boolean leftOuterLoop = true;
+    private List<String> joinOrder = ImmutableList.of();
+    private FetchPhase fetchPhase;
 
     /**
      * create a new NestedLoop
@@ -120,6 +126,30 @@ public class NestedLoop extends PlanAndPlannedAnalyzedRelation {
         return leftOuterLoop;
     }
 
+    /**
+     * @return the names of the joined relations in the order chosen by the planner, the outer relation first
+     */
+    public List<String> joinOrder() {
+        return joinOrder;
+    }
+
+    public void joinOrder(List<String> joinOrder) {
+        this.joinOrder = joinOrder;
+    }
+
+    /**
+     * @return the phase which provides the fetch contexts if columns of the joined rows are fetched
+     * after the join, otherwise null
+     */
+    @Nullable
+    public FetchPhase fetchPhase() {
+        return fetchPhase;
+    }
+
+    public void fetchPhase(@Nullable FetchPhase fetchPhase) {
+        this.fetchPhase = fetchPhase;
+    }
+
     public NestedLoopPhase nestedLoopPhase() {
         return nestedLoopPhase;
     }
@@ -22,6 +22,7 @@
 package io.crate.planner.projection;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.planner.RowGranularity;
 import io.crate.planner.symbol.Aggregation;
 import io.crate.planner.symbol.Symbol;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -37,6 +38,7 @@ import java.util.List;
 public class AggregationProjection extends Projection {
 
     List<Aggregation> aggregations = ImmutableList.of();
+    private RowGranularity requiredGranularity = RowGranularity.CLUSTER;
 
     public static final ProjectionFactory<AggregationProjection> FACTORY = new ProjectionFactory<AggregationProjection>() {
         @Override
@@ -84,6 +86,7 @@ public class AggregationProjection extends Projection {
         for (int i = 0; i < size; i++) {
             aggregations.add((Aggregation) Symbol.fromStream(in));
         }
+        requiredGranularity = RowGranularity.fromStream(in);
     }
 
     @Override
@@ -92,6 +95,7 @@ public class AggregationProjection extends Projection {
         for (Symbol symbol : aggregations) {
             Symbol.toStream(symbol, out);
         }
+        RowGranularity.toStream(requiredGranularity, out);
     }
 
     @Override
@@ -105,4 +109,12 @@ public class AggregationProjection extends Projection {
         return true;
     }
 
+    @Override
+    public RowGranularity requiredGranularity() {
+        return requiredGranularity;
+    }
+
+    public void setRequiredGranularity(RowGranularity requiredGranularity) {
+        this.requiredGranularity = requiredGranularity;
+    }
 }
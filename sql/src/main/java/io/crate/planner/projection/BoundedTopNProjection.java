@@ -0,0 +1,151 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.projection;
+
+import io.crate.planner.symbol.Symbol;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reducer projection of a distributed group by with a bounded top-n.
+ *
+ * Keeps the <code>limit</code> rows with the highest value in the <code>orderByIdx</code> column and
+ * passes them on unchanged, but only if the error bounds of the groups, which are derived from the
+ * summed up bound columns of the {@link TopNCandidatesProjection}, guarantee that these are the exact
+ * top-n groups with their exact values. Otherwise a {@link io.crate.exceptions.TopNErrorBoundException} is raised.
+ */
+public class BoundedTopNProjection extends Projection {
+
+    public static final ProjectionFactory<BoundedTopNProjection> FACTORY = new ProjectionFactory<BoundedTopNProjection>() {
+        @Override
+        public BoundedTopNProjection newInstance() {
+            return new BoundedTopNProjection();
+        }
+    };
+
+    private List<Symbol> outputs;
+    private int orderByIdx;
+    private int boundIdx;
+    private int boundOnceIdx;
+    private int limit;
+
+    public BoundedTopNProjection() {
+    }
+
+    /**
+     * @param outputs      input columns of all columns of the grouped rows
+     * @param orderByIdx   column which is ordered by, descending
+     * @param boundIdx     column which contains the sum of the bounds of the upstreams which sent the group
+     * @param boundOnceIdx column which contains the sum of the bounds of the upstreams, summed up once per upstream
+     * @param limit        number of rows to return
+     */
+    public BoundedTopNProjection(List<Symbol> outputs, int orderByIdx, int boundIdx, int boundOnceIdx, int limit) {
+        this.outputs = outputs;
+        this.orderByIdx = orderByIdx;
+        this.boundIdx = boundIdx;
+        this.boundOnceIdx = boundOnceIdx;
+        this.limit = limit;
+    }
+
+    public int orderByIdx() {
+        return orderByIdx;
+    }
+
+    public int boundIdx() {
+        return boundIdx;
+    }
+
+    public int boundOnceIdx() {
+        return boundOnceIdx;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public ProjectionType projectionType() {
+        return ProjectionType.BOUNDED_TOPN;
+    }
+
+    @Override
+    public <C, R> R accept(ProjectionVisitor<C, R> visitor, C context) {
+        return visitor.visitBoundedTopNProjection(this, context);
+    }
+
+    @Override
+    public List<? extends Symbol> outputs() {
+        return outputs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        BoundedTopNProjection that = (BoundedTopNProjection) o;
+
+        if (orderByIdx != that.orderByIdx) return false;
+        if (boundIdx != that.boundIdx) return false;
+        if (boundOnceIdx != that.boundOnceIdx) return false;
+        if (limit != that.limit) return false;
+        return outputs.equals(that.outputs);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + outputs.hashCode();
+        result = 31 * result + orderByIdx;
+        result = 31 * result + limit;
+        return result;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        outputs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            outputs.add(Symbol.fromStream(in));
+        }
+        orderByIdx = in.readVInt();
+        boundIdx = in.readVInt();
+        boundOnceIdx = in.readVInt();
+        limit = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(outputs.size());
+        for (Symbol symbol : outputs) {
+            Symbol.toStream(symbol, out);
+        }
+        out.writeVInt(orderByIdx);
+        out.writeVInt(boundIdx);
+        out.writeVInt(boundOnceIdx);
+        out.writeVInt(limit);
+    }
+}
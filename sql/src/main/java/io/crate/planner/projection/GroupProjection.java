@@ -38,6 +38,7 @@ public class GroupProjection extends Projection {
     List<Symbol> outputs;
 
     private RowGranularity requiredGranularity = RowGranularity.CLUSTER;
+    private boolean keysSorted = false;
 
     public static final ProjectionFactory<GroupProjection> FACTORY = new ProjectionFactory<GroupProjection>() {
         @Override
@@ -70,6 +71,18 @@ public class GroupProjection extends Projection {
         this.values = values;
     }
 
+    /**
+     * @return true if the rows arrive ordered by the group keys, so every group can be emitted
+     *         as soon as the keys change instead of holding all groups in memory
+     */
+    public boolean keysSorted() {
+        return keysSorted;
+    }
+
+    public void keysSorted(boolean keysSorted) {
+        this.keysSorted = keysSorted;
+    }
+
     @Override
     public ProjectionType projectionType() {
         return ProjectionType.GROUP;
@@ -107,6 +120,7 @@ public class GroupProjection extends Projection {
             values.add((Aggregation) Symbol.fromStream(in));
         }
         requiredGranularity = RowGranularity.fromStream(in);
+        keysSorted = in.readBoolean();
     }
 
     @Override
@@ -121,6 +135,7 @@ public class GroupProjection extends Projection {
             Symbol.toStream(symbol, out);
         }
         RowGranularity.toStream(requiredGranularity, out);
+        out.writeBoolean(keysSorted);
     }
 
     @Override
@@ -130,6 +145,7 @@ public class GroupProjection extends Projection {
 
         GroupProjection that = (GroupProjection) o;
 
+        if (keysSorted != that.keysSorted) return false;
         if (!keys.equals(that.keys)) return false;
         if (values != null ? !values.equals(that.values) : that.values != null) return false;
 
@@ -31,6 +31,9 @@ public enum ProjectionType {
     INDEX_WRITER(SourceIndexWriterProjection.FACTORY),
     COLUMN_INDEX_WRITER(ColumnIndexWriterProjection.FACTORY),
     UPDATE(UpdateProjection.FACTORY),
+    DELETE(DeleteProjection.FACTORY),
+    TOPN_CANDIDATES(TopNCandidatesProjection.FACTORY),
+    BOUNDED_TOPN(BoundedTopNProjection.FACTORY),
     FETCH(null);
 
     private final Projection.ProjectionFactory factory;
@@ -66,6 +66,18 @@ public class ProjectionVisitor<C, R> {
         return visitProjection(projection, context);
     }
 
+    public R visitDeleteProjection(DeleteProjection projection, C context) {
+        return visitProjection(projection, context);
+    }
+
+    public R visitTopNCandidatesProjection(TopNCandidatesProjection projection, C context) {
+        return visitProjection(projection, context);
+    }
+
+    public R visitBoundedTopNProjection(BoundedTopNProjection projection, C context) {
+        return visitProjection(projection, context);
+    }
+
     public R visitFetchProjection(FetchProjection projection, C context) {
         return visitProjection(projection, context);
     }
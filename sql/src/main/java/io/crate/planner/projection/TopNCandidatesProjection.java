@@ -0,0 +1,169 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.projection;
+
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.Value;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node level projection on the map side of a distributed group by with a bounded top-n.
+ *
+ * The grouped rows are split into the buckets they are distributed to and only the
+ * <code>candidateSize</code> rows with the highest value in the <code>orderByIdx</code> column are kept per bucket.
+ *
+ * Two columns are appended to every row:
+ *
+ * <ul>
+ *     <li>the highest value of all rows which were discarded from the bucket of the row (0 if none was discarded)</li>
+ *     <li>the same value, but only set on one row of every bucket and 0 on all others</li>
+ * </ul>
+ *
+ * which are used by the {@link BoundedTopNProjection} of the reducer to compute the error bound.
+ */
+public class TopNCandidatesProjection extends Projection {
+
+    public static final ProjectionFactory<TopNCandidatesProjection> FACTORY = new ProjectionFactory<TopNCandidatesProjection>() {
+        @Override
+        public TopNCandidatesProjection newInstance() {
+            return new TopNCandidatesProjection();
+        }
+    };
+
+    private List<Symbol> inputs;
+    private int orderByIdx;
+    private int distributedByColumnIdx;
+    private int numBuckets;
+    private int candidateSize;
+
+    private List<Symbol> outputs;
+
+    public TopNCandidatesProjection() {
+    }
+
+    public TopNCandidatesProjection(List<Symbol> inputs,
+                                    int orderByIdx,
+                                    int distributedByColumnIdx,
+                                    int numBuckets,
+                                    int candidateSize) {
+        this.inputs = inputs;
+        this.orderByIdx = orderByIdx;
+        this.distributedByColumnIdx = distributedByColumnIdx;
+        this.numBuckets = numBuckets;
+        this.candidateSize = candidateSize;
+    }
+
+    public int orderByIdx() {
+        return orderByIdx;
+    }
+
+    public int distributedByColumnIdx() {
+        return distributedByColumnIdx;
+    }
+
+    public int numBuckets() {
+        return numBuckets;
+    }
+
+    public int candidateSize() {
+        return candidateSize;
+    }
+
+    @Override
+    public ProjectionType projectionType() {
+        return ProjectionType.TOPN_CANDIDATES;
+    }
+
+    @Override
+    public <C, R> R accept(ProjectionVisitor<C, R> visitor, C context) {
+        return visitor.visitTopNCandidatesProjection(this, context);
+    }
+
+    /**
+     * the input columns followed by the two bound columns
+     */
+    @Override
+    public List<? extends Symbol> outputs() {
+        if (outputs == null) {
+            outputs = new ArrayList<>(inputs.size() + 2);
+            outputs.addAll(inputs);
+            outputs.add(new Value(DataTypes.LONG));
+            outputs.add(new Value(DataTypes.LONG));
+        }
+        return outputs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TopNCandidatesProjection that = (TopNCandidatesProjection) o;
+
+        if (orderByIdx != that.orderByIdx) return false;
+        if (distributedByColumnIdx != that.distributedByColumnIdx) return false;
+        if (numBuckets != that.numBuckets) return false;
+        if (candidateSize != that.candidateSize) return false;
+        return inputs.equals(that.inputs);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + inputs.hashCode();
+        result = 31 * result + orderByIdx;
+        result = 31 * result + numBuckets;
+        result = 31 * result + candidateSize;
+        return result;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        inputs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            inputs.add(Symbol.fromStream(in));
+        }
+        orderByIdx = in.readVInt();
+        distributedByColumnIdx = in.readVInt();
+        numBuckets = in.readVInt();
+        candidateSize = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(inputs.size());
+        for (Symbol symbol : inputs) {
+            Symbol.toStream(symbol, out);
+        }
+        out.writeVInt(orderByIdx);
+        out.writeVInt(distributedByColumnIdx);
+        out.writeVInt(numBuckets);
+        out.writeVInt(candidateSize);
+    }
+}
@@ -45,6 +45,15 @@ public class Symbols {
         return Lists.transform(symbols, TYPES_FUNCTION);
     }
 
+    /**
+     * @return false if the symbol contains any function which is not deterministic
+     */
+    public static boolean isDeterministic(Symbol symbol) {
+        DeterminismContext context = new DeterminismContext();
+        DETERMINISM_VISITOR.process(symbol, context);
+        return context.deterministic;
+    }
+
     public static Streamer<?>[] streamerArray(Collection<? extends Symbol> symbols) {
         Streamer<?>[] streamers = new Streamer<?>[symbols.size()];
         Iterator<? extends Symbol> iter = symbols.iterator();
@@ -53,4 +62,22 @@ public class Symbols {
         }
         return streamers;
     }
+
+    private static final DeterminismVisitor DETERMINISM_VISITOR = new DeterminismVisitor();
+
+    private static class DeterminismContext {
+        boolean deterministic = true;
+    }
+
+    private static class DeterminismVisitor extends DefaultTraversalSymbolVisitor<DeterminismContext, Void> {
+
+        @Override
+        public Void visitFunction(Function symbol, DeterminismContext context) {
+            if (!symbol.info().isDeterministic()) {
+                context.deterministic = false;
+                return null;
+            }
+            return super.visitFunction(symbol, context);
+        }
+    }
 }
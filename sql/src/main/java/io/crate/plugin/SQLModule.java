@@ -21,6 +21,7 @@
 
 package io.crate.plugin;
 
+import io.crate.action.sql.CursorService;
 import io.crate.action.sql.DDLStatementDispatcher;
 import io.crate.metadata.FulltextAnalyzerResolver;
 import io.crate.service.SQLService;
@@ -33,6 +34,7 @@ public class SQLModule extends AbstractModule {
     protected void configure() {
         bind(SQLService.class).asEagerSingleton();
         bind(DDLStatementDispatcher.class).asEagerSingleton();
+        bind(CursorService.class).asEagerSingleton();
         bind(FulltextAnalyzerResolver.class).asEagerSingleton();
     }
 }
\ No newline at end of file
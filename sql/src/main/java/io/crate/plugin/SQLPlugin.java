@@ -41,6 +41,10 @@ import io.crate.metadata.information.MetaDataInformationModule;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.metadata.settings.Setting;
 import io.crate.metadata.shard.MetaDataShardModule;
+import io.crate.metadata.stats.IndexZoneMaps;
+import io.crate.metadata.stats.TableStatsMetaData;
+import io.crate.metadata.stats.TableStatsService;
+import io.crate.metadata.stats.ZoneMapsService;
 import io.crate.metadata.sys.MetaDataSysModule;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
 import io.crate.operation.collect.CollectOperationModule;
@@ -82,6 +86,8 @@ public class SQLPlugin extends AbstractPlugin {
 
     public SQLPlugin(Settings settings) {
         this.settings = settings;
+        TableStatsMetaData.registerFactory();
+        IndexZoneMaps.registerFactory();
     }
 
     @Override
@@ -111,7 +117,9 @@ public class SQLPlugin extends AbstractPlugin {
         return ImmutableList.<Class<? extends LifecycleComponent>>of(
                 SQLService.class,
                 BulkRetryCoordinatorPool.class,
-                JobContextService.class);
+                JobContextService.class,
+                TableStatsService.class,
+                ZoneMapsService.class);
     }
 
     @Override
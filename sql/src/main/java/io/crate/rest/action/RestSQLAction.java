@@ -50,6 +50,11 @@ public class RestSQLAction extends BaseRestHandler {
 
     @Override
     public void handleRequest(final RestRequest request, final RestChannel channel, Client client) throws Exception {
+        String cursor = request.param("cursor");
+        if (cursor != null) {
+            executeCursorRequest(cursor, request, channel, client);
+            return;
+        }
         if (!request.hasContent()) {
             channel.sendResponse(new CrateThrowableRestResponse(channel,
                     new SQLActionException("missing request body", 4000, RestStatus.BAD_REQUEST, null)));
@@ -92,6 +97,12 @@ public class RestSQLAction extends BaseRestHandler {
                 flags |= SQLBaseRequest.HEADER_FLAG_ALLOW_QUOTED_SUBSCRIPT;
             }
         }
+        if (request.paramAsBoolean("approx_count_distinct", false)) {
+            flags |= SQLBaseRequest.HEADER_FLAG_APPROX_COUNT_DISTINCT;
+        }
+        if (request.paramAsBoolean("bounded_top_n", false)) {
+            flags |= SQLBaseRequest.HEADER_FLAG_BOUNDED_TOP_N;
+        }
 
         return flags;
     }
@@ -102,6 +113,17 @@ public class RestSQLAction extends BaseRestHandler {
         requestBuilder.args(context.args());
         requestBuilder.includeTypesOnResponse(request.paramAsBoolean("types", false));
         requestBuilder.addFlagsToRequestHeader(composeFlags(request));
+        if (request.hasParam("fetch_size")) {
+            requestBuilder.fetchSize(request.paramAsInt("fetch_size", 0));
+        }
+        requestBuilder.execute(RestSQLAction.<SQLResponse>newListener(request, channel));
+    }
+
+    private void executeCursorRequest(String cursor, RestRequest request, RestChannel channel, Client client) {
+        final SQLRequestBuilder requestBuilder = new SQLRequestBuilder(client);
+        requestBuilder.args(SQLRequest.EMPTY_ARGS);
+        requestBuilder.cursor(cursor);
+        requestBuilder.includeTypesOnResponse(request.paramAsBoolean("types", false));
         requestBuilder.execute(RestSQLAction.<SQLResponse>newListener(request, channel));
     }
 
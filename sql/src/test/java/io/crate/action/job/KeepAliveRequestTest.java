@@ -0,0 +1,64 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.job;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class KeepAliveRequestTest extends CrateUnitTest {
+
+    private static KeepAliveRequest stream(KeepAliveRequest request) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        KeepAliveRequest streamed = new KeepAliveRequest(request.multipleJobs());
+        streamed.readFrom(in);
+        return streamed;
+    }
+
+    @Test
+    public void testStreamingMultipleJobs() throws Exception {
+        List<UUID> jobIds = ImmutableList.of(UUID.randomUUID(), UUID.randomUUID());
+        KeepAliveRequest streamed = stream(new KeepAliveRequest(jobIds));
+        assertThat(streamed.multipleJobs(), is(true));
+        assertThat(streamed.jobIds(), equalTo(jobIds));
+    }
+
+    @Test
+    public void testStreamingSingleJob() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        KeepAliveRequest streamed = stream(new KeepAliveRequest(jobId));
+        assertThat(streamed.multipleJobs(), is(false));
+        assertThat(streamed.jobIds(), equalTo((List<UUID>) ImmutableList.of(jobId)));
+    }
+}
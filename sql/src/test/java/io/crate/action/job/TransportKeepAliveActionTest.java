@@ -0,0 +1,160 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.job;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.executor.transport.NodeAction;
+import io.crate.executor.transport.Transports;
+import io.crate.jobs.JobContextService;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.transport.ActionNotFoundTransportException;
+import org.elasticsearch.transport.RemoteTransportException;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TransportKeepAliveActionTest extends CrateUnitTest {
+
+    private static class SentRequest {
+        final String actionName;
+        final String node;
+        final KeepAliveRequest request;
+
+        SentRequest(String actionName, String node, KeepAliveRequest request) {
+            this.actionName = actionName;
+            this.node = node;
+            this.request = request;
+        }
+    }
+
+    private final List<SentRequest> sentRequests = new ArrayList<>();
+    private final List<String> nodesWithoutMultipleJobsAction = new ArrayList<>();
+    private TransportKeepAliveAction action;
+    private ActionListener<TransportResponse.Empty> listener;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void prepare() throws Exception {
+        Transports transports = mock(Transports.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                String actionName = ((NodeAction) args[0]).actionName();
+                String node = (String) args[1];
+                sentRequests.add(new SentRequest(actionName, node, (KeepAliveRequest) args[2]));
+                ActionListener<TransportResponse.Empty> listener = (ActionListener<TransportResponse.Empty>) args[3];
+                if (actionName.equals(TransportKeepAliveAction.MULTIPLE_JOBS_ACTION_NAME)
+                    && nodesWithoutMultipleJobsAction.contains(node)) {
+                    listener.onFailure(new RemoteTransportException("[" + node + "]",
+                            new ActionNotFoundTransportException(actionName)));
+                } else {
+                    listener.onResponse(TransportResponse.Empty.INSTANCE);
+                }
+                return null;
+            }
+        }).when(transports).executeLocalOrWithTransport(
+                Mockito.<NodeAction<KeepAliveRequest, TransportResponse.Empty>>any(),
+                anyString(),
+                any(KeepAliveRequest.class),
+                Mockito.<ActionListener<TransportResponse.Empty>>any(),
+                Mockito.<TransportResponseHandler<TransportResponse.Empty>>any());
+
+        action = new TransportKeepAliveAction(
+                mock(TransportService.class),
+                transports,
+                mock(ClusterService.class),
+                mock(JobContextService.class));
+        listener = mock(ActionListener.class);
+    }
+
+    @Test
+    public void testMultipleJobsAreSentInOneRequest() throws Exception {
+        List<UUID> jobIds = ImmutableList.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        action.keepAlive("n2", new KeepAliveRequest(jobIds), listener);
+
+        assertThat(sentRequests.size(), is(1));
+        SentRequest sent = sentRequests.get(0);
+        assertThat(sent.actionName, is(TransportKeepAliveAction.MULTIPLE_JOBS_ACTION_NAME));
+        assertThat(sent.node, is("n2"));
+        assertThat(sent.request.jobIds(), equalTo(jobIds));
+        verify(listener).onResponse(TransportResponse.Empty.INSTANCE);
+    }
+
+    @Test
+    public void testSingleJobIsSentWithTheSingleJobAction() throws Exception {
+        action.keepAlive("n2", new KeepAliveRequest(UUID.randomUUID()), listener);
+
+        assertThat(sentRequests.size(), is(1));
+        assertThat(sentRequests.get(0).actionName, is(TransportKeepAliveAction.ACTION_NAME));
+        verify(listener).onResponse(TransportResponse.Empty.INSTANCE);
+    }
+
+    @Test
+    public void testFallbackToOneRequestPerJobForNodesWithoutMultipleJobsAction() throws Exception {
+        nodesWithoutMultipleJobsAction.add("n2");
+        List<UUID> jobIds = ImmutableList.of(UUID.randomUUID(), UUID.randomUUID());
+
+        action.keepAlive("n2", new KeepAliveRequest(jobIds), listener);
+        assertThat(sentRequests.size(), is(3));
+        assertThat(sentRequests.get(0).actionName, is(TransportKeepAliveAction.MULTIPLE_JOBS_ACTION_NAME));
+        for (SentRequest sent : sentRequests.subList(1, 3)) {
+            assertThat(sent.actionName, is(TransportKeepAliveAction.ACTION_NAME));
+            assertThat(sent.request.multipleJobs(), is(false));
+        }
+        verify(listener).onResponse(TransportResponse.Empty.INSTANCE);
+
+        // the node is remembered and only receives requests it understands
+        sentRequests.clear();
+        action.keepAlive("n2", new KeepAliveRequest(jobIds), listener);
+        assertThat(sentRequests.size(), is(2));
+        for (SentRequest sent : sentRequests) {
+            assertThat(sent.actionName, is(TransportKeepAliveAction.ACTION_NAME));
+        }
+
+        // other nodes still receive one request for all jobs
+        sentRequests.clear();
+        action.keepAlive("n3", new KeepAliveRequest(jobIds), listener);
+        assertThat(sentRequests.size(), is(1));
+        assertThat(sentRequests.get(0).actionName, is(TransportKeepAliveAction.MULTIPLE_JOBS_ACTION_NAME));
+    }
+}
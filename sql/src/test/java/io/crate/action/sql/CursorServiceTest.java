@@ -0,0 +1,246 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.job.KeepAliveRequest;
+import io.crate.action.job.TransportKeepAliveAction;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.core.collections.Row1;
+import io.crate.exceptions.CursorUnknownException;
+import io.crate.executor.Job;
+import io.crate.executor.TaskResult;
+import io.crate.executor.transport.ExecutionPhasesTask;
+import io.crate.executor.transport.kill.KillJobsRequest;
+import io.crate.executor.transport.kill.TransportKillJobsNodeAction;
+import io.crate.jobs.HashedWheelTimer;
+import io.crate.jobs.JobContextService;
+import io.crate.operation.CursorRowReceiver;
+import io.crate.operation.RowUpstream;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CursorServiceTest extends CrateUnitTest {
+
+    private static final TimeValue KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+
+    private CircuitBreaker breaker;
+    private ThreadPool threadPool;
+    private HashedWheelTimer timer;
+    private ClusterService clusterService;
+    private TransportKeepAliveAction keepAliveAction;
+    private TransportKillJobsNodeAction killAction;
+
+    @Before
+    public void prepare() throws Exception {
+        breaker = mock(CircuitBreaker.class);
+        threadPool = mock(ThreadPool.class);
+        when(threadPool.estimatedTimeInMillis()).thenReturn(0L);
+        timer = mock(HashedWheelTimer.class);
+        ClusterState state = mock(ClusterState.class);
+        when(state.nodes()).thenReturn(DiscoveryNodes.builder()
+                .localNodeId("n1")
+                .put(new DiscoveryNode("n1", DummyTransportAddress.INSTANCE, Version.CURRENT))
+                .put(new DiscoveryNode("n2", DummyTransportAddress.INSTANCE, Version.CURRENT))
+                .build());
+        clusterService = mock(ClusterService.class);
+        when(clusterService.state()).thenReturn(state);
+        keepAliveAction = mock(TransportKeepAliveAction.class);
+        killAction = mock(TransportKillJobsNodeAction.class);
+    }
+
+    private CursorService newCursorService(Settings settings) {
+        CrateCircuitBreakerService breakerService = mock(CrateCircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER)).thenReturn(breaker);
+        return new CursorService(
+                settings,
+                clusterService,
+                threadPool,
+                timer,
+                KEEP_ALIVE,
+                breakerService,
+                mock(JobContextService.class),
+                keepAliveAction,
+                killAction);
+    }
+
+    private static ExecutionPhasesTask newTask(Job job) {
+        ExecutionPhasesTask task = mock(ExecutionPhasesTask.class);
+        doReturn(Collections.singletonList(SettableFuture.<TaskResult>create())).when(task).result();
+        job.addTasks(Collections.singletonList(task));
+        return task;
+    }
+
+    /**
+     * opens a cursor and starts the job, so that its first batch is requested and a row is buffered
+     */
+    private CursorRowReceiver openCursor(CursorService cursorService, Job job, SettableFuture<TaskResult> firstBatch) {
+        ExecutionPhasesTask task = newTask(job);
+        assertThat(cursorService.open(job, 2, new String[]{"x"}, new DataType[]{DataTypes.INTEGER}), is(true));
+        ArgumentCaptor<CursorRowReceiver> receiver = ArgumentCaptor.forClass(CursorRowReceiver.class);
+        verify(task).cursor(receiver.capture());
+        receiver.getValue().setUpstream(mock(RowUpstream.class));
+        receiver.getValue().fetch(firstBatch);
+        receiver.getValue().setNextRow(new Row1(1));
+        return receiver.getValue();
+    }
+
+    private void assertBufferedBytesAreReleased() {
+        ArgumentCaptor<Long> added = ArgumentCaptor.forClass(Long.class);
+        verify(breaker, atLeastOnce()).addEstimateBytesAndMaybeBreak(added.capture(), anyString());
+        ArgumentCaptor<Long> released = ArgumentCaptor.forClass(Long.class);
+        verify(breaker, atLeastOnce()).addWithoutBreaking(released.capture());
+        long used = 0L;
+        for (Long bytes : added.getAllValues()) {
+            used += bytes;
+        }
+        for (Long bytes : released.getAllValues()) {
+            used += bytes;
+        }
+        assertThat(used, is(0L));
+    }
+
+    @Test
+    public void testOpenIsRejectedIfMaxOpenCursorsAreOpen() throws Exception {
+        CursorService cursorService = newCursorService(
+                ImmutableSettings.builder().put(CursorService.MAX_OPEN_SETTING, 1).build());
+        Job job = new Job(UUID.randomUUID());
+        newTask(job);
+        assertThat(cursorService.open(job, 10, new String[]{"x"}, new DataType[]{DataTypes.INTEGER}), is(true));
+
+        Job secondJob = new Job(UUID.randomUUID());
+        newTask(secondJob);
+        try {
+            cursorService.open(secondJob, 10, new String[]{"x"}, new DataType[]{DataTypes.INTEGER});
+            fail("expected the cursor to be rejected");
+        } catch (EsRejectedExecutionException e) {
+            assertThat(e.getMessage(), is("Cannot open more than 1 cursors, see the cursors.max_open setting"));
+        }
+
+        // once the first cursor is closed another one can be opened
+        cursorService.killJob(job.id());
+        assertThat(cursorService.open(secondJob, 10, new String[]{"x"}, new DataType[]{DataTypes.INTEGER}), is(true));
+    }
+
+    @Test
+    public void testKillClosesCursorAndReleasesBufferedRows() throws Exception {
+        CursorService cursorService = newCursorService(ImmutableSettings.EMPTY);
+        Job job = new Job(UUID.randomUUID());
+        SettableFuture<TaskResult> firstBatch = SettableFuture.create();
+        openCursor(cursorService, job, firstBatch);
+
+        // called by the JobContextService once the job has been killed
+        cursorService.killJob(job.id());
+
+        try {
+            firstBatch.get();
+            fail("expected the pending fetch to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(CancellationException.class));
+        }
+        assertBufferedBytesAreReleased();
+        expectedException.expect(CursorUnknownException.class);
+        cursorService.get(job.id().toString());
+    }
+
+    @Test
+    public void testExpiredCursorIsClosedAndItsJobKilled() throws Exception {
+        CursorService cursorService = newCursorService(ImmutableSettings.EMPTY);
+        Job job = new Job(UUID.randomUUID());
+        openCursor(cursorService, job, SettableFuture.<TaskResult>create());
+        ArgumentCaptor<HashedWheelTimer.Task> expiry = ArgumentCaptor.forClass(HashedWheelTimer.Task.class);
+        verify(timer).schedule(expiry.capture(), anyLong());
+
+        // not expired yet, rescheduled at the time the cursor would expire
+        assertThat(expiry.getValue().run(KEEP_ALIVE.millis() - 1000L), is(1000L));
+        assertThat(cursorService.get(job.id().toString()), notNullValue());
+
+        assertThat(expiry.getValue().run(KEEP_ALIVE.millis()), is(-1L));
+        ArgumentCaptor<KillJobsRequest> killRequest = ArgumentCaptor.forClass(KillJobsRequest.class);
+        //noinspection unchecked
+        verify(killAction).executeKillOnAllNodes(killRequest.capture(), any(ActionListener.class));
+        assertThat(killRequest.getValue().toKill(), contains(job.id()));
+        assertBufferedBytesAreReleased();
+        try {
+            cursorService.get(job.id().toString());
+            fail("expected the expired cursor to be closed");
+        } catch (CursorUnknownException e) {
+            assertThat(e.getMessage(), containsString(job.id().toString()));
+        }
+    }
+
+    @Test
+    public void testJobIsKeptAliveOnAllNodesWhileCursorIsOpen() throws Exception {
+        CursorService cursorService = newCursorService(ImmutableSettings.EMPTY);
+        Job job = new Job(UUID.randomUUID());
+        openCursor(cursorService, job, SettableFuture.<TaskResult>create());
+        long interval = KEEP_ALIVE.millis() / 3;
+        ArgumentCaptor<HashedWheelTimer.Task> expiry = ArgumentCaptor.forClass(HashedWheelTimer.Task.class);
+        verify(timer).schedule(expiry.capture(), eq(interval));
+
+        // no fetches, but the job contexts on the other nodes must not expire before the cursor
+        assertThat(expiry.getValue().run(interval), is(interval));
+        ArgumentCaptor<KeepAliveRequest> request = ArgumentCaptor.forClass(KeepAliveRequest.class);
+        verify(keepAliveAction).keepAlive(eq("n1"), request.capture(),
+                Mockito.<ActionListener<TransportResponse.Empty>>any());
+        verify(keepAliveAction).keepAlive(eq("n2"), request.capture(),
+                Mockito.<ActionListener<TransportResponse.Empty>>any());
+        for (KeepAliveRequest keepAliveRequest : request.getAllValues()) {
+            assertThat(keepAliveRequest.jobIds(), contains(job.id()));
+        }
+
+        assertThat(expiry.getValue().run(2 * interval), is(interval));
+        verify(keepAliveAction, times(2)).keepAlive(eq("n2"), any(KeepAliveRequest.class),
+                Mockito.<ActionListener<TransportResponse.Empty>>any());
+        assertThat(cursorService.get(job.id().toString()), notNullValue());
+    }
+}
@@ -26,6 +26,8 @@ import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 
 public class SQLRequestTest extends CrateUnitTest {
@@ -80,4 +82,37 @@ public class SQLRequestTest extends CrateUnitTest {
         assertThat(inRequest.stmt(), is("select * from users"));
         assertThat(inRequest.getDefaultSchema(), is("foo"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSerializationWithFetchSizeAndCursor() throws Exception {
+        SQLRequest request = new SQLRequest("select * from users");
+        request.fetchSize(100);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        SQLRequest inRequest = new SQLRequest();
+        inRequest.readFrom(new BytesStreamInput(out.bytes()));
+        assertThat(inRequest.fetchSize(), is(100));
+        assertThat(inRequest.cursor(), nullValue());
+
+        request = new SQLRequest();
+        request.cursor("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b");
+        out = new BytesStreamOutput();
+        request.writeTo(out);
+        inRequest = new SQLRequest();
+        inRequest.readFrom(new BytesStreamInput(out.bytes()));
+        assertThat(inRequest.cursor(), is("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b"));
+        assertThat(inRequest.fetchSize(), nullValue());
+    }
+
+    @Test
+    public void testValidateFetchSize() throws Exception {
+        SQLRequest request = new SQLRequest("select * from users");
+        request.fetchSize(0);
+        assertThat(request.validate(), notNullValue());
+
+        request = new SQLRequest();
+        request.cursor("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b");
+        assertThat(request.validate(), nullValue());
+    }
+}
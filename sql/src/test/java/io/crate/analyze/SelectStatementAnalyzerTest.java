@@ -22,6 +22,7 @@
 package io.crate.analyze;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.QueriedRelation;
@@ -50,6 +51,9 @@ import io.crate.operation.scalar.cast.CastFunctionResolver;
 import io.crate.operation.scalar.geo.DistanceFunction;
 import io.crate.operation.scalar.regex.MatchesFunction;
 import io.crate.planner.symbol.*;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.SubqueryExpression;
 import io.crate.testing.MockedClusterServiceModule;
 import io.crate.testing.SleepScalarFunction;
 import io.crate.types.ArrayType;
@@ -66,6 +70,7 @@ import org.junit.Test;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -522,6 +527,52 @@ public class SelectStatementAnalyzerTest extends BaseAnalyzerTest {
         analyze("select 'found' from users where 1 in (1, 'foo', 2)");
     }
 
+    @Test
+    public void testWhereInSubqueryUsesSubqueryResult() throws Exception {
+        Statement statement = SqlParser.createStatement(
+                "select name from users where id in (select id from users where name = 'Arthur')");
+        List<SubqueryExpression> subqueries = InSubqueryCollector.collect(statement);
+        assertThat(subqueries.size(), is(1));
+
+        ParameterContext parameterContext = new ParameterContext(new Object[0], new Object[0][], Schemas.DEFAULT_SCHEMA_NAME);
+        parameterContext.subqueryResult(subqueries.get(0), Arrays.<Object>asList(1, 2L));
+        SelectAnalyzedStatement analysis =
+                (SelectAnalyzedStatement) analyzer.analyze(statement, parameterContext).analyzedStatement();
+
+        Function query = (Function) analysis.relation().querySpec().where().query();
+        assertThat(query.info().ident().name(), is(AnyEqOperator.NAME));
+        assertThat(((Literal) query.arguments().get(1)).value(), is((Object) ImmutableSet.of(1L, 2L)));
+    }
+
+    @Test
+    public void testWhereInSubqueryWithEmptyResultMatchesNothing() throws Exception {
+        Statement statement = SqlParser.createStatement(
+                "select name from users where id in (select id from users where name = 'Arthur')");
+        ParameterContext parameterContext = new ParameterContext(new Object[0], new Object[0][], Schemas.DEFAULT_SCHEMA_NAME);
+        parameterContext.subqueryResult(InSubqueryCollector.collect(statement).get(0), Collections.emptySet());
+        SelectAnalyzedStatement analysis =
+                (SelectAnalyzedStatement) analyzer.analyze(statement, parameterContext).analyzedStatement();
+
+        assertThat(analysis.relation().querySpec().where().noMatch(), is(true));
+    }
+
+    @Test
+    public void testWhereInSubqueryWithoutResult() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("IN (subquery) is not supported in this statement");
+        analyze("select name from users where id in (select id from users)");
+    }
+
+    @Test
+    public void testNestedInSubqueriesAreCollectedInnermostFirst() throws Exception {
+        Statement statement = SqlParser.createStatement(
+                "select name from users where id in " +
+                "(select id from users where other_id in (select id from users where name = 'Arthur'))");
+        List<SubqueryExpression> subqueries = InSubqueryCollector.collect(statement);
+        assertThat(subqueries.size(), is(2));
+        assertThat(subqueries.get(0).getQuery().toString(), containsString("Arthur"));
+    }
+
     @Test
     public void testAggregationDistinct() {
         SelectAnalyzedStatement analysis = analyze("select count(distinct load['1']) from sys.nodes");
@@ -1706,4 +1757,36 @@ public class SelectStatementAnalyzerTest extends BaseAnalyzerTest {
         expectedException.expectMessage("Column _docid unknown");
         analyze("select count(*) from users group by id having _docid > 0");
     }
+
+    @Test
+    public void testExplainSelect() throws Exception {
+        ExplainAnalyzedStatement stmt = (ExplainAnalyzedStatement) super.analyze("explain select * from users");
+        assertThat(stmt.isAnalyze(), is(false));
+        assertThat(stmt.statement(), instanceOf(SelectAnalyzedStatement.class));
+        assertThat(stmt.fields().size(), is(1));
+        assertThat(stmt.fields().get(0).path().outputName(), is("EXPLAIN"));
+    }
+
+    @Test
+    public void testExplainAnalyzeSelect() throws Exception {
+        ExplainAnalyzedStatement stmt = (ExplainAnalyzedStatement) super.analyze("explain analyze select * from users");
+        assertThat(stmt.isAnalyze(), is(true));
+        assertThat(stmt.statement(), instanceOf(SelectAnalyzedStatement.class));
+        assertThat(stmt.fields().get(0).path().outputName(), is("id"));
+        assertThat(stmt.fields().get(stmt.fields().size() - 1).valueType(), is((DataType) new ArrayType(DataTypes.STRING)));
+    }
+
+    @Test
+    public void testNestedExplain() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("EXPLAIN statements cannot be nested");
+        super.analyze("explain explain select * from users");
+    }
+
+    @Test
+    public void testExplainOfAnalyzeIsRejected() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("EXPLAIN of ANALYZE statements is not supported");
+        super.analyze("explain analyze users");
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.breaker;
+
+import io.crate.operation.profile.PhaseProfile;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class RamAccountingContextTest extends CrateUnitTest {
+
+    @Test
+    public void testPeakIsTheHighestAccountedValue() throws Exception {
+        RamAccountingContext context = new RamAccountingContext("test", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+        context.addBytes(100L);
+        context.addBytes(200L);
+        context.addBytes(-250L);
+        context.addBytes(50L);
+        assertThat(context.peakBytes(), is(300L));
+
+        PhaseProfile profile = mock(PhaseProfile.class);
+        context.profile(profile);
+        context.close();
+        assertThat(context.totalBytes(), is(100L));
+        verify(profile).peakMemoryBytes(300L);
+    }
+
+    @Test
+    public void testPeakIncludesFlushedBytes() throws Exception {
+        RamAccountingContext context = new RamAccountingContext("test", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+        long flushed = RamAccountingContext.FLUSH_BUFFER_SIZE + 10L;
+        context.addBytes(flushed);
+        assertThat(context.totalBytes(), is(flushed));
+        context.addBytes(20L);
+        context.addBytes(-flushed);
+        assertThat(context.peakBytes(), is(flushed + 20L));
+
+        context.close();
+        assertThat(context.totalBytes(), is(20L));
+        assertThat(context.peakBytes(), is(flushed + 20L));
+    }
+}
@@ -23,7 +23,10 @@ package io.crate.executor.transport.distributed;
 
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row1;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -44,4 +47,31 @@ public class BroadcastingBucketBuilderTest {
         assertThat(rows, Matchers.sameInstance(buckets[1]));
         assertThat(rows, Matchers.sameInstance(buckets[2]));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLocalBucketIsNotSerialized() throws Exception {
+        final BroadcastingBucketBuilder builder = new BroadcastingBucketBuilder(new Streamer[]{DataTypes.INTEGER.streamer()}, 3, 1);
+        builder.add(new Row1(10));
+
+        Bucket[] buckets = new Bucket[3];
+        builder.build(buckets);
+
+        assertThat(buckets[0], Matchers.sameInstance(buckets[2]));
+        assertThat(buckets[0], Matchers.instanceOf(StreamBucket.class));
+        assertThat(buckets[1], Matchers.instanceOf(CollectionBucket.class));
+        assertThat(TestingHelpers.printedTable(buckets[1]), Matchers.is("10\n"));
+    }
+
+    @Test
+    public void testOnlyLocalBucket() throws Exception {
+        final BroadcastingBucketBuilder builder = new BroadcastingBucketBuilder(new Streamer[]{DataTypes.INTEGER.streamer()}, 1, 0);
+        builder.add(new Row1(10));
+        builder.add(new Row1(20));
+
+        Bucket[] buckets = new Bucket[1];
+        builder.build(buckets);
+
+        assertThat(buckets[0], Matchers.instanceOf(CollectionBucket.class));
+        assertThat(TestingHelpers.printedTable(buckets[0]), Matchers.is("10\n20\n"));
+    }
+}
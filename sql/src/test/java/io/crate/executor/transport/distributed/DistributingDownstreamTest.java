@@ -32,6 +32,7 @@ import io.crate.core.collections.Row1;
 import io.crate.executor.transport.Transports;
 import io.crate.jobs.ExecutionState;
 import io.crate.jobs.JobContextService;
+import io.crate.jobs.HashedWheelTimer;
 import io.crate.jobs.KeepAliveTimers;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.RowSender;
@@ -183,7 +184,11 @@ public class DistributingDownstreamTest extends CrateUnitTest {
                 return null;
             }
         }).when(transportKeepAliveAction).keepAlive(anyString(), Mockito.any(KeepAliveRequest.class), Mockito.<ActionListener<TransportResponse.Empty>>any());
-        KeepAliveTimers keepAliveTimers = new KeepAliveTimers(threadPool, TimeValue.timeValueMillis(10), transportKeepAliveAction);
+        KeepAliveTimers keepAliveTimers = new KeepAliveTimers(
+                threadPool,
+                new HashedWheelTimer(threadPool, TimeValue.timeValueMillis(1), HashedWheelTimer.DEFAULT_WHEEL_SIZE),
+                TimeValue.timeValueMillis(10),
+                transportKeepAliveAction);
         Streamer[] streamers = new Streamer[] {DataTypes.STRING.streamer() };
         int pageSize = 10;
         final DistributingDownstream distributingDownstream = new DistributingDownstream(
@@ -23,12 +23,15 @@ package io.crate.executor.transport.distributed;
 
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row1;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
 public class ModuloBucketBuilderTest extends CrateUnitTest {
@@ -53,4 +56,25 @@ public class ModuloBucketBuilderTest extends CrateUnitTest {
         assertThat(rowsD2.size(), is(2));
         assertThat(TestingHelpers.printedTable(rowsD2), is("1\n3\n"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLocalBucketIsNotSerialized() throws Exception {
+        final ModuloBucketBuilder builder = new ModuloBucketBuilder(new Streamer[]{DataTypes.INTEGER.streamer()}, 2, 0, 1);
+
+        builder.add(new Row1(1));
+        builder.add(new Row1(2));
+        builder.add(new Row1(3));
+
+        Bucket[] buckets = new Bucket[2];
+        builder.build(buckets);
+
+        assertThat(buckets[0], instanceOf(StreamBucket.class));
+        assertThat(TestingHelpers.printedTable(buckets[0]), is("2\n"));
+        assertThat(buckets[1], instanceOf(CollectionBucket.class));
+        assertThat(TestingHelpers.printedTable(buckets[1]), is("1\n3\n"));
+
+        builder.add(new Row1(5));
+        builder.build(buckets);
+        assertThat(TestingHelpers.printedTable(buckets[1]), is("5\n"));
+    }
+}
@@ -23,6 +23,7 @@ package io.crate.executor.transport.task.elasticsearch;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.SettableFuture;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.executor.JobTask;
 import io.crate.executor.TaskResult;
 import io.crate.jobs.*;
@@ -48,7 +49,10 @@ public class ESJobContextTaskTest extends CrateUnitTest {
 
     private final ThreadPool testThreadPool = TestingHelpers.newMockedThreadPool();
     private final JobContextService jobContextService = new JobContextService(
-            ImmutableSettings.EMPTY, testThreadPool, mock(StatsTables.class), mock(Reaper.class), TimeValue.timeValueSeconds(2), TimeValue.timeValueSeconds(1));
+            ImmutableSettings.EMPTY, testThreadPool, mock(StatsTables.class), mock(Reaper.class),
+            new HashedWheelTimer(testThreadPool), TimeValue.timeValueSeconds(2));
+    private final JobScheduler jobScheduler =
+            new JobScheduler(ImmutableSettings.EMPTY, mock(CrateCircuitBreakerService.class), mock(ThreadPool.class));
 
     @After
     public void cleanUp() throws Exception {
@@ -56,7 +60,7 @@ public class ESJobContextTaskTest extends CrateUnitTest {
     }
 
     private JobTask createTask(UUID jobId) {
-        EsJobContextTask task = new EsJobContextTask(jobId, 1, 1, jobContextService);
+        EsJobContextTask task = new EsJobContextTask(jobId, 1, 1, jobContextService, jobScheduler, JobClass.DML);
         task.results.add(SettableFuture.<TaskResult>create());
         task.createContext("test",
                 ImmutableList.of(new DummyRequest()),
@@ -0,0 +1,88 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.integrationtests;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class AnalyzeIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Test
+    public void testAnalyzeTable() throws Exception {
+        execute("create table t (id int primary key, name string, tags array(string)) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into t (id, name) values (1, 'Arthur'), (2, 'Trillian'), (3, 'Arthur'), (4, null)");
+        execute("refresh table t");
+
+        execute("analyze t");
+        assertThat(response.rowCount(), is(1L));
+
+        execute("select num_docs, partition_ident from sys.table_stats where table_name = 't'");
+        assertThat(response.rowCount(), is(1L));
+        assertThat((Long) response.rows()[0][0], is(4L));
+        assertThat(response.rows()[0][1], nullValue());
+
+        execute("select column_name, null_fraction, approx_distinct, min, max " +
+                "from sys.column_stats where table_name = 't' order by column_name");
+        // arrays aren't analyzed
+        assertThat(response.rowCount(), is(2L));
+        assertThat((String) response.rows()[0][0], is("id"));
+        assertThat((Double) response.rows()[0][1], is(0.0));
+        assertThat((Long) response.rows()[0][2], is(4L));
+        assertThat((Double) response.rows()[0][3], is(1.0));
+        assertThat((Double) response.rows()[0][4], is(4.0));
+        assertThat((String) response.rows()[1][0], is("name"));
+        assertThat((Double) response.rows()[1][1], is(0.25));
+        assertThat((Long) response.rows()[1][2], is(2L));
+    }
+
+    @Test
+    public void testAnalyzePartitionedTable() throws Exception {
+        execute("create table parted (id int, p int) partitioned by (p) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into parted (id, p) values (1, 1), (2, 1), (3, 2)");
+        execute("refresh table parted");
+
+        execute("analyze parted");
+        execute("select num_docs from sys.table_stats where table_name = 'parted' order by num_docs");
+        assertThat(response.rowCount(), is(3L));
+        assertThat((Long) response.rows()[0][0], is(1L));
+        assertThat((Long) response.rows()[1][0], is(2L));
+        assertThat((Long) response.rows()[2][0], is(3L));
+    }
+
+    @Test
+    public void testStatsOfDroppedTablesAreRemoved() throws Exception {
+        execute("create table t1 (id int) with (number_of_replicas=0)");
+        execute("create table t2 (id int) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("analyze t1, t2");
+        execute("drop table t1");
+        execute("analyze t2");
+
+        execute("select table_name from sys.table_stats");
+        assertThat(response.rowCount(), is(1L));
+        assertThat((String) response.rows()[0][0], is("t2"));
+    }
+}
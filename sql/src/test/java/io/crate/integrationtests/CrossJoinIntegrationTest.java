@@ -21,7 +21,6 @@
 
 package io.crate.integrationtests;
 
-import io.crate.action.sql.SQLActionException;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.junit.Rule;
@@ -34,7 +33,6 @@ import java.util.List;
 
 import static io.crate.testing.TestingHelpers.printRows;
 import static io.crate.testing.TestingHelpers.printedTable;
-import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.core.Is.is;
 
 @ElasticsearchIntegrationTest.ClusterScope(minNumDataNodes = 2)
@@ -74,8 +72,6 @@ public class CrossJoinIntegrationTest extends SQLTransportIntegrationTest {
         execute("create table target (color string, size string)");
         ensureYellow();
 
-        expectedException.expect(SQLActionException.class);
-        expectedException.expectMessage(containsString("Only fields that are used in ORDER BY can be selected within a CROSS JOIN"));
         execute("insert into target (color, size) (select colors.name, sizes.name from colors cross join sizes)");
         execute("refresh table target");
 
@@ -96,8 +92,6 @@ public class CrossJoinIntegrationTest extends SQLTransportIntegrationTest {
         execute("insert into offices (height, name) values (1.5, 'Hobbit House')");
         execute("refresh table employees, offices");
 
-        expectedException.expect(SQLActionException.class);
-        expectedException.expectMessage(containsString("Only fields that are used in ORDER BY can be selected within a CROSS JOIN"));
         // which employee fits in which office?
         execute("select employees.name, offices.name from employees, offices limit 1");
         assertThat(response.rows().length, is(1));
@@ -154,8 +148,6 @@ public class CrossJoinIntegrationTest extends SQLTransportIntegrationTest {
     @Test
     public void testCrossJoinWithoutLimitAndOrderByAndCrossJoinSyntax() throws Exception {
         createColorsAndSizes();
-        expectedException.expect(SQLActionException.class);
-        expectedException.expectMessage(containsString("Only fields that are used in ORDER BY can be selected within a CROSS JOIN"));
         execute("select colors.name, sizes.name from colors cross join sizes");
         assertThat(response.rowCount(), is(6L));
 
@@ -248,6 +240,23 @@ public class CrossJoinIntegrationTest extends SQLTransportIntegrationTest {
                 "sys| sys\n"));
     }
 
+    @Test
+    public void testCrossJoinFetchesColumnsNotInOrderBy() throws Exception {
+        execute("create table articles (id int, name string, details object)");
+        execute("create table shops (id int, name string)");
+        ensureYellow();
+        execute("insert into articles (id, name, details) values (1, 'towel', {color='white'}), (2, 'cheese', {color='yellow'})");
+        execute("insert into shops (id, name) values (1, 'Milliways'), (2, 'Heart of Gold')");
+        execute("refresh table articles, shops");
+
+        execute("select articles.name, articles.details['color'], shops.name from articles, shops " +
+                "order by articles.id desc, shops.id limit 3");
+        assertThat(printedTable(response.rows()), is("" +
+                "cheese| yellow| Milliways\n" +
+                "cheese| yellow| Heart of Gold\n" +
+                "towel| white| Milliways\n"));
+    }
+
     private void createColorsAndSizes() {
         execute("create table colors (name string) ");
         execute("create table sizes (name string) ");
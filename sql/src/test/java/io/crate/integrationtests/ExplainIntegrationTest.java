@@ -0,0 +1,78 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class ExplainIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Test
+    public void testExplainSelect() throws Exception {
+        execute("create table t (id int, name string) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+
+        execute("explain select name, count(*) from t group by name");
+        assertThat(response.cols(), is(new String[]{"EXPLAIN"}));
+        assertThat(response.rowCount(), is(1L));
+        assertThat((String) response.rows()[0][0], containsString("Collect"));
+    }
+
+    @Test
+    public void testExplainAnalyzeGroupBy() throws Exception {
+        execute("create table t (id int, name string) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (id, name) values (1, 'Arthur'), (2, 'Trillian'), (3, 'Arthur')");
+        refresh();
+
+        execute("explain analyze select name, count(*) from t group by name");
+        assertThat(response.cols(), is(new String[]{"id", "downstream_id", "name", "node", "wall_time_ms",
+                "cpu_time_ms", "paused_time_ms", "rows", "bytes_sent", "bytes_received", "peak_memory", "projectors"}));
+        assertThat(response.rowCount(), greaterThan(1L));
+
+        // the phase which produces the final result comes first
+        Object[] handlerPhase = response.rows()[0];
+        assertThat(handlerPhase[1], nullValue());
+        assertThat((Long) handlerPhase[7], is(2L));
+
+        long sentBytes = 0;
+        for (Object[] row : response.rows()) {
+            assertThat((Double) row[4], greaterThanOrEqualTo(0.0d));
+            sentBytes += (Long) row[8];
+        }
+        assertThat(sentBytes, greaterThan(0L));
+    }
+
+    @Test
+    public void testExplainAnalyzeDoesNotReturnRowsOfStatement() throws Exception {
+        execute("create table t (id int) with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (id) values (1), (2)");
+        refresh();
+
+        execute("explain analyze select * from t");
+        for (Object[] row : response.rows()) {
+            assertThat(row.length, is(12));
+        }
+    }
+}
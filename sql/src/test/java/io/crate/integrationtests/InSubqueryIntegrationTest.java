@@ -0,0 +1,94 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.action.sql.SQLActionException;
+import io.crate.testing.TestingHelpers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.Matchers.is;
+
+public class InSubqueryIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Before
+    public void createTables() throws Exception {
+        execute("create table t (id int, name string) with (number_of_replicas=0)");
+        execute("create table ids (id int) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into t (id, name) values (?, ?)", new Object[][]{
+                {1, "Arthur"},
+                {2, "Ford"},
+                {3, "Trillian"}
+        });
+        execute("refresh table t");
+    }
+
+    @Test
+    public void testInSubquery() throws Exception {
+        execute("insert into ids (id) values (1), (3), (3), (4)");
+        execute("refresh table ids");
+
+        execute("select name from t where id in (select id from ids) order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("Arthur\nTrillian\n"));
+    }
+
+    @Test
+    public void testInSubqueryWithEmptyResult() throws Exception {
+        execute("select name from t where id in (select id from ids)");
+        assertThat(response.rowCount(), is(0L));
+
+        execute("select name from t where id not in (select id from ids) order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("Arthur\nFord\nTrillian\n"));
+    }
+
+    @Test
+    public void testInSubqueryWithNullValues() throws Exception {
+        execute("insert into ids (id) values (null), (2), (null)");
+        execute("refresh table ids");
+
+        execute("select name from t where id in (select id from ids)");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("Ford\n"));
+    }
+
+    @Test
+    public void testInSubqueryWithLargeResult() throws Exception {
+        Object[][] bulkArgs = new Object[10000][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[]{i + 2};
+        }
+        execute("insert into ids (id) values (?)", bulkArgs);
+        execute("refresh table ids");
+
+        execute("select name from t where id in (select id from ids limit 20000) order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("Ford\nTrillian\n"));
+
+        expectedException.expect(SQLActionException.class);
+        expectedException.expectMessage("IN subquery returned 10000 rows which is the default limit");
+        execute("select name from t where id in (select id from ids)");
+    }
+}
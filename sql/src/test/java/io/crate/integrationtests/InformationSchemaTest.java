@@ -65,7 +65,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultTables() throws Exception {
         execute("select * from information_schema.tables order by schema_name, table_name");
-        assertEquals(14L, response.rowCount());
+        assertEquals(17L, response.rowCount());
 
         assertArrayEquals(response.rows()[0], new Object[]{"information_schema", "columns", 1, "0", null, null, null, "strict", null});
         assertArrayEquals(response.rows()[1], new Object[]{"information_schema", "routines", 1, "0", null, null, null, "strict", null});
@@ -75,12 +75,15 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         assertArrayEquals(response.rows()[5], new Object[]{"information_schema", "tables", 1, "0", null, null, null, "strict", null});
         assertArrayEquals(response.rows()[6], new Object[]{"sys", "checks", 1, "0", null, null, null, "strict", null});
         assertArrayEquals(response.rows()[7], new Object[]{"sys", "cluster", 1, "0", null, null, null, "strict", null});
-        assertArrayEquals(response.rows()[8], new Object[]{"sys", "jobs", 1, "0", null, null, null, "strict", null});
-        assertArrayEquals(response.rows()[9], new Object[]{"sys", "jobs_log", 1, "0", null, null, null, "strict", null});
-        assertArrayEquals(response.rows()[10], new Object[]{"sys", "nodes", 1, "0", null, null, null, "strict", null});
-        assertArrayEquals(response.rows()[11], new Object[]{"sys", "operations", 1, "0", null, null, null, "strict", null});
-        assertArrayEquals(response.rows()[12], new Object[]{"sys", "operations_log", 1, "0", null, null, null, "strict", null});
-        assertArrayEquals(response.rows()[13], new Object[]{"sys", "shards", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[8], new Object[]{"sys", "column_stats", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[9], new Object[]{"sys", "jobs", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[10], new Object[]{"sys", "jobs_latencies", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[11], new Object[]{"sys", "jobs_log", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[12], new Object[]{"sys", "nodes", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[13], new Object[]{"sys", "operations", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[14], new Object[]{"sys", "operations_log", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[15], new Object[]{"sys", "shards", 1, "0", null, null, null, "strict", null});
+        assertArrayEquals(response.rows()[16], new Object[]{"sys", "table_stats", 1, "0", null, null, null, "strict", null});
     }
 
     @Test
@@ -120,7 +123,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         serviceSetup();
 
         execute("select * from information_schema.tables");
-        assertEquals(17L, response.rowCount());
+        assertEquals(20L, response.rowCount());
 
         client().execute(SQLAction.INSTANCE,
             new SQLRequest("create table t4 (col1 integer, col2 string)")).actionGet();
@@ -130,7 +133,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         Thread.sleep(10);
 
         execute("select * from information_schema.tables");
-        assertEquals(18L, response.rowCount());
+        assertEquals(21L, response.rowCount());
     }
 
     @Test
@@ -438,7 +441,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultColumns() throws Exception {
         execute("select * from information_schema.columns order by schema_name, table_name");
-        assertEquals(298L, response.rowCount());
+        assertEquals(326L, response.rowCount());
     }
 
     @Test
@@ -492,6 +495,34 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         assertEquals("test2", response.rows()[4][0]);
     }
 
+    @Test
+    public void testSelectFromTableColumnsWhereTableNameIn() throws Exception {
+        execute("create table t1 (col1 integer)");
+        execute("create table t2 (col1 integer, col2 string)");
+        execute("create table t3 (col1 integer)");
+        ensureGreen();
+        execute("select table_name, column_name from information_schema.columns " +
+                "where table_name in ('t1', 't2', 'unknown') and schema_name = 'doc' " +
+                "order by table_name, column_name");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+                "t1| col1\n" +
+                "t2| col1\n" +
+                "t2| col2\n"));
+
+        execute("alter table t1 add column col2 string");
+        execute("select table_name, column_name from information_schema.columns " +
+                "where table_name = 't1' or table_name = 't3' " +
+                "order by table_name, column_name");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+                "t1| col1\n" +
+                "t1| col2\n" +
+                "t3| col1\n"));
+
+        execute("select table_name from information_schema.tables " +
+                "where schema_name = 'doc' and table_name = 't2'");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("t2\n"));
+    }
+
     @Test
     public void testSelectFromTableColumnsMultiField() throws Exception {
         execute("create table test (col1 string, col2 string," +
@@ -623,7 +654,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         ensureYellow();
         execute("select count(*) from information_schema.tables");
         assertEquals(1, response.rowCount());
-        assertEquals(17L, response.rows()[0][0]);
+        assertEquals(20L, response.rows()[0][0]);
     }
 
     @Test
@@ -0,0 +1,102 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.integrationtests;
+
+import io.crate.action.sql.SQLResponse;
+import io.crate.operation.Paging;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+@ElasticsearchIntegrationTest.ClusterScope(numDataNodes = 2, randomDynamicTemplates = false)
+public class JobSchedulerIntegrationTest extends SQLTransportIntegrationTest {
+
+    private int pageSize;
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.builder()
+                .put(super.nodeSettings(nodeOrdinal))
+                .put("scheduler.max_concurrent", 1)
+                .put("scheduler.scan.max_concurrent", 1)
+                .build();
+    }
+
+    @Before
+    public void setSmallPageSize() throws Exception {
+        // the collects have to pause because their pages are full
+        pageSize = Paging.PAGE_SIZE;
+        Paging.PAGE_SIZE = 10;
+    }
+
+    @After
+    public void resetPageSize() throws Exception {
+        Paging.PAGE_SIZE = pageSize;
+    }
+
+    @Test
+    public void testConcurrentDistributedScansOnTwoNodesDontBlockEachOther() throws Exception {
+        execute("create table t (id int, name string) clustered into 4 shards with (number_of_replicas=0)");
+        ensureYellow();
+        Object[][] rows = new Object[500][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i, "name" + i};
+        }
+        execute("insert into t (id, name) values (?, ?)", rows);
+        execute("refresh table t");
+
+        // the distributed group by pages the collect results to the merges on both nodes
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<SQLResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                responses.add(executor.submit(new Callable<SQLResponse>() {
+                    @Override
+                    public SQLResponse call() throws Exception {
+                        return sqlExecutor.exec("select name, count(*) from t group by name",
+                                new Object[0], TimeValue.timeValueSeconds(30));
+                    }
+                }));
+            }
+            for (Future<SQLResponse> response : responses) {
+                assertThat(response.get(30, TimeUnit.SECONDS).rowCount(), is(500L));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
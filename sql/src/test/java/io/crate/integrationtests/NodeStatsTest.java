@@ -98,6 +98,51 @@ public class NodeStatsTest extends ClassLifecycleIntegrationTest {
         assertThat((Integer) threadPool.get("queue"), greaterThanOrEqualTo(0));
     }
 
+    @SuppressWarnings("ConstantConditions")
+    @Test
+    public void testScheduler() throws Exception {
+        SQLResponse response = executor.exec("select scheduler from sys.nodes limit 1");
+
+        Object[] classes = (Object[]) response.rows()[0][0];
+        assertThat(classes.length, is(5));
+
+        Map<String, Object> system = null;
+        for (Object c : classes) {
+            Map<String, Object> map = (Map<String, Object>) c;
+            if (map.get("name").equals("system")) {
+                system = map;
+                break;
+            }
+        }
+        // the collect of this statement is running as system job
+        assertThat((Integer) system.get("active"), greaterThanOrEqualTo(1));
+        assertThat((Integer) system.get("queue"), greaterThanOrEqualTo(0));
+        assertThat((Long) system.get("admitted"), greaterThanOrEqualTo(1L));
+        assertThat((Long) system.get("rejected"), is(0L));
+        assertThat((Long) system.get("avg_wait_time"), greaterThanOrEqualTo(0L));
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    @Test
+    public void testReplicaSelection() throws Exception {
+        // the handler of the first statement sends job requests to all nodes
+        executor.exec("select id from sys.nodes");
+        SQLResponse response = executor.exec("select replica_selection from sys.nodes");
+
+        boolean ranked = false;
+        for (Object[] row : response.rows()) {
+            for (Object n : (Object[]) row[0]) {
+                Map<String, Object> node = (Map<String, Object>) n;
+                assertThat((String) node.get("node_id"), notNullValue());
+                assertThat((Double) node.get("rank"), greaterThanOrEqualTo(1.0));
+                assertThat((Double) node.get("avg_response_time"), greaterThanOrEqualTo(0.0));
+                assertThat((Integer) node.get("outstanding_phases"), greaterThanOrEqualTo(0));
+                ranked = true;
+            }
+        }
+        assertThat(ranked, is(true));
+    }
+
     @Test
     public void testThreadPoolValue() throws Exception {
         SQLResponse response = executor.exec("select thread_pools['name'], thread_pools['queue'] from sys.nodes limit 1");
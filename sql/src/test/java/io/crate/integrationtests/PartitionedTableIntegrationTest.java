@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Constants;
 import io.crate.action.sql.SQLActionException;
+import io.crate.action.sql.SQLBulkResponse;
 import io.crate.action.sql.SQLResponse;
 import io.crate.executor.TaskResult;
 import io.crate.metadata.PartitionName;
@@ -698,7 +699,7 @@ public class PartitionedTableIntegrationTest extends SQLTransportIntegrationTest
         refresh();
 
         execute("delete from quotes where timestamp = 1395874800000 and id = 1");
-        assertEquals(-1, response.rowCount());
+        assertEquals(1, response.rowCount());
         refresh();
 
         execute("select id, quote from quotes where timestamp = 1395874800000");
@@ -847,6 +848,34 @@ public class PartitionedTableIntegrationTest extends SQLTransportIntegrationTest
         assertThat(response.rowCount(), is(1L));
     }
 
+    @Test
+    public void testBulkDeleteFromPartitionedTableByPartitionAndByQuery() throws Exception {
+        execute("create table quotes (id integer, timestamp timestamp) " +
+                "partitioned by(timestamp) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into quotes (id, timestamp) values(?, ?)", new Object[][]{
+                new Object[]{1, 1395874800000L},
+                new Object[]{2, 1395874800000L},
+                new Object[]{3, 1395961200000L},
+                new Object[]{4, 1395961200000L}
+        });
+        ensureYellow();
+        refresh();
+
+        // the first argument requires a delete by query, the second one matches a whole partition
+        SQLBulkResponse bulkResponse = execute("delete from quotes where timestamp=? and (id=? or ?)", new Object[][]{
+                new Object[]{1395961200000L, 3, false},
+                new Object[]{1395874800000L, 0, true}
+        });
+        assertThat(bulkResponse.results().length, is(2));
+        assertThat(bulkResponse.results()[0].rowCount(), is(1L));
+        assertThat(bulkResponse.results()[1].rowCount(), is(2L));
+        refresh();
+
+        execute("select id from quotes");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("4\n"));
+    }
+
     @Test
     public void testGlobalAggregatePartitionedColumns() throws Exception {
         execute("create table parted (id integer, name string, date timestamp)" +
@@ -1223,7 +1252,7 @@ public class PartitionedTableIntegrationTest extends SQLTransportIntegrationTest
         assertThat((Long) response.rows()[0][0], is(1L));
 
         execute("delete from quotes where created['user_id'] = 'Arthur' and id = 1 and created['date'] = 1395874800000");
-        assertEquals(-1L, response.rowCount());
+        assertEquals(1L, response.rowCount());
         refresh();
 
         execute("select * from quotes");
@@ -1588,6 +1617,31 @@ public class PartitionedTableIntegrationTest extends SQLTransportIntegrationTest
         assertThat(String.valueOf(partitionMetaData.getSourceAsMap().get("_meta")), Matchers.is("{partitioned_by=[[score, double]]}"));
     }
 
+    @Test
+    public void testGroupByColumnMissingInTheMappingOfSomePartitions() throws Exception {
+        execute("create table dynamic_table (" +
+                "  id integer, " +
+                "  p integer" +
+                ") clustered into 4 shards partitioned by (p) with (number_of_replicas=0, column_policy='dynamic')");
+        ensureYellow();
+        execute("insert into dynamic_table (id, p) values (1, 1), (2, 1)");
+        // the name column is only added to the mapping of the second partition,
+        // its shards could group by ordinals, the shards of the first partition can't
+        execute("insert into dynamic_table (id, name, p) values (?, ?, 2)", new Object[][]{
+                new Object[]{3, "Arthur"},
+                new Object[]{4, "Arthur"},
+                new Object[]{5, "Ford"},
+        });
+        execute("refresh table dynamic_table");
+        waitNoPendingTasksOnAll();
+
+        execute("select name, count(*) from dynamic_table group by name order by name");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+                "Arthur| 2\n" +
+                "Ford| 1\n" +
+                "NULL| 2\n"));
+    }
+
     @Test
     public void testCountPartitionedTable() throws Exception {
         execute("create table parted (" +
@@ -83,5 +83,16 @@ public class SysOperationsTest extends ClassLifecycleIntegrationTest {
         assertThat(response.rows()[0][0].toString(), startsWith("shared"));
     }
 
+    @Test
+    public void testProgressOfRunningCollect() throws Exception {
+        SQLResponse response = executor.exec("select state, shards_total, shards_completed from sys.operations " +
+                                             "where name = 'collect' limit 1");
+        assertThat(response.rowCount(), is(1L));
+        // the collect of this statement itself is running and doesn't collect shards
+        assertThat((String) response.rows()[0][0], is("RUNNING"));
+        assertThat(response.rows()[0][1], Matchers.nullValue());
+        assertThat(response.rows()[0][2], Matchers.nullValue());
+    }
+
 
 }
@@ -143,15 +143,15 @@ public class SysShardsTest extends ClassLifecycleIntegrationTest {
         SQLResponse response = transportExecutor.exec(
             "select * from sys.shards where table_name = 'characters'");
         assertEquals(10L, response.rowCount());
-        assertEquals(10, response.cols().length);
+        assertEquals(11, response.cols().length);
     }
 
     @Test
     public void testSelectStarAllTables() throws Exception {
         SQLResponse response = transportExecutor.exec("select * from sys.shards");
         assertEquals(30L, response.rowCount());
-        assertEquals(10, response.cols().length);
-        assertEquals("schema_name, table_name, id, partition_ident, num_docs, primary, relocating_node, size, state, orphan_partition",
+        assertEquals(11, response.cols().length);
+        assertEquals("schema_name, table_name, id, partition_ident, num_docs, primary, relocating_node, size, state, orphan_partition, result_cache",
             Joiner.on(", ").join(response.cols()));
     }
 
@@ -160,7 +160,7 @@ public class SysShardsTest extends ClassLifecycleIntegrationTest {
         SQLResponse response = transportExecutor.exec(
             "select * from sys.shards where table_name like 'charact%'");
         assertEquals(10L, response.rowCount());
-        assertEquals(10, response.cols().length);
+        assertEquals(11, response.cols().length);
     }
 
     @Test
@@ -168,7 +168,7 @@ public class SysShardsTest extends ClassLifecycleIntegrationTest {
         SQLResponse response = transportExecutor.exec(
             "select * from sys.shards where table_name not like 'quotes%'");
         assertEquals(20L, response.rowCount());
-        assertEquals(10, response.cols().length);
+        assertEquals(11, response.cols().length);
     }
 
     @Test
@@ -176,7 +176,7 @@ public class SysShardsTest extends ClassLifecycleIntegrationTest {
         SQLResponse response = transportExecutor.exec(
             "select * from sys.shards where table_name in ('characters')");
         assertEquals(10L, response.rowCount());
-        assertEquals(10, response.cols().length);
+        assertEquals(11, response.cols().length);
     }
 
     @Test
@@ -203,6 +203,15 @@ public class SysShardsTest extends ClassLifecycleIntegrationTest {
         assertThat(response.rowCount(), greaterThan(0L));
     }
 
+    @Test
+    public void testSelectResultCacheWithDisabledCache() throws Exception {
+        SQLResponse response = transportExecutor.exec(
+            "select result_cache['hits'], result_cache['misses'], result_cache['hit_ratio'], result_cache['size'] " +
+            "from sys.shards where table_name = 'characters' and \"primary\" = true limit 1");
+        assertEquals(1L, response.rowCount());
+        assertThat(TestingHelpers.printedTable(response.rows()), is("0| 0| NULL| 0\n"));
+    }
+
     @Test
     public void testSelectWhereBoolean() throws Exception {
         SQLResponse response = transportExecutor.exec("select * from sys.shards where \"primary\" = false");
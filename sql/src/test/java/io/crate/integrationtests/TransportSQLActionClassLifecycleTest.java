@@ -570,6 +570,27 @@ public class TransportSQLActionClassLifecycleTest extends ClassLifecycleIntegrat
         assertThat((Long) resp.rows()[0][0], is(0L));
     }
 
+    @Test
+    public void testSysJobsLatencies() throws Exception {
+        executor.exec("set global transient stats.enabled = true");
+        waitNoPendingTasksOnAll();
+
+        for (int i = 0; i < 3; i++) {
+            executor.exec("select name from characters where age > 30");
+        }
+        SQLResponse resp = executor.exec("select table_name, sum(count) from sys.jobs_latencies " +
+                                         "where statement_type = 'SELECT' and window_minutes = 1 " +
+                                         "group by table_name order by table_name");
+        assertThat(TestingHelpers.printedTable(resp.rows()), is(
+                "doc.characters| 3\n" +
+                "NULL| 3\n"));
+
+        executor.exec("reset global stats.enabled");
+        waitNoPendingTasksOnAll();
+        resp = executor.exec("select count(*) from sys.jobs_latencies");
+        assertThat((Long) resp.rows()[0][0], is(0L));
+    }
+
     @Test
     public void testSysOperationsLogConcurrentAccess() throws Exception {
         executor.exec("set global transient stats.enabled = true, stats.operations_log_size=10");
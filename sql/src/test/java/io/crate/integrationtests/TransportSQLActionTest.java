@@ -25,14 +25,18 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.TimestampFormat;
+import io.crate.action.sql.SQLAction;
 import io.crate.action.sql.SQLActionException;
 import io.crate.action.sql.SQLBulkResponse;
+import io.crate.action.sql.SQLRequest;
+import io.crate.action.sql.SQLResponse;
 import io.crate.exceptions.Exceptions;
 import io.crate.exceptions.TableUnknownException;
 import io.crate.executor.TaskResult;
 import io.crate.planner.Plan;
 import io.crate.testing.TestingHelpers;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequest;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -351,12 +355,26 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         client().prepareIndex("test", "default", "id1").setSource("{}").execute().actionGet();
         refresh();
         execute("delete from test");
-        assertEquals(-1, response.rowCount());
+        assertEquals(1, response.rowCount());
         assertThat(response.duration(), greaterThanOrEqualTo(0L));
         execute("select \"_id\" from test");
         assertEquals(0, response.rowCount());
     }
 
+    @Test
+    public void testDeleteMatchesDocumentsWrittenAfterRefresh() throws Exception {
+        execute("create table test (id int, name string) with (refresh_interval=0)");
+        ensureYellow();
+        execute("insert into test (id, name) values (1, 'Arthur'), (2, 'Trillian')");
+
+        execute("delete from test where name = 'Arthur'");
+        assertEquals(1, response.rowCount());
+        execute("refresh table test");
+        execute("select id from test");
+        assertEquals(1, response.rowCount());
+        assertEquals(2, response.rows()[0][0]);
+    }
+
     @Test
     public void testDeleteWithWhere() throws Exception {
         createIndex("test");
@@ -1271,8 +1289,7 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         refresh();
 
         execute("delete from quotes where id=1");
-        // no rowCount available for deleteByQuery requests
-        assertEquals(-1L, response.rowCount());
+        assertEquals(2L, response.rowCount());
         refresh();
 
         execute("select quote from quotes where id=1");
@@ -1392,7 +1409,7 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         });
         assertThat(bulkResp.results().length, is(2));
         for (SQLBulkResponse.Result result : bulkResp.results()) {
-            assertThat(result.rowCount(), is(-1L));
+            assertThat(result.rowCount(), is(1L));
         }
         refresh();
 
@@ -1552,7 +1569,7 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         execute("insert into ip_table (fqdn, addr) values ('localhost', '127.0.0.1'), ('crate.io', '23.235.33.143')");
         execute("refresh table ip_table");
         execute("delete from ip_table where addr = '127.0.0.1'");
-        assertThat(response.rowCount(), is(-1L));
+        assertThat(response.rowCount(), is(1L));
         execute("select addr from ip_table");
         assertThat(response.rowCount(), is(1L));
         assertThat((String) response.rows()[0][0], is("23.235.33.143"));
@@ -1998,6 +2015,76 @@ public class TransportSQLActionTest extends SQLTransportIntegrationTest {
         execute("select _id, * from t");
         assertThat(response.rowCount(), is(1L));
     }
-}
 
+    @Test
+    public void testGlobalMinMaxCountWithDeletedDocuments() throws Exception {
+        execute("create table t (x integer, d double, ts timestamp, p string) partitioned by (p) " +
+                "clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (x, d, ts, p) values (?, ?, ?, ?)", new Object[][]{
+                new Object[]{1, -1.5, 1000L, "a"},
+                new Object[]{2, 2.5, 2000L, "a"},
+                new Object[]{3, 10.25, 3000L, "b"},
+                new Object[]{null, null, null, "b"},
+        });
+        execute("refresh table t");
 
+        execute("select count(*), min(x), max(x), min(d), max(d), min(ts), max(ts) from t");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("4| 1| 3| -1.5| 10.25| 1000| 3000\n"));
+
+        execute("delete from t where x = 3 or x = 1");
+        execute("refresh table t");
+        execute("select count(*), min(x), max(x), min(d), max(d), min(ts), max(ts) from t");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("2| 2| 2| 2.5| 2.5| 2000| 2000\n"));
+
+        execute("select count(*), min(x), max(x) from t where p = 'b'");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("1| NULL| NULL\n"));
+    }
+
+    @Test
+    public void testFetchFromCursor() throws Exception {
+        execute("create table t (x integer) clustered into 2 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        Object[][] bulkArgs = new Object[25][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[]{i};
+        }
+        execute("insert into t (x) values (?)", bulkArgs);
+        execute("refresh table t");
+
+        // a cursor only lives on the node that opened it
+        Client client = clients().iterator().next();
+        SQLRequest request = new SQLRequest("select x from t order by x");
+        request.fetchSize(10);
+        List<Object> values = new ArrayList<>();
+        SQLResponse cursorResponse = client.execute(SQLAction.INSTANCE, request).actionGet();
+        int numFetches = 1;
+        while (true) {
+            assertThat(cursorResponse.rows().length, lessThanOrEqualTo(10));
+            for (Object[] row : cursorResponse.rows()) {
+                values.add(row[0]);
+            }
+            if (cursorResponse.cursor() == null) {
+                break;
+            }
+            request = new SQLRequest();
+            request.cursor(cursorResponse.cursor());
+            cursorResponse = client.execute(SQLAction.INSTANCE, request).actionGet();
+            numFetches++;
+        }
+        assertThat(numFetches, greaterThanOrEqualTo(3));
+        assertThat(values.size(), is(25));
+        for (int i = 0; i < values.size(); i++) {
+            assertThat((Integer) values.get(i), is(i));
+        }
+    }
+
+    @Test
+    public void testFetchFromUnknownCursor() throws Exception {
+        expectedException.expect(SQLActionException.class);
+        expectedException.expectMessage("Cursor 'e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b' unknown");
+        SQLRequest request = new SQLRequest();
+        request.cursor("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b");
+        sqlExecutor.exec(request);
+    }
+}
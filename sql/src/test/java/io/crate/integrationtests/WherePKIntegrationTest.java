@@ -241,7 +241,7 @@ public class WherePKIntegrationTest extends SQLTransportIntegrationTest {
 
         // does not delete anything - goes to shard 1
         execute("delete from explicit_routing where name='A,W'");
-        assertThat(response.rowCount(), is(-1L));
+        assertThat(response.rowCount(), is(0L));
         execute("refresh table explicit_routing");
 
         execute("select * from explicit_routing");
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 
 public class AbstractExecutionSubContextTest extends CrateUnitTest {
 
@@ -133,9 +134,12 @@ public class AbstractExecutionSubContextTest extends CrateUnitTest {
     public void testNormalSequence() throws Exception {
         TestingExecutionSubContext ctx = new TestingExecutionSubContext();
         ctx.prepare();
+        assertThat(ctx.progress().state(), is(ExecutionProgress.State.PREPARED));
         ctx.start();
+        assertThat(ctx.progress().state(), is(ExecutionProgress.State.RUNNING));
         ctx.close();
         assertThat(ctx.stats(), contains(1, 1, 1, 0));
+        assertThat(ctx.progress().state(), is(ExecutionProgress.State.CLOSED));
     }
 
     @Test
@@ -174,6 +178,7 @@ public class AbstractExecutionSubContextTest extends CrateUnitTest {
         runAsync(killRunnable, 3);
         assertThat(ctx.stats(), contains(1, 1, 0, 1));
         assertTrue(ctx.isKilled());
+        assertThat(ctx.progress().state(), is(ExecutionProgress.State.KILLED));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row1;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class ExecutionProgressTest extends CrateUnitTest {
+
+    @Test
+    public void testNothingTrackedByDefault() throws Exception {
+        ExecutionProgress progress = new ExecutionProgress();
+        assertThat(progress.state(), is(ExecutionProgress.State.CREATED));
+        assertThat(progress.usedBytes(), is(-1L));
+        assertThat(progress.rows(), is(-1L));
+        assertThat(progress.shardsTotal(), is(-1));
+    }
+
+    @Test
+    public void testUsedBytesAreLive() throws Exception {
+        ExecutionProgress progress = new ExecutionProgress();
+        RamAccountingContext ramAccountingContext =
+                new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+        progress.ramAccountingContext(ramAccountingContext);
+        assertThat(progress.usedBytes(), is(0L));
+
+        ramAccountingContext.addBytes(42L);
+        assertThat(progress.usedBytes(), is(42L));
+    }
+
+    @Test
+    public void testRowsArePublishedInBatchesAndOnFinish() throws Exception {
+        ExecutionProgress progress = new ExecutionProgress();
+        CollectingRowReceiver downstream = new CollectingRowReceiver();
+        RowReceiver rowReceiver = progress.countRows(downstream);
+        assertThat(progress.rows(), is(0L));
+
+        Row1 row = new Row1(1);
+        for (int i = 0; i < ExecutionProgress.PUBLISH_INTERVAL + 10; i++) {
+            rowReceiver.setNextRow(row);
+        }
+        assertThat(progress.rows(), is((long) ExecutionProgress.PUBLISH_INTERVAL));
+
+        rowReceiver.finish();
+        assertThat(progress.rows(), is(ExecutionProgress.PUBLISH_INTERVAL + 10L));
+        assertThat(downstream.rows.size(), is(ExecutionProgress.PUBLISH_INTERVAL + 10));
+        assertThat(downstream.isFinished(), is(true));
+    }
+
+    @Test
+    public void testShardsAreCompletedOnFinishAndFail() throws Exception {
+        ExecutionProgress progress = new ExecutionProgress();
+        progress.shardsTotal(2);
+        RowReceiver shard1 = progress.countShardRows(new CollectingRowReceiver());
+        RowReceiver shard2 = progress.countShardRows(new CollectingRowReceiver());
+
+        shard1.setNextRow(new Row1(1));
+        shard1.finish();
+        assertThat(progress.shardsCompleted(), is(1));
+        assertThat(progress.rows(), is(1L));
+
+        shard2.fail(new IllegalStateException("dummy"));
+        assertThat(progress.shardsCompleted(), is(2));
+        assertThat(progress.shardsTotal(), is(2));
+    }
+}
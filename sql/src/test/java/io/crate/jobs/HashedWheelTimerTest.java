@@ -0,0 +1,128 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HashedWheelTimerTest extends CrateUnitTest {
+
+    private final AtomicLong now = new AtomicLong(0L);
+    private HashedWheelTimer timer;
+
+    @Before
+    public void prepare() throws Exception {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        when(threadPool.estimatedTimeInMillis()).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return now.get();
+            }
+        });
+        // ticks are triggered manually
+        timer = new HashedWheelTimer(threadPool, TimeValue.timeValueMillis(10), 4);
+    }
+
+    private void tick(int times) {
+        for (int i = 0; i < times; i++) {
+            now.addAndGet(10);
+            timer.tick();
+        }
+    }
+
+    @Test
+    public void testTaskIsRunAfterDelay() throws Exception {
+        final List<Long> runs = new ArrayList<>();
+        timer.schedule(new HashedWheelTimer.Task() {
+            @Override
+            public long run(long now) {
+                runs.add(now);
+                return -1L;
+            }
+        }, 30);
+        tick(2);
+        assertThat(runs.size(), is(0));
+        tick(1);
+        assertThat(runs, contains(30L));
+        tick(10);
+        assertThat(runs.size(), is(1));
+    }
+
+    @Test
+    public void testTaskWithDelayGreaterThanWheelIsRunAfterRemainingRounds() throws Exception {
+        final List<Long> runs = new ArrayList<>();
+        timer.schedule(new HashedWheelTimer.Task() {
+            @Override
+            public long run(long now) {
+                runs.add(now);
+                return -1L;
+            }
+        }, 100);
+        tick(9);
+        assertThat(runs.size(), is(0));
+        tick(1);
+        assertThat(runs, contains(100L));
+    }
+
+    @Test
+    public void testTaskIsRescheduledWithReturnedDelay() throws Exception {
+        final List<Long> runs = new ArrayList<>();
+        timer.schedule(new HashedWheelTimer.Task() {
+            @Override
+            public long run(long now) {
+                runs.add(now);
+                return runs.size() < 3 ? 40L : -1L;
+            }
+        }, 10);
+        tick(20);
+        assertThat(runs, contains(20L, 60L, 100L));
+    }
+
+    @Test
+    public void testTickListenerIsCalledAfterEveryTick() throws Exception {
+        final AtomicInteger ticks = new AtomicInteger(0);
+        timer.addTickListener(new Runnable() {
+            @Override
+            public void run() {
+                ticks.incrementAndGet();
+            }
+        });
+        tick(5);
+        assertThat(ticks.get(), is(5));
+    }
+}
@@ -61,7 +61,7 @@ public class JobContextServiceTest extends CrateUnitTest {
     private JobContextService jobContextService;
 
     private static final TimeValue TEST_KEEP_ALIVE = TimeValue.timeValueSeconds(30);
-    private static final TimeValue TEST_REAPER_INTERVAL = TimeValue.timeValueSeconds(10);
+    private static final TimeValue TEST_TICK_DURATION = TimeValue.timeValueSeconds(10);
 
 
     @Before
@@ -71,8 +71,8 @@ public class JobContextServiceTest extends CrateUnitTest {
                 testThreadPool,
                 mock(StatsTables.class),
                 new LocalReaper(testThreadPool),
-                TEST_KEEP_ALIVE,
-                TEST_REAPER_INTERVAL
+                new HashedWheelTimer(testThreadPool, TEST_TICK_DURATION, HashedWheelTimer.DEFAULT_WHEEL_SIZE),
+                TEST_KEEP_ALIVE
         );
     }
 
@@ -136,8 +136,8 @@ public class JobContextServiceTest extends CrateUnitTest {
                 threadPool,
                 mock(StatsTables.class),
                 new LocalReaper(threadPool),
-                TEST_KEEP_ALIVE,
-                TEST_REAPER_INTERVAL
+                new HashedWheelTimer(threadPool, TEST_TICK_DURATION, HashedWheelTimer.DEFAULT_WHEEL_SIZE),
+                TEST_KEEP_ALIVE
         );
 
         JobExecutionContext ctx1 = getJobExecutionContextWithOneActiveSubContext(jobContextService);
@@ -293,8 +293,8 @@ public class JobContextServiceTest extends CrateUnitTest {
                 testThreadPool,
                 mock(StatsTables.class),
                 new LocalReaper(testThreadPool),
-                timeValueMillis(0),
-                timeValueMillis(1));
+                new HashedWheelTimer(testThreadPool, timeValueMillis(1), HashedWheelTimer.DEFAULT_WHEEL_SIZE),
+                timeValueMillis(0));
 
         final AbstractExecutionSubContextTest.TestingExecutionSubContext executionSubContext = new AbstractExecutionSubContextTest.TestingExecutionSubContext();
 
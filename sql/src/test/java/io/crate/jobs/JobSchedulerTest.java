@@ -0,0 +1,259 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.job.JobClassifier;
+import io.crate.analyze.WhereClause;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.core.collections.TreeMapBuilder;
+import io.crate.metadata.Routing;
+import io.crate.operation.NodeOperation;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.CollectPhase;
+import io.crate.planner.node.dql.MergePhase;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JobSchedulerTest extends CrateUnitTest {
+
+    private CircuitBreaker queryBreaker;
+    private CircuitBreakerService breakerService;
+    private List<String> started;
+
+    @Before
+    public void prepare() throws Exception {
+        queryBreaker = mock(CircuitBreaker.class);
+        when(queryBreaker.getLimit()).thenReturn(1000L);
+        breakerService = mock(CircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER)).thenReturn(queryBreaker);
+        started = new ArrayList<>();
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void testJobsAreQueuedIfClassIsFull() throws Exception {
+        JobScheduler scheduler = new JobScheduler(ImmutableSettings.builder()
+                .put("scheduler.scan.max_concurrent", 1).build(), breakerService);
+
+        SettableFuture<Void> first = SettableFuture.create();
+        SettableFuture<Void> second = SettableFuture.create();
+        scheduler.admit(JobClass.SCAN, first, task("first"));
+        scheduler.admit(JobClass.SCAN, second, task("second"));
+        assertThat(started, contains("first"));
+        assertThat(scheduler.active(JobClass.SCAN), is(1));
+        assertThat(scheduler.queued(JobClass.SCAN), is(1));
+
+        // other classes are not affected
+        scheduler.admit(JobClass.POINT_LOOKUP, SettableFuture.<Void>create(), task("lookup"));
+        assertThat(started, contains("first", "lookup"));
+
+        first.set(null);
+        assertThat(started, contains("first", "lookup", "second"));
+        assertThat(scheduler.queued(JobClass.SCAN), is(0));
+        assertThat(scheduler.admitted(JobClass.SCAN), is(2L));
+    }
+
+    @Test
+    public void testJobIsRejectedIfQueueIsFull() throws Exception {
+        JobScheduler scheduler = new JobScheduler(ImmutableSettings.builder()
+                .put("scheduler.dml.max_concurrent", 1)
+                .put("scheduler.dml.queue_size", 1).build(), breakerService);
+
+        scheduler.admit(JobClass.DML, SettableFuture.<Void>create(), task("first"));
+        scheduler.admit(JobClass.DML, SettableFuture.<Void>create(), task("second"));
+        try {
+            scheduler.admit(JobClass.DML, SettableFuture.<Void>create(), task("third"));
+            fail("third job should have been rejected");
+        } catch (EsRejectedExecutionException e) {
+            assertThat(scheduler.rejected(JobClass.DML), is(1L));
+        }
+        assertThat(started, contains("first"));
+    }
+
+    @Test
+    public void testQueuedJobIsRemovedIfItFinishesBeforeStart() throws Exception {
+        JobScheduler scheduler = new JobScheduler(ImmutableSettings.builder()
+                .put("scheduler.scan.max_concurrent", 1).build(), breakerService);
+
+        SettableFuture<Void> first = SettableFuture.create();
+        SettableFuture<Void> killed = SettableFuture.create();
+        scheduler.admit(JobClass.SCAN, first, task("first"));
+        scheduler.admit(JobClass.SCAN, killed, task("killed"));
+
+        killed.setException(new InterruptedException());
+        assertThat(scheduler.queued(JobClass.SCAN), is(0));
+
+        first.set(null);
+        assertThat(started, contains("first"));
+        assertThat(scheduler.active(JobClass.SCAN), is(0));
+    }
+
+    @Test
+    public void testJobsAboveMemoryThresholdWaitForRunningJobsOfTheirClass() throws Exception {
+        JobScheduler scheduler = new JobScheduler(ImmutableSettings.builder()
+                .put("scheduler.scan.max_concurrent", 10)
+                .put("scheduler.scan.memory_threshold", 0.5).build(), breakerService);
+        when(queryBreaker.getUsed()).thenReturn(600L);
+
+        SettableFuture<Void> first = SettableFuture.create();
+        scheduler.admit(JobClass.SCAN, first, task("first"));
+        scheduler.admit(JobClass.SCAN, SettableFuture.<Void>create(), task("second"));
+        assertThat(started, contains("first"));
+
+        first.set(null);
+        assertThat(started, contains("first", "second"));
+    }
+
+    @Test
+    public void testSlotsAreSharedByWeight() throws Exception {
+        Settings settings = ImmutableSettings.builder()
+                .put("scheduler.max_concurrent", 1)
+                .put("scheduler.scan.weight", 1)
+                .put("scheduler.small.weight", 3).build();
+        JobScheduler scheduler = new JobScheduler(settings, breakerService);
+
+        final List<SettableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            admit(scheduler, JobClass.SCAN, running);
+            admit(scheduler, JobClass.SMALL, running);
+        }
+        // finish the running job until all jobs ran, there is only one slot so jobs run one after another
+        while (!running.isEmpty()) {
+            assertThat(running.size(), is(1));
+            running.remove(0).set(null);
+        }
+        assertThat(started, contains("scan", "small", "scan", "small", "small", "small", "scan", "scan"));
+    }
+
+    @Test
+    public void testQueuedJobsStartIfMemoryUsageDrops() throws Exception {
+        JobScheduler scheduler = new JobScheduler(ImmutableSettings.builder()
+                .put("scheduler.scan.memory_threshold", 0.5).build(), breakerService);
+        when(queryBreaker.getUsed()).thenReturn(600L);
+
+        scheduler.admit(JobClass.SCAN, SettableFuture.<Void>create(), task("first"));
+        scheduler.admit(JobClass.SCAN, SettableFuture.<Void>create(), task("second"));
+        assertThat(started, contains("first"));
+
+        // no job finished, but the memory was released
+        when(queryBreaker.getUsed()).thenReturn(100L);
+        scheduler.dispatchQueued();
+        assertThat(started, contains("first", "second"));
+    }
+
+    @Test
+    public void testJobWithMergePhaseIsNotQueuedIfSchedulerIsSaturated() throws Exception {
+        JobScheduler scheduler = new JobScheduler(ImmutableSettings.builder()
+                .put("scheduler.max_concurrent", 1)
+                .put("scheduler.scan.max_concurrent", 1).build(), breakerService);
+        scheduler.admit(JobClass.SCAN, SettableFuture.<Void>create(), task("running"));
+
+        UUID jobId = UUID.randomUUID();
+        Routing routing = new Routing(TreeMapBuilder.<String, Map<String, List<Integer>>>newMapBuilder()
+                .put("n1", TreeMapBuilder.<String, List<Integer>>newMapBuilder()
+                        .put("t1", Arrays.asList(0, 1)).map()).map());
+        CollectPhase collectPhase = new CollectPhase(jobId, 1, "collect", routing, RowGranularity.DOC,
+                ImmutableList.<Symbol>of(), ImmutableList.<Projection>of(), WhereClause.MATCH_ALL,
+                DistributionInfo.DEFAULT_BROADCAST);
+        MergePhase mergePhase = new MergePhase(jobId, 2, "merge", 1, ImmutableList.<DataType>of(),
+                ImmutableList.<Projection>of(), DistributionInfo.DEFAULT_BROADCAST);
+
+        // the collect alone is queued
+        List<NodeOperation> collectOnly = ImmutableList.of(NodeOperation.withoutDownstream(collectPhase));
+        assertThat(JobClassifier.classify(collectOnly), is(JobClass.SCAN));
+        scheduler.admit(JobClassifier.classify(collectOnly), SettableFuture.<Void>create(), task("collect"));
+        assertThat(started, contains("running"));
+
+        // the merge must start right away, the upstreams on other nodes push into it
+        List<NodeOperation> collectAndMerge = ImmutableList.of(
+                NodeOperation.withoutDownstream(collectPhase), NodeOperation.withoutDownstream(mergePhase));
+        assertThat(JobClassifier.classify(collectAndMerge), nullValue());
+        scheduler.admit(JobClassifier.classify(collectAndMerge), SettableFuture.<Void>create(), task("merge"));
+        assertThat(started, contains("running", "merge"));
+        assertThat(scheduler.queued(JobClass.SCAN), is(1));
+    }
+
+    @Test
+    public void testCollectWithDistributedDownstreamIsNotQueued() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        Routing routing = new Routing(TreeMapBuilder.<String, Map<String, List<Integer>>>newMapBuilder()
+                .put("n1", TreeMapBuilder.<String, List<Integer>>newMapBuilder()
+                        .put("t1", Arrays.asList(0, 1)).map()).map());
+        CollectPhase collectPhase = new CollectPhase(jobId, 1, "collect", routing, RowGranularity.DOC,
+                ImmutableList.<Symbol>of(), ImmutableList.<Projection>of(), WhereClause.MATCH_ALL,
+                DistributionInfo.DEFAULT_BROADCAST);
+        MergePhase mergePhase = new MergePhase(jobId, 2, "merge", 1, ImmutableList.<DataType>of(),
+                ImmutableList.<Projection>of(), DistributionInfo.DEFAULT_BROADCAST);
+
+        // the result is returned to the handler, the collect never waits for another node
+        mergePhase.executionNodes(ImmutableList.<String>of());
+        List<NodeOperation> directResponse = ImmutableList.of(
+                NodeOperation.withDownstream(collectPhase, mergePhase, (byte) 0, "handler"));
+        assertThat(JobClassifier.classify(directResponse), is(JobClass.SCAN));
+
+        // pages are pushed to the merges on other nodes, the collect pauses until they want more
+        mergePhase.executionNodes(ImmutableList.of("n1", "n2"));
+        List<NodeOperation> distributed = ImmutableList.of(
+                NodeOperation.withDownstream(collectPhase, mergePhase, (byte) 0, "handler"));
+        assertThat(JobClassifier.classify(distributed), nullValue());
+    }
+
+    private void admit(JobScheduler scheduler, final JobClass jobClass, final List<SettableFuture<Void>> running) {
+        final SettableFuture<Void> future = SettableFuture.create();
+        scheduler.admit(jobClass, future, new Runnable() {
+            @Override
+            public void run() {
+                started.add(jobClass.settingsName());
+                running.add(future);
+            }
+        });
+    }
+}
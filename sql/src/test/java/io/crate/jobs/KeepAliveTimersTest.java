@@ -23,19 +23,27 @@
 package io.crate.jobs;
 
 import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.job.KeepAliveRequest;
 import io.crate.action.job.TransportKeepAliveAction;
 import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportResponse;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.UUID;
 import java.util.concurrent.*;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.mockito.Mockito.*;
 
 public class KeepAliveTimersTest extends CrateUnitTest {
@@ -49,6 +57,7 @@ public class KeepAliveTimersTest extends CrateUnitTest {
     private ThreadPool threadPool;
     private ScheduledExecutorService scheduledExecutorService;
     private TransportKeepAliveAction transportKeepAliveAction;
+    private HashedWheelTimer timer;
 
     @Before
     public void prepare() throws Exception {
@@ -71,6 +80,7 @@ public class KeepAliveTimersTest extends CrateUnitTest {
             }
         });
         transportKeepAliveAction = mock(TransportKeepAliveAction.class);
+        timer = new HashedWheelTimer(threadPool, TimeValue.timeValueMillis(1), HashedWheelTimer.DEFAULT_WHEEL_SIZE);
     }
 
     @After
@@ -115,7 +125,7 @@ public class KeepAliveTimersTest extends CrateUnitTest {
     }
 
     private Tuple<SettableFuture<Void>, KeepAliveTimers.ResettableTimer> getTimer(TimeValue timerDelay) {
-        KeepAliveTimers keepAliveTimers = new KeepAliveTimers(threadPool, TEST_DELAY, transportKeepAliveAction);
+        KeepAliveTimers keepAliveTimers = new KeepAliveTimers(threadPool, timer, TEST_DELAY, transportKeepAliveAction);
         final SettableFuture<Void> future = SettableFuture.create();
         final KeepAliveTimers.ResettableTimer timer = keepAliveTimers.forRunnable(new Runnable() {
             @Override
@@ -137,4 +147,32 @@ public class KeepAliveTimersTest extends CrateUnitTest {
         expectedException.expect(TimeoutException.class);
         future.get(100, TimeUnit.MILLISECONDS);
     }
+
+    @Test
+    public void testKeepAlivesAreBatchedPerNode() throws Exception {
+        ThreadPool manualThreadPool = mock(ThreadPool.class);
+        when(manualThreadPool.estimatedTimeInMillis()).thenReturn(0L);
+        HashedWheelTimer manualTimer = new HashedWheelTimer(manualThreadPool, TimeValue.timeValueMillis(10), 8);
+        KeepAliveTimers keepAliveTimers = new KeepAliveTimers(manualThreadPool, manualTimer, TEST_DELAY, transportKeepAliveAction);
+
+        UUID jobId1 = UUID.randomUUID();
+        UUID jobId2 = UUID.randomUUID();
+        UUID jobId3 = UUID.randomUUID();
+        keepAliveTimers.forJobOnNode(jobId1, "n1").start();
+        keepAliveTimers.forJobOnNode(jobId2, "n1").start();
+        keepAliveTimers.forJobOnNode(jobId3, "n2").start();
+
+        when(manualThreadPool.estimatedTimeInMillis()).thenReturn(100L);
+        for (int i = 0; i < 5; i++) {
+            manualTimer.tick();
+        }
+
+        ArgumentCaptor<KeepAliveRequest> n1Request = ArgumentCaptor.forClass(KeepAliveRequest.class);
+        verify(transportKeepAliveAction, times(1)).keepAlive(eq("n1"), n1Request.capture(), Mockito.<ActionListener<TransportResponse.Empty>>any());
+        assertThat(n1Request.getValue().jobIds(), containsInAnyOrder(jobId1, jobId2));
+
+        ArgumentCaptor<KeepAliveRequest> n2Request = ArgumentCaptor.forClass(KeepAliveRequest.class);
+        verify(transportKeepAliveAction, times(1)).keepAlive(eq("n2"), n2Request.capture(), Mockito.<ActionListener<TransportResponse.Empty>>any());
+        assertThat(n2Request.getValue().jobIds(), contains(jobId3));
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.jobs;
+
+import io.crate.core.collections.TreeMapBuilder;
+import io.crate.metadata.Routing;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.*;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaSelectorTest extends CrateUnitTest {
+
+    private static final String INDEX = "t";
+
+    private ReplicaSelector replicaSelector;
+    private ClusterState state;
+
+    @Before
+    public void prepare() throws Exception {
+        replicaSelector = new ReplicaSelector(ImmutableSettings.EMPTY, mock(ClusterService.class));
+
+        // every shard has a copy on n1 and n2
+        IndexRoutingTable.Builder builder = IndexRoutingTable.builder(INDEX);
+        for (int i = 0; i < 4; i++) {
+            builder.addIndexShard(new IndexShardRoutingTable.Builder(new ShardId(INDEX, i), true)
+                    .addShard(new ImmutableShardRouting(INDEX, i, "n1", true, ShardRoutingState.STARTED, 1))
+                    .addShard(new ImmutableShardRouting(INDEX, i, "n2", false, ShardRoutingState.STARTED, 1))
+                    .build());
+        }
+        RoutingTable routingTable = RoutingTable.builder().add(builder).build();
+        state = mock(ClusterState.class);
+        when(state.routingTable()).thenReturn(routingTable);
+    }
+
+    private Routing routing() {
+        return new Routing(TreeMapBuilder.<String, Map<String, List<Integer>>>newMapBuilder()
+                .put("n1", TreeMapBuilder.<String, List<Integer>>newMapBuilder().put(INDEX, Arrays.asList(0, 2)).map())
+                .put("n2", TreeMapBuilder.<String, List<Integer>>newMapBuilder().put(INDEX, Arrays.asList(1, 3)).map())
+                .map());
+    }
+
+    @Test
+    public void testOutstandingPhasesIncreaseRank() throws Exception {
+        double rank = replicaSelector.rank("n1");
+        long startTime = replicaSelector.onRequest("n1", 2);
+        assertThat(replicaSelector.rank("n1"), greaterThan(rank));
+
+        replicaSelector.onResponse("n1", 2, startTime);
+        ReplicaSelector.NodeStats stats = replicaSelector.nodeStats().iterator().next();
+        assertThat(stats.nodeId(), is("n1"));
+        assertThat(stats.outstandingPhases(), is(0));
+        assertThat(stats.responses(), is(1L));
+        assertThat(stats.avgResponseTime(), greaterThanOrEqualTo(0.0));
+    }
+
+    @Test
+    public void testSelectLeastLoadedCopies() throws Exception {
+        replicaSelector.onRequest("n1", 2);
+
+        // the shards assigned to n2 increase its rank, so that not all shards end up on n2
+        Routing routing = replicaSelector.select(state, routing(), replicaSelector.newSelection(0));
+        assertThat(routing.locations().keySet(), containsInAnyOrder("n1", "n2"));
+        assertThat(routing.locations().get("n1").get(INDEX).size(), is(1));
+        assertThat(routing.locations().get("n2").get(INDEX).size(), is(3));
+        assertThat(routing.numShards(), is(4));
+    }
+
+    @Test
+    public void testSelectWithSameLoadSpreadsShards() throws Exception {
+        Routing routing = replicaSelector.select(state, routing(), replicaSelector.newSelection(42));
+        assertThat(routing.locations().get("n1").get(INDEX).size(), is(2));
+        assertThat(routing.locations().get("n2").get(INDEX).size(), is(2));
+    }
+
+    @Test
+    public void testSelectWithinSameSelectionIsStable() throws Exception {
+        ReplicaSelector.Selection selection = replicaSelector.newSelection(42);
+        Routing routing1 = replicaSelector.select(state, routing(), selection);
+
+        // the shards stay on the copies selected first, even if the load changed in between
+        replicaSelector.onRequest("n1", 10);
+        Routing routing2 = replicaSelector.select(state, routing(), selection);
+        assertThat(routing2, is(routing1));
+        assertThat(routing1.numShards(), is(4));
+    }
+
+    @Test
+    public void testShardsWithoutCopiesAreNotMoved() throws Exception {
+        replicaSelector.onRequest("n2", 10);
+        Routing routing = new Routing(TreeMapBuilder.<String, Map<String, List<Integer>>>newMapBuilder()
+                .put("n2", TreeMapBuilder.<String, List<Integer>>newMapBuilder().put("unknown", Arrays.asList(0)).map())
+                .map());
+        Routing selected = replicaSelector.select(state, routing, replicaSelector.newSelection(0));
+        assertThat(selected, is(routing));
+    }
+}
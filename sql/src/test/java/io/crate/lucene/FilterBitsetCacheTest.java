@@ -0,0 +1,295 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.lucene;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.operator.EqOperator;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class FilterBitsetCacheTest extends CrateUnitTest {
+
+    private CircuitBreaker breaker;
+    private CircuitBreakerService breakerService;
+    private RAMDirectory directory;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        breaker = mock(CircuitBreaker.class);
+        breakerService = mock(CircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER)).thenReturn(breaker);
+        directory = new RAMDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(Version.LUCENE_4_10_4, new KeywordAnalyzer()));
+        for (String value : new String[] { "a", "b", "a" }) {
+            Document document = new Document();
+            document.add(new StringField("x", value, Field.Store.NO));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        directory.close();
+    }
+
+    private FilterBitsetCache cache(String size) {
+        return new FilterBitsetCache(
+                ImmutableSettings.builder().put(FilterBitsetCache.SIZE_SETTING, size).build(), breakerService);
+    }
+
+    private static Symbol predicate(String value) {
+        FunctionInfo eqInfo = new FunctionInfo(
+                new FunctionIdent(EqOperator.NAME, ImmutableList.<DataType>of(DataTypes.STRING, DataTypes.STRING)),
+                DataTypes.BOOLEAN);
+        return new Function(eqInfo, ImmutableList.<Symbol>of(Literal.newLiteral("x"), Literal.newLiteral(value)));
+    }
+
+    private static int count(DocIdSet docIdSet) throws IOException {
+        int count = 0;
+        DocIdSetIterator iterator = docIdSet.iterator();
+        if (iterator == null) {
+            return 0;
+        }
+        while (iterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+            count++;
+        }
+        return count;
+    }
+
+    private AtomicReaderContext segment() {
+        assertThat(reader.leaves().size(), is(1));
+        return reader.leaves().get(0);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        FilterBitsetCache cache = cache("0b");
+        assertThat(cache.enabled(), is(false));
+        assertThat(cache.cache(predicate("a"), new TermFilter(new Term("x", "a"))), nullValue());
+    }
+
+    @Test
+    public void testNonDeterministicPredicateIsNotCached() throws Exception {
+        FunctionInfo randomInfo = new FunctionInfo(
+                new FunctionIdent("random", ImmutableList.<DataType>of()), DataTypes.BOOLEAN,
+                FunctionInfo.Type.SCALAR, false);
+        Symbol predicate = new Function(randomInfo, ImmutableList.<Symbol>of());
+        assertThat(cache("1mb").cache(predicate, new TermFilter(new Term("x", "a"))), nullValue());
+    }
+
+    @Test
+    public void testCachedAfterRepeatedUse() throws Exception {
+        FilterBitsetCache cache = cache("1mb");
+        CountingFilter countingFilter = new CountingFilter(new TermFilter(new Term("x", "a")));
+
+        // first use isn't admitted
+        assertThat(count(cache.cache(predicate("a"), countingFilter).getDocIdSet(segment(), null)), is(2));
+        assertThat(cache.size(), is(0));
+
+        // second use is cached, a new filter instance built from the same predicate hits the entry
+        assertThat(count(cache.cache(predicate("a"), countingFilter).getDocIdSet(segment(), null)), is(2));
+        assertThat(cache.size(), is(1));
+        assertThat(count(cache.cache(predicate("a"), countingFilter).getDocIdSet(segment(), null)), is(2));
+        assertThat(countingFilter.calls, is(2));
+        verify(breaker).addEstimateBytesAndMaybeBreak(eq(cache.sizeInBytes()), anyString());
+
+        // other predicates use other entries
+        assertThat(count(cache.cache(predicate("b"), new TermFilter(new Term("x", "b"))).getDocIdSet(segment(), null)), is(1));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void testAcceptDocsAreAppliedOnCachedEntries() throws Exception {
+        FilterBitsetCache cache = cache("1mb");
+        Filter filter = new TermFilter(new Term("x", "a"));
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        assertThat(cache.size(), is(1));
+
+        Bits onlyFirstDoc = new Bits() {
+            @Override
+            public boolean get(int index) {
+                return index == 0;
+            }
+
+            @Override
+            public int length() {
+                return 3;
+            }
+        };
+        assertThat(count(cache.cache(predicate("a"), filter).getDocIdSet(segment(), onlyFirstDoc)), is(1));
+    }
+
+    @Test
+    public void testEntriesAreRemovedIfSegmentIsClosed() throws Exception {
+        FilterBitsetCache cache = cache("1mb");
+        Filter filter = new TermFilter(new Term("x", "a"));
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        long size = cache.sizeInBytes();
+        assertThat(size, greaterThan(0L));
+
+        // merging away the segment closes its core once no reader uses it anymore
+        Document document = new Document();
+        document.add(new StringField("x", "c", Field.Store.NO));
+        writer.addDocument(document);
+        writer.forceMerge(1);
+        writer.commit();
+        reader.close();
+        reader = DirectoryReader.open(directory);
+
+        assertThat(cache.size(), is(0));
+        assertThat(cache.sizeInBytes(), is(0L));
+        verify(breaker).addWithoutBreaking(-size);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        FilterBitsetCache cache = cache("1kb");
+        Filter filter = new TermFilter(new Term("x", "a"));
+        for (int i = 0; i < 20; i++) {
+            Symbol predicate = predicate("value" + i);
+            cache.cache(predicate, filter).getDocIdSet(segment(), null);
+            cache.cache(predicate, filter).getDocIdSet(segment(), null);
+            assertThat(cache.sizeInBytes(), lessThanOrEqualTo(1024L));
+        }
+        assertThat(cache.size(), greaterThan(0));
+        assertThat(cache.size(), lessThan(20));
+        verify(breaker, atLeastOnce()).addWithoutBreaking(anyLong());
+    }
+
+    @Test
+    public void testAdmissionCountsQueriesNotSegments() throws Exception {
+        // a second segment
+        Document document = new Document();
+        document.add(new StringField("x", "a", Field.Store.NO));
+        writer.addDocument(document);
+        writer.commit();
+        reader.close();
+        reader = DirectoryReader.open(directory);
+        assertThat(reader.leaves().size(), is(2));
+
+        FilterBitsetCache cache = cache("1mb");
+        Filter filter = new TermFilter(new Term("x", "a"));
+        Filter firstQuery = cache.cache(predicate("a"), filter);
+        for (AtomicReaderContext segment : reader.leaves()) {
+            firstQuery.getDocIdSet(segment, null);
+        }
+        assertThat(cache.size(), is(0));
+
+        Filter secondQuery = cache.cache(predicate("a"), filter);
+        for (AtomicReaderContext segment : reader.leaves()) {
+            secondQuery.getDocIdSet(segment, null);
+        }
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void testBreakerHoldsOnlyBytesOfCachedEntries() throws Exception {
+        FilterBitsetCache cache = cache("1mb");
+        Filter filter = new TermFilter(new Term("x", "a"));
+        verifyZeroInteractions(breaker);
+
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        verify(breaker).addEstimateBytesAndMaybeBreak(eq(cache.sizeInBytes()), anyString());
+        assertThat(cache.sizeInBytes(), lessThan(1024L));
+    }
+
+    @Test
+    public void testEntriesAreEvictedIfBreakerIsUnderPressure() throws Exception {
+        FilterBitsetCache cache = cache("1mb");
+        Filter filter = new TermFilter(new Term("x", "a"));
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        long size = cache.sizeInBytes();
+        assertThat(cache.size(), is(1));
+
+        when(breaker.getLimit()).thenReturn(1000L);
+        when(breaker.getUsed()).thenReturn(800L);
+        cache.cache(predicate("a"), filter).getDocIdSet(segment(), null);
+        assertThat(cache.size(), is(1));
+
+        // queries use more than 90% of the limit, the cache releases its entries
+        when(breaker.getUsed()).thenReturn(950L);
+        cache.cache(predicate("b"), new TermFilter(new Term("x", "b"))).getDocIdSet(segment(), null);
+        assertThat(cache.size(), is(0));
+        verify(breaker).addWithoutBreaking(-size);
+    }
+
+    private static class CountingFilter extends Filter {
+
+        private final Filter filter;
+        private int calls = 0;
+
+        CountingFilter(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+            calls++;
+            return filter.getDocIdSet(context, acceptDocs);
+        }
+    }
+}
@@ -42,8 +42,10 @@ import org.elasticsearch.common.inject.ModulesBuilder;
 import org.elasticsearch.common.lucene.search.MatchNoDocsQuery;
 import org.elasticsearch.common.lucene.search.RegexpFilter;
 import org.elasticsearch.common.lucene.search.XConstantScoreQuery;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.filter.FilterCache;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.internal.SearchContext;
 import org.junit.Before;
 import org.junit.Test;
@@ -69,7 +71,10 @@ public class LuceneQueryBuilderTest extends CrateUnitTest {
     public void prepare() throws Exception {
         Functions functions = new ModulesBuilder()
                 .add(new OperatorModule()).createInjector().getInstance(Functions.class);
-        builder = new LuceneQueryBuilder(functions);
+        FilterBitsetCache filterBitsetCache = new FilterBitsetCache(
+                ImmutableSettings.builder().put(FilterBitsetCache.SIZE_SETTING, "0b").build(),
+                mock(CircuitBreakerService.class));
+        builder = new LuceneQueryBuilder(functions, filterBitsetCache);
         searchContext = mock(SearchContext.class, Answers.RETURNS_MOCKS.get());
         indexCache = mock(IndexCache.class, Answers.RETURNS_MOCKS.get());
         FilterCache filterCache = mock(FilterCache.class);
@@ -0,0 +1,90 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.metadata.TableIdent;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class TableStatsMetaDataTest extends CrateUnitTest {
+
+    private static TableStatsMetaData metaData() {
+        ColumnStats nameStats = new ColumnStats(0.25, 120L, null, null, new double[0]);
+        ColumnStats ageStats = new ColumnStats(0.0, 80L, 1.0, 99.0, new double[] { 1.0, 20.0, 45.0, 70.0, 99.0 });
+        TableStats users = new TableStats(1000L, 1445000000000L,
+                ImmutableMap.<String, Long>of(),
+                ImmutableMap.of("name", nameStats, "age", ageStats));
+        TableStats parted = new TableStats(30L, 1445000000001L,
+                ImmutableMap.of("04130", 10L, "04132", 20L),
+                ImmutableMap.<String, ColumnStats>of());
+        return new TableStatsMetaData(ImmutableMap.of("doc.users", users, "custom.parted", parted));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        TableStatsMetaData metaData = metaData();
+        BytesStreamOutput out = new BytesStreamOutput();
+        TableStatsMetaData.FACTORY.writeTo(metaData, out);
+
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        TableStatsMetaData streamed = TableStatsMetaData.FACTORY.readFrom(in);
+
+        assertThat(streamed, is(metaData));
+        ColumnStats ageStats = streamed.get(new TableIdent(null, "users")).columnStats("age");
+        assertThat(ageStats.histogram().length, is(5));
+        assertThat(ageStats.max(), is(99.0));
+    }
+
+    @Test
+    public void testXContent() throws Exception {
+        TableStatsMetaData metaData = metaData();
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        TableStatsMetaData.FACTORY.toXContent(metaData, builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+
+        BytesReference bytes = builder.bytes();
+        XContentParser parser = XContentFactory.xContent(bytes).createParser(bytes);
+        parser.nextToken();
+        TableStatsMetaData parsed = TableStatsMetaData.FACTORY.fromXContent(parser);
+
+        assertThat(parsed, is(metaData));
+        assertThat(parsed.get(new TableIdent("custom", "parted")).partitionNumDocs().get("04132"), is(20L));
+        assertThat(parsed.get(new TableIdent(null, "users")).columnStats("name").min(), nullValue());
+    }
+
+    @Test
+    public void testEqualsSelectivity() throws Exception {
+        ColumnStats stats = new ColumnStats(0.5, 10L, null, null, new double[0]);
+        assertThat(stats.equalsSelectivity(), closeTo(0.05, 0.0001));
+    }
+}
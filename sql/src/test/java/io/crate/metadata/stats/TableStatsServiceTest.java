@@ -0,0 +1,85 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.planner.RowGranularity;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TableStatsServiceTest extends CrateUnitTest {
+
+    private static final TableIdent TABLE_IDENT = new TableIdent(null, "t");
+
+    private static final List<ReferenceInfo> COLUMNS = ImmutableList.of(
+            new ReferenceInfo(new ReferenceIdent(TABLE_IDENT, "id"), RowGranularity.DOC, DataTypes.LONG),
+            new ReferenceInfo(new ReferenceIdent(TABLE_IDENT, "name"), RowGranularity.DOC, DataTypes.STRING)
+    );
+
+    @Test
+    public void testColumnStatsFromSample() throws Exception {
+        Object[] row = new Object[] {
+                1000L,
+                1000L, 990L, 1L, 100_000L, new Object[] { 1.0, 10_000.0, 50_000.0, 100_000.0 },
+                800L, 12L
+        };
+        Map<String, ColumnStats> stats = TableStatsService.columnStats(COLUMNS, row, 100_000L);
+
+        ColumnStats id = stats.get("id");
+        // nearly unique in the sample, so the number of distinct values is scaled up
+        assertThat(id.approxDistinct(), is(99_000L));
+        assertThat(id.nullFraction(), is(0.0));
+        assertThat(id.min(), is(1.0));
+        assertThat(id.max(), is(100_000.0));
+        assertThat(id.histogram().length, is(4));
+
+        ColumnStats name = stats.get("name");
+        assertThat(name.approxDistinct(), is(12L));
+        assertThat(name.nullFraction(), closeTo(0.2, 0.0001));
+        assertThat(name.min(), nullValue());
+        assertThat(name.histogram().length, is(0));
+    }
+
+    @Test
+    public void testSampleStatement() throws Exception {
+        DocTableInfo tableInfo = mock(DocTableInfo.class);
+        when(tableInfo.ident()).thenReturn(TABLE_IDENT);
+        assertThat(TableStatsService.sampleStatement(tableInfo, COLUMNS), is(
+                "select count(*), count(\"id\"), approx_count_distinct(\"id\"), min(\"id\"), max(\"id\"), " +
+                "percentile(\"id\", [0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0]), " +
+                "count(\"name\"), approx_count_distinct(\"name\") " +
+                "from \"doc\".\"t\" where random() < ?"));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.analyze.WhereClause;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.GtOperator;
+import io.crate.operation.operator.LtOperator;
+import io.crate.operation.operator.OrOperator;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.createFunction;
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.*;
+
+public class ZoneMapPrunerTest extends CrateUnitTest {
+
+    private static ZoneMap zoneMap(double min, double max) {
+        return new ZoneMap(ImmutableMap.of("x", new double[] { min, max }));
+    }
+
+    private static IndexMetaData indexMetaData(String name, IndexZoneMaps zoneMaps) {
+        return IndexMetaData.builder(name)
+                .settings(ImmutableSettings.builder()
+                        .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 2)
+                        .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+                .putCustom(IndexZoneMaps.TYPE, zoneMaps)
+                .build();
+    }
+
+    private static ClusterState clusterState() {
+        // t1: shard 0 covers 1..10, shard 1 covers 20..30
+        // t2: only shard 0 is known, so the whole index can't be skipped
+        IndexZoneMaps t1 = new IndexZoneMaps(ImmutableMap.of(0, zoneMap(1.0, 10.0), 1, zoneMap(20.0, 30.0)));
+        IndexZoneMaps t2 = new IndexZoneMaps(ImmutableMap.of(0, zoneMap(100.0, 200.0)));
+        return ClusterState.builder(ClusterName.DEFAULT)
+                .metaData(MetaData.builder()
+                        .put(indexMetaData("t1", t1), false)
+                        .put(indexMetaData("t2", t2), false))
+                .build();
+    }
+
+    private static WhereClause where(String operator, Symbol left, Symbol right) {
+        return new WhereClause(createFunction(operator, DataTypes.BOOLEAN, left, right));
+    }
+
+    @Test
+    public void testNoPrunerWithoutConstraints() throws Exception {
+        assertThat(ZoneMapPruner.create(clusterState(), WhereClause.MATCH_ALL, false), nullValue());
+        WhereClause or = where(OrOperator.NAME,
+                createFunction(EqOperator.NAME, DataTypes.BOOLEAN, createReference("x", DataTypes.LONG), Literal.newLiteral(5L)),
+                createFunction(EqOperator.NAME, DataTypes.BOOLEAN, createReference("x", DataTypes.LONG), Literal.newLiteral(25L)));
+        assertThat(ZoneMapPruner.create(clusterState(), or, false), nullValue());
+    }
+
+    @Test
+    public void testSkipShardsOutsideOfRange() throws Exception {
+        ZoneMapPruner pruner = ZoneMapPruner.create(clusterState(),
+                where(EqOperator.NAME, createReference("x", DataTypes.LONG), Literal.newLiteral(25L)), false);
+        assertThat(pruner.skip(new ShardId("t1", 0)), is(true));
+        assertThat(pruner.skip(new ShardId("t1", 1)), is(false));
+        assertThat(pruner.skip(new ShardId("t2", 0)), is(true));
+        assertThat(pruner.skip(new ShardId("t2", 1)), is(false));
+        assertThat(pruner.skippedShards(), is(2));
+        assertThat(pruner.skippedPartitions(), is(0));
+    }
+
+    @Test
+    public void testBoundsAreInclusive() throws Exception {
+        ZoneMapPruner pruner = ZoneMapPruner.create(clusterState(),
+                where(LtOperator.NAME, createReference("x", DataTypes.LONG), Literal.newLiteral(20L)), false);
+        assertThat(pruner.skip(new ShardId("t1", 0)), is(false));
+        assertThat(pruner.skip(new ShardId("t1", 1)), is(false));
+    }
+
+    @Test
+    public void testLiteralOnTheLeftSideIsFlipped() throws Exception {
+        // 50 > x
+        ZoneMapPruner pruner = ZoneMapPruner.create(clusterState(),
+                where(GtOperator.NAME, Literal.newLiteral(50L), createReference("x", DataTypes.LONG)), false);
+        assertThat(pruner.skip(new ShardId("t1", 0)), is(false));
+        assertThat(pruner.skip(new ShardId("t2", 0)), is(true));
+    }
+
+    @Test
+    public void testSkipWholePartition() throws Exception {
+        WhereClause whereClause = where(AndOperator.NAME,
+                createFunction(GtOperator.NAME, DataTypes.BOOLEAN, createReference("x", DataTypes.LONG), Literal.newLiteral(40L)),
+                createFunction(EqOperator.NAME, DataTypes.BOOLEAN, createReference("y", DataTypes.STRING), Literal.newLiteral("foo")));
+        ZoneMapPruner pruner = ZoneMapPruner.create(clusterState(), whereClause, true);
+        assertThat(pruner.skip(new ShardId("t1", 0)), is(true));
+        assertThat(pruner.skip(new ShardId("t1", 1)), is(true));
+        assertThat(pruner.skippedPartitions(), is(1));
+        assertThat(pruner.skippedShards(), is(0));
+    }
+
+    @Test
+    public void testRoundingIsConservative() throws Exception {
+        long value = Long.MAX_VALUE - 1;
+        assertThat(ZoneMap.lowerBound(value), lessThanOrEqualTo((double) value));
+        assertThat((long) ZoneMap.lowerBound(value), lessThanOrEqualTo(value));
+        assertThat(ZoneMap.upperBound(value), greaterThanOrEqualTo((double) value));
+        assertThat(ZoneMap.upperBound(3L), is(3.0));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        IndexZoneMaps zoneMaps = new IndexZoneMaps(ImmutableMap.of(0, zoneMap(1.0, 10.0), 3, zoneMap(-2.5, 7.0)));
+        BytesStreamOutput out = new BytesStreamOutput();
+        IndexZoneMaps.FACTORY.writeTo(zoneMaps, out);
+        IndexZoneMaps streamed = IndexZoneMaps.FACTORY.readFrom(new BytesStreamInput(out.bytes()));
+
+        assertThat(streamed, is(zoneMaps));
+        assertThat(streamed.complete(4), nullValue());
+        assertThat(streamed.withoutShard(3).shard(3), nullValue());
+    }
+}
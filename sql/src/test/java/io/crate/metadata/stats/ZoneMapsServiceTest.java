@@ -0,0 +1,228 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.stats;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.executor.transport.UpdateZoneMapResponse;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.Matchers.*;
+
+public class ZoneMapsServiceTest extends CrateUnitTest {
+
+    private static final ZoneMap ZONE_MAP = new ZoneMap(ImmutableMap.of("x", new double[] { 1.0, 10.0 }));
+
+    private TestShardState shardState;
+    private ExecutorService executor;
+
+    /**
+     * records the updates, which are only answered by the test
+     */
+    private static class TestShardState extends ZoneMapsService.ShardState {
+
+        private final List<ZoneMap> updates = new ArrayList<>();
+        private final List<ActionListener<UpdateZoneMapResponse>> listeners = new ArrayList<>();
+        private boolean inClusterState = false;
+
+        TestShardState() {
+            super(new ShardId("t1", 0), Loggers.getLogger(ZoneMapsServiceTest.class));
+        }
+
+        @Override
+        boolean publishedInClusterState() {
+            return inClusterState;
+        }
+
+        @Override
+        synchronized void update(@Nullable ZoneMap zoneMap, ActionListener<UpdateZoneMapResponse> listener) {
+            updates.add(zoneMap);
+            listeners.add(listener);
+            notifyAll();
+        }
+
+        synchronized List<ZoneMap> updates() {
+            return new ArrayList<>(updates);
+        }
+
+        /**
+         * waits until the update has been sent, the writes run on another thread
+         */
+        synchronized ActionListener<UpdateZoneMapResponse> listener(int update) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (listeners.size() <= update) {
+                long remaining = deadline - System.currentTimeMillis();
+                assertThat("update " + update + " has not been sent", remaining, greaterThan(0L));
+                wait(remaining);
+            }
+            return listeners.get(update);
+        }
+
+        void respond(int update) throws InterruptedException {
+            listener(update).onResponse(new UpdateZoneMapResponse(true));
+        }
+
+        void fail(int update) throws InterruptedException {
+            listener(update).onFailure(new IllegalStateException("no master"));
+        }
+    }
+
+    @Before
+    public void prepare() throws Exception {
+        shardState = new TestShardState();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private Future<?> write() {
+        return executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                shardState.beforeWrite();
+            }
+        });
+    }
+
+    private void publish() throws Exception {
+        assertThat(shardState.startPublish(), is(true));
+        shardState.publish(ZONE_MAP);
+        shardState.respond(0);
+    }
+
+    @Test
+    public void testWrittenShardIsNotPublished() throws Exception {
+        shardState.beforeWrite();
+        assertThat(shardState.startPublish(), is(false));
+        // not written to for a whole interval
+        assertThat(shardState.startPublish(), is(true));
+    }
+
+    @Test
+    public void testWriteWaitsForTheRemovalOfThePublishedZoneMap() throws Exception {
+        publish();
+
+        Future<?> write1 = write();
+        Future<?> write2 = write();
+        shardState.listener(1);
+        assertThat(write1.isDone(), is(false));
+        assertThat(write2.isDone(), is(false));
+
+        shardState.respond(1);
+        write1.get(10, TimeUnit.SECONDS);
+        write2.get(10, TimeUnit.SECONDS);
+        // both writes waited for the same removal
+        assertThat(shardState.updates(), contains(ZONE_MAP, null));
+
+        // the zone map is gone, further writes don't wait
+        shardState.beforeWrite();
+        assertThat(shardState.updates(), contains(ZONE_MAP, null));
+    }
+
+    @Test
+    public void testWriteDuringPublishWaitsUntilTheZoneMapIsRemoved() throws Exception {
+        assertThat(shardState.startPublish(), is(true));
+        shardState.publish(ZONE_MAP);
+
+        Future<?> write = write();
+        shardState.respond(0);
+        shardState.listener(1);
+        assertThat(write.isDone(), is(false));
+        assertThat(shardState.updates(), contains(ZONE_MAP, null));
+
+        shardState.respond(1);
+        write.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testZoneMapIsNotPublishedIfWrittenWhileComputed() throws Exception {
+        assertThat(shardState.startPublish(), is(true));
+        Future<?> write = write();
+        while (!shardState.written()) {
+            Thread.sleep(1);
+        }
+        shardState.publish(ZONE_MAP);
+        shardState.respond(0);
+        write.get(10, TimeUnit.SECONDS);
+        assertThat(shardState.updates(), contains(nullValue()));
+    }
+
+    @Test
+    public void testFailedRemovalFailsTheWrite() throws Exception {
+        publish();
+
+        Future<?> write = write();
+        shardState.fail(1);
+        try {
+            write.get(10, TimeUnit.SECONDS);
+            fail("write must fail if the zone map couldn't be removed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ElasticsearchException.class));
+            assertThat(e.getCause().getMessage(),
+                    is("[t1][0] failed to remove the zone map before writing to the shard"));
+        }
+
+        // the next write tries again
+        write = write();
+        shardState.respond(2);
+        write.get(10, TimeUnit.SECONDS);
+        assertThat(shardState.updates(), contains(ZONE_MAP, null, null));
+    }
+
+    @Test
+    public void testUnacknowledgedRemovalFailsTheWrite() throws Exception {
+        publish();
+
+        Future<?> write = write();
+        shardState.listener(1).onResponse(new UpdateZoneMapResponse(false));
+        try {
+            write.get(10, TimeUnit.SECONDS);
+            fail("write must fail if the removal hasn't been applied by all nodes");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ElasticsearchException.class));
+        }
+    }
+
+    @Test
+    public void testWriteRemovesZoneMapPublishedBeforeRestart() throws Exception {
+        shardState.inClusterState = true;
+        Future<?> write = write();
+        shardState.respond(0);
+        write.get(10, TimeUnit.SECONDS);
+        assertThat(shardState.updates(), contains(nullValue()));
+    }
+}
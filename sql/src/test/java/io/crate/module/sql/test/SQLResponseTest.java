@@ -168,6 +168,41 @@ public class SQLResponseTest extends CrateUnitTest {
     }
 
 
+    @Test
+    public void testXContentCursor() throws Exception {
+        SQLResponse r = new SQLResponse();
+        r.cols(new String[]{"col1"});
+        r.rows(new Object[][]{new Object[]{1}});
+        r.rowCount(1L);
+        r.cursor("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b");
+        JSONAssert.assertEquals(
+                "{\"cols\":[\"col1\"],\"rows\":[[1]],\"rowcount\":1,\"duration\":-1," +
+                "\"cursor\":\"e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b\"}",
+                json(r), true);
+    }
+
+    @Test
+    public void testResponseWithCursorStreamable() throws Exception {
+        SQLResponse r1 = new SQLResponse();
+        r1.cols(new String[]{"a"});
+        r1.colTypes(new DataType[0]);
+        r1.rows(new Object[][]{new String[]{"va"}});
+        r1.rowCount(1L);
+        r1.cursor("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b");
+
+        BytesStreamOutput o = new BytesStreamOutput();
+        r1.writeTo(o);
+
+        SQLResponse r2 = new SQLResponse();
+        r2.readFrom(new BytesStreamInput(o.bytes()));
+
+        assertArrayEquals(r1.cols(), r2.cols());
+        assertArrayEquals(r1.rows(), r2.rows());
+        assertEquals(r1.rowCount(), r2.rowCount());
+        assertThat(r2.cursor(), is("e5b3ee8b-4c6c-4f52-b5a6-7d2d1e1b5a6b"));
+    }
+
+
 
 
     /**
@@ -0,0 +1,120 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.core.collections.Row1;
+import io.crate.executor.CursorResult;
+import io.crate.executor.TaskResult;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CursorRowReceiverTest extends CrateUnitTest {
+
+    private static long usedBytes(CircuitBreaker breaker) {
+        ArgumentCaptor<Long> added = ArgumentCaptor.forClass(Long.class);
+        verify(breaker, atLeast(0)).addEstimateBytesAndMaybeBreak(added.capture(), anyString());
+        ArgumentCaptor<Long> released = ArgumentCaptor.forClass(Long.class);
+        verify(breaker, atLeast(0)).addWithoutBreaking(released.capture());
+        long used = 0L;
+        for (Long bytes : added.getAllValues()) {
+            used += bytes;
+        }
+        for (Long bytes : released.getAllValues()) {
+            used += bytes;
+        }
+        return used;
+    }
+
+    @Test
+    public void testRowsOfUpstreamWhichCantBePausedAreAccounted() throws Exception {
+        CircuitBreaker breaker = mock(CircuitBreaker.class);
+        CursorRowReceiver receiver = new CursorRowReceiver(
+                "c1", 2, breaker, Collections.<DataType>singletonList(DataTypes.INTEGER));
+        RowUpstream upstream = mock(RowUpstream.class);
+        doThrow(new UnsupportedOperationException()).when(upstream).pause();
+        receiver.setUpstream(upstream);
+
+        SettableFuture<TaskResult> firstBatch = SettableFuture.create();
+        receiver.fetch(firstBatch);
+        for (int i = 0; i < 5; i++) {
+            assertThat(receiver.setNextRow(new Row1(i)), is(true));
+        }
+        receiver.finish();
+        assertThat(firstBatch.get().rows().size(), is(2));
+
+        // the remaining rows are buffered and still accounted
+        long rowBytes = usedBytes(breaker) / 3;
+        assertThat(rowBytes, greaterThan(0L));
+
+        SettableFuture<TaskResult> secondBatch = SettableFuture.create();
+        receiver.fetch(secondBatch);
+        assertThat(secondBatch.get().rows().size(), is(2));
+        assertThat(((CursorResult) secondBatch.get()).cursor(), is("c1"));
+        assertThat(usedBytes(breaker), is(rowBytes));
+
+        receiver.close();
+        assertThat(usedBytes(breaker), is(0L));
+    }
+
+    @Test
+    public void testCursorFailsIfBufferedRowsExceedBreakerLimit() throws Exception {
+        CircuitBreaker breaker = mock(CircuitBreaker.class);
+        when(breaker.addEstimateBytesAndMaybeBreak(anyLong(), anyString()))
+                .thenReturn(0L)
+                .thenThrow(new CircuitBreakingException("too much data"));
+        CursorRowReceiver receiver = new CursorRowReceiver(
+                "c1", 10, breaker, Collections.<DataType>singletonList(DataTypes.INTEGER));
+        receiver.setUpstream(mock(RowUpstream.class));
+
+        SettableFuture<TaskResult> batch = SettableFuture.create();
+        receiver.fetch(batch);
+        assertThat(receiver.setNextRow(new Row1(1)), is(true));
+        assertThat(receiver.setNextRow(new Row1(2)), is(false));
+        try {
+            batch.get();
+            fail("expected the fetch to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(CircuitBreakingException.class));
+        }
+        assertThat(receiver.isDone(), is(true));
+
+        receiver.close();
+        // only the first row has been added to the breaker
+        ArgumentCaptor<Long> added = ArgumentCaptor.forClass(Long.class);
+        verify(breaker, times(2)).addEstimateBytesAndMaybeBreak(added.capture(), anyString());
+        verify(breaker).addWithoutBreaking(-added.getAllValues().get(0));
+    }
+}
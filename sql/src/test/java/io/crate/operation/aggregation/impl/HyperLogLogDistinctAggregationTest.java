@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.FunctionIdent;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.AggregationTest;
+import io.crate.planner.symbol.Literal;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class HyperLogLogDistinctAggregationTest extends AggregationTest {
+
+    private Object[][] executeAggregation(DataType dataType, Object[][] data) throws Exception {
+        return executeAggregation(HyperLogLogDistinctAggregation.NAME, dataType, data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AggregationFunction<Object, Long> getImpl(DataType... types) {
+        return (AggregationFunction<Object, Long>) functions.get(
+                new FunctionIdent(HyperLogLogDistinctAggregation.NAME, ImmutableList.copyOf(types)));
+    }
+
+    @Test
+    public void testReturnType() throws Exception {
+        assertEquals(DataTypes.LONG, getImpl(DataTypes.STRING).info().returnType());
+        assertEquals(DataTypes.LONG, getImpl(DataTypes.INTEGER, DataTypes.LONG).info().returnType());
+    }
+
+    @Test
+    public void testString() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.STRING,
+                new Object[][]{{new BytesRef("Youri")}, {new BytesRef("Ruben")}, {new BytesRef("Ruben")}, {null}});
+        assertThat((Long) result[0][0], is(2L));
+    }
+
+    @Test
+    public void testDouble() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.DOUBLE, new Object[][]{{0.7d}, {0.3d}, {0.3d}});
+        assertThat((Long) result[0][0], is(2L));
+    }
+
+    @Test
+    public void testBoolean() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.BOOLEAN, new Object[][]{{true}, {false}, {false}});
+        assertThat((Long) result[0][0], is(2L));
+    }
+
+    @Test
+    public void testNoValues() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.LONG, new Object[][]{{null}});
+        assertThat((Long) result[0][0], is(0L));
+    }
+
+    @Test
+    public void testHighCardinalityWithPrecision() throws Exception {
+        AggregationFunction<Object, Long> impl = getImpl(DataTypes.LONG, DataTypes.LONG);
+        Object state = impl.newState(ramAccountingContext);
+        Input precision = Literal.newLiteral(16L);
+        for (long i = 0; i < 100_000; i++) {
+            state = impl.iterate(ramAccountingContext, state, Literal.newLiteral(i), precision);
+        }
+        long result = impl.terminatePartial(ramAccountingContext, state);
+        assertThat(result, allOf(greaterThan(98_000L), lessThan(102_000L)));
+    }
+
+    @Test
+    public void testInvalidPrecision() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("precision must be between 4 and 18, got 30");
+        AggregationFunction<Object, Long> impl = getImpl(DataTypes.LONG, DataTypes.LONG);
+        impl.iterate(ramAccountingContext, impl.newState(ramAccountingContext),
+                Literal.newLiteral(1L), Literal.newLiteral(30L));
+    }
+
+    @Test
+    public void testReduceSparseAndDense() throws Exception {
+        AggregationFunction<Object, Long> impl = getImpl(DataTypes.LONG);
+        Object sparse = impl.newState(ramAccountingContext);
+        for (long i = 0; i < 10; i++) {
+            sparse = impl.iterate(ramAccountingContext, sparse, Literal.newLiteral(i));
+        }
+        Object dense = impl.newState(ramAccountingContext);
+        for (long i = 5; i < 50_000; i++) {
+            dense = impl.iterate(ramAccountingContext, dense, Literal.newLiteral(i));
+        }
+        Object reduced = impl.reduce(ramAccountingContext, sparse, dense);
+        long result = impl.terminatePartial(ramAccountingContext, reduced);
+        assertThat(result, allOf(greaterThan(49_000L), lessThan(51_000L)));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        AggregationFunction<Object, Long> impl = getImpl(DataTypes.STRING);
+        Object state = impl.newState(ramAccountingContext);
+        for (int i = 0; i < 100; i++) {
+            state = impl.iterate(ramAccountingContext, state, Literal.newLiteral("value" + i));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        impl.partialType().streamer().writeValueTo(out, state);
+        Object streamed = impl.partialType().streamer().readValueFrom(new BytesStreamInput(out.bytes()));
+
+        assertThat(impl.terminatePartial(ramAccountingContext, streamed),
+                is(impl.terminatePartial(ramAccountingContext, state)));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.FunctionIdent;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.AggregationTest;
+import io.crate.planner.symbol.Literal;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PercentileAggregationTest extends AggregationTest {
+
+    private static final ArrayType DOUBLE_ARRAY = new ArrayType(DataTypes.DOUBLE);
+
+    @SuppressWarnings("unchecked")
+    private AggregationFunction<Object, Object> getImpl(DataType valueType, DataType fractionType) {
+        return (AggregationFunction<Object, Object>) functions.get(
+                new FunctionIdent(PercentileAggregation.NAME, ImmutableList.of(valueType, fractionType)));
+    }
+
+    private Object aggregate(AggregationFunction<Object, Object> impl, Input fractions, long from, long to) {
+        Object state = impl.newState(ramAccountingContext);
+        for (long i = from; i < to; i++) {
+            state = impl.iterate(ramAccountingContext, state, Literal.newLiteral(i), fractions);
+        }
+        return state;
+    }
+
+    @Test
+    public void testReturnType() throws Exception {
+        assertEquals(DataTypes.DOUBLE, getImpl(DataTypes.LONG, DataTypes.DOUBLE).info().returnType());
+        assertEquals(DOUBLE_ARRAY, getImpl(DataTypes.LONG, DOUBLE_ARRAY).info().returnType());
+    }
+
+    @Test
+    public void testSingleFraction() throws Exception {
+        AggregationFunction<Object, Object> impl = getImpl(DataTypes.LONG, DataTypes.DOUBLE);
+        Object state = aggregate(impl, Literal.newLiteral(0.5), 0, 10_001);
+        assertThat((Double) impl.terminatePartial(ramAccountingContext, state), closeTo(5000.0, 50.0));
+    }
+
+    @Test
+    public void testMultipleFractions() throws Exception {
+        AggregationFunction<Object, Object> impl = getImpl(DataTypes.LONG, DOUBLE_ARRAY);
+        Input fractions = Literal.newLiteral(DOUBLE_ARRAY, new Object[]{0.5, 0.99});
+        Object state = aggregate(impl, fractions, 0, 10_001);
+        Object[] result = (Object[]) impl.terminatePartial(ramAccountingContext, state);
+        assertThat((Double) result[0], closeTo(5000.0, 50.0));
+        assertThat((Double) result[1], closeTo(9900.0, 50.0));
+    }
+
+    @Test
+    public void testNoValues() throws Exception {
+        AggregationFunction<Object, Object> impl = getImpl(DataTypes.LONG, DataTypes.DOUBLE);
+        Object state = impl.newState(ramAccountingContext);
+        assertThat(impl.terminatePartial(ramAccountingContext, state), is(nullValue()));
+    }
+
+    @Test
+    public void testInvalidFraction() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("fractions of percentile must be between 0 and 1, got 1.5");
+        AggregationFunction<Object, Object> impl = getImpl(DataTypes.LONG, DataTypes.DOUBLE);
+        aggregate(impl, Literal.newLiteral(1.5), 0, 1);
+    }
+
+    @Test
+    public void testReduceStreamedStates() throws Exception {
+        AggregationFunction<Object, Object> impl = getImpl(DataTypes.LONG, DataTypes.DOUBLE);
+        Input fraction = Literal.newLiteral(0.5);
+        Object state1 = aggregate(impl, fraction, 0, 5000);
+        Object state2 = aggregate(impl, fraction, 5000, 10_001);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        impl.partialType().streamer().writeValueTo(out, state2);
+        Object streamed = impl.partialType().streamer().readValueFrom(new BytesStreamInput(out.bytes()));
+
+        Object reduced = impl.reduce(ramAccountingContext, state1, streamed);
+        assertThat((Double) impl.terminatePartial(ramAccountingContext, reduced), closeTo(5000.0, 50.0));
+    }
+}
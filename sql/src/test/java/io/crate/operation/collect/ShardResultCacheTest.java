@@ -0,0 +1,246 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.WhereClause;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.Row1;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Routing;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.planner.node.dql.CollectPhase;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ShardResultCacheTest extends CrateUnitTest {
+
+    private final ShardId shardId = new ShardId("t", 0);
+
+    private CircuitBreaker breaker;
+    private CircuitBreakerService breakerService;
+    private RAMDirectory directory;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        breaker = mock(CircuitBreaker.class);
+        breakerService = mock(CircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER)).thenReturn(breaker);
+        directory = new RAMDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(Version.LUCENE_4_10_4, new KeywordAnalyzer()));
+        writer.addDocument(new Document());
+        writer.commit();
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        directory.close();
+    }
+
+    private ShardResultCache cache(String size) {
+        return new ShardResultCache(
+                ImmutableSettings.builder().put(ShardResultCache.SIZE_SETTING, size).build(), breakerService);
+    }
+
+    private CollectPhase countPhase(Symbol... toCollect) {
+        Aggregation count = Aggregation.partialAggregation(
+                CountAggregation.COUNT_STAR_FUNCTION, DataTypes.LONG, ImmutableList.<Symbol>of());
+        AggregationProjection projection = new AggregationProjection(Arrays.asList(count));
+        projection.setRequiredGranularity(RowGranularity.SHARD);
+        return collectPhase(Arrays.asList(toCollect), ImmutableList.<Projection>of(projection));
+    }
+
+    private CollectPhase collectPhase(List<Symbol> toCollect, List<Projection> projections) {
+        return new CollectPhase(UUID.randomUUID(), 1, "collect", new Routing(), RowGranularity.DOC,
+                toCollect, projections, WhereClause.MATCH_ALL, DistributionInfo.DEFAULT_BROADCAST);
+    }
+
+    private void emit(RowReceiver receiver, long... values) {
+        for (long value : values) {
+            receiver.setNextRow(new Row1(value));
+        }
+        receiver.finish();
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        ShardResultCache cache = new ShardResultCache(ImmutableSettings.EMPTY, breakerService);
+        assertThat(cache.enabled(), is(false));
+        assertThat(cache.key(shardId, reader, countPhase()), nullValue());
+    }
+
+    @Test
+    public void testNoKeyWithoutShardAggregation() throws Exception {
+        ShardResultCache cache = cache("1mb");
+        CollectPhase collectPhase = collectPhase(
+                ImmutableList.<Symbol>of(Literal.newLiteral(1L)), ImmutableList.<Projection>of());
+        assertThat(cache.key(shardId, reader, collectPhase), nullValue());
+    }
+
+    @Test
+    public void testNoKeyWithNonDeterministicFunction() throws Exception {
+        ShardResultCache cache = cache("1mb");
+        FunctionInfo randomInfo = new FunctionInfo(
+                new FunctionIdent("random", ImmutableList.<DataType>of()), DataTypes.DOUBLE,
+                FunctionInfo.Type.SCALAR, false);
+        assertThat(cache.key(shardId, reader, countPhase(new Function(randomInfo, ImmutableList.<Symbol>of()))),
+                nullValue());
+    }
+
+    @Test
+    public void testRecordedResultIsReturned() throws Exception {
+        ShardResultCache cache = cache("1mb");
+        ShardResultCache.Key key = cache.key(shardId, reader, countPhase());
+        assertThat(key, notNullValue());
+        assertThat(cache.key(shardId, reader, countPhase()), is(key));
+        assertThat(cache.get(key), nullValue());
+
+        CollectingRowReceiver downstream = new CollectingRowReceiver();
+        emit(cache.recordingReceiver(key, countPhase(), downstream), 42L);
+        assertThat(downstream.rows.size(), is(1));
+
+        Bucket bucket = cache.get(key);
+        assertThat(bucket, notNullValue());
+        assertThat(bucket.size(), is(1));
+        for (Row row : bucket) {
+            assertThat((Long) row.get(0), is(42L));
+        }
+        ShardResultCache.ShardStats stats = cache.stats(shardId);
+        assertThat(stats.hits(), is(1L));
+        assertThat(stats.misses(), is(1L));
+        assertThat(stats.hitRatio(), is(0.5d));
+        assertThat(stats.sizeInBytes(), is(cache.sizeInBytes()));
+        verify(breaker).addEstimateBytesAndMaybeBreak(eq(cache.sizeInBytes()), anyString());
+    }
+
+    @Test
+    public void testIncompleteResultIsNotCached() throws Exception {
+        ShardResultCache cache = cache("1mb");
+        ShardResultCache.Key key = cache.key(shardId, reader, countPhase());
+        emit(cache.recordingReceiver(key, countPhase(), CollectingRowReceiver.withLimit(1)), 1L, 2L);
+        assertThat(cache.get(key), nullValue());
+        assertThat(cache.sizeInBytes(), is(0L));
+    }
+
+    @Test
+    public void testNewerReaderVersionReplacesEntries() throws Exception {
+        ShardResultCache cache = cache("1mb");
+        ShardResultCache.Key oldKey = cache.key(shardId, reader, countPhase());
+        emit(cache.recordingReceiver(oldKey, countPhase(), new CollectingRowReceiver()), 1L);
+        long oldSize = cache.sizeInBytes();
+
+        writer.addDocument(new Document());
+        writer.commit();
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        try {
+            ShardResultCache.Key newKey = cache.key(shardId, newReader, countPhase());
+            assertThat(newKey, not(oldKey));
+            emit(cache.recordingReceiver(newKey, countPhase(), new CollectingRowReceiver()), 2L);
+
+            assertThat(cache.get(oldKey), nullValue());
+            assertThat(cache.get(newKey), notNullValue());
+            verify(breaker).addWithoutBreaking(-oldSize);
+
+            // a result computed from the outdated reader isn't stored anymore
+            emit(cache.recordingReceiver(oldKey, countPhase(), new CollectingRowReceiver()), 1L);
+            assertThat(cache.get(oldKey), nullValue());
+        } finally {
+            newReader.close();
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        ShardResultCache cache = cache("4kb");
+        ShardResultCache.Key firstKey = null;
+        for (int i = 0; i < 50; i++) {
+            CollectPhase collectPhase = countPhase(Literal.newLiteral((long) i));
+            ShardResultCache.Key key = cache.key(shardId, reader, collectPhase);
+            if (firstKey == null) {
+                firstKey = key;
+            }
+            emit(cache.recordingReceiver(key, collectPhase, new CollectingRowReceiver()), i);
+            assertThat(cache.sizeInBytes(), lessThanOrEqualTo(4096L));
+        }
+        assertThat(cache.sizeInBytes(), greaterThan(0L));
+        assertThat(cache.get(firstKey), nullValue());
+        verify(breaker, atLeastOnce()).addWithoutBreaking(anyLong());
+    }
+
+    @Test
+    public void testClearReleasesBytes() throws Exception {
+        ShardResultCache cache = cache("1mb");
+        ShardResultCache.Key key = cache.key(shardId, reader, countPhase());
+        emit(cache.recordingReceiver(key, countPhase(), new CollectingRowReceiver()), 1L);
+        long size = cache.sizeInBytes();
+
+        cache.clear(shardId);
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(cache.stats(shardId).hits(), is(0L));
+        verify(breaker).addWithoutBreaking(-size);
+        assertThat(cache.get(key), nullValue());
+    }
+}
@@ -21,14 +21,18 @@
 
 package io.crate.operation.collect;
 
-import io.crate.core.collections.BlockingEvictingQueue;
+import com.google.common.collect.ImmutableSet;
 import io.crate.core.collections.NoopQueue;
+import io.crate.core.collections.RingBuffer;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
+import io.crate.operation.reference.sys.job.LatencyHistogram;
+import io.crate.operation.reference.sys.job.StatementClassifier;
 import io.crate.operation.reference.sys.operation.OperationContext;
 import io.crate.operation.reference.sys.operation.OperationContextLog;
 import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.node.settings.NodeSettingsService;
@@ -62,7 +66,7 @@ public class StatsTablesTest extends CrateUnitTest {
         assertThat(stats.lastJobsLogSize, is(CrateSettings.STATS_JOBS_LOG_SIZE.defaultValue()));
         assertThat(stats.lastOperationsLogSize, is(200));
 
-        assertThat(stats.jobsLog.get(), Matchers.instanceOf(BlockingEvictingQueue.class));
+        assertThat(stats.jobsLog.get(), Matchers.instanceOf(RingBuffer.class));
 
 
         stats.listener.onRefreshSettings(ImmutableSettings.builder()
@@ -100,4 +104,55 @@ public class StatsTablesTest extends CrateUnitTest {
 
         assertThat(stats.operationsLog.get().size(), is(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testJobLatenciesAreRecordedPerTypeAndTable() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(ImmutableSettings.EMPTY);
+        Settings settings = ImmutableSettings.builder()
+                .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        UUID jobId = UUID.randomUUID();
+        stats.jobStarted(jobId, "select * from t1");
+        stats.jobFinished(jobId, null,
+                new StatementClassifier.Classification("SELECT", ImmutableSet.of("doc.t1")));
+
+        // 1 histogram for all selects and 1 for selects on doc.t1, each reported for every window
+        int numRows = 0;
+        for (Object row : stats.jobsLatenciesGetter().getIterable()) {
+            LatencyHistogram.Snapshot snapshot = (LatencyHistogram.Snapshot) row;
+            assertThat(snapshot.statementType(), is("SELECT"));
+            assertThat(snapshot.count(), is(1L));
+            numRows++;
+        }
+        assertThat(numRows, is(2 * LatencyHistogram.WINDOW_MINUTES.length));
+
+        stats.listener.onRefreshSettings(ImmutableSettings.builder()
+                .put(CrateSettings.STATS_ENABLED.settingName(), false).build());
+        assertThat(stats.jobsLatencies.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testJobLatenciesAreBoundByJobsLogSize() throws Exception {
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(ImmutableSettings.EMPTY);
+        Settings settings = ImmutableSettings.builder()
+                .put(CrateSettings.STATS_ENABLED.settingName(), true)
+                .put(CrateSettings.STATS_JOBS_LOG_SIZE.settingName(), 2).build();
+        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+
+        for (int i = 0; i < 5; i++) {
+            UUID jobId = UUID.randomUUID();
+            stats.jobStarted(jobId, "select * from t" + i);
+            stats.jobFinished(jobId, null,
+                    new StatementClassifier.Classification("SELECT", ImmutableSet.of("doc.t" + i)));
+        }
+        assertThat(stats.jobsLatencies.size(), Matchers.lessThanOrEqualTo(2));
+        // the histogram of all selects is used by every job and therefore not evicted
+        assertThat(stats.jobsLatencies.containsKey(new Tuple<String, String>("SELECT", null)), is(true));
+
+        stats.listener.onRefreshSettings(ImmutableSettings.builder()
+                .put(CrateSettings.STATS_ENABLED.settingName(), true)
+                .put(CrateSettings.STATS_JOBS_LOG_SIZE.settingName(), 1).build());
+        assertThat(stats.jobsLatencies.size(), Matchers.lessThanOrEqualTo(1));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.jobs.KeepAliveListener;
+import io.crate.test.integration.CrateSingleNodeTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntField;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IndexMetadataAggregationCollectorTest extends CrateSingleNodeTest {
+
+    private static final String FIELD_NAME = "x";
+    private static final String INT_FIELD_NAME = "i";
+
+    private IndexFieldDataService ifd;
+    private IndexNumericFieldData fieldData;
+    private IndexNumericFieldData intFieldData;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        ifd = createIndex("test", ImmutableSettings.builder().put("index.fielddata.cache", "none").build()).fieldData();
+        fieldData = fieldData(FIELD_NAME, "long");
+        intFieldData = fieldData(INT_FIELD_NAME, "int");
+
+        writer = new IndexWriter(new RAMDirectory(),
+                new IndexWriterConfig(Lucene.VERSION, new KeywordAnalyzer())
+                        .setMergePolicy(new LogByteSizeMergePolicy()));
+    }
+
+    private IndexNumericFieldData fieldData(String name, String type) {
+        FieldMapper fieldMapper = mock(FieldMapper.class);
+        when(fieldMapper.names()).thenReturn(new FieldMapper.Names(name));
+        when(fieldMapper.fieldDataType()).thenReturn(new FieldDataType(type));
+        return (IndexNumericFieldData) ifd.getForField(fieldMapper);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        writer.close();
+        writer.getDirectory().close();
+        ifd.clear();
+    }
+
+    /**
+     * adds a segment with a document for each of the given values, null values are documents without the field.
+     * The id of each document is its value, values which fit into an int are also added to an int column.
+     */
+    private void addSegment(Long... values) throws Exception {
+        for (Long value : values) {
+            Document doc = new Document();
+            if (value != null) {
+                doc.add(new StringField("id", value.toString(), Field.Store.NO));
+                doc.add(new LongField(FIELD_NAME, value, Field.Store.NO));
+                if (value == value.intValue()) {
+                    doc.add(new IntField(INT_FIELD_NAME, value.intValue(), Field.Store.NO));
+                }
+            }
+            writer.addDocument(doc);
+        }
+        writer.commit();
+    }
+
+    private CollectingRowReceiver collect() throws Exception {
+        return collect(minMax(false), minMax(true));
+    }
+
+    private CollectingRowReceiver collect(IndexMetadataAggregationCollector.NumericMinMax min,
+                                          IndexMetadataAggregationCollector.NumericMinMax max) throws Exception {
+        reader = DirectoryReader.open(writer, true);
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        IndexMetadataAggregationCollector collector = new IndexMetadataAggregationCollector(
+                reader,
+                mock(KeepAliveListener.class),
+                rowReceiver,
+                ImmutableList.of(new IndexMetadataAggregationCollector.CountStar(), min, max));
+        collector.doCollect();
+        return rowReceiver;
+    }
+
+    private IndexMetadataAggregationCollector.NumericMinMax minMax(boolean max) {
+        return new IndexMetadataAggregationCollector.NumericMinMax(
+                FIELD_NAME, DataTypes.LONG, fieldData, max, true, false);
+    }
+
+    private IndexMetadataAggregationCollector.NumericMinMax intMinMax(boolean max) {
+        return new IndexMetadataAggregationCollector.NumericMinMax(
+                INT_FIELD_NAME, DataTypes.INTEGER, intFieldData, max, false, false);
+    }
+
+    @Test
+    public void testCountMinMaxFromTermsOfMultipleSegments() throws Exception {
+        addSegment(5L, -3L, 12L);
+        addSegment(400L, 7L);
+        addSegment(1L);
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(reader.leaves().size(), is(3));
+        assertThat(printedTable(rowReceiver.result()), is("6| -3| 400\n"));
+    }
+
+    @Test
+    public void testSegmentsWithDeletionsAreScanned() throws Exception {
+        addSegment(5L, -3L, 12L);
+        addSegment(400L, 7L);
+        // the terms dictionary still contains the values of the deleted documents
+        writer.deleteDocuments(new Term("id", "-3"), new Term("id", "400"));
+        writer.commit();
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(reader.leaves().size(), is(2));
+        assertThat(printedTable(rowReceiver.result()), is("3| 5| 12\n"));
+    }
+
+    @Test
+    public void testSegmentsWithoutValuesAreSkipped() throws Exception {
+        addSegment(null, null);
+        addSegment(8L, null);
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(printedTable(rowReceiver.result()), is("4| 8| 8\n"));
+    }
+
+    @Test
+    public void testMinMaxAreNullWithoutAnyValue() throws Exception {
+        addSegment(null, null);
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(printedTable(rowReceiver.result()), is("2| NULL| NULL\n"));
+    }
+
+    @Test
+    public void testLongValuesAreNotRoundedToDouble() throws Exception {
+        // 2^53 + 1 is the first long which can't be represented as a double
+        addSegment((1L << 53) + 1, 1L);
+        addSegment(-(1L << 53) - 1);
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(printedTable(rowReceiver.result()), is("3| -9007199254740993| 9007199254740993\n"));
+    }
+
+    @Test
+    public void testIntValuesAreNotRoundedToFloat() throws Exception {
+        // 2^24 + 1 is the first int which can't be represented as a float
+        addSegment(16_777_217L, 1L);
+        addSegment(-16_777_217L);
+        CollectingRowReceiver rowReceiver = collect(intMinMax(false), intMinMax(true));
+        assertThat(printedTable(rowReceiver.result()), is("3| -16777217| 16777217\n"));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.action.sql.query.CrateSearchContext;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.jobs.KeepAliveListener;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.Functions;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateSingleNodeTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class OrdinalGroupingCollectorTest extends CrateSingleNodeTest {
+
+    private static final String FIELD_NAME = "name";
+
+    private IndexFieldDataService ifd;
+    private IndexOrdinalsFieldData keyFieldData;
+    private IndexWriter writer;
+    private DirectoryReader reader;
+    private AggregationFunction countImpl;
+
+    @Before
+    public void prepare() throws Exception {
+        ifd = createIndex("test", ImmutableSettings.builder().put("index.fielddata.cache", "none").build()).fieldData();
+        FieldMapper fieldMapper = mock(FieldMapper.class);
+        when(fieldMapper.names()).thenReturn(new FieldMapper.Names(FIELD_NAME));
+        when(fieldMapper.fieldDataType()).thenReturn(new FieldDataType("string"));
+        keyFieldData = (IndexOrdinalsFieldData) ifd.getForField(fieldMapper);
+
+        writer = new IndexWriter(new RAMDirectory(),
+                new IndexWriterConfig(Lucene.VERSION, new KeywordAnalyzer())
+                        .setMergePolicy(new LogByteSizeMergePolicy()));
+
+        Functions functions = new ModulesBuilder().add(new AggregationImplModule()).createInjector()
+                .getInstance(Functions.class);
+        countImpl = (AggregationFunction) functions.get(
+                new FunctionIdent(CountAggregation.NAME, Arrays.<DataType>asList(DataTypes.STRING)));
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        writer.close();
+        writer.getDirectory().close();
+        ifd.clear();
+    }
+
+    /**
+     * adds a segment with a document for each of the given values, null values are documents without the field
+     */
+    private void addSegment(String... values) throws Exception {
+        for (String value : values) {
+            Document doc = new Document();
+            if (value != null) {
+                doc.add(new StringField(FIELD_NAME, value, Field.Store.NO));
+            }
+            writer.addDocument(doc);
+        }
+        writer.commit();
+    }
+
+    private CollectingRowReceiver collect() throws Exception {
+        reader = DirectoryReader.open(writer, true);
+        final IndexSearcher indexSearcher = new IndexSearcher(reader);
+        ContextIndexSearcher searcher = mock(ContextIndexSearcher.class);
+        when(searcher.getIndexReader()).thenReturn(reader);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                indexSearcher.search((Query) invocation.getArguments()[0], (Collector) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(searcher).search(any(Query.class), any(Collector.class));
+        CrateSearchContext searchContext = mock(CrateSearchContext.class);
+        when(searchContext.searcher()).thenReturn(searcher);
+        when(searchContext.query()).thenReturn(new MatchAllDocsQuery());
+
+        RamAccountingContext ramAccountingContext =
+                new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+        Aggregation aggregation = Aggregation.partialAggregation(
+                countImpl.info(), DataTypes.LONG, Collections.<Symbol>singletonList(new InputColumn(0)));
+        Input<String> countInput = new Input<String>() {
+            @Override
+            public String value() {
+                return "foo";
+            }
+        };
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        OrdinalGroupingCollector collector = new OrdinalGroupingCollector(
+                searchContext,
+                MoreExecutors.directExecutor(),
+                mock(KeepAliveListener.class),
+                ramAccountingContext,
+                rowReceiver,
+                new CollectorContext(mock(MapperService.class), ifd, null),
+                mock(Row.class),
+                ImmutableList.<LuceneCollectorExpression<?>>of(),
+                keyFieldData,
+                new CollectExpression[0],
+                new Aggregator[] { new Aggregator(ramAccountingContext, aggregation, countImpl, countInput) }
+        );
+        collector.doCollect();
+        return rowReceiver;
+    }
+
+    @Test
+    public void testGroupOverMultipleSegments() throws Exception {
+        addSegment("b", "a", "b");
+        addSegment("c", "a");
+        addSegment("d", "b");
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(reader.leaves().size(), is(3));
+        assertThat(printedTable(rowReceiver.result()), is(
+                "a| 2\n" +
+                "b| 3\n" +
+                "c| 1\n" +
+                "d| 1\n"));
+    }
+
+    @Test
+    public void testDocumentsWithoutValueAreGroupedUnderNull() throws Exception {
+        addSegment("a", null);
+        addSegment(null, "b", null);
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(printedTable(rowReceiver.result()), is(
+                "NULL| 3\n" +
+                "a| 1\n" +
+                "b| 1\n"));
+    }
+
+    @Test
+    public void testOrdinalsAreMappedToTermsAcrossSegments() throws Exception {
+        // the segment ordinals of the same term differ, e.g. "x" is 1 in the first and 0 in the last segment
+        addSegment("m", "x");
+        addSegment("y", "z");
+        addSegment("x");
+        addSegment("a", "z");
+        CollectingRowReceiver rowReceiver = collect();
+        assertThat(reader.leaves().size(), is(4));
+        assertThat(printedTable(rowReceiver.result()), is(
+                "a| 1\n" +
+                "m| 1\n" +
+                "x| 2\n" +
+                "y| 1\n" +
+                "z| 2\n"));
+    }
+}
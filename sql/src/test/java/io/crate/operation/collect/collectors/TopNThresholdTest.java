@@ -0,0 +1,99 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TopNThresholdTest extends CrateUnitTest {
+
+    private static ScoreDoc[] docs(Object... values) {
+        ScoreDoc[] scoreDocs = new ScoreDoc[values.length];
+        for (int i = 0; i < values.length; i++) {
+            scoreDocs[i] = new FieldDoc(i, Float.NaN, new Object[] { values[i] });
+        }
+        return scoreDocs;
+    }
+
+    @Test
+    public void testThresholdAscending() throws Exception {
+        TopNThreshold threshold = new TopNThreshold(3, false);
+        threshold.offer(docs(10L, 20L));
+        assertThat(threshold.value(), nullValue());
+
+        threshold.offer(docs(5L, 30L));
+        assertThat(threshold.value(), is((Object) 20L));
+
+        threshold.offer(docs(1L, 2L, 3L));
+        assertThat(threshold.value(), is((Object) 3L));
+    }
+
+    @Test
+    public void testThresholdDescending() throws Exception {
+        TopNThreshold threshold = new TopNThreshold(2, true);
+        threshold.offer(docs(10.0d, 5.0d));
+        assertThat(threshold.value(), is((Object) 5.0d));
+
+        threshold.offer(docs(7.5d, 1.0d));
+        assertThat(threshold.value(), is((Object) 7.5d));
+    }
+
+    @Test
+    public void testShardSkipsDocsAfterThresholdTightens() throws Exception {
+        TopNThreshold threshold = new TopNThreshold(2, false);
+        ScoreDoc[] shard1Page = docs(1L, 2L, 3L, 4L);
+        threshold.offer(shard1Page);
+        assertThat(threshold.numIncluded(shard1Page), is(2));
+
+        // a better page of another shard tightens the threshold
+        ScoreDoc[] shard2Page = docs(0L, 1L, 5L);
+        threshold.offer(shard2Page);
+        assertThat(threshold.value(), is((Object) 1L));
+        assertThat(threshold.numIncluded(shard2Page), is(2));
+
+        // the first shard doesn't page any further, its last doc is already worse
+        assertThat(threshold.excludes((FieldDoc) shard1Page[3]), is(true));
+        assertThat(threshold.excludes((FieldDoc) shard1Page[0]), is(false));
+    }
+
+    @Test
+    public void testNothingIsExcludedWithoutThreshold() throws Exception {
+        TopNThreshold threshold = new TopNThreshold(3, true);
+        ScoreDoc[] page = docs(10L, 5L);
+        threshold.offer(page);
+        assertThat(threshold.numIncluded(page), is(2));
+        assertThat(threshold.excludes((FieldDoc) docs(Long.MIN_VALUE)[0]), is(false));
+    }
+
+    @Test
+    public void testMissingValuesAreIgnored() throws Exception {
+        TopNThreshold threshold = new TopNThreshold(2, false);
+        threshold.offer(docs(1L, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertThat(threshold.value(), nullValue());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.sources;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.metadata.stats.IndexZoneMaps;
+import io.crate.metadata.stats.ZoneMap;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexTemplateMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class InformationSchemaCollectSourceTest extends CrateUnitTest {
+
+    private static IndexMetaData.Builder index(String name) {
+        return IndexMetaData.builder(name)
+                .settings(ImmutableSettings.builder()
+                        .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 2)
+                        .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+                .putMapping("default", "{\"default\": {\"properties\": {\"x\": {\"type\": \"long\"}}}}");
+    }
+
+    private static MetaData metaData(IndexMetaData.Builder... indices) {
+        MetaData.Builder builder = MetaData.builder();
+        for (IndexMetaData.Builder index : indices) {
+            builder.put(index, false);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testZoneMapsDontChangeSchema() throws Exception {
+        MetaData previous = metaData(index("t1"));
+        IndexZoneMaps zoneMaps = new IndexZoneMaps(ImmutableMap.of(0, new ZoneMap(ImmutableMap.of("x", new double[]{1.0, 10.0}))));
+        MetaData current = metaData(index("t1").putCustom(IndexZoneMaps.TYPE, zoneMaps));
+        assertThat(InformationSchemaCollectSource.schemaChanged(previous, current), is(false));
+    }
+
+    @Test
+    public void testIndicesMappingsAndTemplatesChangeSchema() throws Exception {
+        MetaData previous = metaData(index("t1"));
+        assertThat(InformationSchemaCollectSource.schemaChanged(previous, metaData(index("t1"), index("t2"))), is(true));
+        assertThat(InformationSchemaCollectSource.schemaChanged(previous, metaData(index("t2"))), is(true));
+        assertThat(InformationSchemaCollectSource.schemaChanged(previous,
+                metaData(index("t1").putMapping("default", "{\"default\": {\"properties\": {\"y\": {\"type\": \"long\"}}}}"))),
+                is(true));
+        assertThat(InformationSchemaCollectSource.schemaChanged(previous,
+                metaData(index("t1").state(IndexMetaData.State.CLOSE))), is(true));
+
+        MetaData withTemplate = MetaData.builder(previous)
+                .put(IndexTemplateMetaData.builder("t3").template("t3*").build())
+                .build();
+        assertThat(InformationSchemaCollectSource.schemaChanged(previous, withTemplate), is(true));
+    }
+}
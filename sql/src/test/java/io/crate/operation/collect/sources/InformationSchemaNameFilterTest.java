@@ -0,0 +1,138 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.sources;
+
+import io.crate.analyze.WhereClause;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.OrOperator;
+import io.crate.operation.operator.any.AnyEqOperator;
+import io.crate.operation.predicate.NotPredicate;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.ArrayType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.createFunction;
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.*;
+
+public class InformationSchemaNameFilterTest extends CrateUnitTest {
+
+    private static final Reference SCHEMA_NAME = createReference(InformationSchemaNameFilter.SCHEMA_NAME, DataTypes.STRING);
+    private static final Reference TABLE_NAME = createReference(InformationSchemaNameFilter.TABLE_NAME, DataTypes.STRING);
+    private static final Reference COLUMN_NAME = createReference("column_name", DataTypes.STRING);
+
+    private static Symbol eq(Symbol left, Symbol right) {
+        return createFunction(EqOperator.NAME, DataTypes.BOOLEAN, left, right);
+    }
+
+    private static Symbol in(Symbol left, String... values) {
+        BytesRef[] refs = new BytesRef[values.length];
+        for (int i = 0; i < values.length; i++) {
+            refs[i] = new BytesRef(values[i]);
+        }
+        return createFunction(AnyEqOperator.NAME, DataTypes.BOOLEAN, left,
+                Literal.newLiteral(refs, new ArrayType(DataTypes.STRING)));
+    }
+
+    private static Symbol and(Symbol left, Symbol right) {
+        return createFunction(AndOperator.NAME, DataTypes.BOOLEAN, left, right);
+    }
+
+    private static Symbol or(Symbol left, Symbol right) {
+        return createFunction(OrOperator.NAME, DataTypes.BOOLEAN, left, right);
+    }
+
+    private static InformationSchemaNameFilter filter(Symbol query) {
+        return InformationSchemaNameFilter.fromWhereClause(new WhereClause(query));
+    }
+
+    @Test
+    public void testMatchAll() throws Exception {
+        InformationSchemaNameFilter filter = InformationSchemaNameFilter.fromWhereClause(WhereClause.MATCH_ALL);
+        assertThat(filter.schemaNames(), nullValue());
+        assertThat(filter.tableNames(), nullValue());
+        assertThat(filter.matchesSchema("doc"), is(true));
+        assertThat(filter.matchesTable("t1"), is(true));
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        InformationSchemaNameFilter filter = filter(and(
+                eq(SCHEMA_NAME, Literal.newLiteral("doc")),
+                eq(Literal.newLiteral("t1"), TABLE_NAME)));
+        assertThat(filter.schemaNames(), contains("doc"));
+        assertThat(filter.tableNames(), contains("t1"));
+        assertThat(filter.matchesSchema("sys"), is(false));
+        assertThat(filter.matchesTable("t2"), is(false));
+    }
+
+    @Test
+    public void testIn() throws Exception {
+        InformationSchemaNameFilter filter = filter(in(TABLE_NAME, "t1", "t2"));
+        assertThat(filter.schemaNames(), nullValue());
+        assertThat(filter.tableNames(), contains("t1", "t2"));
+    }
+
+    @Test
+    public void testAndIntersects() throws Exception {
+        InformationSchemaNameFilter filter = filter(and(
+                in(TABLE_NAME, "t1", "t2"),
+                and(eq(COLUMN_NAME, Literal.newLiteral("x")), eq(TABLE_NAME, Literal.newLiteral("t2")))));
+        assertThat(filter.tableNames(), contains("t2"));
+    }
+
+    @Test
+    public void testOrUnites() throws Exception {
+        InformationSchemaNameFilter filter = filter(or(
+                eq(TABLE_NAME, Literal.newLiteral("t1")),
+                in(TABLE_NAME, "t2", "t3")));
+        assertThat(filter.tableNames(), contains("t1", "t2", "t3"));
+    }
+
+    @Test
+    public void testOrWithUnrestrictedSide() throws Exception {
+        InformationSchemaNameFilter filter = filter(or(
+                eq(TABLE_NAME, Literal.newLiteral("t1")),
+                eq(COLUMN_NAME, Literal.newLiteral("x"))));
+        assertThat(filter.tableNames(), nullValue());
+    }
+
+    @Test
+    public void testNotIsNotPushedDown() throws Exception {
+        InformationSchemaNameFilter filter = filter(createFunction(NotPredicate.NAME, DataTypes.BOOLEAN,
+                eq(TABLE_NAME, Literal.newLiteral("t1"))));
+        assertThat(filter.tableNames(), nullValue());
+    }
+
+    @Test
+    public void testEqualsNullMatchesNoTable() throws Exception {
+        InformationSchemaNameFilter filter = filter(eq(TABLE_NAME, Literal.newLiteral(DataTypes.STRING, null)));
+        assertThat(filter.tableNames(), empty());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.RowN;
+import io.crate.exceptions.TopNErrorBoundException;
+import io.crate.executor.transport.distributed.ModuloBucketBuilder;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+public class BoundedTopNProjectorTest extends CrateUnitTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    /**
+     * feeds [key, count] rows of one node into a candidates projector with a single bucket
+     * and returns the candidates as [key, count, bound, boundOnce]
+     */
+    private List<Object[]> candidates(int candidateSize, Object[]... rows) throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        TopNCandidatesProjector projector = new TopNCandidatesProjector(1, 0, 1, candidateSize);
+        projector.downstream(rowReceiver);
+        for (Object[] row : rows) {
+            projector.setNextRow(new RowN(row));
+        }
+        projector.finish();
+        rowReceiver.result();
+        return rowReceiver.rows;
+    }
+
+    /**
+     * feeds the [key, count, sum(bound), sum(boundOnce)] rows of a reducer into a bounded top-n projector
+     */
+    private Bucket boundedTopN(int limit, Object[]... rows) throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        BoundedTopNProjector projector = new BoundedTopNProjector(1, 2, 3, limit);
+        projector.downstream(rowReceiver);
+        for (Object[] row : rows) {
+            projector.setNextRow(new RowN(row));
+        }
+        projector.finish();
+        return rowReceiver.result();
+    }
+
+    @Test
+    public void testCandidatesKeepHighestValuesAndAppendBound() throws Exception {
+        List<Object[]> candidates = candidates(2,
+                new Object[]{"a", 10L},
+                new Object[]{"b", 3L},
+                new Object[]{"c", 7L},
+                new Object[]{"d", 5L});
+        assertThat(candidates.size(), is(2));
+        long boundOnceSum = 0;
+        for (Object[] row : candidates) {
+            assertThat((String) row[0], anyOf(is("a"), is("c")));
+            assertThat((Long) row[2], is(5L));
+            boundOnceSum += (Long) row[3];
+        }
+        assertThat(boundOnceSum, is(5L));
+    }
+
+    @Test
+    public void testCandidatesWithoutDiscardedRowsHaveNoBound() throws Exception {
+        List<Object[]> candidates = candidates(2,
+                new Object[]{"a", 10L},
+                new Object[]{"b", 3L});
+        assertThat(candidates.size(), is(2));
+        for (Object[] row : candidates) {
+            assertThat((Long) row[2], is(0L));
+            assertThat((Long) row[3], is(0L));
+        }
+    }
+
+    @Test
+    public void testCandidatesAreSplitIntoBuckets() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        TopNCandidatesProjector projector = new TopNCandidatesProjector(1, 0, 2, 1);
+        projector.downstream(rowReceiver);
+        for (long i = 0; i < 10; i++) {
+            projector.setNextRow(new RowN(new Object[]{i, i}));
+        }
+        projector.finish();
+        // the highest value of every bucket is kept
+        assertThat(rowReceiver.result().size(), is(2));
+        for (Object[] row : rowReceiver.rows) {
+            int bucket = ModuloBucketBuilder.bucket(row[0], 2);
+            for (long i = (Long) row[1] + 1; i < 10; i++) {
+                assertThat(ModuloBucketBuilder.bucket(i, 2) == bucket, is(false));
+            }
+        }
+    }
+
+    @Test
+    public void testExactResultIsEmitted() throws Exception {
+        // two upstreams with a bound of 2 and 1; "a" and "b" were sent by both
+        Bucket result = boundedTopN(2,
+                new Object[]{"a", 20L, 3.0d, 2.0d},
+                new Object[]{"b", 12L, 3.0d, 1.0d},
+                new Object[]{"c", 4L, 2.0d, 0.0d});
+        assertThat(result, containsInAnyOrder(
+                isRow("a", 20L, 3.0d, 2.0d),
+                isRow("b", 12L, 3.0d, 1.0d)));
+    }
+
+    @Test
+    public void testNotReceivedGroupsCouldExceedLowestValue() throws Exception {
+        expectedException.expect(TopNErrorBoundException.class);
+        expectedException.expectMessage("groups which weren't received could have a value of up to 13");
+        boundedTopN(2,
+                new Object[]{"a", 20L, 13.0d, 10.0d},
+                new Object[]{"b", 12L, 13.0d, 3.0d});
+    }
+
+    @Test
+    public void testDiscardedGroupCouldExceedLowestValue() throws Exception {
+        expectedException.expect(TopNErrorBoundException.class);
+        expectedException.expectMessage("a discarded group could have a value of up to 13");
+        // "c" wasn't sent by the upstream with a bound of 3, so it could have 10 + 3
+        boundedTopN(2,
+                new Object[]{"a", 20L, 5.0d, 3.0d},
+                new Object[]{"b", 12L, 5.0d, 2.0d},
+                new Object[]{"c", 10L, 2.0d, 0.0d});
+    }
+
+    @Test
+    public void testValueOfReturnedGroupNotExact() throws Exception {
+        expectedException.expect(TopNErrorBoundException.class);
+        expectedException.expectMessage("the value of a returned group isn't exact");
+        boundedTopN(2,
+                new Object[]{"a", 20L, 5.0d, 3.0d},
+                new Object[]{"b", 12L, 2.0d, 2.0d});
+    }
+
+    @Test
+    public void testAllGroupsSentWithoutBound() throws Exception {
+        Bucket result = boundedTopN(5,
+                new Object[]{"a", 1L, 0.0d, 0.0d},
+                new Object[]{"b", 2L, 0.0d, 0.0d});
+        assertThat(result.size(), is(2));
+    }
+}
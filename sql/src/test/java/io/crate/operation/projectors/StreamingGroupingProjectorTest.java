@@ -0,0 +1,144 @@
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.JobCollectContext;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataType;
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.operation.AggregationContext;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+public class StreamingGroupingProjectorTest extends CrateUnitTest {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+
+    private AggregationContext countAggregation;
+
+    @Before
+    public void prepare() throws Exception {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Functions functions = new ModulesBuilder()
+                .add(new AggregationImplModule()).createInjector().getInstance(Functions.class);
+        countAggregation = new AggregationContext(
+                (AggregationFunction) functions.get(countInfo.ident()),
+                Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER));
+    }
+
+    private StreamingGroupingProjector groupByFirstColumn() {
+        InputCollectExpression key = new InputCollectExpression(0);
+        return new StreamingGroupingProjector(
+                ImmutableList.<Input<?>>of(key),
+                new CollectExpression[] { key },
+                new AggregationContext[] { countAggregation },
+                RAM_ACCOUNTING_CONTEXT
+        );
+    }
+
+    @Test
+    public void testGroupsAreEmittedInInputOrder() throws Exception {
+        StreamingGroupingProjector projector = groupByFirstColumn();
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        for (String key : new String[] { "c", "c", "a", "b", "b", "b" }) {
+            assertThat(projector.setNextRow(new RowN(new Object[] { new BytesRef(key) })), is(true));
+        }
+        projector.finish();
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows, contains(
+                isRow(new BytesRef("c"), 2L),
+                isRow(new BytesRef("a"), 1L),
+                isRow(new BytesRef("b"), 3L)
+        ));
+    }
+
+    @Test
+    public void testNullIsAGroup() throws Exception {
+        StreamingGroupingProjector projector = groupByFirstColumn();
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        projector.setNextRow(new RowN(new Object[] { null }));
+        projector.setNextRow(new RowN(new Object[] { null }));
+        projector.setNextRow(new RowN(new Object[] { new BytesRef("a") }));
+        projector.finish();
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows, contains(
+                isRow(null, 2L),
+                isRow(new BytesRef("a"), 1L)
+        ));
+    }
+
+    @Test
+    public void testStopsIfDownstreamDoesNotNeedMoreRows() throws Exception {
+        StreamingGroupingProjector projector = groupByFirstColumn();
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withLimit(1);
+        projector.downstream(rowReceiver);
+
+        assertThat(projector.setNextRow(new RowN(new Object[] { new BytesRef("a") })), is(true));
+        assertThat(projector.setNextRow(new RowN(new Object[] { new BytesRef("a") })), is(true));
+        assertThat(projector.setNextRow(new RowN(new Object[] { new BytesRef("b") })), is(false));
+        projector.finish();
+
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(1));
+        assertThat(rows.iterator().next(), isRow(new BytesRef("a"), 2L));
+    }
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        StreamingGroupingProjector projector = groupByFirstColumn();
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+        projector.finish();
+
+        assertThat(rowReceiver.result().size(), is(0));
+    }
+}
@@ -23,6 +23,8 @@ package io.crate.operation.reference.sys;
 import com.google.common.collect.ImmutableMap;
 import io.crate.Build;
 import io.crate.Version;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.jobs.JobScheduler;
 import io.crate.metadata.NestedReferenceResolver;
 import io.crate.metadata.ReferenceInfo;
 import io.crate.metadata.SimpleObjectExpression;
@@ -293,6 +295,8 @@ public class SysNodesExpressionsTest extends CrateUnitTest {
 
             ThreadPool threadPool = new ThreadPool(getClass().getName());
             bind(ThreadPool.class).toInstance(threadPool);
+            bind(JobScheduler.class).toInstance(
+                    new JobScheduler(ImmutableSettings.EMPTY, mock(CrateCircuitBreakerService.class), mock(ThreadPool.class)));
 
         }
     }
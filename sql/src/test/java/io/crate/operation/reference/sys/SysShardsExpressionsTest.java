@@ -27,6 +27,7 @@ import io.crate.metadata.shard.ShardReferenceImplementation;
 import io.crate.metadata.shard.ShardReferenceResolver;
 import io.crate.metadata.sys.MetaDataSysModule;
 import io.crate.metadata.sys.SysShardsTableInfo;
+import io.crate.operation.collect.ShardResultCache;
 import io.crate.operation.reference.sys.cluster.SysClusterExpressionModule;
 import io.crate.operation.reference.sys.shard.SysShardExpressionModule;
 import io.crate.planner.RowGranularity;
@@ -57,6 +58,7 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static io.crate.testing.TestingHelpers.refInfo;
@@ -121,6 +123,15 @@ public class SysShardsExpressionsTest extends CrateUnitTest {
             });
             bind(ShardId.class).toInstance(shardId);
 
+            ShardResultCache.ShardStats resultCacheStats = mock(ShardResultCache.ShardStats.class);
+            when(resultCacheStats.hits()).thenReturn(3L);
+            when(resultCacheStats.misses()).thenReturn(1L);
+            when(resultCacheStats.hitRatio()).thenReturn(0.75d);
+            when(resultCacheStats.sizeInBytes()).thenReturn(2048L);
+            ShardResultCache resultCache = mock(ShardResultCache.class);
+            when(resultCache.stats(shardId)).thenReturn(resultCacheStats);
+            bind(ShardResultCache.class).toInstance(resultCache);
+
             IndexShard indexShard = mock(IndexShard.class);
             bind(IndexShard.class).toInstance(indexShard);
 
@@ -264,6 +275,22 @@ public class SysShardsExpressionsTest extends CrateUnitTest {
         indexName = "wikipedia_de";
     }
 
+    @Test
+    public void testResultCache() throws Exception {
+        ReferenceInfo refInfo = refInfo("sys.shards.result_cache", DataTypes.OBJECT, RowGranularity.SHARD);
+        ShardReferenceImplementation<Map<String, Object>> shardExpression =
+                (ShardReferenceImplementation<Map<String, Object>>) resolver.getImplementation(refInfo);
+        Map<String, Object> value = shardExpression.value();
+        assertEquals(3L, value.get("hits"));
+        assertEquals(1L, value.get("misses"));
+        assertEquals(0.75d, value.get("hit_ratio"));
+        assertEquals(2048L, value.get("size"));
+
+        refInfo = refInfo("sys.shards.result_cache", DataTypes.LONG, RowGranularity.SHARD, "hits");
+        ReferenceImplementation<Long> hits = (ReferenceImplementation<Long>) resolver.getImplementation(refInfo);
+        assertEquals(3L, (long) hits.value());
+    }
+
     @Test
     public void testSchemaName() throws Exception {
         ReferenceInfo refInfo = refInfo("sys.shards.schema_name", DataTypes.STRING, RowGranularity.SHARD);
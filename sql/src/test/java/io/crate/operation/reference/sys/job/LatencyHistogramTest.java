@@ -0,0 +1,79 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.job;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest extends CrateUnitTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void testBucketBounds() throws Exception {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456, Integer.MAX_VALUE }) {
+            long upperBound = LatencyHistogram.upperBound(LatencyHistogram.bucket(value));
+            assertThat(upperBound, greaterThanOrEqualTo(value));
+            assertThat((double) upperBound, lessThanOrEqualTo(value + value / 16.0));
+        }
+        assertThat(LatencyHistogram.bucket(Long.MAX_VALUE), is(LatencyHistogram.NUM_BUCKETS - 1));
+        assertThat(LatencyHistogram.bucket(-1), is(0));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("SELECT", null);
+        long now = 100 * MINUTE;
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(now, i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(now, 1);
+        assertThat(snapshot.count(), is(100L));
+        assertThat(snapshot.max(), is(100L));
+        assertThat(snapshot.valueAt(0.5), allOf(greaterThanOrEqualTo(50L), lessThanOrEqualTo(53L)));
+        assertThat(snapshot.valueAt(0.99), allOf(greaterThanOrEqualTo(99L), lessThanOrEqualTo(100L)));
+        assertThat(snapshot.valueAt(1.0), is(100L));
+    }
+
+    @Test
+    public void testSlidingWindows() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("SELECT", "doc.t1");
+        long now = 100 * MINUTE;
+        histogram.record(now - 10 * MINUTE, 5000);
+        histogram.record(now - 3 * MINUTE, 500);
+        histogram.record(now, 5);
+
+        assertThat(histogram.snapshot(now, 1).count(), is(1L));
+        assertThat(histogram.snapshot(now, 1).max(), is(5L));
+        assertThat(histogram.snapshot(now, 5).count(), is(2L));
+        assertThat(histogram.snapshot(now, 5).max(), is(500L));
+        assertThat(histogram.snapshot(now, 15).count(), is(3L));
+        assertThat(histogram.snapshot(now, 15).max(), is(5000L));
+
+        // the slice of 16 minutes ago is reused
+        histogram.record(now + 6 * MINUTE, 1);
+        assertThat(histogram.snapshot(now + 6 * MINUTE, 15).count(), is(3L));
+    }
+}
@@ -2,9 +2,11 @@ package io.crate.planner;
 
 import com.carrotsearch.hppc.IntSet;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import io.crate.Constants;
+import io.crate.action.sql.SQLBaseRequest;
 import io.crate.analyze.Analyzer;
 import io.crate.analyze.BaseAnalyzerTest;
 import io.crate.analyze.ParameterContext;
@@ -17,6 +19,9 @@ import io.crate.metadata.*;
 import io.crate.metadata.blob.BlobSchemaInfo;
 import io.crate.metadata.blob.BlobTableInfo;
 import io.crate.metadata.doc.DocSysColumns;
+import io.crate.metadata.stats.ColumnStats;
+import io.crate.metadata.stats.TableStats;
+import io.crate.metadata.stats.TableStatsMetaData;
 import io.crate.metadata.sys.SysSchemaInfo;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.metadata.table.SchemaInfo;
@@ -57,6 +62,8 @@ import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.Matchers;
 import org.hamcrest.core.Is;
@@ -148,6 +155,7 @@ public class PlannerTest extends CrateUnitTest {
             bind(FulltextAnalyzerResolver.class).toInstance(fulltextAnalyzerResolver);
             bind(ClusterService.class).toInstance(clusterService);
             bind(TransportPutIndexTemplateAction.class).toInstance(mock(TransportPutIndexTemplateAction.class));
+            bind(Settings.class).toInstance(ImmutableSettings.EMPTY);
             super.configure();
         }
 
@@ -288,6 +296,26 @@ public class PlannerTest extends CrateUnitTest {
         Aggregation aggregation = groupProjection.values().get(0);
     }
 
+    @Test
+    public void testGroupByIsNotDistributedIfTableStatsEstimateFewGroups() throws Exception {
+        MetaData metaData = clusterService.state().metaData();
+        when(metaData.<TableStatsMetaData>custom(TableStatsMetaData.TYPE)).thenReturn(usersStats(10L));
+        assertThat(plan("select count(*), name from users group by name"), instanceOf(NonDistributedGroupBy.class));
+
+        // more groups than MAX_NON_DISTRIBUTED_GROUPS are merged distributed
+        when(metaData.<TableStatsMetaData>custom(TableStatsMetaData.TYPE)).thenReturn(usersStats(10_001L));
+        assertThat(plan("select count(*), name from users group by name"), instanceOf(DistributedGroupBy.class));
+
+        // without statistics for every group by column the number of groups is unknown
+        assertThat(plan("select count(*), name, date from users group by name, date"), instanceOf(DistributedGroupBy.class));
+    }
+
+    private static TableStatsMetaData usersStats(long approxDistinctNames) {
+        TableStats tableStats = new TableStats(1_000_000L, 0L, ImmutableMap.<String, Long>of(),
+                ImmutableMap.of("name", new ColumnStats(0.0, approxDistinctNames, null, null, new double[0])));
+        return new TableStatsMetaData(ImmutableMap.of("doc.users", tableStats));
+    }
+
     @Test
     public void testGroupByWithAggregationPlan() throws Exception {
         DistributedGroupBy distributedGroupBy = (DistributedGroupBy) plan(
@@ -298,8 +326,15 @@ public class PlannerTest extends CrateUnitTest {
         assertThat(collectPhase.maxRowGranularity(), is(RowGranularity.DOC));
         assertThat(collectPhase.executionNodes().size(), is(2));
         assertThat(collectPhase.toCollect().size(), is(1));
-        assertThat(collectPhase.projections().size(), is(1));
+        // grouped per shard on the ordinals of name and merged on the node
+        assertThat(collectPhase.projections().size(), is(2));
         assertThat(collectPhase.projections().get(0), instanceOf(GroupProjection.class));
+        assertThat(collectPhase.projections().get(0).requiredGranularity(), is(RowGranularity.SHARD));
+        assertThat(collectPhase.projections().get(1), instanceOf(GroupProjection.class));
+        assertThat(collectPhase.projections().get(1).requiredGranularity(), is(RowGranularity.CLUSTER));
+        GroupProjection nodeGroupProjection = (GroupProjection) collectPhase.projections().get(1);
+        assertThat(nodeGroupProjection.values().get(0).fromStep(), is(Aggregation.Step.PARTIAL));
+        assertThat(nodeGroupProjection.values().get(0).toStep(), is(Aggregation.Step.PARTIAL));
         assertThat(collectPhase.outputTypes().size(), is(2));
         assertEquals(DataTypes.STRING, collectPhase.outputTypes().get(0));
         assertEquals(DataTypes.LONG, collectPhase.outputTypes().get(1));
@@ -415,9 +450,34 @@ public class PlannerTest extends CrateUnitTest {
 
     @Test
     public void testMultiDeletePlan() throws Exception {
-        IterablePlan plan = (IterablePlan) plan("delete from users where id in (1, 2)");
-        Iterator<PlanNode> iterator = plan.iterator();
-        assertThat(iterator.next(), instanceOf(ESDeleteByQueryNode.class));
+        Upsert plan = (Upsert) plan("delete from users where id in (1, 2)");
+        assertThat(plan.nodes().size(), is(1));
+
+        CollectAndMerge planNode = (CollectAndMerge) plan.nodes().get(0);
+        CollectPhase collectPhase = planNode.collectPhase();
+        assertThat(collectPhase.routing(), is(shardRouting));
+        assertTrue(collectPhase.whereClause().hasQuery());
+        assertThat(collectPhase.toCollect().size(), is(1));
+        assertThat(((Reference) collectPhase.toCollect().get(0)).info().ident().columnIdent().fqn(), is("_uid"));
+        assertThat(collectPhase.projections().size(), is(1));
+        DeleteProjection deleteProjection = (DeleteProjection) collectPhase.projections().get(0);
+        assertThat(deleteProjection.uidSymbol(), instanceOf(InputColumn.class));
+        assertThat(deleteProjection.requiredVersion(), nullValue());
+
+        MergePhase mergeNode = planNode.localMerge();
+        assertThat(mergeNode.projections().size(), is(1));
+        assertThat(mergeNode.projections().get(0), instanceOf(AggregationProjection.class));
+    }
+
+    @Test
+    public void testBulkDeleteByQueryPlan() throws Exception {
+        Upsert plan = (Upsert) plan("delete from users where name = ?", new Object[][]{
+                new Object[]{"Arthur"},
+                new Object[]{"Ford"},
+        });
+        assertThat(plan.nodes().size(), is(2));
+        assertThat(plan.nodes().get(0), instanceOf(CollectAndMerge.class));
+        assertThat(plan.nodes().get(1), instanceOf(CollectAndMerge.class));
     }
 
     @Test
@@ -448,6 +508,45 @@ public class PlannerTest extends CrateUnitTest {
         assertThat(((InputColumn) topN.outputs().get(1)).index(), is(1));
     }
 
+    @Test
+    public void testGroupByOrderedByCountWithBoundedTopN() throws Exception {
+        DistributedGroupBy distributedGroupBy = (DistributedGroupBy) planner.plan(analyzer.analyze(
+                SqlParser.createStatement("select name, count(*) from users group by name order by 2 desc limit 10"),
+                new ParameterContext(new Object[0], new Object[0][], Schemas.DEFAULT_SCHEMA_NAME,
+                        SQLBaseRequest.HEADER_FLAG_BOUNDED_TOP_N)), UUID.randomUUID());
+
+        CollectPhase collectPhase = distributedGroupBy.collectNode();
+        Projection lastCollectProjection = collectPhase.projections().get(collectPhase.projections().size() - 1);
+        assertThat(lastCollectProjection, instanceOf(TopNCandidatesProjection.class));
+        TopNCandidatesProjection candidates = (TopNCandidatesProjection) lastCollectProjection;
+        assertThat(candidates.orderByIdx(), is(1));
+        assertThat(candidates.candidateSize(), is(25));
+        assertThat(candidates.numBuckets(), is(collectPhase.executionNodes().size()));
+        assertThat(collectPhase.outputTypes(), contains(
+                (DataType) DataTypes.STRING, DataTypes.LONG, DataTypes.LONG, DataTypes.LONG));
+
+        MergePhase mergeNode = distributedGroupBy.reducerMergeNode();
+        GroupProjection groupProjection = (GroupProjection) mergeNode.projections().get(0);
+        assertThat(groupProjection.values().size(), is(3));
+        assertThat(mergeNode.projections().get(1), instanceOf(BoundedTopNProjection.class));
+        BoundedTopNProjection boundedTopN = (BoundedTopNProjection) mergeNode.projections().get(1);
+        assertThat(boundedTopN.orderByIdx(), is(1));
+        assertThat(boundedTopN.boundIdx(), is(2));
+        assertThat(boundedTopN.boundOnceIdx(), is(3));
+        assertThat(boundedTopN.limit(), is(10));
+        assertThat(mergeNode.projections().get(2), instanceOf(TopNProjection.class));
+    }
+
+    @Test
+    public void testGroupByOrderedByCountWithoutBoundedTopNFlag() throws Exception {
+        DistributedGroupBy distributedGroupBy = (DistributedGroupBy) plan(
+                "select name, count(*) from users group by name order by 2 desc limit 10");
+        for (Projection projection : distributedGroupBy.collectNode().projections()) {
+            assertThat(projection, not(instanceOf(TopNCandidatesProjection.class)));
+        }
+        assertThat(distributedGroupBy.reducerMergeNode().projections().get(1), instanceOf(TopNProjection.class));
+    }
+
     @Test
     public void testGlobalAggregationPlan() throws Exception {
         GlobalAggregate globalAggregate = (GlobalAggregate) plan("select count(name) from users");
@@ -820,6 +919,31 @@ public class PlannerTest extends CrateUnitTest {
         assertThat(mergeNode.nullsFirst()[0], is(nullValue()));
     }
 
+    @Test
+    public void testNonDistributedGroupByOnClusteredColumnOrderedByGroupKey() throws Exception {
+        NonDistributedGroupBy planNode = (NonDistributedGroupBy) plan(
+                "select count(*), id from users group by id order by id desc limit 20");
+        CollectPhase collectPhase = planNode.collectPhase();
+        assertThat(collectPhase.orderBy(), notNullValue());
+        assertThat(collectPhase.orderBy().orderBySymbols().size(), is(1));
+        assertThat(collectPhase.orderBy().reverseFlags()[0], is(true));
+
+        GroupProjection groupProjection = (GroupProjection) collectPhase.projections().get(0);
+        assertThat(groupProjection.keysSorted(), is(true));
+        // groups are emitted in the order of the query
+        TopNProjection topN = (TopNProjection) collectPhase.projections().get(1);
+        assertThat(topN.isOrdered(), is(false));
+    }
+
+    @Test
+    public void testNonDistributedGroupByOnClusteredColumnOrderedByAggregateIsNotStreamed() throws Exception {
+        NonDistributedGroupBy planNode = (NonDistributedGroupBy) plan(
+                "select count(*), id from users group by id order by count(*) limit 20");
+        CollectPhase collectPhase = planNode.collectPhase();
+        assertThat(collectPhase.orderBy(), nullValue());
+        assertThat(((GroupProjection) collectPhase.projections().get(0)).keysSorted(), is(false));
+    }
+
     @Test
     public void testNoDistributedGroupByOnAllPrimaryKeys() throws Exception {
         NonDistributedGroupBy planNode = (NonDistributedGroupBy) plan(
@@ -1383,7 +1507,7 @@ public class PlannerTest extends CrateUnitTest {
         DistributedGroupBy distributedGroupBy = (DistributedGroupBy) plan(
                 "select avg(date), name from users group by name having min(date) > '1970-01-01'");
         CollectPhase collectPhase = distributedGroupBy.collectNode();
-        assertThat(collectPhase.projections().size(), is(1));
+        assertThat(collectPhase.projections().size(), is(2));
         assertThat(collectPhase.projections().get(0), instanceOf(GroupProjection.class));
 
         MergePhase mergeNode = distributedGroupBy.reducerMergeNode();
@@ -1734,6 +1858,28 @@ public class PlannerTest extends CrateUnitTest {
         assertThat(whereClause.noMatch(), is(false));
     }
 
+    @Test
+    public void testGlobalAggregateOnIndexMetadataIsDoneOnShards() throws Exception {
+        GlobalAggregate globalAggregate = (GlobalAggregate) plan(
+                "select count(*), min(date), max(id) from users");
+        CollectPhase collectPhase = globalAggregate.collectPhase();
+        assertThat(collectPhase.projections().size(), is(1));
+        assertThat(collectPhase.projections().get(0), instanceOf(AggregationProjection.class));
+        assertThat(collectPhase.projections().get(0).requiredGranularity(), is(RowGranularity.SHARD));
+    }
+
+    @Test
+    public void testGlobalAggregateWithQueryIsNotDoneOnShards() throws Exception {
+        GlobalAggregate globalAggregate = (GlobalAggregate) plan(
+                "select min(date) from users where name = 'Arthur'");
+        assertThat(globalAggregate.collectPhase().projections().get(0).requiredGranularity(),
+                is(RowGranularity.CLUSTER));
+
+        globalAggregate = (GlobalAggregate) plan("select count(*), min(name) from users");
+        assertThat(globalAggregate.collectPhase().projections().get(0).requiredGranularity(),
+                is(RowGranularity.CLUSTER));
+    }
+
     private void assertNoop(Plan plan){
         assertThat(plan, instanceOf(NoopPlan.class));
     }
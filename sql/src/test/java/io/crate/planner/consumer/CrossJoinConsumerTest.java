@@ -21,6 +21,8 @@
 
 package io.crate.planner.consumer;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import io.crate.Constants;
 import io.crate.analyze.*;
 import io.crate.analyze.relations.PlannedAnalyzedRelation;
@@ -31,9 +33,13 @@ import io.crate.metadata.NestedReferenceResolver;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.stats.ColumnStats;
+import io.crate.metadata.stats.TableStats;
+import io.crate.metadata.stats.TableStatsMetaData;
 import io.crate.metadata.table.SchemaInfo;
 import io.crate.metadata.table.TableInfo;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.operator.EqOperator;
 import io.crate.operation.operator.OperatorModule;
 import io.crate.operation.predicate.PredicateModule;
 import io.crate.operation.scalar.ScalarFunctionModule;
@@ -43,14 +49,24 @@ import io.crate.planner.Planner;
 import io.crate.planner.node.dql.CollectAndMerge;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.join.NestedLoop;
+import io.crate.planner.node.fetch.FetchSource;
+import io.crate.planner.projection.FetchProjection;
 import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.symbol.Literal;
 import io.crate.sql.parser.SqlParser;
 import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.inject.Binder;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.cluster.NoopClusterService;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -61,8 +77,12 @@ import org.junit.rules.ExpectedException;
 import java.util.Iterator;
 import java.util.UUID;
 
+import static io.crate.testing.TestingHelpers.isFetchRef;
+import static io.crate.testing.TestingHelpers.isField;
 import static io.crate.testing.TestingHelpers.isFunction;
 import static io.crate.testing.TestingHelpers.isReference;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.mock;
@@ -79,6 +99,7 @@ public class CrossJoinConsumerTest extends CrateUnitTest {
     private final CrossJoinConsumer consumer =
             new CrossJoinConsumer(clusterService, mock(AnalysisMetaData.class));
     private final Planner.Context plannerContext = new Planner.Context(clusterService, UUID.randomUUID(), null);
+    private ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT).build();
 
     @Before
     public void initPlanner() throws Exception {
@@ -99,7 +120,13 @@ public class CrossJoinConsumerTest extends CrateUnitTest {
         public void configure(Binder binder) {
             binder.bind(NestedReferenceResolver.class).toInstance(mock(NestedReferenceResolver.class));
             binder.bind(FulltextAnalyzerResolver.class).toInstance(mock(FulltextAnalyzerResolver.class));
-            binder.bind(ClusterService.class).toInstance(new NoopClusterService());
+            binder.bind(Settings.class).toInstance(ImmutableSettings.EMPTY);
+            binder.bind(ClusterService.class).toInstance(new NoopClusterService() {
+                @Override
+                public ClusterState state() {
+                    return clusterState;
+                }
+            });
             binder.bind(Schemas.class).toInstance(new Schemas() {
                 @Override
                 public DocTableInfo getWritableTable(TableIdent tableIdent) {
@@ -172,24 +199,15 @@ public class CrossJoinConsumerTest extends CrateUnitTest {
 
     @Test
     public void testExplicitCrossJoinWithoutLimitOrOrderBy() throws Exception {
-        expectedException.expect(ValidationException.class);
-        expectedException.expectMessage("Only fields that are used in ORDER BY can be selected within a CROSS JOIN");
         NestedLoop plan = plan("select u1.name, u2.name from users u1 cross join users u2");
-        /*
-        assertThat(plan.nestedLoopPhase().projections().size(), is(1));
+        assertThat(plan.nestedLoopPhase().projections().size(), is(2));
         TopNProjection topN = ((TopNProjection) plan.nestedLoopPhase().projections().get(0));
         assertThat(topN.limit(), is(Constants.DEFAULT_SELECT_LIMIT));
         assertThat(topN.offset(), is(0));
         assertThat(topN.outputs().size(), is(2));
 
-
-        assertThat(plan.left().resultNode().projections().size(), is(0));
-        MergePhase leftMerge = plan.nestedLoopPhase().leftMergePhase();
-        assertThat(leftMerge.projections().size(), is(0));
-
-        assertThat(plan.right().resultNode().projections().size(), is(0));
-        MergePhase rightMerge = plan.nestedLoopPhase().rightMergePhase();
-        assertThat(rightMerge.projections().size(), is(0));*/
+        FetchProjection fetchProjection = (FetchProjection) plan.nestedLoopPhase().projections().get(1);
+        assertThat(fetchProjection.outputs(), contains(isFetchRef(0, "_doc['name']"), isFetchRef(1, "_doc['name']")));
     }
 
     @SuppressWarnings("ConstantConditions")
@@ -221,6 +239,41 @@ public class CrossJoinConsumerTest extends CrateUnitTest {
         assertThat(cpR.nodePageSizeHint(), is(750));
     }
 
+    @Test
+    public void testJoinOrderWithoutStatsIsOrderByOrder() throws Exception {
+        NestedLoop plan = plan("select u1.name, u2.name from users u1, users u2 order by u2.name, u1.name");
+        assertThat(plan.joinOrder(), contains("u2", "u1"));
+    }
+
+    @Test
+    public void testSmallerRelationIsJoinedAsInnerRelation() throws Exception {
+        TableStats userStats = new TableStats(1000L, 0L,
+                ImmutableMap.<String, Long>of(), ImmutableMap.<String, ColumnStats>of());
+        clusterState = ClusterState.builder(ClusterName.DEFAULT)
+                .metaData(MetaData.builder().putCustom(TableStatsMetaData.TYPE,
+                        new TableStatsMetaData(ImmutableMap.of(BaseAnalyzerTest.userTableInfo.ident().fqn(), userStats))))
+                .build();
+
+        NestedLoop plan = plan("select u1.name, u2.name from users u1, users u2 " +
+                               "where u1.name = 'Arthur' order by u1.name, u2.name");
+        assertThat(plan.joinOrder(), contains("u2 (estimated rows: 1000)", "u1 (estimated rows: 250)"));
+    }
+
+    @Test
+    public void testEstimatedRows() throws Exception {
+        TableStats tableStats = new TableStats(1000L, 0L,
+                ImmutableMap.<String, Long>of(),
+                ImmutableMap.of("name", new ColumnStats(0.5, 50L, null, null, new double[0])));
+        QuerySpec querySpec = new QuerySpec()
+                .where(new WhereClause(TestingHelpers.createFunction(EqOperator.NAME, DataTypes.BOOLEAN,
+                        TestingHelpers.createReference("name", DataTypes.STRING), Literal.newLiteral("Arthur"))));
+        assertThat(CrossJoinConsumer.estimatedRows(tableStats, querySpec), is(10L));
+
+        querySpec.limit(5);
+        assertThat(CrossJoinConsumer.estimatedRows(tableStats, querySpec), is(5L));
+        assertThat(CrossJoinConsumer.estimatedRows(null, querySpec), is(Long.MAX_VALUE));
+    }
+
     @Test
     public void testCrossJoinWithGroupBy() throws Exception {
         expectedException.expect(ValidationException.class);
@@ -240,16 +293,41 @@ public class CrossJoinConsumerTest extends CrateUnitTest {
 
     @Test
     public void testCrossJoinWithFetchField() throws Exception {
-        expectedException.expect(ValidationException.class);
-        expectedException.expectMessage("Only fields that are used in ORDER BY can be selected within a CROSS JOIN");
-        plan("select u1.id, u2.name from users u1, users u2 order by u1.id");
+        NestedLoop plan = plan("select u1.id, u2.name from users u1, users u2 order by u1.id");
+
+        CollectPhase leftCollect = ((CollectAndMerge) plan.left().plan()).collectPhase();
+        assertThat(leftCollect.toCollect(), contains(isReference("id")));
+        CollectPhase rightCollect = ((CollectAndMerge) plan.right().plan()).collectPhase();
+        assertThat(rightCollect.toCollect(), contains(isReference("_docid")));
+
+        assertThat(plan.fetchPhase().collectPhaseIds(), contains(rightCollect.executionPhaseId()));
+        FetchProjection fetchProjection = (FetchProjection) plan.nestedLoopPhase().projections().get(1);
+        assertThat(fetchProjection.outputs(), contains(isField(0), isFetchRef(1, "_doc['name']")));
     }
 
     @Test
     public void testCrossJoinWithSelectAllFetch() throws Exception {
-        expectedException.expect(ValidationException.class);
-        expectedException.expectMessage("Only fields that are used in ORDER BY can be selected within a CROSS JOIN");
-        plan("select * from users u1, users u2 order by u1.id, u2.name");
+        NestedLoop plan = plan("select * from users u1, users u2 order by u1.id, u2.name");
+
+        CollectPhase leftCollect = ((CollectAndMerge) plan.left().plan()).collectPhase();
+        assertThat(leftCollect.toCollect(), contains(isReference("_docid"), isReference("id")));
+        CollectPhase rightCollect = ((CollectAndMerge) plan.right().plan()).collectPhase();
+        assertThat(rightCollect.toCollect(), contains(isReference("_docid"), isReference("name")));
 
+        TopNProjection topN = ((TopNProjection) plan.nestedLoopPhase().projections().get(0));
+        assertThat(topN.outputs().size(), is(4));
+        FetchProjection fetchProjection = (FetchProjection) plan.nestedLoopPhase().projections().get(1);
+        // both relations read the same table, so the docIds of both are resolved by the same fetch source
+        FetchSource fetchSource = Iterables.getOnlyElement(fetchProjection.fetchSources());
+        assertThat(fetchSource.docIdFields().size(), is(2));
+        assertThat(plan.fetchPhase().collectPhaseIds(),
+                containsInAnyOrder(leftCollect.executionPhaseId(), rightCollect.executionPhaseId()));
+    }
+
+    @Test
+    public void testCrossJoinWithoutFetch() throws Exception {
+        NestedLoop plan = plan("select u1.name, u2.name from users u1, users u2 order by u1.name, u2.name");
+        assertThat(plan.fetchPhase(), Matchers.nullValue());
+        assertThat(plan.nestedLoopPhase().projections().size(), is(1));
     }
 }
\ No newline at end of file
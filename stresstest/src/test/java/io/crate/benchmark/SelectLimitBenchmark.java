@@ -0,0 +1,88 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.carrotsearch.junitbenchmarks.annotation.LabelType;
+import io.crate.action.sql.SQLResponse;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+/**
+ * Measures the per-query overhead of small <code>SELECT ... LIMIT</code> queries.
+ *
+ * The result sets are tiny so the time is dominated by planning, job setup and
+ * the handover of the handler node's own share of the results.
+ *
+ * To compare a change run <code>./gradlew :stresstest:bench</code> on the commit before and after it,
+ * both runs are recorded in the benchmark history in <code>stresstest/build/reports/bench</code>.
+ */
+@AxisRange(min = 0)
+@BenchmarkHistoryChart(filePrefix="benchmark-select-limit-history", labelWith = LabelType.CUSTOM_KEY)
+@BenchmarkMethodChart(filePrefix = "benchmark-select-limit")
+public class SelectLimitBenchmark extends BenchmarkBase {
+
+    public static final int NUM_REQUESTS_PER_TEST = 200;
+    public static final int BENCHMARK_ROUNDS = 100;
+
+    @Rule
+    public TestRule benchmarkRun = RuleChain.outerRule(new BenchmarkRule()).around(super.ruleChain);
+
+    @Override
+    public boolean importData() {
+        return true;
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testSelectLimit() throws Exception {
+        for (int i = 0; i < NUM_REQUESTS_PER_TEST; i++) {
+            SQLResponse response = execute("select * from countries limit 10");
+            Assert.assertEquals(10L, response.rowCount());
+        }
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testSelectOrderByLimit() throws Exception {
+        for (int i = 0; i < NUM_REQUESTS_PER_TEST; i++) {
+            SQLResponse response = execute("select \"countryName\" from countries order by population desc limit 10");
+            Assert.assertEquals(10L, response.rowCount());
+        }
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testSelectWhereLimit() throws Exception {
+        for (int i = 0; i < NUM_REQUESTS_PER_TEST; i++) {
+            execute("select \"countryCode\", population from countries where population > 1000000 limit 5");
+        }
+    }
+}